@@ -91,6 +91,16 @@ public abstract class AsynchronousSectionedRenderer<RESPONSE extends Response> e
      */
     public abstract void endResponse() throws IOException;
 
+    /**
+     * Passes the output rendered so far on to the client. This is called when rendering is likely
+     * to suspend to wait for more data, but not at the end of each list, to avoid many small writes.
+     * Renderers which buffer output before writing it to the stream given in beginResponse
+     * must override this to write their buffered output before calling super.flush().
+     */
+    protected void flush() throws IOException {
+        stream.flush();
+    }
+
     private static final Logger logger = Logger.getLogger(AsynchronousSectionedRenderer.class.getName());
 
     // NOTE: Renderers are *prototype objects* - a new instance is created for each rendering by invoking 
@@ -356,7 +366,7 @@ public abstract class AsynchronousSectionedRenderer<RESPONSE extends Response> e
             if (list.complete().isDone()) // might not be when in before handover mode
                 endListLevel();
             else
-                stream.flush();
+                flush();
         }
 
         private void endListLevel() throws IOException {
@@ -552,7 +562,7 @@ public abstract class AsynchronousSectionedRenderer<RESPONSE extends Response> e
 
         protected void flushIfLikelyToSuspend(DataList list) throws IOException {
             // If the listener is not complete, we will (likely) suspend rendering
-            if ( ! list.incoming().isComplete()) stream.flush();
+            if ( ! list.incoming().isComplete()) flush();
         }
 
     }
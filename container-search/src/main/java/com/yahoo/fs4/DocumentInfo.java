@@ -17,21 +17,28 @@ public class DocumentInfo implements Cloneable {
     private final double metric;
     private final int partId;
     private final int distributionKey;
+    private final byte[] sortData;
 
-    DocumentInfo(ByteBuffer buffer, QueryResultPacket owner) {
+    DocumentInfo(ByteBuffer buffer, QueryResultPacket owner, byte[] sortData) {
         byte[] rawGid = new byte[GlobalId.LENGTH];
         buffer.get(rawGid);
         globalId = new GlobalId(rawGid);
         metric = decodeMetric(buffer);
         partId = owner.getMldFeature() ? buffer.getInt() : 0;
         distributionKey = owner.getMldFeature() ? buffer.getInt() : 0;
+        this.sortData = sortData;
     }
 
     public DocumentInfo(GlobalId globalId, int metric, int partId, int distributionKey) {
+        this(globalId, metric, partId, distributionKey, null);
+    }
+
+    public DocumentInfo(GlobalId globalId, double metric, int partId, int distributionKey, byte[] sortData) {
         this.globalId=globalId;
         this.metric=metric;
         this.partId=partId;
         this.distributionKey = distributionKey;
+        this.sortData = sortData;
     }
 
     private double decodeMetric(ByteBuffer buffer) {
@@ -49,6 +56,13 @@ public class DocumentInfo implements Cloneable {
     /** Unique key for the node this document resides on */
     public int getDistributionKey() { return distributionKey; }
 
+    /**
+     * Returns the sort data of this document, or null if the result was not sorted or sort data was not requested.
+     * Sort data is byte comparable: Comparing the sort data of two documents as unsigned bytes
+     * reproduces the order given by the sort spec of the query.
+     */
+    public byte[] getSortData() { return sortData; }
+
     public String toString() {
         return "document info [globalId=" + globalId + ", metric=" + metric + "]";
     }
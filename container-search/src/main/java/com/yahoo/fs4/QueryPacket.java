@@ -32,6 +32,11 @@ public class QueryPacket extends Packet {
     private int sessionSize = 0; // Length of sessionKey ignore section for cache key
     private int ignoreableOffset = 0; // Start of (hits/offset/timestamp) ignore section for cache key
     private int ignoreableSize = 0;  // Length of (hits/offset/timestamp) ignore section for cache key
+    private boolean retainSortData = false;
+
+    /** The window of hits requested by this, if set to differ from the window of the query */
+    private int offset = -1;
+    private int hits = -1;
 
     private QueryPacket(Query query) {
         this.query = query;
@@ -52,9 +57,28 @@ public class QueryPacket extends Packet {
     }
 
 
+    /**
+     * Sets whether the search nodes should return sort data with sorted results.
+     * This is needed when the results of multiple nodes are merged in this container.
+     * Default is false.
+     */
+    public void setRetainSortData(boolean retainSortData) {
+        this.retainSortData = retainSortData;
+    }
+
+    /**
+     * Sets the window of hits requested by this packet, instead of the offset and hits of the query.
+     * This is used to request the hits needed to produce the window of the query by merging the results
+     * of several search nodes. This must be set before the packet is encoded.
+     */
+    public void setWindow(int offset, int hits) {
+        this.offset = offset;
+        this.hits = hits;
+    }
+
     /** Returns the first offset requested */
     public int getOffset() {
-        return query.getOffset();
+        return offset >= 0 ? offset : query.getOffset();
     }
 
     /**
@@ -67,7 +91,7 @@ public class QueryPacket extends Packet {
 
     /** Returns the number of hits requested */
     public int getHits() {
-        return query.getHits();
+        return hits >= 0 ? hits : query.getHits();
     }
 
     private byte[] getSummaryClassAsUtf8() {
@@ -234,11 +258,11 @@ public class QueryPacket extends Packet {
          * which were used in the search which is byte comparable in
          * such a way the comparing SORTDATA for two different hits
          * will reproduce the order in which the data were returned when
-         * using sortspec.  For now we simply drop these. If they
-         * become necessar, QueryResultPacket must be
-         * updated to be able to read the sort data.
+         * using sortspec. It is only needed when results are merged
+         * in this container, so it is dropped unless explicitly retained.
          */
-        flags |= QFLAG_DROP_SORTDATA;
+        if ( ! retainSortData)
+            flags |= QFLAG_DROP_SORTDATA;
         return flags;
     }
 
@@ -108,11 +108,9 @@ public class QueryResultPacket extends Packet {
             nodesReplied = buffer.getShort();
         }
 
-        if (sortData && documentCount > 0) { // sort data is not needed - skip
-            buffer.position(buffer.position() + (documentCount -1) * 4); // one sortIndex int per document
-            int sortDataLengthInBytes = buffer.getInt();
-            buffer.position(buffer.position() + sortDataLengthInBytes);
-        }
+        byte[][] documentSortData = null;
+        if (sortData && documentCount > 0)
+            documentSortData = decodeSortData(buffer, documentCount);
 
         if (groupDataFeature) {
             int len = buffer.getInt();
@@ -125,7 +123,7 @@ public class QueryResultPacket extends Packet {
         soonActiveDocs = buffer.getLong();
         degradedReason = buffer.getInt();
 
-        decodeDocuments(buffer,documentCount);
+        decodeDocuments(buffer, documentCount, documentSortData);
         if (propsFeature) {
             int numMaps = buffer.getInt();
             propsArray = new FS4Properties[numMaps];
@@ -136,6 +134,19 @@ public class QueryResultPacket extends Packet {
         }
     }
 
+    /** Decodes the sort data of each document, given as an index of end offsets followed by the concatenated data */
+    private byte[][] decodeSortData(ByteBuffer buffer, int documentCount) {
+        int[] sortIndex = new int[documentCount + 1]; // the first index is implicitly 0
+        for (int i = 1; i <= documentCount; i++)
+            sortIndex[i] = buffer.getInt();
+        byte[][] documentSortData = new byte[documentCount][];
+        for (int i = 0; i < documentCount; i++) {
+            documentSortData[i] = new byte[sortIndex[i + 1] - sortIndex[i]];
+            buffer.get(documentSortData[i]);
+        }
+        return documentSortData;
+    }
+
     private Number decodeMaxRank(ByteBuffer buffer) {
         return Double.valueOf(buffer.getDouble());
     }
@@ -161,9 +172,9 @@ public class QueryResultPacket extends Packet {
         propsFeature     = (QRF_PROPERTIES & features) != 0;
     }
 
-    private void decodeDocuments(ByteBuffer buffer, int documentCount) {
+    private void decodeDocuments(ByteBuffer buffer, int documentCount, byte[][] documentSortData) {
         for (int i = 0; i < documentCount; i++) {
-            documents.add(new DocumentInfo(buffer, this));
+            documents.add(new DocumentInfo(buffer, this, documentSortData == null ? null : documentSortData[i]));
         }
     }
 
@@ -207,4 +218,19 @@ public class QueryResultPacket extends Packet {
     public short getNodesQueried() { return nodesQueried; }
     public short getNodesReplied() { return nodesReplied; }
 
+    /**
+     * Sets the coverage of this result.
+     * This is used when this packet holds the merged results of querying multiple search nodes.
+     */
+    public void setCoverage(long coverageDocs, long activeDocs, long soonActiveDocs, int degradedReason,
+                            short nodesQueried, short nodesReplied) {
+        this.coverageNodes = true;
+        this.coverageDocs = coverageDocs;
+        this.activeDocs = activeDocs;
+        this.soonActiveDocs = soonActiveDocs;
+        this.degradedReason = degradedReason;
+        this.nodesQueried = nodesQueried;
+        this.nodesReplied = nodesReplied;
+    }
+
 }
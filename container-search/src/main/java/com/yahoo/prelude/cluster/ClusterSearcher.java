@@ -11,6 +11,7 @@ import com.yahoo.concurrent.Receiver.MessageState;
 import com.yahoo.container.QrSearchersConfig;
 import com.yahoo.container.handler.VipStatus;
 import com.yahoo.fs4.mplex.Backend;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.container.search.LegacyEmulationConfig;
 import com.yahoo.net.HostName;
 import com.yahoo.prelude.fastsearch.DocsumDefinitionSet;
@@ -107,11 +108,12 @@ public class ClusterSearcher extends Searcher {
                            ClusterInfoConfig clusterInfoConfig,
                            Statistics manager,
                            FS4ResourcePool fs4ResourcePool,
-                           VipStatus vipStatus) {
+                           VipStatus vipStatus,
+                           Metric metric) {
         super(id);
         this.fs4ResourcePool = fs4ResourcePool;
 
-        Dispatcher dispatcher = new Dispatcher(dispatchConfig, fs4ResourcePool, clusterInfoConfig.nodeCount(), vipStatus);
+        Dispatcher dispatcher = new Dispatcher(dispatchConfig, fs4ResourcePool, clusterInfoConfig.nodeCount(), vipStatus, metric);
 
         monitor = (dispatcher.searchCluster().directDispatchTarget().isPresent()) // dispatcher should decide vip status instead
                 ? new ClusterMonitor(this, monitorConfig, Optional.empty())
@@ -130,7 +132,7 @@ public class ClusterSearcher extends Searcher {
         maxQueryCacheTimeout = ParameterParser.asMilliSeconds(clusterConfig.maxQueryCacheTimeout(),
                                                               DEFAULT_MAX_QUERY_CACHE_TIMEOUT);
 
-        CacheParams cacheParams = new CacheParams(createCache(clusterConfig, clusterModelName));
+        CacheParams cacheParams = new CacheParams(createCache(clusterConfig, clusterModelName, metric));
         SummaryParameters docSumParams = new SummaryParameters(qrsConfig
                 .com().yahoo().prelude().fastsearch().FastSearcher().docsum()
                 .defaultclass());
@@ -243,12 +245,13 @@ public class ClusterSearcher extends Searcher {
         return fs4ResourcePool.getBackend(disp.host(), disp.port());
     }
 
-    private static CacheControl createCache(ClusterConfig config, String clusterModelName) {
+    private static CacheControl createCache(ClusterConfig config, String clusterModelName, Metric metric) {
         log.log(Level.INFO, "Enabling cache for search cluster "
                             + clusterModelName + " (size=" + config.cacheSize()
                             + ", timeout=" + config.cacheTimeout() + ")");
 
-        return new CacheControl(config.cacheSize(), config.cacheTimeout());
+        return new CacheControl(config.cacheSize(), config.cacheTimeout(),
+                                metric, metric.createContext(Collections.singletonMap("clustername", clusterModelName)));
     }
 
     ClusterMonitor getMonitor() {
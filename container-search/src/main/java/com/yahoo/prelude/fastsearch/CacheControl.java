@@ -3,10 +3,11 @@ package com.yahoo.prelude.fastsearch;
 
 
 import com.yahoo.fs4.Packet;
-import com.yahoo.fs4.QueryPacket;
 import com.yahoo.fs4.QueryResultPacket;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.search.Query;
 import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.cache.ResultCache;
 
 
 /**
@@ -21,13 +22,29 @@ public class CacheControl {
     /** Whether this CacheControl actually should cache hits at all. */
     private final boolean activeCache;
 
-    /** Direct unsychronized cache access */
-    private final PacketCache packetCache;
+    /** The max size of a cached result as a percentage of the cache capacity */
+    private static final int maxCacheItemPercentage = 1;
+
+    private final ResultCache<CacheKey, PacketWrapper> packetCache;
 
     public CacheControl(int sizeMegaBytes, double cacheTimeOutSeconds) {
+        this(sizeMegaBytes, cacheTimeOutSeconds, null, null);
+    }
+
+    /**
+     * Creates a cache control which reports cache metrics
+     *
+     * @param sizeMegaBytes the size of the cache in megabytes, or 0 to not cache
+     * @param cacheTimeOutSeconds the time in seconds a cached result is valid, or 0 to not cache
+     * @param metric the metric to report cache hits, misses, evictions and size to, or null to not report
+     * @param metricContext the context of the metrics reported
+     */
+    public CacheControl(int sizeMegaBytes, double cacheTimeOutSeconds, Metric metric, Metric.Context metricContext) {
         activeCache = sizeMegaBytes > 0 && cacheTimeOutSeconds > 0.0d;
         if (activeCache) {
-            packetCache = new PacketCache(sizeMegaBytes, 0, cacheTimeOutSeconds);
+            packetCache = new ResultCache<>((long)sizeMegaBytes << 20, maxCacheItemPercentage,
+                                            (long)(cacheTimeOutSeconds * 1000.0d),
+                                            PacketWrapper::getPacketsSize, metric, metricContext);
         } else {
             packetCache = null;
         }
@@ -35,7 +52,7 @@ public class CacheControl {
 
     /** Returns the capacity of the packet cache in megabytes */
     public final int capacity() {
-        return packetCache.getCapacity();
+        return (int)(packetCache.capacity() >> 20);
     }
 
     public final boolean useCache(Query query) {
@@ -44,10 +61,7 @@ public class CacheControl {
 
     public final PacketWrapper lookup(CacheKey key, Query query) {
         if ((key != null) && useCache(query)) {
-            long now = System.currentTimeMillis();
-            synchronized (packetCache) {
-                return packetCache.get(key, now);
-            }
+            return packetCache.get(key);
         }
         return null;
     }
@@ -65,9 +79,7 @@ public class CacheControl {
         oldTimestamp = wrapper.getTimestamp();
         wrapper = (PacketWrapper) wrapper.clone();
         wrapper.addResultPacket(resultPacket);
-        synchronized (packetCache) {
-            packetCache.put(key, wrapper, oldTimestamp);
-        }
+        put(key, wrapper, oldTimestamp);
     }
 
     // updates phases after first phase phase in multi phase search
@@ -79,9 +91,7 @@ public class CacheControl {
 
         wrapper = (PacketWrapper) wrapper.clone();
         wrapper.addDocsums(packetKeys, packets);
-        synchronized (packetCache) {
-            packetCache.put(key, wrapper, wrapper.getTimestamp());
-        }
+        put(key, wrapper, wrapper.getTimestamp());
     }
 
     void cache(CacheKey key, Query query, DocsumPacketKey[] packetKeys, Packet[] packets) {
@@ -93,20 +103,24 @@ public class CacheControl {
         PacketWrapper wrapper = lookup(key, query);
         if (wrapper == null) {
             wrapper = new PacketWrapper(key, packetKeys,packets);
-            long now = System.currentTimeMillis();
-            synchronized (packetCache) {
-                packetCache.put(key, wrapper, now);
-            }
+            put(key, wrapper, System.currentTimeMillis());
         } else {
             wrapper = (PacketWrapper) wrapper.clone();
             wrapper.addResultPacket((QueryResultPacket) packets[0]);
             wrapper.addDocsums(packetKeys, packets, 1);
-            synchronized (packetCache) {
-                packetCache.put(key, wrapper, wrapper.getTimestamp());
-            }
+            put(key, wrapper, wrapper.getTimestamp());
         }
     }
 
+    private void put(CacheKey key, PacketWrapper wrapper, long timestamp) {
+        if (wrapper.getPacketsSize() > 0)
+            wrapper.setTimestamp(timestamp);
+        packetCache.put(key, wrapper, timestamp);
+    }
+
+    /** Returns the result cache used by this, or null if caching is not active */
+    public ResultCache<CacheKey, PacketWrapper> resultCache() { return packetCache; }
+
     /** Test method. */
     public void clear() {
         if (packetCache != null) {
@@ -26,6 +26,7 @@ import com.yahoo.search.dispatch.Dispatcher;
 import com.yahoo.search.dispatch.SearchCluster;
 import com.yahoo.search.grouping.GroupingRequest;
 import com.yahoo.search.grouping.request.GroupingOperation;
+import com.yahoo.search.grouping.vespa.GroupingExecutor;
 import com.yahoo.search.query.Ranking;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
@@ -56,6 +57,12 @@ public class FastSearcher extends VespaBackEndSearcher {
     /** If this is turned on this will make search queries directly to the local search node when possible */
     private final static CompoundName dispatchDirect = new CompoundName("dispatch.direct");
 
+    /**
+     * If this is turned on this will search all the nodes of a group directly and merge the results in this container,
+     * instead of searching through a dispatch node, when possible
+     */
+    private final static CompoundName dispatchInternal = new CompoundName("dispatch.internal");
+
     /** Unless turned off this will fill summaries by dispatching directly to search nodes over RPC when possible */
     private final static CompoundName dispatchSummaries = new CompoundName("dispatch.summaries");
 
@@ -172,10 +179,23 @@ public class FastSearcher extends VespaBackEndSearcher {
         try {
             if (dispatcher.searchCluster().groupSize() == 1)
                 forceSinglePassGrouping(query);
-            channel = chooseBackend(query).openChannel();
-            channel.setQuery(query);
 
-            Result result = searchTwoPhase(channel, query, queryPacket, cacheKey);
+            Result result;
+            Optional<SearchCluster.Group> group = chooseGroup(query);
+            if (group.isPresent()) {
+                long startTime = System.currentTimeMillis();
+                try {
+                    result = searchGroup(group.get(), query, cacheKey);
+                }
+                finally {
+                    dispatcher.releaseGroup(group.get(), System.currentTimeMillis() - startTime);
+                }
+            }
+            else {
+                channel = chooseBackend(query).openChannel();
+                channel.setQuery(query);
+                result = searchTwoPhase(channel, query, queryPacket, cacheKey);
+            }
 
             if (query.properties().getBoolean(Ranking.RANKFEATURES, false)) {
                 // There is currently no correct choice for which
@@ -233,6 +253,35 @@ public class FastSearcher extends VespaBackEndSearcher {
                                           directDispatchRecipient.get().fs4port());
     }
 
+    /**
+     * Returns the group to search by sending the query to each of its nodes directly and merging the results here,
+     * or empty to search through a single backend as returned by {@link #chooseBackend} instead.
+     */
+    private Optional<SearchCluster.Group> chooseGroup(Query query) {
+        if ( ! query.properties().getBoolean(dispatchInternal, false)) return Optional.empty();
+        if (query.properties().getBoolean(com.yahoo.search.query.Model.ESTIMATE)) return Optional.empty();
+        if (GroupingExecutor.hasGroupingList(query)) return Optional.empty(); // grouping results are merged by fdispatch
+        if (dispatcher.searchCluster().directDispatchTarget().isPresent()) return Optional.empty(); // local node is cheaper
+
+        Optional<SearchCluster.Group> group = dispatcher.takeGroupForQuery(query);
+        if (group.isPresent())
+            query.trace(false, 2, "Dispatching directly to ", group.get());
+        return group;
+    }
+
+    private Result searchGroup(SearchCluster.Group group, Query query, CacheKey cacheKey) throws IOException {
+        QueryPacket groupQueryPacket = QueryPacket.create(query);
+        groupQueryPacket.setWindow(0, query.getOffset() + query.getHits());
+        groupQueryPacket.setRetainSortData(true);
+        int compressionLimit = query.properties().getInteger(PACKET_COMPRESSION_LIMIT, 0);
+        groupQueryPacket.setCompressionLimit(compressionLimit);
+        if (compressionLimit != 0)
+            groupQueryPacket.setCompressionType(query.properties().getString(PACKET_COMPRESSION_TYPE, "lz4"));
+
+        QueryResultPacket resultPacket = dispatcher.search(query, groupQueryPacket, group);
+        return toResult(query, groupQueryPacket, resultPacket, cacheKey);
+    }
+
     /**
      * Perform a partial docsum fill for a temporary result
      * representing a partition of the complete fill request.
@@ -405,8 +454,11 @@ public class FastSearcher extends VespaBackEndSearcher {
             getLogger().finest("got packets " + basicPackets.length + " packets");
 
         ensureInstanceOf(QueryResultPacket.class, basicPackets[0], getName());
-        QueryResultPacket resultPacket = (QueryResultPacket) basicPackets[0];
+        return toResult(query, queryPacket, (QueryResultPacket) basicPackets[0], cacheKey);
+    }
 
+    /** Creates a result from a result packet and caches it if applicable */
+    private Result toResult(Query query, QueryPacket queryPacket, QueryResultPacket resultPacket, CacheKey cacheKey) {
         if (isLoggingFine())
             getLogger().finest("got query packet. " + "docsumClass=" + query.getPresentation().getSummary());
 
@@ -107,10 +107,17 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
     protected boolean summaryNeedsQuery(Query query) {
         if (query.getRanking().getQueryCache()) return false;  // Query is cached in backend
 
-        DocumentDatabase documentDb = getDocumentDatabase(query);
+        return summaryDependsOnQuery(query, query.getPresentation().getSummary(), getDocumentDatabase(query));
+    }
 
+    /**
+     * Returns whether the given summary class depends on the query, and not just on the document,
+     * such that summaries filled for one query cannot be reused for another.
+     * This is the case if the query requests summary features or dynamic snippeting
+     */
+    public static boolean summaryDependsOnQuery(Query query, String summaryClass, DocumentDatabase documentDb) {
         // Needed to generate a dynamic summary?
-        DocsumDefinition docsumDefinition = documentDb.getDocsumDefinitionSet().getDocsum(query.getPresentation().getSummary());
+        DocsumDefinition docsumDefinition = documentDb.getDocsumDefinitionSet().getDocsum(summaryClass);
         if (docsumDefinition.isDynamic()) return true;
 
         // Needed to generate ranking features?
@@ -119,8 +126,6 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
         if (rankProfile.hasSummaryFeatures()) return true;
         if (query.getRanking().getListFeatures()) return true;
 
-        // (Don't just add other checks here as there is a return false above)
-
         return false;
     }
 
@@ -0,0 +1,199 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A cache of byte arrays stored in direct memory outside the java heap, such that the cached data does not
+ * add to the heap the garbage collector must trace and compact.
+ *
+ * Values are written one after another into a ring of fixed size memory slabs, which are allocated as needed.
+ * When the ring is full the oldest values are overwritten, so the cache is bounded by its capacity in bytes and
+ * evicts in insertion order. Only the index from keys to locations in the ring is stored on the heap.
+ * Values older than the max age are treated as missing.
+ *
+ * This class is multithread safe.
+ *
+ * @param <K> the type of the keys of this cache
+ */
+public class OffHeapCache<K> {
+
+    /** The max size of a memory slab. Values larger than this (or the capacity) will not be cached */
+    private static final int maxSlabSize = 1 << 26; // 64 Mb
+
+    private final ByteBuffer[] slabs; // guarded by lock
+    private final int slabSize;
+    private final long capacity;
+    private final long maxAgeMillis;
+    private final Clock clock;
+
+    private final Map<K, Location> index = new ConcurrentHashMap<>();
+
+    /** The values in the ring in the order they were written. Guarded by the write lock */
+    private final ArrayDeque<Map.Entry<K, Location>> writeOrder = new ArrayDeque<>();
+
+    /** The total number of bytes which have been written to the ring. Guarded by lock */
+    private long writePosition = 0;
+
+    /** Readers hold the read lock while copying out data, writers hold the write lock while writing */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an off-heap cache
+     *
+     * @param capacity the max total size in bytes of the values in this cache
+     * @param maxAgeMillis the max time in milliseconds a value is valid after it is added
+     */
+    public OffHeapCache(long capacity, long maxAgeMillis) {
+        this(capacity, maxAgeMillis, maxSlabSize, Clock.systemUTC());
+    }
+
+    OffHeapCache(long capacity, long maxAgeMillis, int maxSlabSize, Clock clock) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Cache capacity must be positive, not " + capacity);
+        if (maxAgeMillis <= 0)
+            throw new IllegalArgumentException("Max age must be positive, not " + maxAgeMillis);
+
+        this.slabSize = (int)Math.min(capacity, maxSlabSize);
+        int slabCount = (int)((capacity + slabSize - 1) / slabSize);
+        this.slabs = new ByteBuffer[slabCount];
+        this.capacity = (long)slabCount * slabSize;
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+    }
+
+    /** Returns a copy of the value cached for this key, or null if none, or it has expired */
+    public byte[] get(K key) {
+        Location location = index.get(key);
+        if (location == null || isExpired(location)) {
+            if (location != null)
+                index.remove(key, location);
+            misses.increment();
+            return null;
+        }
+
+        byte[] value = new byte[location.length];
+        lock.readLock().lock();
+        try {
+            if (isOverwritten(location)) {
+                misses.increment();
+                return null;
+            }
+            ByteBuffer slab = slabs[slabIndex(location.position)].duplicate();
+            slab.position(slabOffset(location.position));
+            slab.get(value);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        hits.increment();
+        return value;
+    }
+
+    /**
+     * Adds a value to this. If the value is larger than the max item size it is not cached,
+     * and any existing value for the key is removed.
+     */
+    public void put(K key, byte[] value) {
+        if (value.length > slabSize) {
+            index.remove(key);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (slabOffset(writePosition) + value.length > slabSize) // skip the rest of the slab
+                writePosition += slabSize - slabOffset(writePosition);
+            Location location = new Location(writePosition, value.length, clock.millis());
+            writePosition += value.length;
+            evictOverwritten();
+
+            int slabIndex = slabIndex(location.position);
+            if (slabs[slabIndex] == null)
+                slabs[slabIndex] = ByteBuffer.allocateDirect(slabSize);
+            ByteBuffer slab = slabs[slabIndex].duplicate();
+            slab.position(slabOffset(location.position));
+            slab.put(value);
+
+            index.put(key, location);
+            writeOrder.addLast(new AbstractMap.SimpleImmutableEntry<>(key, location));
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Removes the value of the given key, if any */
+    public void remove(K key) {
+        index.remove(key);
+    }
+
+    /** Returns the max total size of the values in this in bytes */
+    public long capacity() { return capacity; }
+
+    /** Returns the number of values in this */
+    public int size() { return index.size(); }
+
+    /** Returns the number of lookups which found a value */
+    public long hits() { return hits.sum(); }
+
+    /** Returns the number of lookups which did not find a value */
+    public long misses() { return misses.sum(); }
+
+    /** Returns the number of values which have been overwritten by newer values */
+    public long evictions() { return evictions.sum(); }
+
+    /** Removes the locations which are overwritten at the current write position from the index */
+    private void evictOverwritten() {
+        while ( ! writeOrder.isEmpty() && isOverwritten(writeOrder.peekFirst().getValue())) {
+            Map.Entry<K, Location> oldest = writeOrder.removeFirst();
+            if (index.remove(oldest.getKey(), oldest.getValue()))
+                evictions.increment();
+        }
+    }
+
+    private boolean isExpired(Location location) {
+        return clock.millis() - location.timestamp > maxAgeMillis;
+    }
+
+    private boolean isOverwritten(Location location) {
+        return location.position < writePosition - capacity;
+    }
+
+    private int slabIndex(long position) {
+        return (int)((position % capacity) / slabSize);
+    }
+
+    private int slabOffset(long position) {
+        return (int)(position % slabSize);
+    }
+
+    /** The location of a value in the ring */
+    private static class Location {
+
+        /** The position of this in the total sequence of bytes written to the ring */
+        final long position;
+        final int length;
+        final long timestamp;
+
+        Location(long position, int length, long timestamp) {
+            this.position = position;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+
+    }
+
+}
@@ -0,0 +1,344 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache;
+
+import com.yahoo.jdisc.Metric;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * A concurrent cache of results bounded by the total size in bytes of the cached values.
+ *
+ * The cache is split into shards by key hash, each guarded by its own lock, such that lookups of different
+ * keys mostly do not contend. Each shard is a segmented LRU: New entries are admitted to a probation segment,
+ * and are promoted to a protected segment if they are looked up again. Entries are evicted from the least recently
+ * used end of the probation segment first, so a burst of results which are requested only once cannot push out the
+ * results which are requested repeatedly.
+ *
+ * Entries older than the max age are treated as missing and removed when looked up.
+ *
+ * Hits, misses, evictions and the current size of the cache are counted and, if a metric is given,
+ * reported as metrics.
+ *
+ * This class is multithread safe.
+ *
+ * @param <K> the type of the keys of this cache
+ * @param <V> the type of the values of this cache
+ */
+public class ResultCache<K, V> {
+
+    public static final String hitsMetric = "search_result_cache_hits";
+    public static final String missesMetric = "search_result_cache_misses";
+    public static final String evictionsMetric = "search_result_cache_evictions";
+    public static final String bytesMetric = "search_result_cache_bytes";
+
+    private static final int defaultShardCount = 16;
+
+    /** The fraction of the capacity of a shard which is used for the protected segment */
+    private static final double protectedFraction = 0.8;
+
+    private final List<Shard> shards;
+    private final long capacity;
+    private final long maxItemSize;
+    private final long maxAgeMillis;
+    private final ToLongFunction<V> sizer;
+    private final Clock clock;
+    private final Metric metric;
+    private final Metric.Context metricContext;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** The total size of the values in this, updated by the shards such that reading it takes no shard locks */
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Creates a cache which does not report metrics
+     *
+     * @param capacity the max total size in bytes of the values in this cache
+     * @param maxItemPercentage the max size of a single value as a percentage of the capacity.
+     *                          Larger values will not be cached
+     * @param maxAgeMillis the max time in milliseconds an entry is valid after it is added
+     * @param sizer returns the size in bytes of a value
+     */
+    public ResultCache(long capacity, int maxItemPercentage, long maxAgeMillis, ToLongFunction<V> sizer) {
+        this(capacity, maxItemPercentage, maxAgeMillis, sizer, null, null);
+    }
+
+    /**
+     * Creates a cache which reports metrics
+     *
+     * @param capacity the max total size in bytes of the values in this cache
+     * @param maxItemPercentage the max size of a single value as a percentage of the capacity.
+     *                          Larger values will not be cached
+     * @param maxAgeMillis the max time in milliseconds an entry is valid after it is added
+     * @param sizer returns the size in bytes of a value
+     * @param metric the metric to report to, or null to not report metrics
+     * @param metricContext the context of the metrics to report, or null to use no context
+     */
+    public ResultCache(long capacity, int maxItemPercentage, long maxAgeMillis, ToLongFunction<V> sizer,
+                       Metric metric, Metric.Context metricContext) {
+        this(capacity, maxItemPercentage, maxAgeMillis, sizer, metric, metricContext,
+             defaultShardCount, Clock.systemUTC());
+    }
+
+    ResultCache(long capacity, int maxItemPercentage, long maxAgeMillis, ToLongFunction<V> sizer,
+                Metric metric, Metric.Context metricContext, int shardCount, Clock clock) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Cache capacity must be positive, not " + capacity);
+        if (maxAgeMillis <= 0)
+            throw new IllegalArgumentException("Max age must be positive, not " + maxAgeMillis);
+        if (shardCount <= 0 || Integer.bitCount(shardCount) != 1)
+            throw new IllegalArgumentException("Shard count must be a power of 2, not " + shardCount);
+
+        this.capacity = capacity;
+        this.maxItemSize = Math.min(capacity / shardCount, capacity * maxItemPercentage / 100);
+        this.maxAgeMillis = maxAgeMillis;
+        this.sizer = sizer;
+        this.clock = clock;
+        this.metric = metric;
+        this.metricContext = metricContext;
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++)
+            shards.add(new Shard(capacity / shardCount));
+    }
+
+    /** Returns the value cached for this key, or null if none, or it has expired */
+    public V get(K key) {
+        V value = shardOf(key).get(key, clock.millis());
+        if (value != null) {
+            hits.increment();
+            report(hitsMetric, 1);
+        }
+        else {
+            misses.increment();
+            report(missesMetric, 1);
+        }
+        return value;
+    }
+
+    /** Adds a value to this, timestamped now. */
+    public void put(K key, V value) {
+        put(key, value, clock.millis());
+    }
+
+    /**
+     * Adds a value to this. If the value is larger than the max item size it is not cached,
+     * and any existing value for the key is removed.
+     *
+     * @param timestamp the time in milliseconds at which this value was created, which determines when it expires
+     */
+    public void put(K key, V value, long timestamp) {
+        long size = sizer.applyAsLong(value);
+        if (size > maxItemSize) {
+            remove(key);
+            return;
+        }
+        int evicted = shardOf(key).put(key, new Entry<>(value, size, timestamp));
+        if (evicted > 0) {
+            evictions.add(evicted);
+            report(evictionsMetric, evicted);
+        }
+        if (metric != null)
+            metric.set(bytesMetric, byteSize(), metricContext);
+    }
+
+    /** Removes the value of the given key. Returns the removed value, or null if none */
+    public V remove(K key) {
+        return shardOf(key).remove(key);
+    }
+
+    /** Removes all entries in this */
+    public void clear() {
+        for (Shard shard : shards)
+            shard.clear();
+    }
+
+    /** Returns the max total size of the values in this in bytes */
+    public long capacity() { return capacity; }
+
+    /** Returns the current total size of the values in this in bytes */
+    public long byteSize() { return bytes.sum(); }
+
+    /** Returns the number of entries in this */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards)
+            size += shard.size();
+        return size;
+    }
+
+    /** Returns the number of lookups which found a value */
+    public long hits() { return hits.sum(); }
+
+    /** Returns the number of lookups which did not find a value */
+    public long misses() { return misses.sum(); }
+
+    /** Returns the number of entries which have been removed to make room for others */
+    public long evictions() { return evictions.sum(); }
+
+    private void report(String name, long value) {
+        if (metric == null) return;
+        metric.add(name, value, metricContext);
+    }
+
+    private Shard shardOf(K key) {
+        int hash = key.hashCode();
+        return shards.get((hash ^ (hash >>> 16)) & (shards.size() - 1));
+    }
+
+    private static class Entry<V> {
+
+        final V value;
+        final long size;
+        final long timestamp;
+
+        Entry(V value, long size, long timestamp) {
+            this.value = value;
+            this.size = size;
+            this.timestamp = timestamp;
+        }
+
+    }
+
+    /** A segmented LRU cache of a part of the key space. All access is guarded by this. */
+    private class Shard {
+
+        private final long capacity;
+        private final long protectedCapacity;
+
+        /** Entries which have been looked up only once since they were added, in access order */
+        private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+        /** Entries which have been looked up more than once, in access order */
+        private final LinkedHashMap<K, Entry<V>> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private long probationSize = 0;
+        private long protectedSize = 0;
+
+        Shard(long capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = (long)(capacity * protectedFraction);
+        }
+
+        synchronized V get(K key, long now) {
+            Entry<V> entry = protectedEntries.get(key);
+            if (entry == null) {
+                entry = probation.get(key);
+                if (entry == null) return null;
+                if (isExpired(entry, now)) {
+                    removeFromProbation(key);
+                    bytes.add(-entry.size);
+                    return null;
+                }
+                removeFromProbation(key);
+                addToProtected(key, entry);
+                return entry.value;
+            }
+            if (isExpired(entry, now)) {
+                removeFromProtected(key);
+                bytes.add(-entry.size);
+                return null;
+            }
+            return entry.value;
+        }
+
+        /** Adds an entry and returns the number of entries evicted to make room for it */
+        synchronized int put(K key, Entry<V> entry) {
+            long sizeBefore = byteSize();
+            if (protectedEntries.containsKey(key)) { // stays protected, as the most recently used entry
+                removeFromProtected(key);
+                addToProtected(key, entry);
+            }
+            else { // (re)enters probation as the most recently used entry
+                removeFromProbation(key);
+                probation.put(key, entry);
+                probationSize += entry.size;
+            }
+            int evicted = evictOverflow();
+            bytes.add(byteSize() - sizeBefore);
+            return evicted;
+        }
+
+        synchronized V remove(K key) {
+            Entry<V> removed = removeFromProtected(key);
+            if (removed == null)
+                removed = removeFromProbation(key);
+            if (removed == null) return null;
+            bytes.add(-removed.size);
+            return removed.value;
+        }
+
+        synchronized void clear() {
+            bytes.add(-byteSize());
+            probation.clear();
+            protectedEntries.clear();
+            probationSize = 0;
+            protectedSize = 0;
+        }
+
+        private long byteSize() { return probationSize + protectedSize; }
+
+        synchronized int size() { return probation.size() + protectedEntries.size(); }
+
+        private boolean isExpired(Entry<V> entry, long now) {
+            return now - entry.timestamp > maxAgeMillis;
+        }
+
+        /** Adds an entry to the protected segment, demoting the least recently used entries if it becomes too large */
+        private void addToProtected(K key, Entry<V> entry) {
+            protectedEntries.put(key, entry);
+            protectedSize += entry.size;
+            for (Iterator<Map.Entry<K, Entry<V>>> i = protectedEntries.entrySet().iterator();
+                 protectedSize > protectedCapacity && protectedEntries.size() > 1; ) {
+                Map.Entry<K, Entry<V>> eldest = i.next();
+                i.remove();
+                protectedSize -= eldest.getValue().size;
+                probation.put(eldest.getKey(), eldest.getValue());
+                probationSize += eldest.getValue().size;
+            }
+        }
+
+        private Entry<V> removeFromProtected(K key) {
+            Entry<V> removed = protectedEntries.remove(key);
+            if (removed != null)
+                protectedSize -= removed.size;
+            return removed;
+        }
+
+        private Entry<V> removeFromProbation(K key) {
+            Entry<V> removed = probation.remove(key);
+            if (removed != null)
+                probationSize -= removed.size;
+            return removed;
+        }
+
+        /** Evicts from the probation segment first, then the protected. Returns the number of entries evicted */
+        private int evictOverflow() {
+            return evictFrom(probation, true) + evictFrom(protectedEntries, false);
+        }
+
+        private int evictFrom(LinkedHashMap<K, Entry<V>> segment, boolean isProbation) {
+            int evicted = 0;
+            for (Iterator<Entry<V>> i = segment.values().iterator(); probationSize + protectedSize > capacity && i.hasNext(); ) {
+                Entry<V> eldest = i.next();
+                i.remove();
+                if (isProbation)
+                    probationSize -= eldest.size;
+                else
+                    protectedSize -= eldest.size;
+                evicted++;
+            }
+            return evicted;
+        }
+
+    }
+
+}
@@ -8,26 +8,40 @@ import com.yahoo.compress.CompressionType;
 import com.yahoo.compress.Compressor;
 import com.yahoo.container.handler.VipStatus;
 import com.yahoo.container.protect.Error;
+import com.yahoo.document.GlobalId;
+import com.yahoo.fs4.BasicPacket;
+import com.yahoo.fs4.ChannelTimeoutException;
+import com.yahoo.fs4.QueryPacket;
+import com.yahoo.fs4.QueryResultPacket;
+import com.yahoo.fs4.mplex.FS4Channel;
+import com.yahoo.fs4.mplex.InvalidChannelException;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.prelude.fastsearch.DocumentDatabase;
 import com.yahoo.slime.ArrayTraverser;
 import com.yahoo.data.access.slime.SlimeAdapter;
 import com.yahoo.prelude.fastsearch.FS4ResourcePool;
 import com.yahoo.prelude.fastsearch.FastHit;
 import com.yahoo.prelude.fastsearch.TimeoutException;
+import com.yahoo.prelude.fastsearch.VespaBackEndSearcher;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
+import com.yahoo.search.cache.OffHeapCache;
 import com.yahoo.search.query.SessionId;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
 import com.yahoo.data.access.Inspector;
 import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.BinaryView;
 import com.yahoo.slime.Cursor;
 import com.yahoo.slime.Slime;
 import com.yahoo.vespa.config.search.DispatchConfig;
 
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -37,7 +51,8 @@ import java.util.logging.Logger;
 /**
  * A dispatcher communicates with search nodes to perform queries and fill hits.
  *
- * This is currently not functionally complete: Queries can only be dispatched to a single node,
+ * This is currently not functionally complete: Queries are sent to the nodes of a group over fs4
+ * and merged here, as the search nodes do not yet accept queries over rpc,
  * and summaries can only be requested when they do not need the query.
  *
  * This class is multithread safe.
@@ -51,16 +66,28 @@ public class Dispatcher extends AbstractComponent {
 
     /** A model of the search cluster this dispatches to */
     private final SearchCluster searchCluster;
+
+    /** Selects the group of the search cluster to dispatch each query to */
+    private final LoadBalancer loadBalancer;
     
     /** Connections to the search nodes this talks to, indexed by node id ("partid") */
     private final ImmutableMap<Integer, Client.NodeConnection> nodeConnections;
 
     private final Compressor compressor = new Compressor();
 
+    // Only needed until query requests are moved to rpc
+    private final FS4ResourcePool fs4ResourcePool;
+
+    /** The cache of summaries which are filled, or null if summaries are not cached */
+    private final OffHeapCache<SummaryKey> summaryCache;
+
     public Dispatcher(DispatchConfig dispatchConfig, FS4ResourcePool fs4ResourcePool,
-                      int containerClusterSize, VipStatus vipStatus) {
+                      int containerClusterSize, VipStatus vipStatus, Metric metric) {
         this.client = new RpcClient();
+        this.fs4ResourcePool = fs4ResourcePool;
         this.searchCluster = new SearchCluster(dispatchConfig, fs4ResourcePool, containerClusterSize, vipStatus);
+        this.loadBalancer = new LoadBalancer(searchCluster.groups().values(), metric);
+        this.summaryCache = createSummaryCache(dispatchConfig.summaryCacheSize(), dispatchConfig.summaryCacheTimeout());
 
         // Create node rpc connections, indexed by the legacy "partid", which allows us to bridge
         // between fs4 calls (for search) and rpc calls (for summary fetch)
@@ -73,27 +100,158 @@ public class Dispatcher extends AbstractComponent {
 
     /** For testing */
     public Dispatcher(Map<Integer, Client.NodeConnection> nodeConnections, Client client) {
+        this(nodeConnections, client, 0, 0);
+    }
+
+    /** For testing */
+    public Dispatcher(Map<Integer, Client.NodeConnection> nodeConnections, Client client,
+                      int summaryCacheSizeMegaBytes, double summaryCacheTimeoutSeconds) {
         this.searchCluster = null;
+        this.loadBalancer = null;
+        this.fs4ResourcePool = null;
+        this.summaryCache = createSummaryCache(summaryCacheSizeMegaBytes, summaryCacheTimeoutSeconds);
         this.nodeConnections = ImmutableMap.copyOf(nodeConnections);
         this.client = client;
     }
+
+    private static OffHeapCache<SummaryKey> createSummaryCache(int sizeMegaBytes, double timeoutSeconds) {
+        if (sizeMegaBytes <= 0 || timeoutSeconds <= 0) return null;
+        return new OffHeapCache<>((long)sizeMegaBytes << 20, (long)(timeoutSeconds * 1000));
+    }
     
     /** Returns the search cluster this dispatches to */
     public SearchCluster searchCluster() { return searchCluster; }
 
-    /** Fills the given summary class by sending RPC requests to the right search nodes */
+    /**
+     * Selects and allocates the group the given query should be dispatched to.
+     * The returned group must be released by calling {@link #releaseGroup} when the query completes,
+     * whether or not it succeeds.
+     *
+     * @return the group to dispatch to, or empty if no group can currently receive queries
+     */
+    public Optional<SearchCluster.Group> takeGroupForQuery(Query query) {
+        Optional<SearchCluster.Group> group = loadBalancer.takeGroupForQuery();
+        if (group.isPresent() && query.getTraceLevel() >= 4)
+            query.trace("Selected " + group.get() + " having " + loadBalancer.activeQueries(group.get()) +
+                        " active queries and average latency " + loadBalancer.averageLatency(group.get()) + " ms", 4);
+        return group;
+    }
+
+    /**
+     * Searches all the nodes of the given group and returns the merged result.
+     * The query is sent to all the nodes before any response is awaited, such that the nodes are searched in parallel.
+     * If some, but not all, nodes fail to respond, the result is returned with reduced coverage.
+     *
+     * @param query the query to search
+     * @param queryPacket the packet to send to each node. This must request offset 0 and offset+hits hits
+     *                    of the query, such that the requested window can be produced by merging the results
+     * @param group the group to search, as returned by {@link #takeGroupForQuery}
+     * @return the merged result of the nodes in the group
+     * @throws TimeoutException if no node responded within the timeout of the query
+     * @throws IOException if no node responded because of communication errors
+     */
+    public QueryResultPacket search(Query query, QueryPacket queryPacket, SearchCluster.Group group)
+            throws TimeoutException, IOException {
+        List<SearchCluster.Node> nodes = group.nodes();
+        FS4Channel[] channels = new FS4Channel[nodes.size()];
+        try {
+            for (int i = 0; i < nodes.size(); i++)
+                channels[i] = sendQuery(query, queryPacket, nodes.get(i));
+            return receiveResults(query, nodes, channels);
+        }
+        finally {
+            for (FS4Channel channel : channels)
+                if (channel != null)
+                    channel.close();
+        }
+    }
+
+    /**
+     * Releases a group returned by {@link #takeGroupForQuery}
+     *
+     * @param group the group which was taken
+     * @param latencyMillis the time the query took in this group
+     */
+    public void releaseGroup(SearchCluster.Group group, long latencyMillis) {
+        loadBalancer.releaseGroup(group, latencyMillis);
+    }
+
+    /** Sends the query to a node and returns the channel to receive the result on, or null if it could not be sent */
+    private FS4Channel sendQuery(Query query, QueryPacket queryPacket, SearchCluster.Node node) {
+        FS4Channel channel = fs4ResourcePool.getBackend(node.hostname(), node.fs4port()).openChannel();
+        channel.setQuery(query);
+        try {
+            if (channel.sendPacket(queryPacket)) return channel;
+            query.trace(false, 2, "Could not send query to ", node);
+        }
+        catch (InvalidChannelException | IllegalStateException | IOException e) {
+            query.trace(false, 2, "Could not send query to ", node, ": ", e.getMessage());
+        }
+        channel.close();
+        return null;
+    }
+
+    private QueryResultPacket receiveResults(Query query, List<SearchCluster.Node> nodes, FS4Channel[] channels)
+            throws TimeoutException, IOException {
+        QueryResultMerger merger = new QueryResultMerger(query.getOffset(), query.getHits(),
+                                                         query.getRanking().getSorting() != null, nodes.size());
+        int timeouts = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            SearchCluster.Node node = nodes.get(i);
+            try {
+                if (channels[i] == null) {
+                    merger.addFailed();
+                    continue;
+                }
+                BasicPacket[] packets = channels[i].receivePackets(Math.max(0, query.getTimeLeft()), 1);
+                if (packets.length > 0 && packets[0] instanceof QueryResultPacket) {
+                    merger.add((QueryResultPacket)packets[0], node.key());
+                }
+                else {
+                    query.trace(false, 2, "Unexpected response from ", node);
+                    merger.addFailed();
+                }
+            }
+            catch (ChannelTimeoutException e) {
+                query.trace(false, 2, "Timeout while waiting for ", node);
+                merger.addFailed();
+                timeouts++;
+            }
+            catch (InvalidChannelException e) {
+                query.trace(false, 2, "Invalid channel for ", node);
+                merger.addFailed();
+            }
+        }
+        if (merger.resultCount() == 0) {
+            if (timeouts > 0)
+                throw new TimeoutException("Timeout while waiting for " + timeouts + " search nodes");
+            throw new IOException("Could not get a result from any of the " + nodes.size() + " search nodes");
+        }
+        return merger.toResult();
+    }
+
+    /**
+     * Fills the given summary class by sending RPC requests to the right search nodes.
+     * If a summary cache is configured, and the summary class does not depend on the query,
+     * hits are filled from it when possible, and the summaries received are added to it.
+     */
     public void fill(Result result, String summaryClass, DocumentDatabase documentDb, CompressionType compression) {
         try {
-            ListMap<Integer, FastHit> hitsByNode = hitsByNode(result);
+            OffHeapCache<SummaryKey> cache = summaryCacheFor(result.getQuery(), summaryClass, documentDb);
+            ListMap<Integer, FastHit> hitsByNode = hitsByNode(result, summaryClass, documentDb, cache);
 
             if (result.getQuery().getTraceLevel() >=3)
                 result.getQuery().trace("Sending " + hitsByNode.size() + " summary fetch RPC requests", 3);
 
-            GetDocsumsResponseReceiver responseReceiver = new GetDocsumsResponseReceiver(hitsByNode.size(), compressor, result);
-            for (Map.Entry<Integer, List<FastHit>> nodeHits : hitsByNode.entrySet()) {
-                sendGetDocsumsRequest(nodeHits.getKey(), nodeHits.getValue(), summaryClass, compression, result, responseReceiver);
+            if (hitsByNode.size() > 0) {
+                GetDocsumsResponseReceiver responseReceiver =
+                        new GetDocsumsResponseReceiver(hitsByNode.size(), compressor, result,
+                                                       cache, summaryClass, documentDb.getName());
+                for (Map.Entry<Integer, List<FastHit>> nodeHits : hitsByNode.entrySet()) {
+                    sendGetDocsumsRequest(nodeHits.getKey(), nodeHits.getValue(), summaryClass, compression, result, responseReceiver);
+                }
+                responseReceiver.processResponses(result.getQuery(), summaryClass, documentDb);
             }
-            responseReceiver.processResponses(result.getQuery(), summaryClass, documentDb);
             result.hits().setSorted(false);
             result.analyzeHits();
         }
@@ -102,19 +260,43 @@ public class Dispatcher extends AbstractComponent {
         }
     }
 
-    /** Return a map of hits by their search node (partition) id */
-    private static ListMap<Integer, FastHit> hitsByNode(Result result) {
+    /** Returns the summary cache to use when filling the given summary class for a query, or null if it should not be cached */
+    private OffHeapCache<SummaryKey> summaryCacheFor(Query query, String summaryClass, DocumentDatabase documentDb) {
+        if (summaryCache == null) return null;
+        if (VespaBackEndSearcher.summaryDependsOnQuery(query, summaryClass, documentDb)) return null;
+        return summaryCache;
+    }
+
+    /** Return a map of the hits which are not filled from the summary cache by their search node (partition) id */
+    private ListMap<Integer, FastHit> hitsByNode(Result result, String summaryClass, DocumentDatabase documentDb,
+                                                 OffHeapCache<SummaryKey> summaryCache) {
         ListMap<Integer, FastHit> hitsByPartition = new ListMap<>();
         for (Iterator<Hit> i = result.hits().unorderedDeepIterator() ; i.hasNext(); ) {
             Hit h = i.next();
             if ( ! (h instanceof FastHit)) continue;
             FastHit hit = (FastHit)h;
 
+            if (fillFromCache(hit, summaryClass, documentDb, summaryCache)) continue;
             hitsByPartition.put(hit.getDistributionKey(), hit);
         }
         return hitsByPartition;
     }
 
+    /** Fills the given hit from the summary cache if present there. Returns whether it was filled. */
+    private boolean fillFromCache(FastHit hit, String summaryClass, DocumentDatabase documentDb,
+                                  OffHeapCache<SummaryKey> summaryCache) {
+        if (summaryCache == null || hit.getGlobalId() == null) return false;
+
+        byte[] summary = summaryCache.get(new SummaryKey(hit.getGlobalId(), summaryClass, documentDb.getName()));
+        if (summary == null) return false;
+
+        hit.setField(Hit.SDDOCNAME_FIELD, documentDb.getName());
+        hit.addSummary(documentDb.getDocsumDefinitionSet().getDocsum(summaryClass),
+                       new SlimeAdapter(BinaryView.inspect(summary)));
+        hit.setFilled(summaryClass);
+        return true;
+    }
+
     /** Send a getDocsums request to a node. Responses will be added to the given receiver. */
     private void sendGetDocsumsRequest(int nodeId, List<FastHit> hits, String summaryClass,
                                        CompressionType compression,
@@ -164,13 +346,26 @@ public class Dispatcher extends AbstractComponent {
             nodeConnection.close();
     }
 
-    /** Receiver of the responses to a set of getDocsums requests */
+    /**
+     * Receiver of the responses to a set of getDocsums requests.
+     *
+     * Responses are decompressed and indexed by the client thread delivering them, as they arrive,
+     * such that this work is done in parallel for responses from different nodes and overlaps with waiting
+     * for the remaining responses. The dispatcher thread then only needs to add the summaries to the hits.
+     * Responses are not decoded into Slime objects: Each hit is filled with an inspector of its summary
+     * in the binary data of the response, and field values are only decoded when they are accessed.
+     */
     public static class GetDocsumsResponseReceiver {
 
-        private final BlockingQueue<Client.GetDocsumsResponseOrError> responses;
+        private final BlockingQueue<DecodedResponse> responses;
         private final Compressor compressor;
         private final Result result;
 
+        /** The cache to add received summaries to, or null if they should not be cached */
+        private final OffHeapCache<SummaryKey> summaryCache;
+        private final String summaryClass;
+        private final String documentType;
+
         /** Whether we have already logged/notified about an error - to avoid spamming */
         private boolean hasReportedError = false;
 
@@ -178,15 +373,59 @@ public class Dispatcher extends AbstractComponent {
         private int outstandingResponses;
 
         public GetDocsumsResponseReceiver(int requestCount, Compressor compressor, Result result) {
+            this(requestCount, compressor, result, null, null, null);
+        }
+
+        GetDocsumsResponseReceiver(int requestCount, Compressor compressor, Result result,
+                                   OffHeapCache<SummaryKey> summaryCache, String summaryClass, String documentType) {
             this.compressor = compressor;
             responses = new LinkedBlockingQueue<>(requestCount);
             outstandingResponses = requestCount;
             this.result = result;
+            this.summaryCache = summaryCache;
+            this.summaryClass = summaryClass;
+            this.documentType = documentType;
         }
 
         /** Called by a thread belonging to the client when a valid response becomes available */
         public void receive(Client.GetDocsumsResponseOrError response) {
-            responses.add(response);
+            responses.add(decode(response));
+        }
+
+        private DecodedResponse decode(Client.GetDocsumsResponseOrError responseOrError) {
+            if (responseOrError.error().isPresent())
+                return DecodedResponse.fromError(responseOrError.error().get());
+
+            Client.GetDocsumsResponse response = responseOrError.response().get();
+            try {
+                CompressionType compression = CompressionType.valueOf(response.compression());
+                com.yahoo.slime.Inspector root;
+                if (compression != CompressionType.LZ4) { // inspect the received bytes directly
+                    root = BinaryView.inspect(response.compressedSlimeBytes(), 0, response.uncompressedSize());
+                }
+                else { // into a buffer owned by the response, as the hits will inspect it
+                    byte[] buffer = new byte[response.uncompressedSize()];
+                    compressor.decompress(compression, response.compressedSlimeBytes(), 0, buffer.length, buffer);
+                    root = BinaryView.inspect(buffer);
+                }
+                addToCache(response.hitsContext(), root);
+                return DecodedResponse.fromRoot(response.hitsContext(), root);
+            }
+            catch (RuntimeException e) {
+                return DecodedResponse.fromError("Could not decode summary data: " + e.getMessage());
+            }
+        }
+
+        private void addToCache(List<FastHit> hits, com.yahoo.slime.Inspector root) {
+            if (summaryCache == null) return;
+
+            com.yahoo.slime.Inspector summaries = root.field("docsums");
+            for (int i = 0; i < hits.size() && i < summaries.entries(); i++) {
+                com.yahoo.slime.Inspector summary = summaries.entry(i).field("docsum");
+                if (summary.fields() == 0 || hits.get(i).getGlobalId() == null) continue;
+                summaryCache.put(new SummaryKey(hits.get(i).getGlobalId(), summaryClass, documentType),
+                                 BinaryView.encode(summary));
+            }
         }
 
         private void throwTimeout() throws TimeoutException {
@@ -205,7 +444,7 @@ public class Dispatcher extends AbstractComponent {
                     if (timeLeftMs <= 0) {
                         throwTimeout();
                     }
-                    Client.GetDocsumsResponseOrError response = responses.poll(timeLeftMs, TimeUnit.MILLISECONDS);
+                    DecodedResponse response = responses.poll(timeLeftMs, TimeUnit.MILLISECONDS);
                     if (response == null)
                         throwTimeout();
                     skippedHits += processResponse(response, summaryClass, documentDb);
@@ -221,22 +460,15 @@ public class Dispatcher extends AbstractComponent {
             }
         }
 
-        private int processResponse(Client.GetDocsumsResponseOrError responseOrError,
-                                    String summaryClass,
-                                    DocumentDatabase documentDb) {
-            if (responseOrError.error().isPresent()) {
+        private int processResponse(DecodedResponse response, String summaryClass, DocumentDatabase documentDb) {
+            if (response.error != null) {
                 if (hasReportedError) return 0;
-                String error = responseOrError.error().get();
-                result.hits().addError(ErrorMessage.createBackendCommunicationError(error));
-                log.log(Level.WARNING, "Error fetching summary data: "+ error);
+                result.hits().addError(ErrorMessage.createBackendCommunicationError(response.error));
+                log.log(Level.WARNING, "Error fetching summary data: "+ response.error);
+                hasReportedError = true;
+                return 0;
             }
-            else {
-                Client.GetDocsumsResponse response = responseOrError.response().get();
-                CompressionType compression = CompressionType.valueOf(response.compression());
-                byte[] slimeBytes = compressor.decompress(response.compressedSlimeBytes(), compression, response.uncompressedSize());
-                return fill(response.hitsContext(), summaryClass, documentDb, slimeBytes);
-            }
-            return 0;
+            return fill(response.hits, summaryClass, documentDb, response.root);
         }
 
         private void addErrors(com.yahoo.slime.Inspector errors) {
@@ -249,8 +481,8 @@ public class Dispatcher extends AbstractComponent {
             });
         }
 
-        private int fill(List<FastHit> hits, String summaryClass, DocumentDatabase documentDb, byte[] slimeBytes) {
-            com.yahoo.slime.Inspector root = BinaryFormat.decode(slimeBytes).get();
+        private int fill(List<FastHit> hits, String summaryClass, DocumentDatabase documentDb,
+                         com.yahoo.slime.Inspector root) {
             com.yahoo.slime.Inspector errors = root.field("errors");
             boolean hasErrors = errors.valid() && (errors.entries() > 0);
             if (hasErrors) {
@@ -274,6 +506,59 @@ public class Dispatcher extends AbstractComponent {
             return skippedHits;
         }
 
+        /** A response which has been decoded, or an error */
+        private static class DecodedResponse {
+
+            private final List<FastHit> hits;
+            private final com.yahoo.slime.Inspector root;
+            private final String error;
+
+            private DecodedResponse(List<FastHit> hits, com.yahoo.slime.Inspector root, String error) {
+                this.hits = hits;
+                this.root = root;
+                this.error = error;
+            }
+
+            static DecodedResponse fromRoot(List<FastHit> hits, com.yahoo.slime.Inspector root) {
+                return new DecodedResponse(hits, root, null);
+            }
+
+            static DecodedResponse fromError(String error) {
+                return new DecodedResponse(null, null, error);
+            }
+
+        }
+
+    }
+
+    /** The key of a summary in the summary cache */
+    static class SummaryKey {
+
+        private final GlobalId globalId;
+        private final String summaryClass;
+        private final String documentType;
+
+        SummaryKey(GlobalId globalId, String summaryClass, String documentType) {
+            this.globalId = globalId;
+            this.summaryClass = summaryClass;
+            this.documentType = documentType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof SummaryKey)) return false;
+            SummaryKey other = (SummaryKey)o;
+            return globalId.equals(other.globalId) &&
+                   Objects.equals(summaryClass, other.summaryClass) &&
+                   Objects.equals(documentType, other.documentType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(globalId, summaryClass, documentType);
+        }
+
     }
 
 }
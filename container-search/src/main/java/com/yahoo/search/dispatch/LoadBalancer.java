@@ -0,0 +1,161 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.yahoo.jdisc.Metric;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selects the group each query should be dispatched to.
+ *
+ * Each query is sent to the healthy group with the lowest expected latency, estimated as the
+ * number of queries in flight to the group (including the new one) times an exponentially weighted
+ * moving average of the latency of its recent queries. This sends less traffic to groups which are
+ * slower, e.g because they run on less powerful or more loaded hardware, and adapts as this changes.
+ * Ties are broken in round robin order.
+ *
+ * The number of queries in flight and the latency of each group is reported as metrics
+ * with the group id as dimension.
+ *
+ * This class is multithread safe.
+ */
+public class LoadBalancer {
+
+    static final String activeQueriesMetric = "dispatch_group_active_queries";
+    static final String queryLatencyMetric = "dispatch_group_query_latency";
+    static final String queriesMetric = "dispatch_group_queries";
+
+    /** The weight of the newest sample in the moving latency average */
+    private static final double latencyDecay = 0.1;
+
+    /** The latency assumed for a group which has not yet completed any queries, in milliseconds */
+    private static final double minLatency = 1.0;
+
+    private final ImmutableList<GroupStatus> scoreboard;
+    private final ImmutableMap<Integer, GroupStatus> scoreboardByGroupId;
+    private final Metric metric;
+
+    /** The position in the scoreboard to start looking for the next group, to break ties in round robin order */
+    private final AtomicInteger nextStart = new AtomicInteger(0);
+
+    public LoadBalancer(Collection<SearchCluster.Group> groups, Metric metric) {
+        this.metric = metric;
+        ImmutableList.Builder<GroupStatus> scoreboardBuilder = new ImmutableList.Builder<>();
+        ImmutableMap.Builder<Integer, GroupStatus> scoreboardByGroupIdBuilder = new ImmutableMap.Builder<>();
+        for (SearchCluster.Group group : groups) {
+            GroupStatus status = new GroupStatus(group, metric.createContext(Collections.singletonMap("group", group.id())));
+            scoreboardBuilder.add(status);
+            scoreboardByGroupIdBuilder.put(group.id(), status);
+        }
+        this.scoreboard = scoreboardBuilder.build();
+        this.scoreboardByGroupId = scoreboardByGroupIdBuilder.build();
+    }
+
+    /**
+     * Selects and allocates the group which should receive the next query.
+     * Each group returned by this must be released by calling {@link #releaseGroup} when the query completes.
+     *
+     * @return the group to dispatch to, or empty if no group currently has sufficient coverage
+     */
+    public Optional<SearchCluster.Group> takeGroupForQuery() {
+        if (scoreboard.isEmpty()) return Optional.empty();
+
+        int start = Math.floorMod(nextStart.getAndIncrement(), scoreboard.size());
+        GroupStatus best = null;
+        for (int i = 0; i < scoreboard.size(); i++) {
+            GroupStatus candidate = scoreboard.get((start + i) % scoreboard.size());
+            if ( ! candidate.group.hasSufficientCoverage()) continue;
+            if (best == null || isBetter(candidate, best))
+                best = candidate;
+        }
+        if (best == null) return Optional.empty();
+
+        best.allocate();
+        return Optional.of(best.group);
+    }
+
+    /**
+     * Releases a group allocated by {@link #takeGroupForQuery}
+     *
+     * @param group the group which was allocated
+     * @param latencyMillis the time the query took in this group
+     */
+    public void releaseGroup(SearchCluster.Group group, long latencyMillis) {
+        GroupStatus status = scoreboardByGroupId.get(group.id());
+        if (status == null) throw new IllegalArgumentException(group + " is not known by this load balancer");
+        status.release(latencyMillis);
+    }
+
+    /** Returns the number of queries currently in flight to the given group */
+    public int activeQueries(SearchCluster.Group group) {
+        return scoreboardByGroupId.get(group.id()).activeQueries.get();
+    }
+
+    /** Returns the moving average of the latency of queries to the given group in milliseconds, or 0 if unknown */
+    public double averageLatency(SearchCluster.Group group) {
+        return scoreboardByGroupId.get(group.id()).averageLatency();
+    }
+
+    /** Returns whether a is a better choice than b, preferring groups where all nodes are working */
+    private boolean isBetter(GroupStatus a, GroupStatus b) {
+        boolean aIsWorking = a.allNodesWorking();
+        boolean bIsWorking = b.allNodesWorking();
+        if (aIsWorking != bIsWorking) return aIsWorking;
+        return a.expectedLatency() < b.expectedLatency();
+    }
+
+    private class GroupStatus {
+
+        private final SearchCluster.Group group;
+        private final Metric.Context context;
+        private final AtomicInteger activeQueries = new AtomicInteger(0);
+
+        /** The moving average of query latencies in milliseconds, or 0 if no query has completed. Guarded by this */
+        private double averageLatency = 0;
+
+        GroupStatus(SearchCluster.Group group, Metric.Context context) {
+            this.group = group;
+            this.context = context;
+        }
+
+        void allocate() {
+            int active = activeQueries.incrementAndGet();
+            metric.set(activeQueriesMetric, active, context);
+            metric.add(queriesMetric, 1, context);
+        }
+
+        void release(long latencyMillis) {
+            int active = activeQueries.decrementAndGet();
+            double latency;
+            synchronized (this) {
+                if (averageLatency == 0)
+                    averageLatency = latencyMillis;
+                else
+                    averageLatency += latencyDecay * (latencyMillis - averageLatency);
+                latency = averageLatency;
+            }
+            metric.set(activeQueriesMetric, active, context);
+            metric.set(queryLatencyMetric, latency, context);
+        }
+
+        synchronized double averageLatency() { return averageLatency; }
+
+        /** Returns the expected latency of sending one more query to this group */
+        double expectedLatency() {
+            return (activeQueries.get() + 1) * Math.max(minLatency, averageLatency());
+        }
+
+        boolean allNodesWorking() {
+            for (SearchCluster.Node node : group.nodes())
+                if ( ! node.isWorking()) return false;
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,154 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.fs4.DocumentInfo;
+import com.yahoo.fs4.QueryResultPacket;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges the query results returned by each of the nodes of a group into a single result
+ * containing the requested window of the best documents across all the nodes.
+ *
+ * Each node result must contain its documents in order, starting at offset 0. Documents are ordered
+ * by their sort data if present, and by decreasing relevance otherwise.
+ * The node results are merged using a heap, such that only offset+hits documents are visited.
+ *
+ * This class is not multithread safe.
+ */
+class QueryResultMerger {
+
+    private static final Comparator<DocumentInfo> byRelevance =
+            (a, b) -> Double.compare(b.getMetric(), a.getMetric());
+
+    private static final Comparator<DocumentInfo> bySortData =
+            (a, b) -> compareUnsigned(a.getSortData(), b.getSortData());
+
+    private final int offset;
+    private final int hits;
+
+    private long totalDocumentCount = 0;
+    private int docstamp = 0;
+
+    private long coverageDocs = 0;
+    private long activeDocs = 0;
+    private long soonActiveDocs = 0;
+    private int degradedReason = 0;
+    private int nodesQueried = 0;
+    private int nodesReplied = 0;
+
+    /** The cursors into the node results which still have documents, ordered by their current document */
+    private final PriorityQueue<Cursor> cursors;
+
+    /**
+     * Creates a merger producing the given window of documents
+     *
+     * @param offset the offset of the first document to include in the merged result
+     * @param hits the max number of documents to include in the merged result
+     * @param sorted whether the results are ordered by sort data rather than relevance
+     * @param nodeCount the number of node results which will be added
+     */
+    QueryResultMerger(int offset, int hits, boolean sorted, int nodeCount) {
+        this.offset = offset;
+        this.hits = hits;
+        Comparator<DocumentInfo> order = sorted ? bySortData : byRelevance;
+        this.cursors = new PriorityQueue<>(Math.max(1, nodeCount), (a, b) -> order.compare(a.current(), b.current()));
+    }
+
+    /**
+     * Adds the result of a node to this
+     *
+     * @param result the result returned from the node
+     * @param distributionKey the distribution key of the node, to be used for documents not carrying one
+     */
+    void add(QueryResultPacket result, int distributionKey) {
+        totalDocumentCount += result.getTotalDocumentCount();
+        docstamp = result.getDocstamp();
+
+        coverageDocs += result.getCoverageDocs();
+        activeDocs += result.getActiveDocs();
+        soonActiveDocs += result.getSoonActiveDocs();
+        degradedReason |= result.getDegradedReason();
+        nodesQueried += Math.max(1, result.getNodesQueried());
+        nodesReplied += Math.max(1, result.getNodesReplied());
+
+        if (result.getDocumentCount() > 0)
+            cursors.add(new Cursor(result.getDocuments(), result.getMldFeature() ? -1 : distributionKey));
+    }
+
+    /** Registers that a node which was queried did not return a result */
+    void addFailed() {
+        nodesQueried++;
+    }
+
+    /** Returns the number of node results added to this */
+    int resultCount() { return nodesReplied; }
+
+    /** Returns a new result packet containing the merged result */
+    QueryResultPacket toResult() {
+        QueryResultPacket merged = QueryResultPacket.create();
+        merged.setOffset(offset);
+        merged.setTotalDocumentCount(totalDocumentCount);
+        merged.setDocstamp(docstamp);
+        merged.setCoverage(coverageDocs, activeDocs, soonActiveDocs, degradedReason,
+                           (short)nodesQueried, (short)nodesReplied);
+
+        int position = 0;
+        while (position < offset + hits && ! cursors.isEmpty()) {
+            Cursor cursor = cursors.poll();
+            if (position >= offset)
+                merged.addDocument(cursor.emit());
+            position++;
+            if (cursor.next())
+                cursors.add(cursor);
+        }
+        return merged;
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        if (a == null || b == null) return 0; // not sorted
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int difference = (a[i] & 0xff) - (b[i] & 0xff);
+            if (difference != 0) return difference;
+        }
+        return a.length - b.length;
+    }
+
+    /** A position in the list of documents returned by one node */
+    private static class Cursor {
+
+        private final List<DocumentInfo> documents;
+
+        /** The distribution key to assign to documents, or -1 to keep the one returned */
+        private final int distributionKey;
+
+        private int index = 0;
+
+        Cursor(List<DocumentInfo> documents, int distributionKey) {
+            this.documents = documents;
+            this.distributionKey = distributionKey;
+        }
+
+        DocumentInfo current() {
+            return documents.get(index);
+        }
+
+        /** Returns the current document as it should be added to the merged result */
+        DocumentInfo emit() {
+            DocumentInfo document = current();
+            if (distributionKey < 0) return document;
+            return new DocumentInfo(document.getGlobalId(), document.getMetric(), document.getPartId(),
+                                    distributionKey, document.getSortData());
+        }
+
+        /** Advances this cursor. Returns whether there is a current document after advancing */
+        boolean next() {
+            return ++index < documents.size();
+        }
+
+    }
+
+}
@@ -3,17 +3,18 @@ package com.yahoo.search.query.profile;
 
 import com.yahoo.collections.Pair;
 import com.yahoo.processing.request.CompoundName;
-import com.yahoo.processing.request.properties.PropertyMap;
+import com.yahoo.processing.request.CloneHelper;
+import com.yahoo.processing.request.properties.CopyOnWriteValues;
 import com.yahoo.protect.Validator;
 import com.yahoo.search.query.Properties;
 import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
 import com.yahoo.search.query.profile.compiled.DimensionalValue;
+import com.yahoo.search.query.profile.compiled.ResolvedContext;
 import com.yahoo.search.query.profile.types.FieldDescription;
 import com.yahoo.search.query.profile.types.QueryProfileType;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,15 +26,24 @@ import java.util.Map;
  */
 public class QueryProfileProperties extends Properties {
 
+    private static final CloneHelper cloneHelper = new CloneHelper();
+
     private final CompiledQueryProfile profile;
 
     // Note: The priority order is: values has precedence over references
 
-    /** Values which has been overridden at runtime, or null if none */
-    private Map<CompoundName, Object> values = null;
+    /** Values which has been overridden at runtime */
+    private CopyOnWriteValues values = new CopyOnWriteValues(cloneHelper);
     /** Query profile references which has been overridden at runtime, or null if none. Earlier values has precedence */
     private List<Pair<CompoundName, CompiledQueryProfile>> references = null;
 
+    /**
+     * The context last used to look up in the profile, resolved against it, or null if none.
+     * This is reused as long as lookups are made with the same context instance, which is the request map
+     * of the query for all lookups which do not supply a context explicitly.
+     */
+    private ResolvedContext resolvedContext = null;
+
     /** Creates an instance from a profile, throws an exception if the given profile is null */
     public QueryProfileProperties(CompiledQueryProfile profile) {
         Validator.ensureNotNull("The profile wrapped by this cannot be null", profile);
@@ -48,9 +58,7 @@ public class QueryProfileProperties extends Properties {
     public Object get(CompoundName name, Map<String,String> context,
                       com.yahoo.processing.request.Properties substitution) {
         name = unalias(name, context);
-        Object value = null;
-        if (values != null)
-            value = values.get(name);
+        Object value = values.get(name);
         if (value == null) {
             Pair<CompoundName, CompiledQueryProfile> reference = findReference(name);
             if (reference != null)
@@ -58,7 +66,7 @@ public class QueryProfileProperties extends Properties {
         }
 
         if (value == null)
-            value = profile.get(name, context, substitution);
+            value = resolve(context).get(name, substitution);
         if (value == null)
             value = super.get(name, context, substitution);
         return value;
@@ -78,7 +86,8 @@ public class QueryProfileProperties extends Properties {
             if (context == null)
                 context = Collections.emptyMap();
 
-            if ( ! profile.isOverridable(name, context)) return;
+            ResolvedContext resolved = resolve(context);
+            if ( ! resolved.isOverridable(name)) return;
 
             // Check runtime references
             Pair<CompoundName, CompiledQueryProfile> runtimeReference = findReference(name);
@@ -88,7 +97,7 @@ public class QueryProfileProperties extends Properties {
             // Check types
             if ( ! profile.getTypes().isEmpty()) {
                 for (int i = 0; i<name.size(); i++) {
-                    QueryProfileType type = profile.getType(name.first(i), context);
+                    QueryProfileType type = resolved.getType(name.first(i));
                     if (type == null) continue;
                     String localName = name.get(i);
                     FieldDescription fieldDescription = type.getField(localName);
@@ -122,8 +131,6 @@ public class QueryProfileProperties extends Properties {
                 references.add(0, new Pair<>(name, (CompiledQueryProfile)value)); // references set later has precedence - put first
             }
             else {
-                if (values == null)
-                    values = new HashMap<>();
                 values.put(name, value);
             }
         }
@@ -162,11 +169,9 @@ public class QueryProfileProperties extends Properties {
 
         }
 
-        if (values != null) {
-            for (Map.Entry<CompoundName, Object> entry : values.entrySet()) {
-                if (entry.getKey().hasPrefix(path))
-                    properties.put(entry.getKey().rest(path.size()).toString(), entry.getValue());
-            }
+        for (Map.Entry<CompoundName, Object> entry : values.asMap().entrySet()) {
+            if (entry.getKey().hasPrefix(path))
+                properties.put(entry.getKey().rest(path.size()).toString(), entry.getValue());
         }
 
         return properties;
@@ -234,9 +239,10 @@ public class QueryProfileProperties extends Properties {
     CompoundName unalias(CompoundName name, Map<String,String> context) {
         if (profile.getTypes().isEmpty()) return name;
 
+        ResolvedContext resolved = resolve(context);
         CompoundName unaliasedName = name;
         for (int i = 0; i<name.size(); i++) {
-            QueryProfileType type = profile.getType(name.first(i), context);
+            QueryProfileType type = resolved.getType(name.first(i));
             if (type == null) continue;
             if (type.aliases() == null) continue; // TODO: Make never null
             if (type.aliases().isEmpty()) continue;
@@ -250,9 +256,16 @@ public class QueryProfileProperties extends Properties {
     @Override
     public QueryProfileProperties clone() {
         QueryProfileProperties clone = (QueryProfileProperties)super.clone();
-        if (this.values != null)
-            clone.values = PropertyMap.cloneMap(this.values);
+        clone.values = this.values.clone();
+        if (this.references != null)
+            clone.references = new ArrayList<>(this.references);
+        clone.resolvedContext = null; // the clone may be used by another thread
         return clone;
     }
 
+    /** Returns the given context resolved against the profile, reusing the last resolution if it has the same context */
+    private ResolvedContext resolve(Map<String, String> context) {
+        return resolvedContext = profile.resolve(context, resolvedContext);
+    }
+
 }
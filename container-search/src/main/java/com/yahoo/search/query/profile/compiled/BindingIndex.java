@@ -0,0 +1,85 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The distinct bindings of the values of a compiled query profile, each assigned an index, and with its
+ * dimensions replaced by positions in the list of all the dimensions of the profile.
+ * This allows a context to be matched against each binding once, instead of once per value lookup.
+ */
+class BindingIndex {
+
+    /** All the dimensions of the bindings of this */
+    private final String[] dimensions;
+
+    /** The positions in dimensions of the dimensions of each binding */
+    private final int[][] positions;
+
+    /** The values of the dimensions of each binding, in the same order as positions */
+    private final String[][] values;
+
+    /** The index of each binding */
+    private final Map<Binding, Integer> indexes;
+
+    private BindingIndex(List<Binding> bindings) {
+        Map<String, Integer> dimensionPositions = new LinkedHashMap<>();
+        for (Binding binding : bindings)
+            for (String dimension : binding.dimensions())
+                dimensionPositions.putIfAbsent(dimension, dimensionPositions.size());
+        this.dimensions = dimensionPositions.keySet().toArray(new String[0]);
+
+        this.positions = new int[bindings.size()][];
+        this.values = new String[bindings.size()][];
+        this.indexes = new HashMap<>();
+        for (int i = 0; i < bindings.size(); i++) {
+            Binding binding = bindings.get(i);
+            positions[i] = new int[binding.dimensions().length];
+            for (int j = 0; j < positions[i].length; j++)
+                positions[i][j] = dimensionPositions.get(binding.dimensions()[j]);
+            values[i] = binding.dimensionValues();
+            indexes.put(binding, i);
+        }
+    }
+
+    /** Returns the dimensions used by the bindings of this. The returned array must not be modified. */
+    String[] dimensions() { return dimensions; }
+
+    /** Returns the number of bindings in this */
+    int size() { return values.length; }
+
+    /** Returns the index of the given binding, which must be in this */
+    int indexOf(Binding binding) {
+        Integer index = indexes.get(binding);
+        if (index == null) throw new IllegalArgumentException(binding + " is not in this index");
+        return index;
+    }
+
+    /**
+     * Returns whether the binding at the given index matches the given values of the dimensions of this,
+     * where a null value means the dimension is not set
+     */
+    boolean matches(int binding, String[] dimensionValues) {
+        int[] positions = this.positions[binding];
+        String[] values = this.values[binding];
+        for (int i = 0; i < positions.length; i++) {
+            if ( ! values[i].equals(dimensionValues[positions[i]])) return false;
+        }
+        return true;
+    }
+
+    /** Creates an index of all the bindings used in the given maps */
+    static BindingIndex of(List<DimensionalMap<?, ?>> maps) {
+        Set<Binding> bindings = new LinkedHashSet<>();
+        for (DimensionalMap<?, ?> map : maps)
+            map.collectBindings(bindings);
+        return new BindingIndex(new ArrayList<>(bindings));
+    }
+
+}
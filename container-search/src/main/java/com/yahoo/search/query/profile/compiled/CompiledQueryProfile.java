@@ -9,6 +9,7 @@ import com.yahoo.search.query.profile.QueryProfileProperties;
 import com.yahoo.search.query.profile.SubstituteString;
 import com.yahoo.search.query.profile.types.QueryProfileType;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -42,6 +43,9 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
     /** Values which are not overridable in this. Used as a set. */
     private final DimensionalMap<CompoundName, Object> unoverridables;
 
+    /** The bindings of the values in the maps above */
+    private final BindingIndex bindings;
+
     /**
      * Creates a new query profile from an id.
      */
@@ -56,10 +60,11 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         if (type != null)
             type.freeze();
         this.type = type;
-        this.entries = entries;
-        this.types = types;
-        this.references = references;
-        this.unoverridables = unoverridables;
+        this.bindings = BindingIndex.of(Arrays.<DimensionalMap<?, ?>>asList(entries, types, references, unoverridables));
+        this.entries = entries.indexedBy(bindings);
+        this.types = types.indexedBy(bindings);
+        this.references = references.indexedBy(bindings);
+        this.unoverridables = unoverridables.indexedBy(bindings);
         if ( ! id.isAnonymous())
             validateName(id.getName());
     }
@@ -90,6 +95,22 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         return types.get(name, context);
     }
 
+    /**
+     * Returns the given context resolved against the variants of this profile, for faster lookups of multiple
+     * values in the same context.
+     *
+     * @param context the context to resolve, or null if none
+     * @param previous a context previously resolved by this, which is returned if it was resolved
+     *                 from the same context instance, or null
+     */
+    public ResolvedContext resolve(Map<String, String> context, ResolvedContext previous) {
+        if (context == null)
+            context = Collections.emptyMap();
+        if (previous != null && previous.profile() == this && previous.context() == context)
+            return previous;
+        return new ResolvedContext(this, context);
+    }
+
     /** Returns the types reachable from this, or an empty map (never null) if none */
     public DimensionalMap<CompoundName, QueryProfileType> getTypes() { return types; }
 
@@ -157,13 +178,19 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         return substitute(entries.get(name, context), context, substitution);
     }
 
-    private Object substitute(Object value, Map<String, String> context, Properties substitution) {
+    Object substitute(Object value, Map<String, String> context, Properties substitution) {
         if (value == null) return value;
         if (substitution == null) return value;
         if (value.getClass() != SubstituteString.class) return value;
         return ((SubstituteString)value).substitute(context, substitution);
     }
 
+    DimensionalMap<CompoundName, Object> entries() { return entries; }
+
+    DimensionalMap<CompoundName, Object> unoverridables() { return unoverridables; }
+
+    BindingIndex bindings() { return bindings; }
+
     /** Throws IllegalArgumentException if the given string is not a valid query profile name */
     private static void validateName(String name) {
         Matcher nameMatcher = namePattern.matcher(name);
@@ -31,6 +31,30 @@ public class DimensionalMap<KEY, VALUE> {
         return variants.get(context);
     }
 
+    /**
+     * Returns the value for this key matching a resolved context, or null if none.
+     * This must be created by {@link #indexedBy} with the index the context is resolved against.
+     */
+    VALUE get(KEY key, ResolvedContext context) {
+        DimensionalValue<VALUE> variants = values.get(key);
+        if (variants == null) return null;
+        return variants.get(context);
+    }
+
+    /** Returns a copy of this where all bindings refers to their index in the given binding index */
+    DimensionalMap<KEY, VALUE> indexedBy(BindingIndex index) {
+        Map<KEY, DimensionalValue<VALUE>> indexed = new HashMap<>();
+        for (Map.Entry<KEY, DimensionalValue<VALUE>> entry : values.entrySet())
+            indexed.put(entry.getKey(), new DimensionalValue<>(entry.getValue(), index));
+        return new DimensionalMap<>(indexed);
+    }
+
+    /** Adds the bindings of all the values of this to the given set */
+    void collectBindings(Set<Binding> bindings) {
+        for (DimensionalValue<VALUE> value : values.values())
+            value.collectBindings(bindings);
+    }
+
     /** Returns the set of dimensional entries across all contexts. */
     public Set<Map.Entry<KEY, DimensionalValue<VALUE>>> entrySet() {
         return values.entrySet();
@@ -35,6 +35,14 @@ public class DimensionalValue<VALUE> {
         }
     }
 
+    /** Returns a copy of the given value where each binding refers to its index in the given binding index */
+    DimensionalValue(DimensionalValue<VALUE> other, BindingIndex index) {
+        List<Value<VALUE>> values = new ArrayList<>(other.values.size());
+        for (Value<VALUE> value : other.values)
+            values.add(new Value<>(value.value(), value.binding(), index.indexOf(value.binding())));
+        this.values = values.size() == 1 ? Collections.singletonList(values.get(0)) : values; // already sorted
+    }
+
     /** Returns the value matching this context, or null if none */
     public VALUE get(Map<String, String> context) {
         if (context == null)
@@ -46,6 +54,24 @@ public class DimensionalValue<VALUE> {
         return null;
     }
 
+    /**
+     * Returns the value matching this resolved context, or null if none.
+     * This must be created with the index the context is resolved against.
+     */
+    VALUE get(ResolvedContext context) {
+        for (Value<VALUE> value : values) {
+            if (context.matches(value.index))
+                return value.value();
+        }
+        return null;
+    }
+
+    /** Adds the bindings of the values of this to the given set */
+    void collectBindings(Set<Binding> bindings) {
+        for (Value<VALUE> value : values)
+            bindings.add(value.binding());
+    }
+
     public boolean isEmpty() { return values.isEmpty(); }
 
     @Override
@@ -87,9 +113,17 @@ public class DimensionalValue<VALUE> {
         /** The minimal binding this holds for */
         private Binding binding = null;
 
+        /** The index of the binding in the binding index of the profile this belongs to, or -1 if not indexed */
+        private final int index;
+
         public Value(VALUE value, Binding binding) {
+            this(value, binding, -1);
+        }
+
+        Value(VALUE value, Binding binding, int index) {
             this.value = value;
             this.binding = binding;
+            this.index = index;
         }
 
         /** Returns the value at this entry or null if none */
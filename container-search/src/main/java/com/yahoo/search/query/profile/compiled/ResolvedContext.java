@@ -0,0 +1,79 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.processing.request.Properties;
+import com.yahoo.search.query.profile.types.QueryProfileType;
+
+import java.util.Map;
+
+/**
+ * A context resolved against the variants of a compiled query profile, for looking up values in the profile
+ * in this context. A lookup scans an array of whether each binding of the profile matches the context,
+ * instead of matching each binding of the value with the context. Whether a binding matches is resolved
+ * the first time it is needed.
+ * <p>
+ * This is created by {@link CompiledQueryProfile#resolve} and should be reused for all lookups in
+ * the same context, typically once per query. The context must not be modified while this is in use.
+ * This is not multithread safe.
+ */
+public final class ResolvedContext {
+
+    private static final byte unresolved = 0, matching = 1, notMatching = 2;
+
+    private final CompiledQueryProfile profile;
+
+    /** The context this is resolved from, used for substitution */
+    private final Map<String, String> context;
+
+    /** The value in the context of each dimension of the binding index of the profile, or null if none */
+    private final String[] dimensionValues;
+
+    /** Whether each binding of the index matches the context, or unresolved */
+    private final byte[] matches;
+
+    ResolvedContext(CompiledQueryProfile profile, Map<String, String> context) {
+        this.profile = profile;
+        this.context = context;
+        this.dimensionValues = valuesOf(profile.bindings().dimensions(), context);
+        this.matches = new byte[profile.bindings().size()];
+    }
+
+    /** Returns the value of the given name in this context, or null if none */
+    public Object get(CompoundName name, Properties substitution) {
+        return profile.substitute(profile.entries().get(name, this), context, substitution);
+    }
+
+    /** Returns whether or not the given field name can be overridden at runtime in this context */
+    public boolean isOverridable(CompoundName name) {
+        return profile.unoverridables().get(name, this) == null;
+    }
+
+    /** Returns the type of a given prefix reachable from the profile in this context, or null if none */
+    public QueryProfileType getType(CompoundName name) {
+        return profile.getTypes().get(name, this);
+    }
+
+    /** Returns the context this is resolved from, never null */
+    public Map<String, String> context() { return context; }
+
+    CompiledQueryProfile profile() { return profile; }
+
+    /** Returns whether the binding at the given index matches the context of this */
+    boolean matches(int binding) {
+        byte match = matches[binding];
+        if (match == unresolved) {
+            match = profile.bindings().matches(binding, dimensionValues) ? matching : notMatching;
+            matches[binding] = match;
+        }
+        return match == matching;
+    }
+
+    private static String[] valuesOf(String[] dimensions, Map<String, String> context) {
+        String[] values = new String[dimensions.length];
+        for (int i = 0; i < dimensions.length; i++)
+            values[i] = context.get(dimensions[i]);
+        return values;
+    }
+
+}
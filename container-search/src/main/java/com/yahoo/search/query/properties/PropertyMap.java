@@ -1,16 +1,16 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.query.properties;
 import com.yahoo.processing.request.*;
+import com.yahoo.processing.request.properties.CopyOnWriteValues;
 import com.yahoo.search.query.Properties;
 import java.util.Map;
-import java.util.LinkedHashMap;
-import java.util.HashMap;
 
 /**
  * A Map backing of Properties.
  * <p>
  * When this is cloned it will deep copy not only the model object map, but also each
- * clonable member inside the map.
+ * clonable member inside the map. The map is shared with the clone until either is written to
+ * when it contains no clonable members.
  * <p>
  * Subclassing is supported, a hook can be implemented to provide conditional inclusion in the map.
  * By default - all properties are accepted, so set is never propagated.
@@ -24,7 +24,7 @@ public class PropertyMap extends Properties {
     private final static CloneHelper cloneHelper = new CloneHelper();
 
     /** The properties of this */
-    private Map<CompoundName, Object> properties = new LinkedHashMap<>();
+    private CopyOnWriteValues properties = new CopyOnWriteValues(cloneHelper);
 
     public void set(CompoundName name, Object value, Map<String,String> context) {
         if (shouldSet(name, value))
@@ -48,21 +48,16 @@ public class PropertyMap extends Properties {
 
     /**
      * Returns a direct reference to the map containing the properties set in this instance.
+     * This is a private copy if the map was shared with a clone, so prefer get and set for reading and writing.
      */
     public Map<CompoundName, Object> propertyMap() {
-        return properties;
+        return properties.writableMap();
     }
 
     @Override
     public PropertyMap clone() {
         PropertyMap clone = (PropertyMap)super.clone();
-        clone.properties = new HashMap<>();
-        for (Map.Entry<CompoundName, Object> entry : this.properties.entrySet()) {
-            Object cloneValue = cloneHelper.clone(entry.getValue());
-            if (cloneValue == null)
-                cloneValue = entry.getValue(); // Shallow copy objects which does not support cloning
-            clone.properties.put(entry.getKey(), cloneValue);
-        }
+        clone.properties = this.properties.clone();
         return clone;
     }
 
@@ -70,7 +65,7 @@ public class PropertyMap extends Properties {
     public Map<String, Object> listProperties(CompoundName path, Map<String, String> context, com.yahoo.processing.request.Properties substitution) {
         Map<String, Object> map = super.listProperties(path, context, substitution);
 
-        for (Map.Entry<CompoundName, Object> entry : properties.entrySet()) {
+        for (Map.Entry<CompoundName, Object> entry : properties.asMap().entrySet()) {
             if ( ! entry.getKey().hasPrefix(path)) continue;
             CompoundName propertyName = entry.getKey().rest(path.size());
             if (propertyName.isEmpty()) continue;
@@ -4,7 +4,9 @@ package com.yahoo.search.rendering;
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
 import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.yahoo.data.JsonProducer;
@@ -23,23 +25,12 @@ import com.yahoo.processing.response.Data;
 import com.yahoo.processing.response.DataList;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
-import com.yahoo.search.grouping.Continuation;
-import com.yahoo.search.grouping.result.AbstractList;
-import com.yahoo.search.grouping.result.BucketGroupId;
-import com.yahoo.search.grouping.result.Group;
-import com.yahoo.search.grouping.result.GroupId;
-import com.yahoo.search.grouping.result.RawBucketId;
-import com.yahoo.search.grouping.result.RawId;
-import com.yahoo.search.grouping.result.RootGroup;
-import com.yahoo.search.grouping.result.ValueGroupId;
-import com.yahoo.search.result.Coverage;
 import com.yahoo.search.result.DefaultErrorHit;
 import com.yahoo.search.result.ErrorHit;
-import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
 import com.yahoo.search.result.HitGroup;
-import com.yahoo.search.result.NanNumber;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.text.AbstractUtf8Array;
 import com.yahoo.yolean.trace.TraceNode;
 import com.yahoo.yolean.trace.TraceVisitor;
 import org.json.JSONArray;
@@ -47,23 +38,22 @@ import org.json.JSONObject;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.function.LongSupplier;
 
+import static com.yahoo.search.rendering.ResultStructure.*;
+
 /**
  * JSON renderer for search results.
  *
@@ -76,52 +66,22 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     private static final CompoundName DEBUG_RENDERING_KEY = new CompoundName("renderer.json.debug");
     private static final CompoundName JSON_CALLBACK = new CompoundName("jsoncallback");
 
-    // if this must be optimized, simply use com.fasterxml.jackson.core.SerializableString
-    private static final String BUCKET_LIMITS = "limits";
-    private static final String BUCKET_TO = "to";
-    private static final String BUCKET_FROM = "from";
-    private static final String CHILDREN = "children";
-    private static final String CONTINUATION = "continuation";
-    private static final String COVERAGE = "coverage";
-    private static final String COVERAGE_COVERAGE = "coverage";
-    private static final String COVERAGE_DOCUMENTS = "documents";
-    private static final String COVERAGE_DEGRADE = "degraded";
-    private static final String COVERAGE_DEGRADE_MATCHPHASE = "match-phase";
-    private static final String COVERAGE_DEGRADE_TIMEOUT = "timeout";
-    private static final String COVERAGE_DEGRADE_ADAPTIVE_TIMEOUT = "adaptive-timeout";
-    private static final String COVERAGE_DEGRADED_NON_IDEAL_STATE = "non-ideal-state";
-    private static final String COVERAGE_FULL = "full";
-    private static final String COVERAGE_NODES = "nodes";
-    private static final String COVERAGE_RESULTS = "results";
-    private static final String COVERAGE_RESULTS_FULL = "resultsFull";
-    private static final String ERRORS = "errors";
-    private static final String ERROR_CODE = "code";
-    private static final String ERROR_MESSAGE = "message";
-    private static final String ERROR_SOURCE = "source";
-    private static final String ERROR_STACK_TRACE = "stackTrace";
-    private static final String ERROR_SUMMARY = "summary";
-    private static final String FIELDS = "fields";
-    private static final String ID = "id";
-    private static final String LABEL = "label";
-    private static final String RELEVANCE = "relevance";
-    private static final String ROOT = "root";
-    private static final String SOURCE = "source";
-    private static final String TOTAL_COUNT = "totalCount";
-    private static final String TRACE = "trace";
-    private static final String TRACE_CHILDREN = "children";
-    private static final String TRACE_MESSAGE = "message";
-    private static final String TRACE_TIMESTAMP = "timestamp";
-    private static final String TIMING = "timing";
-    private static final String QUERY_TIME = "querytime";
-    private static final String SUMMARY_FETCH_TIME = "summaryfetchtime";
-    private static final String SEARCH_TIME = "searchtime";
-    private static final String TYPES = "types";
-    private static final String GROUPING_VALUE = "value";
-    private static final String VESPA_HIDDEN_FIELD_PREFIX = "$";
+    // Names are encoded once here, rather than each time they are written
+    private static final SerializableString TENSOR_ADDRESS = new SerializedString("address");
+    private static final SerializableString TENSOR_CELLS = new SerializedString("cells");
+    private static final SerializableString TENSOR_VALUE = new SerializedString("value");
+    private static final SerializableString TYPES = new SerializedString("types");
+
+    /** The max number of hit field names to keep encoded, as hits may contain any number of distinct field names */
+    private static final int MAX_ENCODED_FIELD_NAMES = 1000;
 
     private final JsonFactory generatorFactory;
 
+    /** Encoded hit field names, shared by all clones of this */
+    private final Map<String, SerializableString> encodedFieldNames = new ConcurrentHashMap<>();
+
     private JsonGenerator generator;
+    private GeneratorWriter structureWriter;
     private FieldConsumer fieldConsumer;
     private Deque<Integer> renderedChildren;
     private boolean debugRendering;
@@ -173,7 +133,8 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             if (timestamp != 0L) {
                 header();
                 generator.writeStartObject();
-                generator.writeNumberField(TRACE_TIMESTAMP, timestamp - basetime);
+                generator.writeFieldName(TRACE_TIMESTAMP);
+                generator.writeNumber(timestamp - basetime);
                 dirty = true;
             }
             if (payload != null) {
@@ -181,7 +142,8 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
                     header();
                     generator.writeStartObject();
                 }
-                generator.writeStringField(TRACE_MESSAGE, payload.toString());
+                generator.writeFieldName(TRACE_MESSAGE);
+                generator.writeString(payload.toString());
                 dirty = true;
             }
             if (dirty) {
@@ -204,7 +166,8 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         private void startChildArray() {
             try {
                 conditionalStartObject();
-                generator.writeArrayFieldStart(TRACE_CHILDREN);
+                generator.writeFieldName(TRACE_CHILDREN);
+                generator.writeStartArray();
             } catch (IOException e) {
                 throw new TraceRenderWrapper(e);
             }
@@ -314,25 +277,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     }
 
     private void renderTiming() throws IOException {
-        if (!getResult().getQuery().getPresentation().getTiming()) return;
-
-        double milli = .001d;
-        long now = timeSource.getAsLong();
-        long searchTime = now - getResult().getElapsedTime().first();
-        double searchSeconds = searchTime * milli;
-
-        generator.writeObjectFieldStart(TIMING);
-        if (getResult().getElapsedTime().firstFill() != 0L) {
-            long queryTime = getResult().getElapsedTime().weightedSearchTime();
-            long summaryFetchTime = getResult().getElapsedTime().weightedFillTime();
-            double querySeconds = queryTime * milli;
-            double summarySeconds = summaryFetchTime * milli;
-            generator.writeNumberField(QUERY_TIME, querySeconds);
-            generator.writeNumberField(SUMMARY_FETCH_TIME, summarySeconds);
-        }
-
-        generator.writeNumberField(SEARCH_TIME, searchSeconds);
-        generator.writeEndObject();
+        writeTiming(getResult(), timeSource.getAsLong(), structureWriter);
     }
 
     private boolean getDebugRendering(Query q) {
@@ -370,8 +315,10 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     }
 
     private void childrenArray() throws IOException {
-        if (renderedChildren.peek() == 0)
-            generator.writeArrayFieldStart(CHILDREN);
+        if (renderedChildren.peek() == 0) {
+            generator.writeFieldName(CHILDREN);
+            generator.writeStartArray();
+        }
         renderedChildren.push(renderedChildren.pop() + 1);
     }
 
@@ -387,69 +334,15 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
         renderHitContents(hitGroup);
         if (getRecursionLevel() == 1)
-            renderCoverage();
+            writeCoverage(getResult().getCoverage(false), structureWriter);
 
         ErrorHit errorHit = hitGroup.getErrorHit();
         if (errorHit != null)
-            renderErrors(errorHit.errors());
+            writeErrors(errorHit.errors(), structureWriter);
 
         // the framework will invoke begin methods as needed from here
     }
 
-    private void renderErrors(Set<ErrorMessage> errors) throws IOException {
-        if (errors.isEmpty()) return;
-
-        generator.writeArrayFieldStart(ERRORS);
-        for (ErrorMessage e : errors) {
-            String summary = e.getMessage();
-            String source = e.getSource();
-            Throwable cause = e.getCause();
-            String message = e.getDetailedMessage();
-            generator.writeStartObject();
-            generator.writeNumberField(ERROR_CODE, e.getCode());
-            generator.writeStringField(ERROR_SUMMARY, summary);
-            if (source != null) {
-                generator.writeStringField(ERROR_SOURCE, source);
-            }
-            if (message != null) {
-                generator.writeStringField(ERROR_MESSAGE, message);
-            }
-            if (cause != null && cause.getStackTrace().length > 0) {
-                StringWriter s = new StringWriter();
-                PrintWriter p = new PrintWriter(s);
-                cause.printStackTrace(p);
-                p.close();
-                generator.writeStringField(ERROR_STACK_TRACE, s.toString());
-            }
-            generator.writeEndObject();
-        }
-        generator.writeEndArray();
-
-
-    }
-
-    private void renderCoverage() throws IOException {
-        Coverage c = getResult().getCoverage(false);
-        if (c == null) return;
-
-        generator.writeObjectFieldStart(COVERAGE);
-        generator.writeNumberField(COVERAGE_COVERAGE, c.getResultPercentage());
-        generator.writeNumberField(COVERAGE_DOCUMENTS, c.getDocs());
-        if (c.isDegraded()) {
-            generator.writeObjectFieldStart(COVERAGE_DEGRADE);
-            generator.writeBooleanField(COVERAGE_DEGRADE_MATCHPHASE, c.isDegradedByMatchPhase());
-            generator.writeBooleanField(COVERAGE_DEGRADE_TIMEOUT, c.isDegradedByTimeout());
-            generator.writeBooleanField(COVERAGE_DEGRADE_ADAPTIVE_TIMEOUT, c.isDegradedByAdapativeTimeout());
-            generator.writeBooleanField(COVERAGE_DEGRADED_NON_IDEAL_STATE, c.isDegradedByNonIdealState());
-            generator.writeEndObject();
-        }
-        generator.writeBooleanField(COVERAGE_FULL, c.getFull());
-        generator.writeNumberField(COVERAGE_NODES, c.getNodes());
-        generator.writeNumberField(COVERAGE_RESULTS, c.getResultSets());
-        generator.writeNumberField(COVERAGE_RESULTS_FULL, c.getFullResultSets());
-        generator.writeEndObject();
-    }
-
     private void renderHit(Hit hit) throws IOException {
         if (!shouldRender(hit)) return;
 
@@ -465,13 +358,17 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
     private void renderHitContents(Hit hit) throws IOException {
         String id = hit.getDisplayId();
-        if (id != null)
-            generator.writeStringField(ID, id);
+        if (id != null) {
+            generator.writeFieldName(ID);
+            generator.writeString(id);
+        }
 
-        generator.writeNumberField(RELEVANCE, hit.getRelevance().getScore());
+        generator.writeFieldName(RELEVANCE);
+        generator.writeNumber(hit.getRelevance().getScore());
 
         if (hit.types().size() > 0) { // TODO: Remove types rendering on Vespa 7
-            generator.writeArrayFieldStart(TYPES);
+            generator.writeFieldName(TYPES);
+            generator.writeStartArray();
             for (String t : hit.types()) {
                 generator.writeString(t);
             }
@@ -479,10 +376,12 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         }
 
         String source = hit.getSource();
-        if (source != null)
-            generator.writeStringField(SOURCE, hit.getSource());
+        if (source != null) {
+            generator.writeFieldName(SOURCE);
+            generator.writeString(hit.getSource());
+        }
 
-        renderSpecialCasesForGrouping(hit);
+        writeGroupingFields(hit, structureWriter);
 
         renderAllFields(hit);
     }
@@ -498,73 +397,12 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         hit.forEachFieldAsRaw(fieldConsumer);
     }
 
-    private void renderSpecialCasesForGrouping(Hit hit) throws IOException {
-        if (hit instanceof AbstractList) {
-            renderGroupingListSyntheticFields((AbstractList) hit);
-        } else if (hit instanceof Group) {
-            renderGroupingGroupSyntheticFields(hit);
-        }
-    }
-
-    private void renderGroupingGroupSyntheticFields(Hit hit) throws IOException {
-        renderGroupMetadata(((Group) hit).getGroupId());
-        if (hit instanceof RootGroup) {
-            renderContinuations(Collections.singletonMap(
-                    Continuation.THIS_PAGE, ((RootGroup) hit).continuation()));
-        }
-    }
-
-    private void renderGroupingListSyntheticFields(AbstractList a) throws IOException {
-        writeGroupingLabel(a);
-        renderContinuations(a.continuations());
-    }
-
-    private void writeGroupingLabel(AbstractList a) throws IOException {
-        generator.writeStringField(LABEL, a.getLabel());
-    }
-
-    private void renderContinuations(Map<String, Continuation> continuations) throws IOException {
-        if (continuations.isEmpty()) return;
-
-        generator.writeObjectFieldStart(CONTINUATION);
-        for (Map.Entry<String, Continuation> e : continuations.entrySet()) {
-            generator.writeStringField(e.getKey(), e.getValue().toString());
-        }
-        generator.writeEndObject();
-    }
-
-    private void renderGroupMetadata(GroupId id) throws IOException {
-        if (!(id instanceof ValueGroupId || id instanceof BucketGroupId)) return;
-
-        if (id instanceof ValueGroupId) {
-            ValueGroupId<?> valueId = (ValueGroupId<?>) id;
-            generator.writeStringField(GROUPING_VALUE, getIdValue(valueId));
-        } else {
-            BucketGroupId<?> bucketId = (BucketGroupId<?>) id;
-            generator.writeObjectFieldStart(BUCKET_LIMITS);
-            generator.writeStringField(BUCKET_FROM, getBucketFrom(bucketId));
-            generator.writeStringField(BUCKET_TO, getBucketTo(bucketId));
-            generator.writeEndObject();
-        }
-    }
-
-    private static String getIdValue(ValueGroupId<?> id) {
-        return (id instanceof RawId ? Arrays.toString(((RawId) id).getValue()) : id.getValue()).toString();
-    }
-
-    private static String getBucketFrom(BucketGroupId<?> id) {
-        return (id instanceof RawBucketId ? Arrays.toString(((RawBucketId) id).getFrom()) : id.getFrom()).toString();
-    }
-
-    private static String getBucketTo(BucketGroupId<?> id) {
-        return (id instanceof RawBucketId ? Arrays.toString(((RawBucketId) id).getTo()) : id.getTo()).toString();
-    }
-
     private void renderTotalHitCount(Hit hit) throws IOException {
         if ( ! (getRecursionLevel() == 1 && hit instanceof HitGroup)) return;
 
         fieldConsumer.ensureFieldsField();
-        generator.writeNumberField(TOTAL_COUNT, getResult().getTotalHitCount());
+        generator.writeFieldName(TOTAL_COUNT);
+        generator.writeNumber(getResult().getTotalHitCount());
         // alternative for the above two lines:
         // fieldConsumer.accept(TOTAL_COUNT, getResult().getTotalHitCount());
     }
@@ -589,6 +427,15 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         endJsonCallback();
     }
 
+    /** Writes the output buffered in the generator to the stream and flushes it, such that it is sent to the client */
+    @Override
+    protected void flush() throws IOException {
+        if (generator != null && ! generator.isClosed())
+            generator.flush(); // flushes the stream as well
+        else
+            super.flush();
+    }
+
     @Override
     public String getEncoding() {
         return "utf-8";
@@ -647,7 +494,8 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
     private void setGenerator(JsonGenerator generator, boolean debugRendering) {
         this.generator = generator;
-        this.fieldConsumer = generator == null ? null : new FieldConsumer(generator, debugRendering);
+        this.structureWriter = generator == null ? null : new GeneratorWriter(generator);
+        this.fieldConsumer = generator == null ? null : new FieldConsumer(generator, debugRendering, encodedFieldNames);
     }
 
     /**
@@ -657,6 +505,60 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         this.timeSource = timeSource;
     }
 
+    /** Writes the parts of the result which are rendered as by the other renderers to the generator */
+    private static class GeneratorWriter implements ResultStructure.Writer {
+
+        private final JsonGenerator generator;
+
+        GeneratorWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void beginObject(SerializableString name) throws IOException {
+            if (name != null)
+                generator.writeFieldName(name);
+            generator.writeStartObject();
+        }
+
+        @Override
+        public void endObject() throws IOException { generator.writeEndObject(); }
+
+        @Override
+        public void beginArray(SerializableString name) throws IOException {
+            generator.writeFieldName(name);
+            generator.writeStartArray();
+        }
+
+        @Override
+        public void endArray() throws IOException { generator.writeEndArray(); }
+
+        @Override
+        public void field(SerializableString name, String value) throws IOException {
+            generator.writeFieldName(name);
+            generator.writeString(value);
+        }
+
+        @Override
+        public void field(SerializableString name, long value) throws IOException {
+            generator.writeFieldName(name);
+            generator.writeNumber(value);
+        }
+
+        @Override
+        public void field(SerializableString name, double value) throws IOException {
+            generator.writeFieldName(name);
+            generator.writeNumber(value);
+        }
+
+        @Override
+        public void field(SerializableString name, boolean value) throws IOException {
+            generator.writeFieldName(name);
+            generator.writeBoolean(value);
+        }
+
+    }
+
     /**
      * Received callbacks when fields of hits are encountered.
      * This instance is reused for all hits of a Result since we are in a single-threaded context
@@ -666,12 +568,15 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
         private final JsonGenerator generator;
         private final boolean debugRendering;
+        private final Map<String, SerializableString> encodedFieldNames;
 
         private MutableBoolean hasFieldsField;
 
-        public FieldConsumer(JsonGenerator generator, boolean debugRendering) {
+        public FieldConsumer(JsonGenerator generator, boolean debugRendering,
+                             Map<String, SerializableString> encodedFieldNames) {
             this.generator = generator;
             this.debugRendering = debugRendering;
+            this.encodedFieldNames = encodedFieldNames;
         }
 
         /**
@@ -685,7 +590,8 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         /** Call before rendering a field to the generator */
         void ensureFieldsField() throws IOException {
             if (hasFieldsField.get()) return;
-            generator.writeObjectFieldStart(FIELDS);
+            generator.writeFieldName(FIELDS);
+            generator.writeStartObject();
             hasFieldsField.set(true);
         }
 
@@ -699,9 +605,9 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         @Override
         public void accept(String name, Object value) {
             try {
-                if (shouldRender(name, value)) {
+                if (debugRendering || shouldRenderField(name, value)) {
                     ensureFieldsField();
-                    generator.writeFieldName(name);
+                    generator.writeFieldName(encoded(name));
                     renderFieldContents(value);
                 }
             }
@@ -713,9 +619,9 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         @Override
         public void accept(String name, byte[] utf8Data, int offset, int length) {
             try {
-                if (shouldRenderUtf8Value(name, length)) {
+                if (debugRendering || shouldRenderUtf8Field(name, length)) {
                     ensureFieldsField();
-                    generator.writeFieldName(name);
+                    generator.writeFieldName(encoded(name));
                     generator.writeUTF8String(utf8Data, offset, length);
                 }
             }
@@ -724,21 +630,15 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             }
         }
 
-        private boolean shouldRender(String name, Object value) {
-            if (debugRendering) return true;
-            if (name.startsWith(VESPA_HIDDEN_FIELD_PREFIX)) return false;
-            if (value instanceof CharSequence && ((CharSequence) value).length() == 0) return false;
-            // StringFieldValue cannot hold a null, so checking length directly is OK:
-            if (value instanceof StringFieldValue && ((StringFieldValue) value).getString().isEmpty()) return false;
-            if (value instanceof NanNumber) return false;
-            return true;
-        }
-
-        private boolean shouldRenderUtf8Value(String name, int length) {
-            if (debugRendering) return true;
-            if (name.startsWith(VESPA_HIDDEN_FIELD_PREFIX)) return false;
-            if (length == 0) return false;
-            return true;
+        /** Returns the given field name encoded once for all renderings, as most hits have the same field names */
+        private SerializableString encoded(String name) {
+            SerializableString encodedName = encodedFieldNames.get(name);
+            if (encodedName == null) {
+                encodedName = new SerializedString(name);
+                if (encodedFieldNames.size() < MAX_ENCODED_FIELD_NAMES)
+                    encodedFieldNames.put(name, encodedName);
+            }
+            return encodedName;
         }
 
         private void renderFieldContents(Object field) throws IOException {
@@ -756,6 +656,9 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
                 StringBuilder intermediate = new StringBuilder();
                 JsonRender.render((Inspectable) field, intermediate, true);
                 generator.writeRawValue(intermediate.toString());
+            } else if (field instanceof AbstractUtf8Array) {
+                ByteBuffer utf8 = ((AbstractUtf8Array) field).wrap();
+                generator.writeUTF8String(utf8.array(), utf8.arrayOffset() + utf8.position(), utf8.remaining());
             } else if (field instanceof StringFieldValue) {
                 generator.writeString(((StringFieldValue)field).getString());
             } else if (field instanceof TensorFieldValue) {
@@ -799,19 +702,27 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
         private void renderTensor(Optional<Tensor> tensor) throws IOException {
             generator.writeStartObject();
-            generator.writeArrayFieldStart("cells");
+            generator.writeFieldName(TENSOR_CELLS);
+            generator.writeStartArray();
             if (tensor.isPresent()) {
+                SerializableString[] dimensions = tensor.get().type().dimensions().stream()
+                                                        .map(dimension -> new SerializedString(dimension.name()))
+                                                        .toArray(SerializableString[]::new);
                 for (Iterator<Tensor.Cell> i = tensor.get().cellIterator(); i.hasNext(); ) {
                     Tensor.Cell cell = i.next();
 
                     generator.writeStartObject();
 
-                    generator.writeObjectFieldStart("address");
-                    for (int d = 0; d < cell.getKey().size(); d++)
-                        generator.writeObjectField(tensor.get().type().dimensions().get(d).name(), cell.getKey().label(d));
+                    generator.writeFieldName(TENSOR_ADDRESS);
+                    generator.writeStartObject();
+                    for (int d = 0; d < cell.getKey().size(); d++) {
+                        generator.writeFieldName(dimensions[d]);
+                        generator.writeString(cell.getKey().label(d));
+                    }
                     generator.writeEndObject();
 
-                    generator.writeObjectField("value", cell.getValue());
+                    generator.writeFieldName(TENSOR_VALUE);
+                    generator.writeNumber(cell.getValue());
 
                     generator.writeEndObject();
                 }
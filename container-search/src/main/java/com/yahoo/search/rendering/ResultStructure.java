@@ -0,0 +1,229 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.rendering;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.search.Result;
+import com.yahoo.search.grouping.Continuation;
+import com.yahoo.search.grouping.result.AbstractList;
+import com.yahoo.search.grouping.result.BucketGroupId;
+import com.yahoo.search.grouping.result.Group;
+import com.yahoo.search.grouping.result.GroupId;
+import com.yahoo.search.grouping.result.RawBucketId;
+import com.yahoo.search.grouping.result.RawId;
+import com.yahoo.search.grouping.result.RootGroup;
+import com.yahoo.search.grouping.result.ValueGroupId;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.result.NanNumber;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The names and structure of the parts of a search result which the {@link JsonRenderer}
+ * and the {@link SlimeRenderer} render in the same way.
+ * Names are encoded once here, rather than each time they are written to JSON.
+ */
+final class ResultStructure {
+
+    static final SerializableString BUCKET_LIMITS = new SerializedString("limits");
+    static final SerializableString BUCKET_TO = new SerializedString("to");
+    static final SerializableString BUCKET_FROM = new SerializedString("from");
+    static final SerializableString CHILDREN = new SerializedString("children");
+    static final SerializableString CONTINUATION = new SerializedString("continuation");
+    static final SerializableString COVERAGE = new SerializedString("coverage");
+    static final SerializableString COVERAGE_COVERAGE = new SerializedString("coverage");
+    static final SerializableString COVERAGE_DOCUMENTS = new SerializedString("documents");
+    static final SerializableString COVERAGE_DEGRADE = new SerializedString("degraded");
+    static final SerializableString COVERAGE_DEGRADE_MATCHPHASE = new SerializedString("match-phase");
+    static final SerializableString COVERAGE_DEGRADE_TIMEOUT = new SerializedString("timeout");
+    static final SerializableString COVERAGE_DEGRADE_ADAPTIVE_TIMEOUT = new SerializedString("adaptive-timeout");
+    static final SerializableString COVERAGE_DEGRADED_NON_IDEAL_STATE = new SerializedString("non-ideal-state");
+    static final SerializableString COVERAGE_FULL = new SerializedString("full");
+    static final SerializableString COVERAGE_NODES = new SerializedString("nodes");
+    static final SerializableString COVERAGE_RESULTS = new SerializedString("results");
+    static final SerializableString COVERAGE_RESULTS_FULL = new SerializedString("resultsFull");
+    static final SerializableString ERRORS = new SerializedString("errors");
+    static final SerializableString ERROR_CODE = new SerializedString("code");
+    static final SerializableString ERROR_MESSAGE = new SerializedString("message");
+    static final SerializableString ERROR_SOURCE = new SerializedString("source");
+    static final SerializableString ERROR_STACK_TRACE = new SerializedString("stackTrace");
+    static final SerializableString ERROR_SUMMARY = new SerializedString("summary");
+    static final SerializableString FIELDS = new SerializedString("fields");
+    static final SerializableString ID = new SerializedString("id");
+    static final SerializableString LABEL = new SerializedString("label");
+    static final SerializableString RELEVANCE = new SerializedString("relevance");
+    static final SerializableString ROOT = new SerializedString("root");
+    static final SerializableString SOURCE = new SerializedString("source");
+    static final SerializableString TOTAL_COUNT = new SerializedString("totalCount");
+    static final SerializableString TRACE = new SerializedString("trace");
+    static final SerializableString TRACE_CHILDREN = new SerializedString("children");
+    static final SerializableString TRACE_MESSAGE = new SerializedString("message");
+    static final SerializableString TRACE_TIMESTAMP = new SerializedString("timestamp");
+    static final SerializableString TIMING = new SerializedString("timing");
+    static final SerializableString QUERY_TIME = new SerializedString("querytime");
+    static final SerializableString SUMMARY_FETCH_TIME = new SerializedString("summaryfetchtime");
+    static final SerializableString SEARCH_TIME = new SerializedString("searchtime");
+    static final SerializableString GROUPING_VALUE = new SerializedString("value");
+    static final String VESPA_HIDDEN_FIELD_PREFIX = "$";
+
+    private ResultStructure() {}
+
+    /** Writes the parts of a result given to it in the format of a renderer */
+    interface Writer {
+
+        /** Starts a field of the current object holding an object, or an object entry of the current array if name is null */
+        void beginObject(SerializableString name) throws IOException;
+
+        void endObject() throws IOException;
+
+        /** Starts a field of the current object holding an array */
+        void beginArray(SerializableString name) throws IOException;
+
+        void endArray() throws IOException;
+
+        void field(SerializableString name, String value) throws IOException;
+
+        void field(SerializableString name, long value) throws IOException;
+
+        void field(SerializableString name, double value) throws IOException;
+
+        void field(SerializableString name, boolean value) throws IOException;
+
+    }
+
+    /** Returns whether a hit field should be rendered when not debug rendering */
+    static boolean shouldRenderField(String name, Object value) {
+        if (name.startsWith(VESPA_HIDDEN_FIELD_PREFIX)) return false;
+        if (value instanceof CharSequence && ((CharSequence) value).length() == 0) return false;
+        // StringFieldValue cannot hold a null, so checking length directly is OK:
+        if (value instanceof StringFieldValue && ((StringFieldValue) value).getString().isEmpty()) return false;
+        if (value instanceof NanNumber) return false;
+        return true;
+    }
+
+    /** Returns whether a hit field having a UTF-8 value of the given length should be rendered when not debug rendering */
+    static boolean shouldRenderUtf8Field(String name, int length) {
+        if (name.startsWith(VESPA_HIDDEN_FIELD_PREFIX)) return false;
+        if (length == 0) return false;
+        return true;
+    }
+
+    /** Writes the timing of the given result as a field of the current object, if timing is requested */
+    static void writeTiming(Result result, long now, Writer writer) throws IOException {
+        if ( ! result.getQuery().getPresentation().getTiming()) return;
+
+        double milli = .001d;
+        writer.beginObject(TIMING);
+        if (result.getElapsedTime().firstFill() != 0L) {
+            writer.field(QUERY_TIME, result.getElapsedTime().weightedSearchTime() * milli);
+            writer.field(SUMMARY_FETCH_TIME, result.getElapsedTime().weightedFillTime() * milli);
+        }
+        writer.field(SEARCH_TIME, (now - result.getElapsedTime().first()) * milli);
+        writer.endObject();
+    }
+
+    /** Writes the given coverage as a field of the current object, if it is not null */
+    static void writeCoverage(Coverage c, Writer writer) throws IOException {
+        if (c == null) return;
+
+        writer.beginObject(COVERAGE);
+        writer.field(COVERAGE_COVERAGE, c.getResultPercentage());
+        writer.field(COVERAGE_DOCUMENTS, c.getDocs());
+        if (c.isDegraded()) {
+            writer.beginObject(COVERAGE_DEGRADE);
+            writer.field(COVERAGE_DEGRADE_MATCHPHASE, c.isDegradedByMatchPhase());
+            writer.field(COVERAGE_DEGRADE_TIMEOUT, c.isDegradedByTimeout());
+            writer.field(COVERAGE_DEGRADE_ADAPTIVE_TIMEOUT, c.isDegradedByAdapativeTimeout());
+            writer.field(COVERAGE_DEGRADED_NON_IDEAL_STATE, c.isDegradedByNonIdealState());
+            writer.endObject();
+        }
+        writer.field(COVERAGE_FULL, c.getFull());
+        writer.field(COVERAGE_NODES, c.getNodes());
+        writer.field(COVERAGE_RESULTS, c.getResultSets());
+        writer.field(COVERAGE_RESULTS_FULL, c.getFullResultSets());
+        writer.endObject();
+    }
+
+    /** Writes the given errors as a field of the current object, if there are any */
+    static void writeErrors(Set<ErrorMessage> errors, Writer writer) throws IOException {
+        if (errors.isEmpty()) return;
+
+        writer.beginArray(ERRORS);
+        for (ErrorMessage e : errors) {
+            writer.beginObject(null);
+            writer.field(ERROR_CODE, e.getCode());
+            writer.field(ERROR_SUMMARY, e.getMessage());
+            if (e.getSource() != null)
+                writer.field(ERROR_SOURCE, e.getSource());
+            if (e.getDetailedMessage() != null)
+                writer.field(ERROR_MESSAGE, e.getDetailedMessage());
+            Throwable cause = e.getCause();
+            if (cause != null && cause.getStackTrace().length > 0) {
+                StringWriter s = new StringWriter();
+                PrintWriter p = new PrintWriter(s);
+                cause.printStackTrace(p);
+                p.close();
+                writer.field(ERROR_STACK_TRACE, s.toString());
+            }
+            writer.endObject();
+        }
+        writer.endArray();
+    }
+
+    /** Writes the fields which a grouping list or group has in addition to those of other hits */
+    static void writeGroupingFields(Hit hit, Writer writer) throws IOException {
+        if (hit instanceof AbstractList) {
+            AbstractList list = (AbstractList) hit;
+            writer.field(LABEL, list.getLabel());
+            writeContinuations(list.continuations(), writer);
+        } else if (hit instanceof Group) {
+            writeGroupMetadata(((Group) hit).getGroupId(), writer);
+            if (hit instanceof RootGroup)
+                writeContinuations(Collections.singletonMap(Continuation.THIS_PAGE, ((RootGroup) hit).continuation()),
+                                   writer);
+        }
+    }
+
+    private static void writeContinuations(Map<String, Continuation> continuations, Writer writer) throws IOException {
+        if (continuations.isEmpty()) return;
+
+        writer.beginObject(CONTINUATION);
+        for (Map.Entry<String, Continuation> e : continuations.entrySet())
+            writer.field(new SerializedString(e.getKey()), e.getValue().toString());
+        writer.endObject();
+    }
+
+    private static void writeGroupMetadata(GroupId id, Writer writer) throws IOException {
+        if (id instanceof ValueGroupId) {
+            writer.field(GROUPING_VALUE, getIdValue((ValueGroupId<?>) id));
+        } else if (id instanceof BucketGroupId) {
+            BucketGroupId<?> bucketId = (BucketGroupId<?>) id;
+            writer.beginObject(BUCKET_LIMITS);
+            writer.field(BUCKET_FROM, getBucketFrom(bucketId));
+            writer.field(BUCKET_TO, getBucketTo(bucketId));
+            writer.endObject();
+        }
+    }
+
+    private static String getIdValue(ValueGroupId<?> id) {
+        return (id instanceof RawId ? Arrays.toString(((RawId) id).getValue()) : id.getValue()).toString();
+    }
+
+    private static String getBucketFrom(BucketGroupId<?> id) {
+        return (id instanceof RawBucketId ? Arrays.toString(((RawBucketId) id).getFrom()) : id.getFrom()).toString();
+    }
+
+    private static String getBucketTo(BucketGroupId<?> id) {
+        return (id instanceof RawBucketId ? Arrays.toString(((RawBucketId) id).getTo()) : id.getTo()).toString();
+    }
+
+}
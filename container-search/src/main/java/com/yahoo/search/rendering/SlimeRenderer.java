@@ -0,0 +1,373 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.rendering;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.google.common.base.Preconditions;
+import com.yahoo.data.JsonProducer;
+import com.yahoo.data.access.Inspectable;
+import com.yahoo.data.access.Inspector;
+import com.yahoo.data.access.slime.SlimeAdapter;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.document.json.JsonWriter;
+import com.yahoo.processing.Response;
+import com.yahoo.processing.rendering.AsynchronousSectionedRenderer;
+import com.yahoo.processing.response.Data;
+import com.yahoo.processing.response.DataList;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.DefaultErrorHit;
+import com.yahoo.search.result.ErrorHit;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.result.HitGroup;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.JsonDecoder;
+import com.yahoo.slime.Slime;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+import com.yahoo.text.AbstractUtf8Array;
+import com.yahoo.text.Utf8;
+import com.yahoo.yolean.trace.TraceNode;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static com.yahoo.search.rendering.ResultStructure.*;
+
+/**
+ * Renders search results in the Slime binary format, for clients which are other programs.
+ * The result has the same structure as produced by the {@link JsonRenderer}, except that tensors are
+ * rendered as data in the binary tensor format of {@link TypedBinaryFormat}.
+ * Field values which are available as UTF-8 or as inspectable data, such as most document summary fields,
+ * are copied without being converted to other representations first.
+ * <p>
+ * As the binary format starts by the symbol table of the entire result, the result is rendered to
+ * the stream when it is complete.
+ */
+public class SlimeRenderer extends AsynchronousSectionedRenderer<Result> {
+
+    private Slime slime;
+    private OutputStream stream;
+
+    /** The hit groups currently being rendered, innermost first */
+    private Deque<Cursor> groups;
+
+    public SlimeRenderer() {
+        this(null);
+    }
+
+    /**
+     * Creates a slime renderer using a custom executor.
+     * Using a custom executor is useful for tests to avoid creating new threads for each renderer registry.
+     */
+    public SlimeRenderer(Executor executor) {
+        super(executor);
+    }
+
+    @Override
+    public void init() {
+        super.init();
+        slime = null;
+        stream = null;
+        groups = null;
+    }
+
+    @Override
+    public void beginResponse(OutputStream stream) throws IOException {
+        this.stream = stream;
+        slime = new Slime();
+        groups = new ArrayDeque<>();
+        Cursor top = slime.setObject();
+        renderTrace(top);
+        writeTiming(getResult(), System.currentTimeMillis(), new CursorWriter(top));
+    }
+
+    @Override
+    public void beginList(DataList<?> list) throws IOException {
+        Preconditions.checkArgument(list instanceof HitGroup,
+                                    "Expected subclass of com.yahoo.search.result.HitGroup, got %s.",
+                                    list.getClass());
+        HitGroup hitGroup = (HitGroup) list;
+        Cursor group = groups.isEmpty() ? slime.get().setObject(ROOT.getValue()) : children(groups.peek()).addObject();
+        groups.push(group);
+
+        renderHitContents(hitGroup, group);
+        if (getRecursionLevel() == 1)
+            writeCoverage(getResult().getCoverage(false), new CursorWriter(group));
+
+        ErrorHit errorHit = hitGroup.getErrorHit();
+        if (errorHit != null)
+            writeErrors(errorHit.errors(), new CursorWriter(group));
+    }
+
+    @Override
+    public void data(Data data) throws IOException {
+        Preconditions.checkArgument(data instanceof Hit,
+                                    "Expected subclass of com.yahoo.search.result.Hit, got %s.",
+                                    data.getClass());
+        Hit hit = (Hit) data;
+        if (hit instanceof DefaultErrorHit) return;
+        renderHitContents(hit, children(groups.peek()).addObject());
+    }
+
+    @Override
+    public void endList(DataList<?> list) {
+        groups.pop();
+    }
+
+    @Override
+    public void endResponse() throws IOException {
+        stream.write(BinaryFormat.encode(slime));
+    }
+
+    @Override
+    public String getEncoding() {
+        return null;
+    }
+
+    @Override
+    public String getMimeType() {
+        return "application/x-vespa-slime";
+    }
+
+    private Result getResult() {
+        Response r = getResponse();
+        Preconditions.checkArgument(r instanceof Result,
+                                    "SlimeRenderer can only render instances of com.yahoo.search.Result, got instance of %s.",
+                                    r.getClass());
+        return (Result) r;
+    }
+
+    private void renderTrace(Cursor top) {
+        TraceNode root = getExecution().trace().traceNode();
+        if ( ! root.children().iterator().hasNext()) return;
+        if (getResult().getQuery().getTraceLevel() == 0) return;
+
+        long basetime = root.timestamp();
+        if (basetime == 0L)
+            basetime = getResult().getElapsedTime().first();
+        renderTraceNode(root, basetime, top.setObject(TRACE.getValue()));
+    }
+
+    private void renderTraceNode(TraceNode node, long basetime, Cursor object) {
+        if (node.timestamp() != 0L)
+            object.setLong(TRACE_TIMESTAMP.getValue(), node.timestamp() - basetime);
+        if (node.payload() != null)
+            object.setString(TRACE_MESSAGE.getValue(), node.payload().toString());
+        Cursor children = null;
+        for (TraceNode child : node.children()) {
+            if (children == null)
+                children = object.setArray(TRACE_CHILDREN.getValue());
+            renderTraceNode(child, basetime, children.addObject());
+        }
+    }
+
+    private void renderHitContents(Hit hit, Cursor object) throws IOException {
+        String id = hit.getDisplayId();
+        if (id != null)
+            object.setString(ID.getValue(), id);
+        object.setDouble(RELEVANCE.getValue(), hit.getRelevance().getScore());
+        if (hit.getSource() != null)
+            object.setString(SOURCE.getValue(), hit.getSource());
+
+        writeGroupingFields(hit, new CursorWriter(object));
+
+        FieldInserter fields = new FieldInserter(object);
+        if (getRecursionLevel() == 1 && hit instanceof HitGroup)
+            fields.fields().setLong(TOTAL_COUNT.getValue(), getResult().getTotalHitCount());
+        hit.forEachFieldAsRaw(fields);
+    }
+
+    /** Returns the children array of the given group, which is created if it does not exist */
+    private static Cursor children(Cursor group) {
+        Cursor children = group.field(CHILDREN.getValue());
+        return children.valid() ? children : group.setArray(CHILDREN.getValue());
+    }
+
+    /** Writes the parts of the result which are rendered as by the other renderers into a Slime object */
+    private static class CursorWriter implements ResultStructure.Writer {
+
+        /** The objects and arrays being written, innermost first */
+        private final Deque<Cursor> cursors = new ArrayDeque<>();
+
+        CursorWriter(Cursor object) {
+            cursors.push(object);
+        }
+
+        @Override
+        public void beginObject(SerializableString name) {
+            cursors.push(name == null ? cursors.peek().addObject() : cursors.peek().setObject(name.getValue()));
+        }
+
+        @Override
+        public void endObject() { cursors.pop(); }
+
+        @Override
+        public void beginArray(SerializableString name) {
+            cursors.push(cursors.peek().setArray(name.getValue()));
+        }
+
+        @Override
+        public void endArray() { cursors.pop(); }
+
+        @Override
+        public void field(SerializableString name, String value) { cursors.peek().setString(name.getValue(), value); }
+
+        @Override
+        public void field(SerializableString name, long value) { cursors.peek().setLong(name.getValue(), value); }
+
+        @Override
+        public void field(SerializableString name, double value) { cursors.peek().setDouble(name.getValue(), value); }
+
+        @Override
+        public void field(SerializableString name, boolean value) { cursors.peek().setBool(name.getValue(), value); }
+
+    }
+
+    /** Inserts the fields of a hit into the "fields" object of the hit, which is created when needed */
+    private static class FieldInserter implements Hit.RawUtf8Consumer {
+
+        private static final JsonFactory jsonFactory = new JsonFactory();
+
+        private final Cursor hit;
+        private Cursor fields = null;
+
+        FieldInserter(Cursor hit) {
+            this.hit = hit;
+        }
+
+        Cursor fields() {
+            if (fields == null)
+                fields = hit.setObject(FIELDS.getValue());
+            return fields;
+        }
+
+        @Override
+        public void accept(String name, Object value) {
+            if ( ! shouldRenderField(name, value)) return;
+            setField(fields(), name, value);
+        }
+
+        @Override
+        public void accept(String name, byte[] utf8Data, int offset, int length) {
+            if ( ! shouldRenderUtf8Field(name, length)) return;
+            fields().setString(name, bytes(utf8Data, offset, length));
+        }
+
+        private static void setField(Cursor object, String name, Object value) {
+            if (value == null) {
+                object.setNix(name);
+            } else if (value instanceof Boolean) {
+                object.setBool(name, (Boolean) value);
+            } else if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+                object.setDouble(name, ((Number) value).doubleValue());
+            } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() >= 64) {
+                object.setString(name, value.toString());
+            } else if (value instanceof Number) {
+                object.setLong(name, ((Number) value).longValue());
+            } else if (value instanceof AbstractUtf8Array) {
+                ByteBuffer utf8 = ((AbstractUtf8Array) value).wrap();
+                object.setString(name, bytes(utf8.array(), utf8.arrayOffset() + utf8.position(), utf8.remaining()));
+            } else if (value instanceof Inspectable) {
+                setField(object, name, ((Inspectable) value).inspect());
+            } else if (value instanceof Tensor) {
+                object.setData(name, TypedBinaryFormat.encode((Tensor) value));
+            } else if (value instanceof TensorFieldValue) {
+                Optional<Tensor> tensor = ((TensorFieldValue) value).getTensor();
+                if (tensor.isPresent())
+                    object.setData(name, TypedBinaryFormat.encode(tensor.get()));
+                else
+                    object.setNix(name);
+            } else if (value instanceof StringFieldValue) {
+                object.setString(name, ((StringFieldValue) value).getString());
+            } else if (value instanceof FieldValue) {
+                setField(object, name, fromJson(toJson((FieldValue) value)));
+            } else if (value instanceof JsonProducer) {
+                setField(object, name, fromJson(Utf8.toBytes(((JsonProducer) value).toJson())));
+            } else if (value instanceof JSONArray || value instanceof JSONObject) {
+                // org.json returns null if the object would not result in syntactically correct JSON
+                String json = value.toString();
+                if (json == null)
+                    object.setNix(name);
+                else
+                    setField(object, name, fromJson(Utf8.toBytes(json)));
+            } else {
+                object.setString(name, value.toString());
+            }
+        }
+
+        private static void setField(Cursor object, String name, Inspector value) {
+            switch (value.type()) {
+                case BOOL: object.setBool(name, value.asBool()); break;
+                case LONG: object.setLong(name, value.asLong()); break;
+                case DOUBLE: object.setDouble(name, value.asDouble()); break;
+                case STRING: object.setString(name, value.asUtf8()); break;
+                case DATA: object.setData(name, value.asData()); break;
+                case ARRAY: addEntries(object.setArray(name), value); break;
+                case OBJECT: setFields(object.setObject(name), value); break;
+                default: object.setNix(name);
+            }
+        }
+
+        private static void addEntry(Cursor array, Inspector value) {
+            switch (value.type()) {
+                case BOOL: array.addBool(value.asBool()); break;
+                case LONG: array.addLong(value.asLong()); break;
+                case DOUBLE: array.addDouble(value.asDouble()); break;
+                case STRING: array.addString(value.asUtf8()); break;
+                case DATA: array.addData(value.asData()); break;
+                case ARRAY: addEntries(array.addArray(), value); break;
+                case OBJECT: setFields(array.addObject(), value); break;
+                default: array.addNix();
+            }
+        }
+
+        private static void addEntries(Cursor array, Inspector value) {
+            for (Inspector entry : value.entries())
+                addEntry(array, entry);
+        }
+
+        private static void setFields(Cursor object, Inspector value) {
+            for (Map.Entry<String, Inspector> field : value.fields())
+                setField(object, field.getKey(), field.getValue());
+        }
+
+        private static Inspector fromJson(byte[] json) {
+            return new SlimeAdapter(new JsonDecoder().decode(new Slime(), json).get());
+        }
+
+        private static byte[] toJson(FieldValue value) {
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            try (JsonGenerator generator = jsonFactory.createGenerator(json)) {
+                value.serialize(null, new JsonWriter(generator)); // the field name is not written
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return json.toByteArray();
+        }
+
+        private static byte[] bytes(byte[] array, int offset, int length) {
+            if (offset == 0 && length == array.length) return array;
+            return Arrays.copyOfRange(array, offset, offset + length);
+        }
+
+    }
+
+}
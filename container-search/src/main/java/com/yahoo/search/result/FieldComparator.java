@@ -4,6 +4,7 @@ package com.yahoo.search.result;
 import com.yahoo.search.query.Sorting;
 
 import java.util.Comparator;
+import java.util.List;
 
 /**
  * Comparator used for ordering hits using the field values and a sorting specification.
@@ -72,6 +73,36 @@ public class FieldComparator extends ChainableComparator {
         return super.compare(first,second);
     }
 
+    /**
+     * Compares hits as {@link #compare(Hit, Hit)}, given the values returned from {@link #sortKey} for each of them,
+     * such that the fields of each hit are not looked up again for each comparison.
+     */
+    int compare(Hit first, Object[] firstKey, Hit second, Object[] secondKey) {
+        List<Sorting.FieldOrder> fieldOrders = sorting.fieldOrders();
+        for (int i = 0; i < fieldOrders.size(); i++) {
+            Object a = firstKey[i];
+            Object b = secondKey[i];
+            if ((a == null) || (b == null)) return 0; // as in compare(Hit, Hit)
+
+            int x = compareValues(a, b, fieldOrders.get(i).getSorter());
+            if (x != 0) {
+                if (fieldOrders.get(i).getSortOrder() == Sorting.Order.DESCENDING)
+                    x *= -1;
+                return x;
+            }
+        }
+        return super.compare(first, second);
+    }
+
+    /** Returns the values of the given hit which are compared by this, in sort order */
+    Object[] sortKey(Hit hit) {
+        List<Sorting.FieldOrder> fieldOrders = sorting.fieldOrders();
+        Object[] key = new Object[fieldOrders.size()];
+        for (int i = 0; i < key.length; i++)
+            key[i] = getField(hit, fieldOrders.get(i).getFieldName());
+        return key;
+    }
+
     public Object getField(Hit hit,String key) {
         if ("[relevance]".equals(key)) return hit.getRelevance();
         if ("[rank]".equals(key)) return hit.getRelevance();
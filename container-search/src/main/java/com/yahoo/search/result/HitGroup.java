@@ -13,7 +13,9 @@ import com.yahoo.processing.response.IncomingData;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -494,9 +496,9 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
      */
     public void trim(int offset, int numHits) {
         updateHits();
-        ensureSorted();
-
         int highBound = numHits + offset; // Largest offset +1
+        if ( ! orderedHits && ! hitsSorted && likelyHitsHaveCorrectValueForSortFields())
+            sortFirst(highBound);
 
         int currentIndex = -1;
 
@@ -591,6 +593,49 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
         }
     }
 
+    /**
+     * Orders the hits of this such that all auxiliary hits and the given number of first concrete hits
+     * are first and in order, followed by the remaining concrete hits in an undefined order.
+     * This sorts only the first hits if there are many more concrete hits than the given number and the
+     * order is given by comparing hits, and all the hits otherwise.
+     */
+    private void sortFirst(int concreteCount) {
+        List<Hit> concreteHits = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            if ( ! hit.isAuxiliary())
+                concreteHits.add(hit);
+        }
+        boolean orderedByComparison = hitOrderer == null || hitOrderer instanceof HitSortOrderer;
+        if ( ! orderedByComparison || concreteCount < 0 || concreteCount > concreteHits.size() / 2) {
+            sort();
+            return;
+        }
+
+        if (hitOrderer == null)
+            ListSorter.sortFirst(concreteHits, concreteCount, Comparator.naturalOrder());
+        else
+            ((HitSortOrderer) hitOrderer).order(concreteHits, concreteCount);
+
+        // Sort the first concrete hits with the auxiliary hits, starting from their original order to resolve ties
+        // as a sort of all the hits would
+        Set<Hit> first = Collections.newSetFromMap(new IdentityHashMap<>());
+        first.addAll(concreteHits.subList(0, concreteCount));
+        List<Hit> ordered = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            if (hit.isAuxiliary() || first.contains(hit))
+                ordered.add(hit);
+        }
+        if (hitOrderer == null)
+            Collections.sort(ordered);
+        else
+            hitOrderer.order(ordered);
+        ordered.addAll(concreteHits.subList(concreteCount, concreteHits.size()));
+
+        Iterator<Hit> i = ordered.iterator();
+        hits.replaceAll(hit -> i.next());
+        hitsSorted = true; // up to the hits which will be trimmed away
+    }
+
     private boolean likelyHitsHaveCorrectValueForSortFields() {
         if (hitOrderer == null) {
             return true;
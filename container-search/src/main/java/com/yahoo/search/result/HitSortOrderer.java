@@ -3,8 +3,9 @@ package com.yahoo.search.result;
 
 import com.yahoo.search.query.Sorting;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -17,12 +18,18 @@ public class HitSortOrderer extends HitOrderer {
 
     private final Comparator<Hit> fieldComparator;
 
+    /**
+     * The field comparator at the end of the chain of comparators, if it can compare precomputed sort keys
+     * instead of looking up the fields of the hits in each comparison, or null if not
+     */
+    private final FieldComparator keyComparator;
+
+    /** Compares hits with precomputed sort keys in the same order as fieldComparator */
+    private final Comparator<KeyedHit> keyedHitComparator = this::compare;
+
     /** Create a sort order from a sorting */
     public HitSortOrderer(Sorting sorting) {
-        fieldComparator =
-                new MetaHitsFirstComparator(
-                        new HitGroupsLastComparator(
-                                new FieldComparator(sorting)));
+        this(new FieldComparator(sorting));
     }
 
     /**
@@ -31,6 +38,8 @@ public class HitSortOrderer extends HitOrderer {
      */
     public HitSortOrderer(Comparator<Hit> comparator) {
         fieldComparator = new MetaHitsFirstComparator(new HitGroupsLastComparator(comparator));
+        // Subclasses may look up values differently in compare(Hit, Hit)
+        keyComparator = comparator.getClass() == FieldComparator.class ? (FieldComparator) comparator : null;
     }
 
     /**
@@ -39,12 +48,59 @@ public class HitSortOrderer extends HitOrderer {
      * Meta hits are sorted before concrete hits, but have no internal
      * ordering. The sorting is stable.
      */
+    @Override
     public void order(List<Hit> hits) {
-        Collections.sort(hits, fieldComparator);
+        order(hits, hits.size());
+    }
+
+    /**
+     * Orders the given list of hits such that the first count hits in it are the first count hits in the order
+     * given at construction, in that order. The remaining hits follow in an undefined order.
+     * This is cheaper than ordering the entire list when count is small compared to its size.
+     */
+    public void order(List<Hit> hits, int count) {
+        if (keyComparator == null) {
+            ListSorter.sortFirst(hits, count, fieldComparator);
+            return;
+        }
+
+        List<KeyedHit> keyedHits = new ArrayList<>(hits.size());
+        for (Hit hit : hits)
+            keyedHits.add(new KeyedHit(hit, keyComparator.sortKey(hit)));
+        ListSorter.sortFirst(keyedHits, count, keyedHitComparator);
+        Iterator<KeyedHit> i = keyedHits.iterator();
+        hits.replaceAll(hit -> i.next().hit);
+    }
+
+    /** Compares as fieldComparator, using the precomputed sort keys */
+    private int compare(KeyedHit left, KeyedHit right) {
+        // MetaHitsFirstComparator
+        if (left.hit.isMeta() && right.hit.isMeta()) return 0;
+        if (left.hit.isMeta()) return -1;
+        if (right.hit.isMeta()) return 1;
+
+        // HitGroupsLastComparator
+        if (left.isHitGroup ^ right.isHitGroup) return left.isHitGroup ? 1 : -1;
+
+        return keyComparator.compare(left.hit, left.key, right.hit, right.key);
     }
 
     public Comparator<Hit> getComparator() {
         return fieldComparator;
     }
 
+    private static class KeyedHit {
+
+        final Hit hit;
+        final Object[] key;
+        final boolean isHitGroup;
+
+        KeyedHit(Hit hit, Object[] key) {
+            this.hit = hit;
+            this.key = key;
+            this.isHitGroup = hit instanceof HitGroup;
+        }
+
+    }
+
 }
@@ -0,0 +1,81 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.result;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Stable partial sorting of lists of hits (or of other elements standing in for hits).
+ * Lists are modified by replacing their elements, such that listeners to additions are not invoked.
+ */
+final class ListSorter {
+
+    private ListSorter() {}
+
+    /**
+     * Orders the given list such that its first count elements are the same, and in the same order,
+     * as those a stable sort of the entire list would produce. These are followed by the remaining
+     * elements in their original relative order.
+     * This is cheaper than a sort when count is small compared to the size of the list.
+     */
+    static <T> void sortFirst(List<T> list, int count, Comparator<? super T> comparator) {
+        if (count >= list.size()) {
+            list.sort(comparator);
+            return;
+        }
+
+        // Select the first elements using a heap with the last of the selected elements on top.
+        // An element replaces the top only if it is strictly before it, so earlier elements win ties.
+        Comparator<Indexed<T>> order = (a, b) -> {
+            int result = comparator.compare(a.element, b.element);
+            return result != 0 ? result : Integer.compare(a.index, b.index);
+        };
+        PriorityQueue<Indexed<T>> first = new PriorityQueue<>(Math.max(1, count), order.reversed());
+        int index = 0;
+        for (T element : list) {
+            if (first.size() < count)
+                first.add(new Indexed<>(element, index));
+            else if (count > 0 && comparator.compare(element, first.peek().element) < 0) {
+                first.poll();
+                first.add(new Indexed<>(element, index));
+            }
+            index++;
+        }
+
+        boolean[] isFirst = new boolean[list.size()];
+        List<Indexed<T>> selected = new ArrayList<>(first);
+        selected.sort(order);
+        List<T> ordered = new ArrayList<>(list.size());
+        for (Indexed<T> element : selected) {
+            ordered.add(element.element);
+            isFirst[element.index] = true;
+        }
+        index = 0;
+        for (T element : list) {
+            if ( ! isFirst[index++])
+                ordered.add(element);
+        }
+        replaceAll(list, ordered);
+    }
+
+    private static <T> void replaceAll(List<T> list, List<T> elements) {
+        Iterator<T> i = elements.iterator();
+        list.replaceAll(element -> i.next());
+    }
+
+    private static class Indexed<T> {
+
+        final T element;
+        final int index;
+
+        Indexed(T element, int index) {
+            this.element = element;
+            this.index = index;
+        }
+
+    }
+
+}
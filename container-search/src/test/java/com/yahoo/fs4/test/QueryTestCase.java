@@ -49,6 +49,22 @@ public class QueryTestCase {
         assertEqualArrays(correctBuffer, encoded);
     }
 
+    @Test
+    public void testEncodePacketWithWindow() {
+        Query query = new Query("/?query=chain&timeout=0");
+        query.setWindow(2, 8);
+        QueryPacket packet = QueryPacket.create(query);
+        packet.setWindow(0, 10);
+        assertEquals(0, packet.getOffset());
+        assertEquals(10, packet.getHits());
+
+        byte[] encoded = packetToBytes(packet);
+        assertEquals(0, encoded[16]); // offset
+        assertEquals(10, encoded[17]); // hits
+        assertEquals(2, query.getOffset());
+        assertEquals(8, query.getHits());
+    }
+
     @Test
     public void testEncodeQueryPacketWithSomeAdditionalFeatures() {
         Query query = new Query("/?query=chain&dataset=10&type=phrase&timeout=0");
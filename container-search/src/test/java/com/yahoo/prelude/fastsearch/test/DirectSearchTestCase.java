@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.prelude.fastsearch.test;
 
+import com.yahoo.search.Result;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -121,4 +122,41 @@ public class DirectSearchTestCase {
         assertEquals("1 ping request, 1 search requests", 2, tester.requestCount(FastSearcherTester.selfHostname, 9999));
     }
 
+    @Test
+    public void testInternalDispatchSearchesAllNodesInGroup() {
+        FastSearcherTester tester = new FastSearcherTester(1, "host1:9999:0", "host2:9999:0", "host3:9999:1");
+        Result result = tester.search("?query=test&dispatch.internal=true&nocache");
+        assertEquals(1, tester.requestCount("host1", 9999));
+        assertEquals(1, tester.requestCount("host2", 9999));
+        assertEquals(0, tester.requestCount("host3", 9999));
+        assertEquals(4, result.getHitCount());
+        assertEquals(4, result.getTotalHitCount());
+        assertEquals(2, result.getCoverage(false).getNodes());
+        assertEquals(2003.0, result.hits().get(0).getRelevance().getScore(), 0.001);
+        assertEquals(2003.0, result.hits().get(1).getRelevance().getScore(), 0.001);
+        assertEquals(1855.0, result.hits().get(2).getRelevance().getScore(), 0.001);
+        assertEquals(1855.0, result.hits().get(3).getRelevance().getScore(), 0.001);
+
+        tester.search("?query=test&dispatch.internal=true&nocache");
+        assertEquals("The next query goes to the other group", 1, tester.requestCount("host3", 9999));
+    }
+
+    @Test
+    public void testInternalDispatchDisabledByDefault() {
+        FastSearcherTester tester = new FastSearcherTester(1, "host1:9999:0", "host2:9999:0");
+        tester.search("?query=test&nocache");
+        assertEquals(0, tester.requestCount("host1", 9999));
+        assertEquals(0, tester.requestCount("host2", 9999));
+    }
+
+    @Test
+    public void testInternalDispatchWithNonRespondingNode() {
+        FastSearcherTester tester = new FastSearcherTester(1, "host1:9999:0", "host2:9999:0");
+        tester.setResponding("host2", false);
+        Result result = tester.search("?query=test&dispatch.internal=true&nocache");
+        assertEquals(2, result.getHitCount());
+        assertEquals(1, result.getCoverage(false).getNodes());
+        assertEquals(2, result.getCoverage(false).getNodesTried());
+    }
+
 }
@@ -0,0 +1,85 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache;
+
+import com.yahoo.test.ManualClock;
+import com.yahoo.text.Utf8;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the off-heap cache
+ */
+public class OffHeapCacheTestCase {
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void testPutAndGet() {
+        OffHeapCache<String> cache = new OffHeapCache<>(100, 1000, 50, clock);
+        cache.put("key1", Utf8.toBytes("value1"));
+        cache.put("key2", Utf8.toBytes("value2"));
+        assertEquals("value1", Utf8.toString(cache.get("key1")));
+        assertEquals("value2", Utf8.toString(cache.get("key2")));
+        assertNull(cache.get("key3"));
+
+        cache.put("key1", Utf8.toBytes("newValue1"));
+        assertEquals("newValue1", Utf8.toString(cache.get("key1")));
+
+        cache.remove("key1");
+        assertNull(cache.get("key1"));
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void testOldestValuesAreOverwritten() {
+        OffHeapCache<String> cache = new OffHeapCache<>(40, 1000, 20, clock);
+        assertEquals(40, cache.capacity());
+        for (int i = 0; i < 6; i++)
+            cache.put("key" + i, Utf8.toBytes("0123456789"));
+
+        assertNull(cache.get("key0"));
+        assertNull(cache.get("key1"));
+        for (int i = 2; i < 6; i++)
+            assertEquals("0123456789", Utf8.toString(cache.get("key" + i)));
+        assertEquals(4, cache.size());
+        assertEquals(2, cache.evictions());
+    }
+
+    @Test
+    public void testValuesDoNotCrossSlabs() {
+        OffHeapCache<String> cache = new OffHeapCache<>(30, 1000, 15, clock);
+        cache.put("a", Utf8.toBytes("0123456789"));
+        cache.put("b", Utf8.toBytes("0123456789")); // skips to the second slab
+        cache.put("c", Utf8.toBytes("0123456789")); // overwrites a in the first slab
+        assertNull(cache.get("a"));
+        assertEquals("0123456789", Utf8.toString(cache.get("b")));
+        assertEquals("0123456789", Utf8.toString(cache.get("c")));
+    }
+
+    @Test
+    public void testDoesNotCacheTooLargeValues() {
+        OffHeapCache<String> cache = new OffHeapCache<>(100, 1000, 10, clock);
+        cache.put("key", Utf8.toBytes("small"));
+        cache.put("key", Utf8.toBytes("this value is too large"));
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void testValuesExpire() {
+        OffHeapCache<String> cache = new OffHeapCache<>(100, 1000, 50, clock);
+        cache.put("key1", Utf8.toBytes("value1"));
+        clock.advance(Duration.ofMillis(600));
+        cache.put("key2", Utf8.toBytes("value2"));
+        clock.advance(Duration.ofMillis(600));
+        assertNull(cache.get("key1"));
+        assertEquals("value2", Utf8.toString(cache.get("key2")));
+        assertEquals(1, cache.size());
+    }
+
+}
@@ -0,0 +1,149 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache;
+
+import com.yahoo.search.searchers.test.MockMetric;
+import com.yahoo.test.ManualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the result cache
+ */
+public class ResultCacheTestCase {
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void testPutAndGet() {
+        ResultCache<String, String> cache = createCache(100, 50, null);
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+        assertEquals("value1", cache.get("key1"));
+        assertEquals("value2", cache.get("key2"));
+        assertNull(cache.get("key3"));
+        assertEquals(2, cache.size());
+        assertEquals(12, cache.byteSize());
+
+        cache.put("key1", "newValue1");
+        assertEquals("newValue1", cache.get("key1"));
+        assertEquals(15, cache.byteSize());
+
+        assertEquals("newValue1", cache.remove("key1"));
+        assertNull(cache.get("key1"));
+        assertEquals(6, cache.byteSize());
+
+        assertEquals(3, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedWhenFull() {
+        ResultCache<String, String> cache = createCache(30, 50, null);
+        cache.put("a", "0123456789");
+        cache.put("b", "0123456789");
+        cache.put("c", "0123456789");
+        cache.put("d", "0123456789");
+        assertNull(cache.get("a"));
+        assertEquals("0123456789", cache.get("b"));
+        assertEquals(30, cache.byteSize());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    public void testRepeatedlyRequestedEntriesSurviveScans() {
+        ResultCache<String, String> cache = createCache(100, 50, null);
+        cache.put("popular", "0123456789");
+        assertEquals("0123456789", cache.get("popular"));
+
+        for (int i = 0; i < 20; i++)
+            cache.put("once" + i, "0123456789");
+
+        assertEquals("0123456789", cache.get("popular"));
+        assertNull(cache.get("once0"));
+        assertEquals("0123456789", cache.get("once19"));
+        assertTrue(cache.byteSize() <= 100);
+    }
+
+    @Test
+    public void testDoesNotCacheTooLargeItems() {
+        ResultCache<String, String> cache = createCache(100, 10, null);
+        cache.put("key", "small");
+        cache.put("key", "this value is too large");
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEntriesExpire() {
+        ResultCache<String, String> cache = createCache(100, 50, null);
+        cache.put("key1", "value1");
+        cache.put("key2", "value2", clock.millis() - 500);
+        clock.advance(Duration.ofMillis(600));
+        assertEquals("value1", cache.get("key1"));
+        assertNull(cache.get("key2"));
+        clock.advance(Duration.ofMillis(500));
+        assertNull(cache.get("key1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testReportsMetrics() {
+        MockMetric metric = new MockMetric();
+        ResultCache<String, String> cache = createCache(20, 50, metric);
+        cache.put("a", "0123456789");
+        cache.put("b", "0123456789");
+        cache.put("c", "0123456789");
+        cache.get("c");
+        cache.get("a");
+
+        Map<String, Number> values = metric.values(metric.createContext(Collections.emptyMap()));
+        assertEquals(1, values.get(ResultCache.hitsMetric).intValue());
+        assertEquals(1, values.get(ResultCache.missesMetric).intValue());
+        assertEquals(1, values.get(ResultCache.evictionsMetric).intValue());
+        assertEquals(20, values.get(ResultCache.bytesMetric).intValue());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        ResultCache<String, String> cache = new ResultCache<>(1000, 10, 1000, String::length);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        String key = "key" + (i % 200);
+                        if (cache.get(key) == null)
+                            cache.put(key, "value" + (i % 200));
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertTrue(cache.byteSize() <= 1000);
+        assertEquals(40000, cache.hits() + cache.misses());
+    }
+
+    private ResultCache<String, String> createCache(long capacity, int maxItemPercentage, MockMetric metric) {
+        return new ResultCache<>(capacity, maxItemPercentage, 1000, String::length,
+                                 metric, metric == null ? null : metric.createContext(Collections.emptyMap()),
+                                 1, clock);
+    }
+
+}
@@ -2,23 +2,22 @@
 package com.yahoo.search.dispatch;
 
 import com.yahoo.compress.CompressionType;
+import com.yahoo.container.search.LegacyEmulationConfig;
 import com.yahoo.log.event.Collection;
-import com.yahoo.prelude.fastsearch.DocsumDefinition;
-import com.yahoo.prelude.fastsearch.DocsumDefinitionSet;
-import com.yahoo.prelude.fastsearch.DocsumField;
 import com.yahoo.prelude.fastsearch.DocumentDatabase;
+import com.yahoo.prelude.fastsearch.DocumentdbInfoConfig;
 import com.yahoo.prelude.fastsearch.FastHit;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
+import com.yahoo.search.result.Hit;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 
@@ -105,6 +104,100 @@ public class FillTestCase {
         assertEquals("Missing hit summary data for summary summaryClass1 for 2 hits", result.hits().getError().getDetailedMessage());
     }
 
+    @Test
+    public void testFillingWithCompressedSummaries() {
+        Map<Integer, Client.NodeConnection> nodes = new HashMap<>();
+        nodes.put(0, client.createConnection("host0", 123));
+        Dispatcher dispatcher = new Dispatcher(nodes, client);
+
+        // Large summaries are compressed, and the hits inspect the data they are decompressed into,
+        // so the hits of the first result must be unaffected by filling the second
+        Map<String, Result> results = new HashMap<>();
+        for (int length : new int[] { 10000, 100 }) {
+            String value = String.join("", Collections.nCopies(length, "a"));
+            Result result = new Result(new Query());
+            for (int i = 0; i < 3; i++) {
+                result.hits().add(createHit(0, i));
+                client.setDocsumReponse("host0", i, "summaryClass1", map("field1", value + i, "field2", i));
+            }
+            dispatcher.fill(result, "summaryClass1", db(), CompressionType.valueOf("LZ4"));
+            results.put(value, result);
+        }
+
+        for (Map.Entry<String, Result> valueAndResult : results.entrySet()) {
+            for (int i = 0; i < 3; i++) {
+                Hit hit = valueAndResult.getValue().hits().get("hit:" + i);
+                assertEquals(valueAndResult.getKey() + i, hit.getField("field1").toString());
+                assertEquals((long)i, hit.getField("field2"));
+            }
+        }
+    }
+
+    @Test
+    public void testFillingFromSummaryCache() {
+        Map<Integer, Client.NodeConnection> nodes = new HashMap<>();
+        nodes.put(0, client.createConnection("host0", 123));
+        nodes.put(1, client.createConnection("host1", 123));
+        Dispatcher dispatcher = new Dispatcher(nodes, client, 1, 60);
+
+        client.setDocsumReponse("host0", 0, "summaryClass1", map("field1", "s.0.0", "field2", 0));
+        client.setDocsumReponse("host1", 1, "summaryClass1", map("field1", "s.1.1", "field2", 1));
+
+        Result result = new Result(new Query());
+        result.hits().add(createHit(0, 0));
+        result.hits().add(createHit(1, 1));
+        dispatcher.fill(result, "summaryClass1", db(), CompressionType.valueOf("LZ4"));
+        assertEquals("s.0.0", result.hits().get("hit:0").getField("field1").toString());
+
+        client.setMalfunctioning(true); // so any summary not in the cache will cause an error
+        Result cachedResult = new Result(new Query());
+        cachedResult.hits().add(createHit(0, 0));
+        cachedResult.hits().add(createHit(1, 1));
+        dispatcher.fill(cachedResult, "summaryClass1", db(), CompressionType.valueOf("LZ4"));
+        assertNull(cachedResult.hits().getError());
+        assertEquals("s.0.0", cachedResult.hits().get("hit:0").getField("field1").toString());
+        assertEquals("s.1.1", cachedResult.hits().get("hit:1").getField("field1").toString());
+        assertEquals(1L, cachedResult.hits().get("hit:1").getField("field2"));
+        assertTrue(cachedResult.hits().get("hit:1").isFilled("summaryClass1"));
+
+        Result uncachedResult = new Result(new Query());
+        uncachedResult.hits().add(createHit(0, 2));
+        dispatcher.fill(uncachedResult, "summaryClass1", db(), CompressionType.valueOf("LZ4"));
+        assertEquals("Malfunctioning", uncachedResult.hits().getError().getDetailedMessage());
+    }
+
+    @Test
+    public void testQueryDependentSummariesAreNotCached() {
+        Map<Integer, Client.NodeConnection> nodes = new HashMap<>();
+        nodes.put(0, client.createConnection("host0", 123));
+        Dispatcher dispatcher = new Dispatcher(nodes, client, 1, 60);
+
+        // A dynamic summary class
+        client.setDocsumReponse("host0", 0, "dynamicClass", map("field1", "<hi>first</hi>", "field2", 0));
+        Result first = new Result(new Query("?query=first"));
+        first.hits().add(createHit(0, 0));
+        dispatcher.fill(first, "dynamicClass", db(), CompressionType.valueOf("LZ4"));
+        assertEquals("<hi>first</hi>", first.hits().get("hit:0").getField("field1").toString());
+
+        client.setDocsumReponse("host0", 0, "dynamicClass", map("field1", "<hi>second</hi>", "field2", 0));
+        Result second = new Result(new Query("?query=second"));
+        second.hits().add(createHit(0, 0));
+        dispatcher.fill(second, "dynamicClass", db(), CompressionType.valueOf("LZ4"));
+        assertEquals("<hi>second</hi>", second.hits().get("hit:0").getField("field1").toString());
+
+        // A static summary class, with features listed by the query
+        client.setDocsumReponse("host0", 1, "summaryClass1", map("field1", "s.0.1", "field2", 1));
+        Result cached = new Result(new Query("?query=first"));
+        cached.hits().add(createHit(0, 1));
+        dispatcher.fill(cached, "summaryClass1", db(), CompressionType.valueOf("LZ4"));
+
+        client.setDocsumReponse("host0", 1, "summaryClass1", map("field1", "s.0.1", "field2", 2));
+        Result listingFeatures = new Result(new Query("?query=second&ranking.listFeatures=true"));
+        listingFeatures.hits().add(createHit(0, 1));
+        dispatcher.fill(listingFeatures, "summaryClass1", db(), CompressionType.valueOf("LZ4"));
+        assertEquals(2L, listingFeatures.hits().get("hit:1").getField("field2"));
+    }
+
     @Test
     public void testErrorHandling() {
         client.setMalfunctioning(true);
@@ -123,12 +216,21 @@ public class FillTestCase {
     }
 
     private DocumentDatabase db() {
-        List<DocsumField> fields = new ArrayList<>();
-        fields.add(DocsumField.create("field1", "string"));
-        fields.add(DocsumField.create("field2", "int64"));
-        DocsumDefinitionSet docsums = new DocsumDefinitionSet(Collections.singleton(new DocsumDefinition("summaryClass1",
-                                                                                                         fields)));
-        return new DocumentDatabase("default", docsums, Collections.emptySet());
+        DocumentdbInfoConfig.Documentdb.Builder db = new DocumentdbInfoConfig.Documentdb.Builder().name("default");
+        db.summaryclass(summaryClass("summaryClass1", 1, false));
+        db.summaryclass(summaryClass("dynamicClass", 2, true));
+        db.rankprofile(new DocumentdbInfoConfig.Documentdb.Rankprofile.Builder()
+                               .name("default").hasSummaryFeatures(false).hasRankFeatures(false));
+        return new DocumentDatabase(new DocumentdbInfoConfig.Documentdb(db),
+                                    new LegacyEmulationConfig(new LegacyEmulationConfig.Builder()));
+    }
+
+    private DocumentdbInfoConfig.Documentdb.Summaryclass.Builder summaryClass(String name, int id, boolean dynamic) {
+        return new DocumentdbInfoConfig.Documentdb.Summaryclass.Builder().name(name).id(id)
+                .fields(new DocumentdbInfoConfig.Documentdb.Summaryclass.Fields.Builder()
+                                .name("field1").type("string").dynamic(dynamic))
+                .fields(new DocumentdbInfoConfig.Documentdb.Summaryclass.Fields.Builder()
+                                .name("field2").type("int64"));
     }
 
     private FastHit createHit(int sourceNodeId, int hitId) {
@@ -0,0 +1,97 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.google.common.collect.ImmutableList;
+import com.yahoo.search.searchers.test.MockMetric;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests selecting groups to dispatch to
+ */
+public class LoadBalancerTestCase {
+
+    private final SearchCluster.Group group0 = new SearchCluster.Group(0, ImmutableList.of(new SearchCluster.Node(0, "host0", 123, 0)));
+    private final SearchCluster.Group group1 = new SearchCluster.Group(1, ImmutableList.of(new SearchCluster.Node(1, "host1", 123, 1)));
+
+    @Test
+    public void testSpreadsQueriesOverIdleGroups() {
+        LoadBalancer loadBalancer = new LoadBalancer(ImmutableList.of(group0, group1), new MockMetric());
+        SearchCluster.Group first = loadBalancer.takeGroupForQuery().get();
+        SearchCluster.Group second = loadBalancer.takeGroupForQuery().get();
+        assertEquals("The group with a query in flight is avoided", first.id() == 0 ? 1 : 0, second.id());
+        assertEquals(1, loadBalancer.activeQueries(group0));
+        assertEquals(1, loadBalancer.activeQueries(group1));
+
+        loadBalancer.releaseGroup(first, 10);
+        loadBalancer.releaseGroup(second, 10);
+        assertEquals(0, loadBalancer.activeQueries(group0));
+        assertEquals(0, loadBalancer.activeQueries(group1));
+    }
+
+    @Test
+    public void testPrefersFasterGroup() {
+        LoadBalancer loadBalancer = new LoadBalancer(ImmutableList.of(group0, group1), new MockMetric());
+        loadBalancer.releaseGroup(take(loadBalancer, 0), 100);
+        loadBalancer.releaseGroup(take(loadBalancer, 1), 30);
+        assertEquals(100, loadBalancer.averageLatency(group0), 0.001);
+        assertEquals(30, loadBalancer.averageLatency(group1), 0.001);
+
+        for (int i = 0; i < 3; i++)
+            assertEquals("Queries go to the fast group while its expected latency is lower",
+                         1, loadBalancer.takeGroupForQuery().get().id());
+        assertEquals(3, loadBalancer.activeQueries(group1));
+        assertEquals("With many queries in flight in the fast group, the slow group is used",
+                     0, loadBalancer.takeGroupForQuery().get().id());
+    }
+
+    @Test
+    public void testLatencyIsMovingAverage() {
+        LoadBalancer loadBalancer = new LoadBalancer(Collections.singletonList(group0), new MockMetric());
+        loadBalancer.releaseGroup(take(loadBalancer, 0), 100);
+        loadBalancer.releaseGroup(take(loadBalancer, 0), 200);
+        assertEquals(110, loadBalancer.averageLatency(group0), 0.001);
+    }
+
+    @Test
+    public void testSkipsGroupsWithInsufficientCoverage() {
+        SearchCluster.Group group2 = new SearchCluster.Group(2, ImmutableList.of(new SearchCluster.Node(2, "host2", 123, 2)));
+        LoadBalancer loadBalancer = new LoadBalancer(Collections.singletonList(group2), new MockMetric());
+        group2.setHasSufficientCoverage(false);
+        assertFalse(loadBalancer.takeGroupForQuery().isPresent());
+    }
+
+    @Test
+    public void testPrefersGroupsWithAllNodesWorking() {
+        SearchCluster.Node node = new SearchCluster.Node(2, "host2", 123, 2);
+        SearchCluster.Group group2 = new SearchCluster.Group(2, ImmutableList.of(node));
+        LoadBalancer loadBalancer = new LoadBalancer(ImmutableList.of(group2, group1), new MockMetric());
+        node.setWorking(false);
+        for (int i = 0; i < 3; i++)
+            assertEquals(1, loadBalancer.takeGroupForQuery().get().id());
+    }
+
+    @Test
+    public void testReportsMetrics() {
+        MockMetric metric = new MockMetric();
+        LoadBalancer loadBalancer = new LoadBalancer(Collections.singletonList(group0), metric);
+        loadBalancer.releaseGroup(take(loadBalancer, 0), 42);
+        Map<String, Number> values = metric.values(metric.createContext(Collections.singletonMap("group", 0)));
+        assertEquals(0, values.get(LoadBalancer.activeQueriesMetric).intValue());
+        assertEquals(42.0, values.get(LoadBalancer.queryLatencyMetric).doubleValue(), 0.001);
+        assertEquals(1, values.get(LoadBalancer.queriesMetric).intValue());
+    }
+
+    private SearchCluster.Group take(LoadBalancer loadBalancer, int expectedGroupId) {
+        Optional<SearchCluster.Group> group = loadBalancer.takeGroupForQuery();
+        assertEquals(expectedGroupId, group.get().id());
+        return group.get();
+    }
+
+}
@@ -0,0 +1,95 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.document.GlobalId;
+import com.yahoo.document.idstring.IdIdString;
+import com.yahoo.fs4.DocumentInfo;
+import com.yahoo.fs4.QueryResultPacket;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests merging the results of multiple search nodes
+ */
+public class QueryResultMergerTestCase {
+
+    @Test
+    public void testMergingByRelevance() {
+        QueryResultMerger merger = new QueryResultMerger(0, 10, false, 2);
+        merger.add(result(doc(0, 9.0), doc(1, 5.0), doc(2, 1.0)), 7);
+        merger.add(result(doc(3, 8.0), doc(4, 6.0)), 8);
+        QueryResultPacket merged = merger.toResult();
+
+        assertEquals(5, merged.getDocumentCount());
+        assertEquals(5, merged.getTotalDocumentCount());
+        assertOrder(merged, 0, 3, 4, 1, 2);
+        assertEquals(7, merged.getDocuments().get(0).getDistributionKey());
+        assertEquals(8, merged.getDocuments().get(1).getDistributionKey());
+        assertEquals(2, merged.getNodesQueried());
+        assertEquals(2, merged.getNodesReplied());
+    }
+
+    @Test
+    public void testMergingWindow() {
+        QueryResultMerger merger = new QueryResultMerger(2, 2, false, 2);
+        merger.add(result(doc(0, 9.0), doc(1, 5.0), doc(2, 1.0)), 0);
+        merger.add(result(doc(3, 8.0), doc(4, 6.0)), 1);
+        QueryResultPacket merged = merger.toResult();
+
+        assertEquals(2, merged.getOffset());
+        assertEquals(5, merged.getTotalDocumentCount());
+        assertOrder(merged, 4, 1);
+    }
+
+    @Test
+    public void testMergingBySortData() {
+        QueryResultMerger merger = new QueryResultMerger(0, 10, true, 2);
+        merger.add(result(doc(0, 1.0, 0x01), doc(1, 1.0, 0x7f), doc(2, 1.0, 0x80, 0x00)), 0);
+        merger.add(result(doc(3, 1.0, 0x01, 0x00), doc(4, 1.0, 0xff)), 1);
+        QueryResultPacket merged = merger.toResult();
+
+        assertOrder(merged, 0, 3, 1, 2, 4);
+    }
+
+    @Test
+    public void testMergingWithFailedNode() {
+        QueryResultMerger merger = new QueryResultMerger(0, 10, false, 2);
+        merger.add(result(doc(0, 9.0)), 0);
+        merger.addFailed();
+        QueryResultPacket merged = merger.toResult();
+
+        assertOrder(merged, 0);
+        assertEquals(2, merged.getNodesQueried());
+        assertEquals(1, merged.getNodesReplied());
+    }
+
+    private void assertOrder(QueryResultPacket result, int ... expectedIds) {
+        assertEquals(expectedIds.length, result.getDocumentCount());
+        for (int i = 0; i < expectedIds.length; i++)
+            assertEquals(gid(expectedIds[i]), result.getDocuments().get(i).getGlobalId());
+    }
+
+    private QueryResultPacket result(DocumentInfo ... documents) {
+        QueryResultPacket result = QueryResultPacket.create();
+        result.setTotalDocumentCount(documents.length);
+        for (DocumentInfo document : documents)
+            result.addDocument(document);
+        return result;
+    }
+
+    private DocumentInfo doc(int id, double relevance, int ... sortData) {
+        byte[] sortBytes = null;
+        if (sortData.length > 0) {
+            sortBytes = new byte[sortData.length];
+            for (int i = 0; i < sortData.length; i++)
+                sortBytes[i] = (byte)sortData[i];
+        }
+        return new DocumentInfo(gid(id), relevance, 0, 0, sortBytes);
+    }
+
+    private GlobalId gid(int id) {
+        return new GlobalId(new IdIdString("", "test", "", String.valueOf(id)));
+    }
+
+}
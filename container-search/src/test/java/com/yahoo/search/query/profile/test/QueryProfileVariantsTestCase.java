@@ -3,6 +3,7 @@ package com.yahoo.search.query.profile.test;
 
 import com.yahoo.jdisc.http.HttpRequest.Method;
 import com.yahoo.container.jdisc.HttpRequest;
+import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.Query;
 import com.yahoo.search.query.Properties;
 import com.yahoo.search.query.profile.BackedOverridableQueryProfile;
@@ -10,14 +11,19 @@ import com.yahoo.search.query.profile.QueryProfile;
 import com.yahoo.search.query.profile.QueryProfileProperties;
 import com.yahoo.search.query.profile.QueryProfileRegistry;
 import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
+import com.yahoo.search.query.profile.compiled.ResolvedContext;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author bratseth
@@ -67,6 +73,39 @@ public class QueryProfileVariantsTestCase {
         assertGet("a.2.*.*","a",new String[] {"x2","y?","z?"}, profile, cprofile);
     }
 
+    @Test
+    public void testResolvedContextIsReusedOnlyForTheSameContext() {
+        QueryProfile profile=new QueryProfile("test");
+        profile.setDimensions(new String[] {"x","y"});
+        profile.set("a","a.deflt", null);
+        profile.set("a","a.x1",new String[] {"x1"}, null);
+        profile.set("a","a.x1.y1",new String[] {"x1","y1"}, null);
+        profile.set("b","b.y1",new String[] {null,"y1"}, null);
+        CompiledQueryProfile cprofile = profile.compile(null);
+
+        Map<String, String> context = toMap("x=x1");
+        ResolvedContext resolved = cprofile.resolve(context, null);
+        assertEquals("a.x1", resolved.get(new CompoundName("a"), null));
+        assertNull(resolved.get(new CompoundName("b"), null));
+        assertSame(resolved, cprofile.resolve(context, resolved));
+
+        ResolvedContext same = cprofile.resolve(toMap("x=x1", "other=value"), resolved);
+        assertNotSame(resolved, same);
+        assertEquals("a.x1", same.get(new CompoundName("a"), null));
+        assertEquals("value", same.context().get("other"));
+
+        ResolvedContext changed = cprofile.resolve(toMap("x=x1", "y=y1"), same);
+        assertEquals("a.x1.y1", changed.get(new CompoundName("a"), null));
+        assertEquals("b.y1", changed.get(new CompoundName("b"), null));
+
+        ResolvedContext empty = cprofile.resolve(null, changed);
+        assertEquals("a.deflt", empty.get(new CompoundName("a"), null));
+        assertNull(empty.get(new CompoundName("b"), null));
+
+        ResolvedContext unchanged = cprofile.resolve(Collections.emptyMap(), empty);
+        assertSame(empty, unchanged);
+    }
+
     @Test
     public void testVariantsOfInlineCompound() {
         QueryProfile profile=new QueryProfile("test");
@@ -1059,6 +1098,8 @@ public class QueryProfileVariantsTestCase {
     private void assertGet(String expectedValue, String parameter, String[] dimensionValues, QueryProfile profile, CompiledQueryProfile cprofile) {
         Map<String,String> context=toMap(profile,dimensionValues);
         assertEquals("Looking up '" + parameter + "' for '" + Arrays.toString(dimensionValues) + "'",expectedValue,cprofile.get(parameter,context));
+        assertEquals("Looking up '" + parameter + "' for resolved '" + Arrays.toString(dimensionValues) + "'",
+                     expectedValue, cprofile.resolve(context, null).get(new CompoundName(parameter), null));
     }
 
     public static Map<String,String> toMap(QueryProfile profile, String[] dimensionValues) {
@@ -130,6 +130,8 @@ public class AsyncGroupPopulationTestCase {
                 result.getQuery());
         WrappedFuture<DataList<Hit>> x = (WrappedFuture<DataList<Hit>>) h.incoming().completed();
         x.isListening.get(86_400_000);
+        assertTrue("Output rendered before suspending is flushed to the stream",
+                   Utf8.toString(out.toByteArray()).contains("\"root\""));
         h.incoming().add(new Hit("yahoo2"));
         h.incoming().markComplete();
         Boolean b = f.get();
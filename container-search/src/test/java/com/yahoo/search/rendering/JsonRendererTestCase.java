@@ -46,6 +46,7 @@ import com.yahoo.slime.Slime;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.text.Utf8;
+import com.yahoo.text.Utf8Array;
 import com.yahoo.yolean.trace.TraceNode;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -153,7 +154,9 @@ public class JsonRendererTestCase {
                 + "                    \"predicate\": \"a in [b]\",\n"
                 + "                    \"tensor1\": { \"cells\": [ { \"address\": {\"x\": \"a\"}, \"value\":2.0 } ] },\n"
                 + "                    \"tensor2\": { \"cells\": [] },\n"
-                + "                    \"tensor3\": { \"cells\": [ { \"address\": {\"x\": \"a\", \"y\": \"0\"}, \"value\":2.0 }, { \"address\": {\"x\": \"a\", \"y\": \"1\"}, \"value\":-1.0 } ] }\n"
+                + "                    \"tensor3\": { \"cells\": [ { \"address\": {\"x\": \"a\", \"y\": \"0\"}, \"value\":2.0 }, { \"address\": {\"x\": \"a\", \"y\": \"1\"}, \"value\":-1.0 } ] },\n"
+                + "                    \"utf8\": \"bl\u00e5b\u00e6r \\\"quoted\\\"\",\n"
+                + "                    \"emptyUtf8\": \"\"\n"
                 + "                },\n"
                 + "                \"id\": \"datatypestuff\",\n"
                 + "                \"relevance\": 1.0\n"
@@ -179,6 +182,8 @@ public class JsonRendererTestCase {
         h.setField("tensor2", new TensorFieldValue(TensorType.empty));
         h.setField("tensor3", Tensor.from("{ {x:a, y:0}: 2.0, {x:a, y:1}: -1 }"));
         h.setField("object", new Thingie());
+        h.setField("utf8", new Utf8Array(Utf8.toBytes("bl\u00e5b\u00e6r \"quoted\"")));
+        h.setField("emptyUtf8", new Utf8Array(new byte[0]));
         r.hits().add(h);
         r.setTotalHitCount(1L);
         String summary = render(r);
@@ -0,0 +1,159 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.rendering;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.yahoo.component.ComponentSpecification;
+import com.yahoo.data.access.slime.SlimeAdapter;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.grouping.Continuation;
+import com.yahoo.search.grouping.result.Group;
+import com.yahoo.search.grouping.result.GroupList;
+import com.yahoo.search.grouping.result.RootGroup;
+import com.yahoo.search.grouping.result.StringId;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.result.Relevance;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.Type;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+import com.yahoo.text.Utf8;
+import com.yahoo.text.Utf8Array;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests rendering of results in the slime binary format.
+ */
+public class SlimeRendererTestCase {
+
+    private final SlimeRenderer originalRenderer = new SlimeRenderer();
+    private SlimeRenderer renderer;
+
+    @Before
+    public void setUp() {
+        renderer = (SlimeRenderer) originalRenderer.clone();
+        renderer.init();
+    }
+
+    @Test
+    public void testRenderingHitsAndFields() throws InterruptedException, ExecutionException {
+        Result r = new Result(new Query("/?query=a"));
+        r.setTotalHitCount(2L);
+        r.setCoverage(new Coverage(500, 600));
+
+        Slime struct = new Slime();
+        Cursor structRoot = struct.setObject();
+        structRoot.setString("name", "value");
+        structRoot.setArray("numbers").addLong(7);
+
+        Tensor tensor = Tensor.from("{ {x:a}: 2.0 }");
+
+        Hit hit = new Hit("hit1", new Relevance(0.5));
+        hit.setSource("source1");
+        hit.setField("string", "stuff");
+        hit.setField("utf8", new Utf8Array(Utf8.toBytes("blåbær")));
+        hit.setField("fieldValue", new StringFieldValue("field value"));
+        hit.setField("long", 4398046511104L);
+        hit.setField("double", 0.5);
+        hit.setField("bool", true);
+        hit.setField("struct", new SlimeAdapter(structRoot));
+        hit.setField("tensor", tensor);
+        hit.setField("empty", "");
+        hit.setField("$hidden", "hidden");
+        r.hits().add(hit);
+        r.hits().add(new Hit("hit2", new Relevance(0.1)));
+
+        Inspector root = render(r).get().field("root");
+        assertEquals(2, root.field("fields").field("totalCount").asLong());
+        assertEquals(500, root.field("coverage").field("documents").asLong());
+        assertEquals(2, root.field("children").entries());
+
+        Inspector first = root.field("children").entry(0);
+        assertEquals("hit1", first.field("id").asString());
+        assertEquals(0.5, first.field("relevance").asDouble(), 1e-9);
+        assertEquals("source1", first.field("source").asString());
+
+        Inspector fields = first.field("fields");
+        assertEquals("stuff", fields.field("string").asString());
+        assertEquals("blåbær", fields.field("utf8").asString());
+        assertEquals("field value", fields.field("fieldValue").asString());
+        assertEquals(4398046511104L, fields.field("long").asLong());
+        assertEquals(0.5, fields.field("double").asDouble(), 1e-9);
+        assertTrue(fields.field("bool").asBool());
+        assertEquals("value", fields.field("struct").field("name").asString());
+        assertEquals(7, fields.field("struct").field("numbers").entry(0).asLong());
+        assertEquals(Type.DATA, fields.field("tensor").type());
+        assertEquals(tensor, TypedBinaryFormat.decode(Optional.of(tensor.type()),
+                                                      GrowableByteBuffer.wrap(fields.field("tensor").asData())));
+        assertFalse(fields.field("empty").valid());
+        assertFalse(fields.field("$hidden").valid());
+
+        assertEquals("hit2", root.field("children").entry(1).field("id").asString());
+    }
+
+    @Test
+    public void testRenderingGroupsAndErrors() throws InterruptedException, ExecutionException {
+        Result r = new Result(new Query("/?query=a"));
+        r.hits().addError(ErrorMessage.createTimeout("Timed out"));
+        RootGroup rootGroup = new RootGroup(0, new Continuation() {
+            @Override
+            public String toString() {
+                return "AAAA";
+            }
+        });
+        GroupList groupList = new GroupList("grouplist");
+        Group group = new Group(new StringId("group1"), new Relevance(1.0));
+        group.setField("count()", 7);
+        groupList.add(group);
+        rootGroup.add(groupList);
+        r.hits().add(rootGroup);
+
+        Inspector root = render(r).get().field("root");
+        assertEquals("Timed out", root.field("errors").entry(0).field("summary").asString());
+
+        Inspector renderedRootGroup = root.field("children").entry(0);
+        assertEquals("AAAA", renderedRootGroup.field("continuation").field("this").asString());
+        Inspector renderedList = renderedRootGroup.field("children").entry(0);
+        assertEquals("grouplist", renderedList.field("label").asString());
+        Inspector renderedGroup = renderedList.field("children").entry(0);
+        assertEquals("group1", renderedGroup.field("value").asString());
+        assertEquals(7, renderedGroup.field("fields").field("count()").asLong());
+    }
+
+    @Test
+    public void testRendererIsRegistered() {
+        RendererRegistry registry = new RendererRegistry();
+        try {
+            assertTrue(registry.getRenderer(ComponentSpecification.fromString("slime")) instanceof SlimeRenderer);
+            assertTrue(registry.getRenderer(RendererRegistry.slimeRendererId.toSpecification()) instanceof SlimeRenderer);
+        }
+        finally {
+            registry.deconstruct();
+        }
+    }
+
+    private Slime render(Result r) throws InterruptedException, ExecutionException {
+        ByteArrayOutputStream bs = new ByteArrayOutputStream();
+        ListenableFuture<Boolean> f = renderer.render(bs, r, new Execution(Execution.Context.createContextStub()), null);
+        assertTrue(f.get());
+        return BinaryFormat.decode(bs.toByteArray());
+    }
+
+}
@@ -2,14 +2,19 @@
 package com.yahoo.search.result.test;
 
 import com.yahoo.search.Query;
+import com.yahoo.search.query.Sorting;
 import com.yahoo.search.result.DefaultErrorHit;
 import com.yahoo.search.result.ErrorHit;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
 import com.yahoo.search.result.HitGroup;
+import com.yahoo.search.result.HitSortOrderer;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -245,6 +250,57 @@ public class HitGroupTestCase {
         assertTrue(hg.getFilled().isEmpty());
     }
     
+    @Test
+    public void testTrimSortsLikeAFullSort() {
+        HitGroup hits = new HitGroup();
+        hits.addError(ErrorMessage.createTimeout("test"));
+        for (int i = 0; i < 100; i++)
+            hits.add(new Hit("hit" + i, (i * 37) % 10));
+
+        List<Hit> expected = new ArrayList<>(hits.asUnorderedHits());
+        Collections.sort(expected);
+
+        hits.trim(5, 10);
+        assertEquals(11, hits.size());
+        assertTrue(hits.get(0) instanceof ErrorHit);
+        assertEquals(expected.subList(6, 16), hits.asList().subList(1, 11));
+    }
+
+    @Test
+    public void testTrimWithSorting() {
+        HitGroup hits = new HitGroup();
+        hits.setOrderer(new HitSortOrderer(new Sorting("-a +[relevance]")));
+        for (int i = 0; i < 100; i++) {
+            Hit hit = new Hit("hit" + i, i);
+            hit.setField("a", i % 7);
+            hits.add(hit);
+        }
+
+        List<Hit> expected = new ArrayList<>(hits.asUnorderedHits());
+        expected.sort(Comparator.comparing((Hit hit) -> (Integer)hit.getField("a")).reversed()
+                                .thenComparing(hit -> hit.getRelevance().getScore()));
+
+        hits.trim(3, 20);
+        assertEquals(expected.subList(3, 23), hits.asList());
+    }
+
+    @Test
+    public void testSortingLargeGroups() {
+        HitGroup hits = new HitGroup();
+        hits.setOrderer(new HitSortOrderer(new Sorting("+a")));
+        for (int i = 0; i < 20000; i++) {
+            Hit hit = new Hit("hit" + i);
+            hit.setField("a", (i * 7919) % 1000);
+            hits.add(hit);
+        }
+
+        List<Hit> expected = new ArrayList<>(hits.asUnorderedHits());
+        expected.sort(Comparator.comparing(hit -> (Integer)hit.getField("a"))); // stable, as the sorting should be
+
+        hits.sort();
+        assertEquals(expected, hits.asList());
+    }
+
     /** Returns the (first) error hit in the given list, or empty if none */
     private Optional<ErrorHit> errorHitIn(List<Hit> hits) {
         return hits.stream().filter(h -> h instanceof ErrorHit).map(ErrorHit.class::cast).findFirst();
@@ -10,7 +10,7 @@ import java.util.Map;
 /**
 * @author bratseth
 */
-class MockMetric implements Metric {
+public class MockMetric implements Metric {
 
     private Map<Context, Map<String, Number>> metrics = new HashMap<>();
 
@@ -5,6 +5,7 @@ import com.yahoo.collections.Hashlet;
 import com.yahoo.document.*;
 import com.yahoo.document.serialization.FieldReader;
 import com.yahoo.document.serialization.FieldWriter;
+import com.yahoo.document.serialization.SerializedFields;
 import com.yahoo.document.serialization.XmlSerializationHelper;
 import com.yahoo.document.serialization.XmlStream;
 import com.yahoo.vespa.objects.Ids;
@@ -21,6 +22,7 @@ public class Struct extends StructuredFieldValue {
     public static final int classId = registerClass(Ids.document + 33, Struct.class);
     private Hashlet<Integer, FieldValue> values = new Hashlet<>();
     private int [] order = null;
+    private SerializedFields serializedFields = null; // fields which are not deserialized yet
 
     private int version;
 
@@ -39,6 +41,55 @@ public class Struct extends StructuredFieldValue {
         order = null;
     }
 
+    /** Deserializes the given field if it is not deserialized yet */
+    private void deserialize(Field field) {
+        if (serializedFields == null) return;
+        FieldValue value = serializedFields.deserialize(field);
+        if (value != null) {
+            values.put(field.getId(), value);
+            invalidateOrder();
+        }
+        if (serializedFields.size() == 0) {
+            serializedFields = null;
+        }
+    }
+
+    /** Deserializes all fields which are not deserialized yet */
+    private void deserializeAll() {
+        if (serializedFields == null) return;
+        for (int fieldId : serializedFields.fieldIds()) {
+            deserialize(getDataType().getField(fieldId, version));
+        }
+        serializedFields = null;
+    }
+
+    /**
+     * Sets the fields of this to the given serialized fields, which are deserialized when first accessed.
+     * This is used by deserializers, and replaces any fields already set in this.
+     * As reading a field then modifies this, this must not be read by multiple threads concurrently
+     * until all its fields are deserialized.
+     */
+    public void setSerializedFields(SerializedFields serializedFields) {
+        clear();
+        this.serializedFields = serializedFields.size() > 0 ? serializedFields : null;
+    }
+
+    /**
+     * Returns the fields of this which are not deserialized yet, or null if there are none.
+     * This is used by serializers, which may copy the serialized fields rather than serializing them again.
+     */
+    public SerializedFields getSerializedFields() {
+        return serializedFields;
+    }
+
+    /**
+     * Returns the fields of this which are deserialized, in order of increasing field id. Unlike {@link #getFields},
+     * this does not deserialize any fields. This is used by serializers together with {@link #getSerializedFields}.
+     */
+    public Set<Map.Entry<Field, FieldValue>> getDeserializedFields() {
+        return new FieldSet();
+    }
+
     public Struct(DataType type) {
         super((StructDataType) type);
         this.version = Document.SERIALIZED_VERSION;
@@ -86,21 +137,25 @@ public class Struct extends StructuredFieldValue {
         for (int i = 0; i < values.size(); i++) {
             struct.values.put(values.key(i), values.value(i).clone());
         }
+        struct.serializedFields = (serializedFields != null) ? serializedFields.copy() : null;
         return struct;
     }
 
     @Override
     public void clear() {
         values = new Hashlet<>();
+        serializedFields = null;
         invalidateOrder();
     }
 
     @Override
     public Iterator<Map.Entry<Field, FieldValue>> iterator() {
+        deserializeAll();
         return new FieldSet().iterator();
     }
 
     public Set<Map.Entry<Field, FieldValue>> getFields() {
+        deserializeAll();
         return new FieldSet();
     }
 
@@ -119,6 +174,7 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public FieldValue getFieldValue(Field field) {
+        deserialize(field);
         return values.get(field.getId());
     }
 
@@ -130,7 +186,7 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public int getFieldCount() {
-        return values.size();
+        return values.size() + (serializedFields != null ? serializedFields.size() : 0);
     }
 
     @Override
@@ -156,6 +212,9 @@ public class Struct extends StructuredFieldValue {
                     "Inconsistent field: " + field);
         }
 
+        if (serializedFields != null && serializedFields.remove(field.getId()) && serializedFields.size() == 0) {
+            serializedFields = null;
+        }
         int index = values.getIndexOfKey(field.getId());
         if (index == -1) {
             values.put(field.getId(), value);
@@ -167,6 +226,7 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public FieldValue removeFieldValue(Field field) {
+        deserialize(field);
         FieldValue found = values.get(field.getId());
         if (found != null) {
             Hashlet<Integer, FieldValue> copy = new Hashlet<>();
@@ -215,11 +275,14 @@ public class Struct extends StructuredFieldValue {
         if (!super.equals(o)) return false;
 
         Struct struct = (Struct) o;
+        deserializeAll();
+        struct.deserializeAll();
         return values.equals(struct.values);
     }
 
     @Override
     public int hashCode() {
+        deserializeAll();
         int result = super.hashCode();
         result = 31 * result + values.hashCode();
         return result;
@@ -229,6 +292,7 @@ public class Struct extends StructuredFieldValue {
     public String toString() {
         StringBuilder retVal = new StringBuilder();
         retVal.append("Struct (").append(getDataType()).append("): ");
+        deserializeAll();
         int [] increasing = getInOrder();
         for (int i = 0; i < increasing.length; i++) {
             int id = increasing[i];
@@ -249,6 +313,8 @@ public class Struct extends StructuredFieldValue {
             return cmp;
         }
         Struct rhs = (Struct)obj;
+        deserializeAll();
+        rhs.deserializeAll();
         cmp = values.size() - rhs.values.size();
         if (cmp != 0) {
             return cmp;
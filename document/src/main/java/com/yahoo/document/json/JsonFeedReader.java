@@ -2,6 +2,7 @@
 package com.yahoo.document.json;
 
 import java.io.InputStream;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.yahoo.document.DocumentOperation;
@@ -24,18 +25,29 @@ import com.yahoo.vespaxmlparser.VespaXMLFeedReader.Operation;
  */
 public class JsonFeedReader implements FeedReader {
 
-    private final JsonReader reader;
+    private final Supplier<DocumentOperation> reader;
     private InputStream stream;
     private static final JsonFactory jsonFactory = new JsonFactory().disable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES);
 
     public JsonFeedReader(InputStream stream, DocumentTypeManager docMan) {
-        reader = new JsonReader(docMan, stream, jsonFactory);
+        reader = new JsonReader(docMan, stream, jsonFactory)::next;
+        this.stream = stream;
+    }
+
+    /**
+     * Creates a feed reader which parses operations in the given number of threads.
+     *
+     * @see ParallelJsonReader
+     */
+    public JsonFeedReader(InputStream stream, DocumentTypeManager docMan, int threads) {
+        reader = threads > 1 ? new ParallelJsonReader(docMan, stream, jsonFactory, threads)::next
+                             : new JsonReader(docMan, stream, jsonFactory)::next;
         this.stream = stream;
     }
 
     @Override
     public void read(Operation operation) throws Exception {
-        DocumentOperation documentOperation = reader.next();
+        DocumentOperation documentOperation = reader.get();
 
         if (documentOperation == null) {
             stream.close();
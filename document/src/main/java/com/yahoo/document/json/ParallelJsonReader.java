@@ -0,0 +1,226 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.document.DocumentOperation;
+import com.yahoo.document.DocumentTypeManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the operations of a JSON feed like {@link JsonReader}, but parses them on several threads.
+ * The feed is split into chunks of whole operations by scanning its bytes for the boundaries between
+ * the elements of the top level array, and each chunk is parsed by a reader of its own.
+ * Operations are returned in the order of the feed, and a failure to read an operation is thrown
+ * when that operation would have been returned. The feed must be encoded as UTF-8.
+ *
+ * This is not multithread safe.
+ */
+public class ParallelJsonReader implements AutoCloseable {
+
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final DocumentTypeManager typeManager;
+    private final JsonFactory parserFactory;
+    private final ExecutorService executor;
+    private final int maxPendingChunks;
+    private final Splitter splitter;
+    private final Deque<Future<List<Parsed>>> pending = new ArrayDeque<>();
+    private Iterator<Parsed> current = Collections.emptyIterator();
+
+    /**
+     * Creates a reader of the given feed.
+     *
+     * @param threads the number of threads to parse operations in
+     */
+    public ParallelJsonReader(DocumentTypeManager typeManager, InputStream input, JsonFactory parserFactory, int threads) {
+        this(typeManager, input, parserFactory, threads, DEFAULT_CHUNK_SIZE);
+    }
+
+    ParallelJsonReader(DocumentTypeManager typeManager, InputStream input, JsonFactory parserFactory,
+                       int threads, int chunkSize) {
+        if (threads < 1) throw new IllegalArgumentException("Must parse in at least one thread, not " + threads);
+        this.typeManager = typeManager;
+        this.parserFactory = parserFactory;
+        this.executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("json-feed-reader-"));
+        this.maxPendingChunks = 2 * threads;
+        this.splitter = new Splitter(input, chunkSize);
+    }
+
+    /** Returns the next document operation, or null if we have reached the end */
+    public DocumentOperation next() {
+        while ( ! current.hasNext()) {
+            submitChunks();
+            if (pending.isEmpty()) {
+                close();
+                return null;
+            }
+            current = await(pending.removeFirst()).iterator();
+        }
+        Parsed parsed = current.next();
+        if (parsed.failure != null) throw parsed.failure;
+        return parsed.operation;
+    }
+
+    /** Stops the threads of this. Further operations are not returned after this. */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        pending.clear();
+        current = Collections.emptyIterator();
+        splitter.done = true;
+    }
+
+    private void submitChunks() {
+        while (pending.size() < maxPendingChunks) {
+            ByteArrayOutputStream chunk = splitter.nextChunk();
+            if (chunk == null) return;
+            pending.addLast(executor.submit(() -> parse(chunk)));
+        }
+    }
+
+    private List<Parsed> parse(ByteArrayOutputStream chunk) {
+        JsonReader reader = new JsonReader(typeManager, new ByteArrayInputStream(chunk.toByteArray()), parserFactory);
+        List<Parsed> parsed = new ArrayList<>();
+        while (true) {
+            try {
+                DocumentOperation operation = reader.next();
+                if (operation == null) return parsed;
+                parsed.add(new Parsed(operation, null));
+            } catch (RuntimeException e) { // the reader returns null next if it can not recover
+                parsed.add(new Parsed(null, e));
+            }
+        }
+    }
+
+    private static List<Parsed> await(Future<List<Parsed>> chunk) {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for operations to be parsed", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static class Parsed {
+
+        final DocumentOperation operation;
+        final RuntimeException failure;
+
+        Parsed(DocumentOperation operation, RuntimeException failure) {
+            this.operation = operation;
+            this.failure = failure;
+        }
+
+    }
+
+    /**
+     * Splits a feed into chunks which are JSON arrays of whole operations, by tracking the nesting
+     * of structs and strings. This never needs to decode the feed, as the bytes it looks for
+     * never occur inside a multibyte UTF-8 character.
+     */
+    private static class Splitter {
+
+        private final InputStream input;
+        private final int chunkSize;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position = 0;
+        private int limit = 0;
+
+        private boolean started = false;
+        private boolean done = false;
+        private int depth = 0;
+        private boolean inString = false;
+        private boolean escaped = false;
+
+        Splitter(InputStream input, int chunkSize) {
+            this.input = input;
+            this.chunkSize = chunkSize;
+        }
+
+        /** Returns the next chunk, or null if the whole feed is split */
+        ByteArrayOutputStream nextChunk() {
+            if (done) return null;
+            if ( ! started) {
+                skipToArrayStart();
+                started = true;
+            }
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream(chunkSize + 1024);
+            chunk.write('[');
+            while (true) {
+                if (position == limit && ! fill()) { // truncated feed: leave the chunk open to fail the reader
+                    done = true;
+                    return chunk;
+                }
+                int start = position;
+                while (position < limit) {
+                    byte b = buffer[position++];
+                    if (inString) {
+                        if (escaped) escaped = false;
+                        else if (b == '\\') escaped = true;
+                        else if (b == '"') inString = false;
+                    }
+                    else if (b == '"') {
+                        inString = true;
+                    }
+                    else if (b == '{' || b == '[') {
+                        depth++;
+                    }
+                    else if (depth > 0 && (b == '}' || b == ']')) {
+                        depth--;
+                    }
+                    else if (depth == 0 && b == ']') { // end of feed
+                        chunk.write(buffer, start, position - start);
+                        done = true;
+                        return chunk;
+                    }
+                    else if (depth == 0 && b == ',' && chunk.size() + position - start > chunkSize) {
+                        chunk.write(buffer, start, position - 1 - start);
+                        chunk.write(']');
+                        return chunk;
+                    }
+                }
+                chunk.write(buffer, start, position - start);
+            }
+        }
+
+        private void skipToArrayStart() {
+            while (position < limit || fill()) {
+                byte b = buffer[position++];
+                if (b == '[') return;
+                if ( ! Character.isWhitespace(b))
+                    throw new IllegalStateException("Expected start of array, got '" + (char) b + "'");
+            }
+            throw new IllegalStateException("Expected start of array, got end of input");
+        }
+
+        private boolean fill() {
+            try {
+                limit = Math.max(input.read(buffer), 0);
+                position = 0;
+                return limit > 0;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+    }
+
+}
@@ -12,6 +12,8 @@ import com.google.common.base.Preconditions;
 
 /**
  * Helper class to enable lookahead in the token stream.
+ * A buffer may either hold all the tokens of a JSON struct, or be {@link #stream streaming},
+ * where tokens are read from the parser as they are consumed, and only buffered while looked ahead at.
  *
  * @author Steinar Knutsen
  */
@@ -32,22 +34,51 @@ public class TokenBuffer {
     private Deque<Token> buffer;
     private int nesting = 0;
 
+    /** The parser tokens are streamed from, or null if this holds all its tokens */
+    private final JsonParser source;
+    /** The nesting after the last token read from the source */
+    private int sourceNesting = 0;
+
     public TokenBuffer() {
         this(new ArrayDeque<>());
     }
 
     private TokenBuffer(Deque<Token> buffer) {
         this.buffer = buffer;
+        this.source = null;
         if (buffer.size() > 0) {
             updateNesting(buffer.peekFirst().token);
         }
     }
 
+    private TokenBuffer(JsonParser source) {
+        this.buffer = new ArrayDeque<>();
+        this.source = source;
+        JsonToken first = source.currentToken();
+        Preconditions.checkArgument(first == JsonToken.START_OBJECT || first == JsonToken.START_ARRAY,
+                                    "Expected start of JSON struct, got %s.", first);
+        addFromParser(first, source);
+        updateNesting(first);
+        sourceNesting = nesting;
+    }
+
+    /**
+     * Returns a buffer which streams the JSON struct starting at the current token of the given parser.
+     * Tokens are read from the parser as this is advanced, and the parser is positioned at the end
+     * of the struct when all tokens of this are consumed.
+     */
+    public static TokenBuffer stream(JsonParser parser) {
+        return new TokenBuffer(parser);
+    }
+
     /** Returns whether any tokens are available in this */
     public boolean isEmpty() { return size() == 0; }
 
     public JsonToken next() {
         buffer.removeFirst();
+        if (buffer.isEmpty()) {
+            fetch();
+        }
         Token t = buffer.peekFirst();
         if (t == null) {
             return null;
@@ -77,10 +108,37 @@ public class TokenBuffer {
         return token.text;
     }
 
+    /** Returns the number of tokens held by this, which for a streaming buffer are those read but not consumed */
     public int size() {
         return buffer.size();
     }
 
+    /** Consumes the remaining tokens of this, such that a streaming buffer leaves its parser at the end of the struct */
+    public void skipToEnd() {
+        while (currentToken() != null) {
+            next();
+        }
+    }
+
+    /** Reads the next token from the source into this, if this is streaming and the struct is not read to its end */
+    private boolean fetch() {
+        if (source == null || sourceNesting == 0) return false;
+
+        JsonToken t = nextValue(source);
+        if (t == null) {
+            throw new IllegalArgumentException("Unexpected end of input inside JSON struct");
+        }
+        addFromParser(t, source);
+        sourceNesting += nestingOffset(t);
+        return true;
+    }
+
+    /** Reads tokens from the source until the tokens held by this return below the current nesting */
+    private void fetchToEndOfNesting() {
+        int barrier = nesting();
+        while (sourceNesting >= barrier && fetch()) { }
+    }
+
     private void add(JsonToken token, String name, String text) {
         buffer.addLast(new Token(token, name, text));
     }
@@ -173,6 +231,7 @@ public class TokenBuffer {
         if (currentToken().isScalarValue()) {
             copy.add(buffer.peekFirst());
         } else {
+            fetchToEndOfNesting();
             int localNesting = nesting();
             int nestingBarrier = localNesting;
             for (Token t : buffer) {
@@ -192,6 +251,7 @@ public class TokenBuffer {
         Token toReturn = null;
         Iterator<Token> i;
 
+        fetchToEndOfNesting();
         if (name.equals(currentName()) && currentToken().isScalarValue()) {
             toReturn = buffer.peekFirst();
         } else {
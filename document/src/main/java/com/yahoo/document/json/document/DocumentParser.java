@@ -4,10 +4,14 @@ package com.yahoo.document.json.document;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.json.TokenBuffer;
 import com.yahoo.document.json.readers.DocumentParseInfo;
+import com.yahoo.document.json.readers.VespaJsonDocumentReader;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Parses a document operation.
@@ -27,10 +31,23 @@ public class DocumentParser {
     public static final String FIELDS = "fields";
     public static final String REMOVE = "remove";
     private final JsonParser parser;
+    private final Function<DocumentId, DocumentType> documentTypes;
     private  long indentLevel;
+    private RuntimeException putFailure;
 
     public DocumentParser(JsonParser parser) {
+        this(parser, null);
+    }
+
+    /**
+     * Creates a parser which reads the fields of a put directly from the parser into the document,
+     * whenever the document id precedes the fields, instead of buffering them.
+     *
+     * @param documentTypes returns the type of a document id, or null to always buffer the fields
+     */
+    public DocumentParser(JsonParser parser, Function<DocumentId, DocumentType> documentTypes) {
         this.parser = parser;
+        this.documentTypes = documentTypes;
     }
 
     /**
@@ -39,6 +56,7 @@ public class DocumentParser {
      */
     public Optional<DocumentParseInfo> parse(Optional<DocumentId> documentIdArg) throws IOException {
         indentLevel = 0;
+        putFailure = null;
         DocumentParseInfo documentParseInfo = new DocumentParseInfo();
         documentIdArg.ifPresent(documentId -> documentParseInfo.documentId = documentId);
         boolean foundItems = false;
@@ -46,6 +64,8 @@ public class DocumentParser {
             foundItems |= parseOneItem(documentParseInfo, documentIdArg.isPresent() /* doc id set externally */);
         } while (indentLevel > 0L);
 
+        if (putFailure != null) throw putFailure;
+
         if (documentParseInfo.documentId == null) {
             if (foundItems)
                 throw new IllegalArgumentException("Missing a document operation ('put', 'update' or 'remove')");
@@ -126,7 +146,10 @@ public class DocumentParser {
             JsonToken currentToken = parser.getCurrentToken();
             // "fields" opens a dictionary and is therefore on level two which might be surprising.
             if (currentToken == JsonToken.START_OBJECT && FIELDS.equals(parser.getCurrentName())) {
-                documentParseInfo.fieldsBuffer.bufferObject(currentToken, parser);
+                if (canReadPut(documentParseInfo))
+                    readPut(documentParseInfo);
+                else
+                    documentParseInfo.fieldsBuffer.bufferObject(currentToken, parser);
                 processIndent();
             }
         } catch (IOException e) {
@@ -134,6 +157,29 @@ public class DocumentParser {
         }
     }
 
+    private boolean canReadPut(DocumentParseInfo documentParseInfo) {
+        return documentTypes != null
+               && documentParseInfo.operationType == SupportedOperation.PUT
+               && documentParseInfo.documentId != null
+               && documentParseInfo.put == null
+               && documentParseInfo.fieldsBuffer.isEmpty();
+    }
+
+    /**
+     * Reads the fields of a put straight into its document. A failure is thrown when the whole operation
+     * is parsed, such that the parser is left at the next operation as when the fields are buffered.
+     */
+    private void readPut(DocumentParseInfo documentParseInfo) {
+        TokenBuffer fields = TokenBuffer.stream(parser);
+        try {
+            DocumentType documentType = documentTypes.apply(documentParseInfo.documentId);
+            documentParseInfo.put = new VespaJsonDocumentReader().readPut(documentType, documentParseInfo.documentId, fields);
+        } catch (RuntimeException e) {
+            fields.skipToEnd();
+            putFailure = e;
+        }
+    }
+
     private static SupportedOperation operationNameToOperationType(String operationName) {
         switch (operationName) {
             case PUT:
@@ -19,6 +19,18 @@ public class DocumentDeserializerFactory {
         return new VespaDocumentDeserializerHead(manager, buf);
     }
 
+    /**
+     * Creates a de-serializer for the current head document format, which leaves the fields of the documents
+     * it reads serialized until they are accessed.
+     *
+     * @see VespaDocumentDeserializer42#setLazyFields(boolean)
+     */
+    public static DocumentDeserializer createLazyHead(DocumentTypeManager manager, GrowableByteBuffer buf) {
+        VespaDocumentDeserializerHead deserializer = new VespaDocumentDeserializerHead(manager, buf);
+        deserializer.setLazyFields(true);
+        return deserializer;
+    }
+
     /**
      * Creates a de-serializer for the document format that was created on Vespa 4.2.
      */
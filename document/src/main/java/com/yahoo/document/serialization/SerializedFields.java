@@ -0,0 +1,137 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.io.GrowableByteBuffer;
+
+import java.util.Arrays;
+
+/**
+ * The serialized fields of a {@link com.yahoo.document.datatypes.Struct} which are not deserialized yet.
+ * A field is deserialized when it is first accessed, while fields which are never accessed are serialized
+ * again by copying their original bytes.
+ *
+ * This is not multithread safe.
+ */
+public final class SerializedFields {
+
+    private final DocumentTypeManager manager;
+    private final short version;
+    private final byte[] data;
+    private final int[] fieldIds;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final boolean[] pending;
+    private int size;
+
+    /** Creates serialized fields, where the field with fieldIds[i] is stored in data at offsets[i] with lengths[i] */
+    SerializedFields(DocumentTypeManager manager, short version, byte[] data,
+                     int[] fieldIds, int[] offsets, int[] lengths) {
+        this.manager = manager;
+        this.version = version;
+        this.data = data;
+        this.fieldIds = fieldIds;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.pending = new boolean[fieldIds.length];
+        Arrays.fill(pending, true);
+        this.size = fieldIds.length;
+    }
+
+    private SerializedFields(SerializedFields other) {
+        this.manager = other.manager;
+        this.version = other.version;
+        this.data = other.data;
+        this.fieldIds = other.fieldIds;
+        this.offsets = other.offsets;
+        this.lengths = other.lengths;
+        this.pending = other.pending.clone();
+        this.size = other.size;
+    }
+
+    /** Returns the number of fields which are not deserialized yet */
+    public int size() { return size; }
+
+    /** Returns whether the field with the given id is not deserialized yet */
+    public boolean contains(int fieldId) {
+        return indexOf(fieldId) >= 0;
+    }
+
+    /** Returns the ids of the fields which are not deserialized yet, in the order they were serialized */
+    public int[] fieldIds() {
+        int[] ids = new int[size];
+        for (int i = 0, j = 0; i < pending.length; i++) {
+            if (pending[i]) ids[j++] = fieldIds[i];
+        }
+        return ids;
+    }
+
+    /**
+     * Deserializes the given field, which is no longer held by this afterwards.
+     *
+     * @return the deserialized value, or null if this does not hold the field
+     */
+    @SuppressWarnings("deprecation")
+    public FieldValue deserialize(Field field) {
+        int index = indexOf(field.getId(version));
+        if (index < 0) return null;
+
+        VespaDocumentDeserializer42 in =
+                new VespaDocumentDeserializer42(manager, GrowableByteBuffer.wrap(data, offsets[index], lengths[index]),
+                                                null, version);
+        FieldValue value = field.getDataType().createFieldValue();
+        value.deserialize(field, in);
+        removeAt(index);
+        return value;
+    }
+
+    /**
+     * Forgets the serialized value of the field with the given id, as when the field is assigned a new value.
+     *
+     * @return whether this held the field
+     */
+    public boolean remove(int fieldId) {
+        int index = indexOf(fieldId);
+        if (index < 0) return false;
+        removeAt(index);
+        return true;
+    }
+
+    /** Returns a copy of this, which shares the serialized data with this */
+    public SerializedFields copy() {
+        return new SerializedFields(this);
+    }
+
+    /** Returns the number of fields this was created with, including those deserialized since */
+    int count() { return pending.length; }
+
+    /** Returns whether the field at the given index is not deserialized yet */
+    boolean isPending(int index) { return pending[index]; }
+
+    /** Returns the serialized id of the field at the given index */
+    int fieldId(int index) { return fieldIds[index]; }
+
+    /** Returns the version this was serialized with */
+    short version() { return version; }
+
+    /** Copies the serialized value of the field at the given index into the given buffer, and returns its length */
+    int copyTo(int index, GrowableByteBuffer buffer) {
+        buffer.put(data, offsets[index], lengths[index]);
+        return lengths[index];
+    }
+
+    private int indexOf(int fieldId) {
+        for (int i = 0; i < fieldIds.length; i++) {
+            if (fieldIds[i] == fieldId && pending[i]) return i;
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        pending[index] = false;
+        size--;
+    }
+
+}
@@ -66,6 +66,7 @@ import com.yahoo.vespa.objects.FieldBase;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +91,7 @@ public class VespaDocumentDeserializer42 extends VespaDocumentSerializer42 imple
     private List<SpanNode> spanNodes;
     private List<Annotation> annotations;
     private int[] stringPositions;
+    private boolean lazyFields = false;
 
     VespaDocumentDeserializer42(DocumentTypeManager manager, GrowableByteBuffer header, GrowableByteBuffer body, short version) {
         super(header);
@@ -108,6 +110,15 @@ public class VespaDocumentDeserializer42 extends VespaDocumentSerializer42 imple
 
     final public DocumentTypeManager getDocumentTypeManager() { return manager; }
 
+    /**
+     * Sets whether the fields of the structs read by this should be left serialized until they are accessed, such
+     * that fields which are never accessed are neither deserialized nor serialized again. This only applies to
+     * data serialized with the current document version. Default is false.
+     */
+    public void setLazyFields(boolean lazyFields) { this.lazyFields = lazyFields; }
+
+    public boolean getLazyFields() { return lazyFields; }
+
     public void read(Document document) {
          read(null, document);
     }
@@ -353,11 +364,16 @@ public class VespaDocumentDeserializer42 extends VespaDocumentSerializer42 imple
         // set position in original buffer to after data
         position(position() + dataSize);
 
+        s.clear();
+        StructDataType type = s.getDataType();
+        if (lazyFields && version == Document.SERIALIZED_VERSION) {
+            s.setSerializedFields(readSerializedFields(type, destination, fieldIdsAndLengths));
+            return;
+        }
+
         // for a while: deserialize from this buffer instead:
         buf = GrowableByteBuffer.wrap(destination);
 
-        s.clear();
-        StructDataType type = s.getDataType();
         for (int i=0; i<numberOfFields; ++i) {
             Field structField = type.getField(fieldIdsAndLengths.get(i).first, version);
             if (structField == null) {
@@ -377,6 +393,27 @@ public class VespaDocumentDeserializer42 extends VespaDocumentSerializer42 imple
         buf = bigBuf;
     }
 
+    private SerializedFields readSerializedFields(StructDataType type, byte[] data,
+                                                  List<Tuple2<Integer, Long>> fieldIdsAndLengths) {
+        int[] fieldIds = new int[fieldIdsAndLengths.size()];
+        int[] offsets = new int[fieldIds.length];
+        int[] lengths = new int[fieldIds.length];
+        int count = 0;
+        int offset = 0;
+        for (Tuple2<Integer, Long> fieldIdAndLength : fieldIdsAndLengths) {
+            int length = fieldIdAndLength.second.intValue();
+            if (type.getField(fieldIdAndLength.first, version) != null) { // unknown fields are ignored
+                fieldIds[count] = fieldIdAndLength.first;
+                offsets[count] = offset;
+                lengths[count] = length;
+                count++;
+            }
+            offset += length;
+        }
+        return new SerializedFields(manager, version, data, Arrays.copyOf(fieldIds, count),
+                                    Arrays.copyOf(offsets, count), Arrays.copyOf(lengths, count));
+    }
+
     public void read(FieldBase field, StructuredFieldValue value) {
         throw new IllegalArgumentException("read not implemented yet.");
     }
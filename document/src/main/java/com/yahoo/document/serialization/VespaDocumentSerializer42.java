@@ -310,7 +310,17 @@ public class VespaDocumentSerializer42 extends BufferSerializer implements Docum
         List<Integer> fieldIds = new LinkedList<>();
         List<java.lang.Integer> fieldLengths = new LinkedList<>();
 
-        for (Map.Entry<Field, FieldValue> value : s.getFields()) {
+        // Fields which were never deserialized are copied as they were serialized
+        SerializedFields serializedFields = s.getSerializedFields();
+        if (serializedFields != null) {
+            for (int i = 0; i < serializedFields.count(); i++) {
+                if ( ! serializedFields.isPending(i)) continue;
+                fieldLengths.add(serializedFields.copyTo(i, buffer));
+                fieldIds.add(serializedFields.fieldId(i));
+            }
+        }
+
+        for (Map.Entry<Field, FieldValue> value : s.getDeserializedFields()) {
 
             int startPos = buffer.position();
             value.getValue().serialize(value.getKey(), this);
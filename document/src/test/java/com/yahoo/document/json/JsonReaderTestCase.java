@@ -2,6 +2,8 @@
 package com.yahoo.document.json;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import com.google.common.base.Joiner;
 import com.yahoo.collections.Tuple2;
@@ -1332,6 +1334,66 @@ public class JsonReaderTestCase {
         new JsonReader(types, jsonToInputStream(jsonData), parserFactory).next();
     }
 
+    @Test
+    public void requireThatPutsAreReadEquallyWhetherTheirIdPrecedesTheirFieldsOrNot() {
+        String fields = "'fields': { 'skuggsjaa': { 'sandra': 'person', 'cloud': 'another person' } }";
+        JsonReader reader = new JsonReader(types, jsonToInputStream(inputJson(
+                "[",
+                "  { 'put': 'id:unittest:mirrors::whee', " + fields + " },",
+                "  { " + fields + ", 'put': 'id:unittest:mirrors::whee' }",
+                "]")), parserFactory);
+        DocumentPut streamed = (DocumentPut) reader.next();
+        DocumentPut buffered = (DocumentPut) reader.next();
+        assertNull(reader.next());
+
+        assertEquals(buffered.getDocument(), streamed.getDocument());
+        Struct skuggsjaa = (Struct) streamed.getDocument().getFieldValue("skuggsjaa");
+        assertEquals(new StringFieldValue("person"), skuggsjaa.getFieldValue("sandra"));
+        assertEquals(new StringFieldValue("another person"), skuggsjaa.getFieldValue("cloud"));
+    }
+
+    @Test
+    public void requireThatAFailedStreamedPutLeavesTheReaderAtTheNextOperation() {
+        JsonReader reader = new JsonReader(types, jsonToInputStream(inputJson(
+                "[",
+                "  { 'put': 'id:unittest:smoke::bad', 'fields': { 'smething': { 'a': [ 1, 2 ] }, 'nalle': 'bamse' },",
+                "    'condition': 'smoke.int1 == 3' },",
+                "  { 'put': 'id:unittest:smoke::good', 'fields': { 'nalle': 'bamse' } }",
+                "]")), parserFactory);
+        try {
+            reader.next();
+            fail("Expected exception");
+        }
+        catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("smething"));
+        }
+        DocumentPut put = (DocumentPut) reader.next();
+        assertEquals("id:unittest:smoke::good", put.getId().toString());
+        smokeTestDoc(put.getDocument());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void requireThatStreamingTokenBufferReadsOnlyTheCurrentStruct() throws IOException {
+        JsonParser parser = parserFactory.createParser(inputJson("[ { 'a': [ 1, { 'b': 2 } ], 'c': 3 }, 4 ]"));
+        parser.nextToken();
+        parser.nextToken();
+        TokenBuffer buffer = TokenBuffer.stream(parser);
+        assertEquals(JsonToken.START_OBJECT, buffer.currentToken());
+        assertEquals(1, buffer.size());
+
+        assertEquals(JsonToken.START_ARRAY, buffer.next());
+        assertEquals("a", buffer.currentName());
+        assertEquals(6, buffer.prefetchCurrentElement().size());
+        assertEquals(6, buffer.size());
+
+        buffer.skipToEnd();
+        assertEquals(0, buffer.nesting());
+        assertEquals(JsonToken.END_OBJECT, parser.currentToken());
+        assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+        assertEquals(4, parser.getIntValue());
+    }
+
     private static final String TENSOR_DOC_ID = "id:unittest:testtensor::0";
 
     private DocumentPut createPutWithoutTensor() {
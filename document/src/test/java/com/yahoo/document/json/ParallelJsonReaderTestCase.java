@@ -0,0 +1,148 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.yahoo.document.DataType;
+import com.yahoo.document.DocumentOperation;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentRemove;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.DocumentUpdate;
+import com.yahoo.document.Field;
+import com.yahoo.document.MapDataType;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.text.Utf8;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.yahoo.test.json.JsonTestHelper.inputJson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelJsonReaderTestCase {
+
+    private DocumentTypeManager types;
+    private JsonFactory parserFactory;
+
+    @Before
+    public void setUp() {
+        parserFactory = new JsonFactory();
+        types = new DocumentTypeManager();
+        DocumentType x = new DocumentType("smoke");
+        x.addField(new Field("something", DataType.STRING));
+        x.addField(new Field("nalle", DataType.STRING));
+        x.addField(new Field("map", new MapDataType(DataType.STRING, DataType.STRING)));
+        types.registerDocumentType(x);
+    }
+
+    @Test
+    public void requireThatOperationsAreReadInFeedOrderAcrossChunks() {
+        StringBuilder feed = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            if (i > 0) feed.append(",\n");
+            switch (i % 3) {
+                case 0:
+                    feed.append("{ 'put': 'id:unittest:smoke::").append(i).append("', 'fields': { ")
+                        .append("'something': 'tricky ], }, [ { , \\\\ \\\" æøå', 'map': { '[': ']', '{': '}' } } }");
+                    break;
+                case 1:
+                    feed.append("{ 'update': 'id:unittest:smoke::").append(i).append("', 'fields': { ")
+                        .append("'nalle': { 'assign': 'bamse' } } }");
+                    break;
+                default:
+                    feed.append("{ 'remove': 'id:unittest:smoke::").append(i).append("' }");
+            }
+        }
+        feed.append("]");
+        String json = inputJson(feed.toString());
+
+        List<DocumentOperation> expected = readAll(new JsonReader(types, toStream(json), parserFactory)::next);
+        assertEquals(500, expected.size());
+        for (int chunkSize : new int[] { 1, 100, 4096, ParallelJsonReader.DEFAULT_CHUNK_SIZE }) {
+            try (ParallelJsonReader reader = new ParallelJsonReader(types, toStream(json), parserFactory, 4, chunkSize)) {
+                List<DocumentOperation> operations = readAll(reader::next);
+                assertEquals(expected.size(), operations.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getId(), operations.get(i).getId());
+                    assertEquals(expected.get(i).getClass(), operations.get(i).getClass());
+                    if (expected.get(i) instanceof DocumentPut)
+                        assertEquals(((DocumentPut) expected.get(i)).getDocument(), ((DocumentPut) operations.get(i)).getDocument());
+                    if (expected.get(i) instanceof DocumentUpdate)
+                        assertEquals(expected.get(i).toString(), operations.get(i).toString());
+                }
+            }
+        }
+        DocumentPut put = (DocumentPut) expected.get(0);
+        assertEquals(new StringFieldValue("tricky ], }, [ { , \\ \" æøå"), put.getDocument().getFieldValue("something"));
+    }
+
+    @Test
+    public void requireThatFailuresAreThrownInFeedOrder() {
+        String json = inputJson("[",
+                                "  { 'remove': 'id:unittest:smoke::0' },",
+                                "  { 'put': 'id:unittest:smoke::1', 'fields': { 'smething': 'smoketest' } },",
+                                "  { 'remove': 'id:unittest:smoke::2' }",
+                                "]");
+        ParallelJsonReader reader = new ParallelJsonReader(types, toStream(json), parserFactory, 2, 1);
+        assertEquals("id:unittest:smoke::0", reader.next().getId().toString());
+        try {
+            reader.next();
+            fail("Expected exception");
+        }
+        catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("smething"));
+        }
+        DocumentOperation remove = reader.next();
+        assertTrue(remove instanceof DocumentRemove);
+        assertEquals("id:unittest:smoke::2", remove.getId().toString());
+        assertNull(reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void requireThatATruncatedFeedFails() {
+        String json = inputJson("[ { 'remove': 'id:unittest:smoke::0' }, { 'remove': 'id:unit");
+        ParallelJsonReader reader = new ParallelJsonReader(types, toStream(json), parserFactory, 2, 1);
+        assertEquals("id:unittest:smoke::0", reader.next().getId().toString());
+        try {
+            reader.next();
+            fail("Expected exception");
+        }
+        catch (RuntimeException e) {
+            // expected
+        }
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void requireThatEmptyFeedsAreRead() {
+        assertNull(new ParallelJsonReader(types, toStream(" [ ] "), parserFactory, 2).next());
+        try {
+            new ParallelJsonReader(types, toStream("{ }"), parserFactory, 2).next();
+            fail("Expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("Expected start of array, got '{'", e.getMessage());
+        }
+    }
+
+    private static List<DocumentOperation> readAll(Supplier<DocumentOperation> reader) {
+        List<DocumentOperation> operations = new ArrayList<>();
+        for (DocumentOperation operation; (operation = reader.get()) != null; )
+            operations.add(operation);
+        return operations;
+    }
+
+    private static ByteArrayInputStream toStream(String json) {
+        return new ByteArrayInputStream(Utf8.toBytes(json));
+    }
+
+}
@@ -11,6 +11,7 @@ import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.Field;
 import com.yahoo.document.MapDataType;
 import com.yahoo.document.StructDataType;
+import com.yahoo.document.datatypes.Array;
 import com.yahoo.document.datatypes.IntegerFieldValue;
 import com.yahoo.document.datatypes.MapFieldValue;
 import com.yahoo.document.datatypes.PredicateFieldValue;
@@ -20,7 +21,11 @@ import com.yahoo.io.GrowableByteBuffer;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -129,4 +134,75 @@ public class VespaDocumentSerializerTestCase {
         // rounded up to 4096 bytes.
         assertTrue(buf.remaining() < 4096);
     }
+
+    static class LazyFixture {
+
+        final DocumentTypeManager manager = new DocumentTypeManager();
+        final DocumentType docType = new DocumentType("lazy_type");
+
+        LazyFixture() {
+            docType.addField("my_str", DataType.STRING);
+            docType.addField("my_int", DataType.INT);
+            docType.addField("my_array", DataType.getArray(DataType.STRING));
+            manager.registerDocumentType(docType);
+        }
+
+        Document createDocument() {
+            Document doc = new Document(docType, "id:ns:lazy_type::1");
+            doc.setFieldValue("my_str", new StringFieldValue("foo"));
+            doc.setFieldValue("my_int", new IntegerFieldValue(69));
+            Array<StringFieldValue> array = new Array<>(DataType.getArray(DataType.STRING));
+            array.add(new StringFieldValue("bar"));
+            doc.setFieldValue("my_array", array);
+            return doc;
+        }
+
+        Document deserializeLazily(byte[] data) {
+            return new Document(DocumentDeserializerFactory.createLazyHead(manager, GrowableByteBuffer.wrap(data)));
+        }
+
+        static byte[] serialize(Document doc) {
+            GrowableByteBuffer buf = new GrowableByteBuffer();
+            DocumentSerializerFactory.createHead(buf).write(doc);
+            return Arrays.copyOf(buf.array(), buf.position());
+        }
+
+    }
+
+    @Test
+    public void lazy_fields_are_deserialized_on_first_access() {
+        LazyFixture fixture = new LazyFixture();
+        Document doc = fixture.createDocument();
+        Document lazy = fixture.deserializeLazily(LazyFixture.serialize(doc));
+
+        assertEquals(3, lazy.getBody().getFieldCount());
+        assertEquals(3, lazy.getBody().getSerializedFields().size());
+        assertEquals(new IntegerFieldValue(69), lazy.getFieldValue("my_int"));
+        assertEquals(2, lazy.getBody().getSerializedFields().size());
+        assertEquals(3, lazy.getBody().getFieldCount());
+
+        assertEquals(doc, lazy);
+        assertNull(lazy.getBody().getSerializedFields());
+    }
+
+    @Test
+    public void unaccessed_lazy_fields_are_serialized_by_copying_their_bytes() {
+        LazyFixture fixture = new LazyFixture();
+        Document doc = fixture.createDocument();
+        byte[] data = LazyFixture.serialize(doc);
+
+        assertArrayEquals(data, LazyFixture.serialize(fixture.deserializeLazily(data)));
+
+        Document lazy = fixture.deserializeLazily(data);
+        lazy.setFieldValue("my_str", new StringFieldValue("baz"));
+        assertEquals(new IntegerFieldValue(69), lazy.getFieldValue("my_int"));
+        assertEquals(1, lazy.getBody().getSerializedFields().size());
+        Document copy = lazy.clone();
+        Document result = fixture.deserializeLazily(LazyFixture.serialize(lazy));
+
+        doc.setFieldValue("my_str", new StringFieldValue("baz"));
+        assertEquals(doc, result);
+        assertEquals(doc, copy);
+    }
+
 }
@@ -9,6 +9,7 @@ import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.DocumentTypeManagerConfigurer;
 import com.yahoo.documentapi.messagebus.loadtypes.LoadTypeSet;
 import com.yahoo.documentapi.metrics.DocumentProtocolMetricSet;
+import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.messagebus.ErrorCode;
 import com.yahoo.messagebus.Protocol;
 import com.yahoo.messagebus.Reply;
@@ -567,6 +568,21 @@ public class DocumentProtocol implements Protocol {
         return routableRepository.encode(version, routable);
     }
 
+    @Override
+    public boolean encode(Version version, Routable routable, GrowableByteBuffer buffer) {
+        return routableRepository.encode(version, routable, buffer);
+    }
+
+    /**
+     * Sets whether documents decoded by this should leave their fields serialized until they are accessed,
+     * such that e.g a document processor which inspects a single field only decodes that field. Default is false.
+     * As accessing a field then modifies the document, such documents must not be read by multiple threads
+     * concurrently.
+     */
+    public void setLazyDocumentFields(boolean lazyDocumentFields) {
+        routableRepository.setLazyDocumentFields(lazyDocumentFields);
+    }
+
     public Routable decode(Version version, byte[] data) {
         try {
             return routableRepository.decode(docMan, version, data);
@@ -29,11 +29,17 @@ final class RoutableRepository {
     private final CopyOnWriteHashMap<Integer, VersionMap> factoryTypes = new CopyOnWriteHashMap<>();
     private final CopyOnWriteHashMap<CacheKey, RoutableFactory> cache = new CopyOnWriteHashMap<>();
     private LoadTypeSet loadTypes;
+    private volatile boolean lazyDocumentFields = false;
 
     public RoutableRepository(LoadTypeSet set) {
         loadTypes = set;
     }
 
+    /** Sets whether the documents of decoded routables should leave their fields serialized until accessed */
+    void setLazyDocumentFields(boolean lazyDocumentFields) {
+        this.lazyDocumentFields = lazyDocumentFields;
+    }
+
     /**
      * Decodes a {@link Routable} from the given byte array. This uses the content of the byte array to dispatch the
      * decode request to the appropriate {@link RoutableFactory} that was previously registered.
@@ -52,7 +58,8 @@ final class RoutableRepository {
         DocumentDeserializer in;
 
         if (version.getMajor() >= 5) {
-            in = DocumentDeserializerFactory.createHead(docMan, GrowableByteBuffer.wrap(data));
+            in = lazyDocumentFields ? DocumentDeserializerFactory.createLazyHead(docMan, GrowableByteBuffer.wrap(data))
+                                    : DocumentDeserializerFactory.createHead(docMan, GrowableByteBuffer.wrap(data));
         } else {
             in = DocumentDeserializerFactory.create42(docMan, GrowableByteBuffer.wrap(data));
         }
@@ -85,31 +92,52 @@ final class RoutableRepository {
      * @return The byte array containing the encoded routable.
      */
     byte[] encode(Version version, Routable obj) {
+        GrowableByteBuffer buffer = new GrowableByteBuffer(8192);
+        if ( ! encode(version, obj, buffer)) {
+            return new byte[0];
+        }
+        byte[] ret = new byte[buffer.position()];
+        buffer.rewind();
+        buffer.get(ret);
+        return ret;
+    }
+
+    /**
+     * Encodes a {@link Routable} into the given buffer, starting at its current position. This lets the caller
+     * serialize into a buffer it reuses, rather than into a new buffer which is then copied to an array.
+     *
+     * If a routable can not be encoded, this method returns false and leaves the position of the buffer unchanged.
+     *
+     * @param version The version to encode the routable as.
+     * @param obj     The routable to encode.
+     * @param buffer  The buffer to encode into.
+     * @return Whether the routable was encoded.
+     */
+    boolean encode(Version version, Routable obj, GrowableByteBuffer buffer) {
         int type = obj.getType();
         RoutableFactory factory = getFactory(version, type);
         if (factory == null) {
             log.log(LogLevel.ERROR, "No routable factory found for routable type " + type +
                                     " (version " + version + ").");
-            return new byte[0];
+            return false;
         }
         DocumentSerializer out;
 
         if (version.getMajor() >= 5) {
-            out = DocumentSerializerFactory.createHead(new GrowableByteBuffer(8192));
+            out = DocumentSerializerFactory.createHead(buffer);
         } else {
-            out = DocumentSerializerFactory.create42(new GrowableByteBuffer(8192));
+            out = DocumentSerializerFactory.create42(buffer);
         }
 
+        int start = buffer.position();
         out.putInt(null, type);
         if (!factory.encode(obj, out)) {
             log.log(LogLevel.ERROR, "Routable factory " + factory.getClass().getName() + " failed to serialize " +
                                     "routable of type " + type + " (version " + version + ").");
-            return new byte[0];
+            buffer.position(start);
+            return false;
         }
-        byte[] ret = new byte[out.getBuf().position()];
-        out.getBuf().rewind();
-        out.getBuf().get(ret);
-        return ret;
+        return true;
     }
 
     /**
@@ -5,10 +5,17 @@ import com.yahoo.component.Version;
 import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.DocumentTypeManagerConfigurer;
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.messagebus.EmptyReply;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author <a href="mailto:simon@yahoo-inc.com">Simon Thoresen Hult</a>
@@ -33,4 +40,23 @@ public class DocumentProtocolTest {
         assertEquals(GetDocumentMessage.DEFAULT_FIELD_SET, next.getFieldSet());
     }
 
+    @Test
+    public void requireThatRoutablesCanBeEncodedIntoReusedBuffer() {
+        DocumentProtocol protocol = new DocumentProtocol(manager);
+        Version version = new Version(6, 221);
+        GrowableByteBuffer buffer = new GrowableByteBuffer(16);
+        for (DocumentMessage msg : Arrays.asList(new GetDocumentMessage(new DocumentId("id:ns:testdoc::1"), "[all]"),
+                                                 new RemoveDocumentMessage(new DocumentId("id:ns:testdoc::2")))) {
+            buffer.clear();
+            buffer.put((byte)17);
+            assertTrue(protocol.encode(version, msg, buffer));
+            byte[] expected = protocol.encode(version, msg);
+            assertEquals(1 + expected.length, buffer.position());
+            assertArrayEquals(expected, Arrays.copyOfRange(buffer.array(), 1, buffer.position()));
+        }
+        int position = buffer.position();
+        assertFalse(protocol.encode(version, new EmptyReply(), buffer));
+        assertEquals(position, buffer.position());
+    }
+
 }
@@ -0,0 +1,57 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.documentapi.messagebus.protocol.test;
+
+import com.yahoo.component.Version;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.DocumentTypeManagerConfigurer;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.documentapi.messagebus.loadtypes.LoadTypeSet;
+import com.yahoo.documentapi.messagebus.protocol.DocumentProtocol;
+import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class LazyDocumentFieldsTestCase {
+
+    private final Version version = new Version(6, 221);
+    private final DocumentTypeManager docMan = new DocumentTypeManager();
+
+    public LazyDocumentFieldsTestCase() {
+        DocumentTypeManagerConfigurer.configure(docMan, "file:./test/cfg/testdoc.cfg");
+    }
+
+    @Test
+    public void requireThatDocumentFieldsAreDecodedEagerlyByDefault() {
+        Document document = decode(new DocumentProtocol(docMan, null, new LoadTypeSet()));
+        assertNull(document.getHeader().getSerializedFields());
+        assertNull(document.getBody().getSerializedFields());
+        assertEquals(new StringFieldValue("foo"), document.getFieldValue("stringfield"));
+    }
+
+    @Test
+    public void requireThatDocumentFieldsAreDecodedOnAccessWhenLazy() {
+        DocumentProtocol protocol = new DocumentProtocol(docMan, null, new LoadTypeSet());
+        protocol.setLazyDocumentFields(true);
+        Document document = decode(protocol);
+        assertNotNull(document.getHeader().getSerializedFields());
+        assertEquals(new StringFieldValue("foo"), document.getFieldValue("stringfield"));
+        assertEquals(new IntegerFieldValue(42), document.getFieldValue("intfield"));
+    }
+
+    private Document decode(DocumentProtocol protocol) {
+        Document document = new Document(docMan.getDocumentType("testdoc"), "id:ns:testdoc::1");
+        document.setFieldValue("stringfield", new StringFieldValue("foo"));
+        document.setFieldValue("longfield", 7L);
+        document.setFieldValue("intfield", new IntegerFieldValue(42));
+        PutDocumentMessage message = (PutDocumentMessage)protocol.decode(version, protocol.encode(version,
+                new PutDocumentMessage(new DocumentPut(document))));
+        return message.getDocumentPut().getDocument();
+    }
+
+}
@@ -1,7 +1,10 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.jdisc.http.core;
 
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpChannel;
 import org.eclipse.jetty.server.HttpConnection;
+import org.eclipse.jetty.server.Request;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -11,8 +14,26 @@ import javax.servlet.http.HttpServletRequest;
 public class HttpServletRequestUtils {
     private HttpServletRequestUtils() {}
 
+    /** Returns the HTTP/1 connection of the given request, or null if it was received over HTTP/2 */
     public static HttpConnection getConnection(HttpServletRequest request) {
         return (HttpConnection)request.getAttribute("org.eclipse.jetty.server.HttpConnection");
     }
 
+    /** Returns the connector which received the given request */
+    public static Connector getConnector(HttpServletRequest request) {
+        HttpConnection connection = getConnection(request);
+        return connection != null ? connection.getConnector() : getHttpChannel(request).getConnector();
+    }
+
+    /** Returns the time in milliseconds when the connection of the given request was created */
+    public static long getConnectedAt(HttpServletRequest request) {
+        HttpConnection connection = getConnection(request);
+        return connection != null ? connection.getCreatedTimeStamp()
+                                  : getHttpChannel(request).getEndPoint().getCreatedTimeStamp();
+    }
+
+    private static HttpChannel getHttpChannel(HttpServletRequest request) {
+        return Request.getBaseRequest(request).getHttpChannel();
+    }
+
 }
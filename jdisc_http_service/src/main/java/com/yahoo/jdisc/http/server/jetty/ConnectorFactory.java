@@ -15,6 +15,7 @@ import com.yahoo.jdisc.http.ssl.DefaultSslTrustStoreContext;
 import com.yahoo.jdisc.http.ssl.SslKeyStoreConfigurator;
 import com.yahoo.jdisc.http.ssl.SslTrustStoreConfigurator;
 import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.SecureRequestCustomizer;
@@ -57,6 +58,11 @@ public class ConnectorFactory {
             connector = new JDiscServerConnector(connectorConfig, metric, server, ch,
                                                  newSslConnectionFactory(),
                                                  newHttpConnectionFactory());
+        } else if (connectorConfig.http2Enabled()) {
+            HttpConfiguration httpConfig = newHttpConfiguration();
+            connector = new JDiscServerConnector(connectorConfig, metric, server, ch,
+                                                 new HttpConnectionFactory(httpConfig),
+                                                 new HTTP2CServerConnectionFactory(httpConfig));
         } else {
             connector = new JDiscServerConnector(connectorConfig, metric, server, ch,
                                                  newHttpConnectionFactory());
@@ -77,6 +83,10 @@ public class ConnectorFactory {
     }
 
     private HttpConnectionFactory newHttpConnectionFactory() {
+        return new HttpConnectionFactory(newHttpConfiguration());
+    }
+
+    private HttpConfiguration newHttpConfiguration() {
         HttpConfiguration httpConfig = new HttpConfiguration();
         httpConfig.setSendDateHeader(true);
         httpConfig.setSendServerVersion(false);
@@ -88,7 +98,7 @@ public class ConnectorFactory {
         if (connectorConfig.ssl().enabled()) {
             httpConfig.addCustomizer(new SecureRequestCustomizer());
         }
-        return new HttpConnectionFactory(httpConfig);
+        return httpConfig;
     }
 
     private SslConnectionFactory newSslConnectionFactory() {
@@ -100,10 +100,11 @@ class HttpRequestDispatch {
         }
     }
 
+    /** Closes HTTP/1 connections after their last allowed request. HTTP/2 connections have no such limit. */
     private void honourMaxKeepAliveRequests() {
         if (jDiscContext.serverConfig.maxKeepAliveRequests() > 0) {
             HttpConnection connection = getConnection(servletRequest);
-            if (connection.getMessagesIn() >= jDiscContext.serverConfig.maxKeepAliveRequests()) {
+            if (connection != null && connection.getMessagesIn() >= jDiscContext.serverConfig.maxKeepAliveRequests()) {
                 connection.getGenerator().setPersistent(false);
             }
         }
@@ -13,7 +13,7 @@ import java.net.URI;
 import java.security.cert.X509Certificate;
 import java.util.Enumeration;
 
-import static com.yahoo.jdisc.http.core.HttpServletRequestUtils.getConnection;
+import static com.yahoo.jdisc.http.core.HttpServletRequestUtils.getConnectedAt;
 
 /**
  * @author Simon Thoresen Hult
@@ -29,7 +29,7 @@ class HttpRequestFactory {
                     HttpRequest.Method.valueOf(servletRequest.getMethod()),
                     HttpRequest.Version.fromString(servletRequest.getProtocol()),
                     new InetSocketAddress(servletRequest.getRemoteAddr(), servletRequest.getRemotePort()),
-                    getConnection(servletRequest).getCreatedTimeStamp());
+                    getConnectedAt(servletRequest));
             httpRequest.context().put(ServletRequest.JDISC_REQUEST_X509CERT, getCertChain(servletRequest));
             return httpRequest;
         } catch (Utf8Appendable.NotUtf8Exception e) {
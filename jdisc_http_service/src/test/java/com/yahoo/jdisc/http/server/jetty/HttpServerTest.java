@@ -24,6 +24,12 @@ import com.yahoo.jdisc.service.BindingSetNotFoundException;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.FormBodyPart;
 import org.apache.http.entity.mime.content.StringBody;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.util.StringContentProvider;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.http.HttpClientTransportOverHTTP2;
 import org.testng.annotations.Test;
 
 import java.net.BindException;
@@ -159,6 +165,28 @@ public class HttpServerTest {
         assertThat(driver.close(), is(true));
     }
 
+    @Test
+    public void requireThatServerCanEchoOverHttp2WithPriorKnowledge() throws Exception {
+        final TestDriver driver = TestDrivers.newConfiguredInstance(
+                new EchoRequestHandler(),
+                new ServerConfig.Builder(),
+                new ConnectorConfig.Builder()
+                        .http2Enabled(true));
+        final HttpClient client = new HttpClient(new HttpClientTransportOverHTTP2(new HTTP2Client()), null);
+        client.start();
+        try {
+            final ContentResponse response = client.POST("http://localhost:" + driver.server().getListenPort() + "/status.html")
+                                                   .content(new StringContentProvider("echo"))
+                                                   .send();
+            assertThat(response.getVersion(), is(HttpVersion.HTTP_2));
+            assertThat(response.getStatus(), is(OK));
+            assertThat(response.getContentAsString(), is("echo"));
+        } finally {
+            client.stop();
+        }
+        assertThat(driver.close(), is(true));
+    }
+
     @Test
     public void requireThatServerCanEchoCompressed() throws Exception {
         final TestDriver driver = TestDrivers.newInstance(new EchoRequestHandler());
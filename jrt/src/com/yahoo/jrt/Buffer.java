@@ -9,6 +9,7 @@ class Buffer {
 
     static final int MAX_IO = 65000;
 
+    private final BufferPool pool; // null if buffers are not pooled
     private ByteBuffer buf;
     private int        readPos;
     private int        writePos;
@@ -54,18 +55,42 @@ class Buffer {
             if (buf.capacity() + free < minFree) {
                 size = buf.capacity() + minFree;
             }
-            ByteBuffer tmp = ByteBuffer.allocate(size);
+            ByteBuffer tmp = allocate(size);
             tmp.order(buf.order());
             buf.position(readPos);
             buf.limit(writePos);
             tmp.put(buf);
+            free(buf);
             buf = tmp;
             readPos = 0;
         }
     }
 
+    private ByteBuffer allocate(int size) {
+        return (pool == null) ? ByteBuffer.allocate(size) : pool.acquire(size);
+    }
+
+    private void free(ByteBuffer buffer) {
+        if (pool != null) {
+            pool.release(buffer);
+        }
+    }
+
     public Buffer(int size) {
-        buf = ByteBuffer.allocate(size);
+        this(size, null);
+    }
+
+    /**
+     * Create a buffer which allocates its underlying byte buffers
+     * from the given pool. Capacities are then rounded up to the
+     * sizes of the pool.
+     *
+     * @param size initial size
+     * @param pool the pool to allocate from, or null to not pool
+     **/
+    Buffer(int size, BufferPool pool) {
+        this.pool = pool;
+        buf = allocate(size);
         readPos = 0;
         writePos = 0;
         readMode = false;
@@ -75,14 +100,18 @@ class Buffer {
         int rpos = readMode? buf.position() : readPos;
         int wpos = readMode? writePos : buf.position();
         int used = wpos - rpos;
+        if (pool != null) {
+            size = pool.capacityFor(size);
+        }
         if (used > size || buf.capacity() <= size) {
             return false;
         }
-        ByteBuffer tmp = ByteBuffer.allocate(size);
+        ByteBuffer tmp = allocate(size);
         tmp.order(buf.order());
         buf.position(rpos);
         buf.limit(wpos);
         tmp.put(buf);
+        free(buf);
         buf = tmp;
         readPos = 0;
         writePos = used;
@@ -91,6 +120,19 @@ class Buffer {
         return true;
     }
 
+    /**
+     * Return the underlying byte buffer to the pool of this and
+     * discard the content of this buffer. This buffer must not be
+     * used after this.
+     **/
+    public void release() {
+        free(buf);
+        buf = ByteBuffer.allocate(0);
+        readPos = 0;
+        writePos = 0;
+        readMode = false;
+    }
+
     public int bytes() {
         return (readMode)
             ? (writePos - buf.position())
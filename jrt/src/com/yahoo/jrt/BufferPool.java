@@ -0,0 +1,134 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A pool of byte buffers shared by the connections of a {@link
+ * Transport}, such that connection buffers are reused rather than
+ * allocated when they grow, shrink and are closed. Buffers are pooled
+ * in size classes of powers of two, and may be direct, which lets
+ * the socket channels read and write them without copying. The total
+ * size of the free buffers held by the pool is bounded.
+ *
+ * This class is multithread safe.
+ **/
+class BufferPool {
+
+    private static final int MIN_SIZE_CLASS = 10; // 1 kb
+    private static final int MAX_SIZE_CLASS = 24; // 16 Mb; larger buffers are not pooled
+
+    private final boolean direct;
+    private final long    maxFreeBytes;
+    private final AtomicLong freeBytes = new AtomicLong(0);
+    private final SizeClass[] sizeClasses = new SizeClass[MAX_SIZE_CLASS + 1];
+
+    private static class SizeClass {
+        final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Create a buffer pool
+     *
+     * @param direct whether to allocate direct buffers
+     * @param maxFreeBytes the max total size of the free buffers held
+     **/
+    BufferPool(boolean direct, long maxFreeBytes) {
+        this.direct = direct;
+        this.maxFreeBytes = maxFreeBytes;
+        for (int i = MIN_SIZE_CLASS; i <= MAX_SIZE_CLASS; i++) {
+            sizeClasses[i] = new SizeClass();
+        }
+    }
+
+    /**
+     * Obtain whether this pool allocates direct buffers
+     *
+     * @return true if the buffers of this are direct
+     **/
+    boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Obtain the capacity of the buffer returned when acquiring a
+     * buffer of the given minimum size
+     *
+     * @return the capacity of the buffer which would be acquired
+     * @param minSize the minimum buffer size
+     **/
+    int capacityFor(int minSize) {
+        int sizeClass = sizeClass(minSize);
+        return (sizeClass > MAX_SIZE_CLASS) ? minSize : (1 << sizeClass);
+    }
+
+    /**
+     * Obtain a cleared buffer with at least the given capacity,
+     * reusing a free buffer if possible
+     *
+     * @return the buffer
+     * @param minSize the minimum buffer size
+     **/
+    ByteBuffer acquire(int minSize) {
+        int sizeClass = sizeClass(minSize);
+        if (sizeClass > MAX_SIZE_CLASS) {
+            return allocate(minSize);
+        }
+        ByteBuffer buffer = sizeClasses[sizeClass].free.poll();
+        if (buffer == null) {
+            return allocate(1 << sizeClass);
+        }
+        freeBytes.addAndGet(-buffer.capacity());
+        buffer.clear();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * Return a buffer to this pool. The buffer must not be used by
+     * the caller after this. Buffers not allocated by this pool, or
+     * not fitting in the pool, are left to the garbage collector.
+     *
+     * @param buffer the buffer to return
+     **/
+    void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (buffer.isDirect() != direct || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        int sizeClass = Integer.numberOfTrailingZeros(capacity);
+        if (sizeClass < MIN_SIZE_CLASS || sizeClass > MAX_SIZE_CLASS) {
+            return;
+        }
+        if (freeBytes.addAndGet(capacity) > maxFreeBytes) {
+            freeBytes.addAndGet(-capacity);
+            return;
+        }
+        sizeClasses[sizeClass].free.offer(buffer);
+    }
+
+    /**
+     * Obtain the total size of the free buffers in this pool
+     *
+     * @return number of bytes held by free buffers
+     **/
+    long freeBytes() {
+        return freeBytes.get();
+    }
+
+    private ByteBuffer allocate(int size) {
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    private static int sizeClass(int minSize) {
+        if (minSize <= (1 << MIN_SIZE_CLASS)) {
+            return MIN_SIZE_CLASS;
+        }
+        return 32 - Integer.numberOfLeadingZeros(minSize - 1);
+    }
+}
@@ -14,11 +14,11 @@ class Closer {
         }
     }
 
-    private Thread      thread = new Thread(new Run(), "<closer>");
-    private Transport   parent;
-    private ThreadQueue closeQueue = new ThreadQueue();
+    private Thread          thread = new Thread(new Run(), "<closer>");
+    private TransportThread parent;
+    private ThreadQueue     closeQueue = new ThreadQueue();
 
-    public Closer(Transport parent) {
+    public Closer(TransportThread parent) {
         this.parent = parent;
         thread.setDaemon(true);
         thread.start();
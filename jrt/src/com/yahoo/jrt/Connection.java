@@ -6,6 +6,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Map;
@@ -14,7 +15,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
-class Connection extends Target {
+class Connection extends Target implements Splicer {
 
     private static Logger log = Logger.getLogger(Connection.class.getName());
 
@@ -22,6 +23,7 @@ class Connection extends Target {
     private static final int READ_REDO  = 10;
     private static final int WRITE_SIZE = 8192;
     private static final int WRITE_REDO = 10;
+    private static final int MAX_WRITE_SEGMENTS = 33;
 
     private static final int INITIAL   = 0;
     private static final int CONNECTED = 1;
@@ -30,15 +32,18 @@ class Connection extends Target {
     private int           state      = INITIAL;
     private Queue         queue      = new Queue();
     private Queue         myQueue    = new Queue();
-    private Buffer        input      = new Buffer(READ_SIZE * 2);
-    private Buffer        output     = new Buffer(WRITE_SIZE * 2);
+    private Buffer        input;
+    private Buffer        output;
+    private ArrayDeque<Splice> splices = new ArrayDeque<>();
+    private long          outputBytesWritten = 0; // bytes written from the output buffer
+    private ByteBuffer[]  writeSegments = new ByteBuffer[MAX_WRITE_SEGMENTS];
     private int           maxInputSize  = 64*1024;
     private int           maxOutputSize = 64*1024;
     private Map<Integer, ReplyHandler> replyMap = new HashMap<>();
     private Map<TargetWatcher, TargetWatcher> watchers = new IdentityHashMap<>();
     private int           activeReqs = 0;
     private int           writeWork  = 0;
-    private Transport     parent;
+    private TransportThread parent;
     private Supervisor    owner;
     private Spec          spec;
     private SocketChannel channel;
@@ -47,6 +52,16 @@ class Connection extends Target {
     private SelectionKey  selectionKey;
     private Exception     lostReason = null;
 
+    /** A byte array to be written after a given number of bytes from the output buffer **/
+    private static class Splice {
+        final long       position;
+        final ByteBuffer data;
+        Splice(long position, byte[] data, int offset, int length) {
+            this.position = position;
+            this.data = ByteBuffer.wrap(data, offset, length);
+        }
+    }
+
     private void setState(int state) {
         if (state <= this.state) {
             log.log(Level.WARNING, "Bogus state transition: " + this.state + "->" + state);
@@ -81,22 +96,26 @@ class Connection extends Target {
         }
     }
 
-    public Connection(Transport parent, Supervisor owner,
+    public Connection(TransportThread parent, Supervisor owner,
                       SocketChannel channel) {
 
         this.parent = parent;
         this.owner = owner;
         this.channel = channel;
         server = true;
+        input = new Buffer(READ_SIZE * 2, parent.transport().bufferPool());
+        output = new Buffer(WRITE_SIZE * 2, parent.transport().bufferPool());
         owner.sessionInit(this);
     }
 
-    public Connection(Transport parent, Supervisor owner, Spec spec, Object context) {
+    public Connection(TransportThread parent, Supervisor owner, Spec spec, Object context) {
         super(context);
         this.parent = parent;
         this.owner = owner;
         this.spec = spec;
         server = false;
+        input = new Buffer(READ_SIZE * 2, parent.transport().bufferPool());
+        output = new Buffer(WRITE_SIZE * 2, parent.transport().bufferPool());
         owner.sessionInit(this);
     }
 
@@ -109,6 +128,10 @@ class Connection extends Target {
     }
 
     public Transport transport() {
+        return parent.transport();
+    }
+
+    public TransportThread transportThread() {
         return parent;
     }
 
@@ -243,21 +266,27 @@ class Connection extends Target {
             queue.flush(myQueue);
         }
         for (int i = 0; i < WRITE_REDO; i++) {
-            while (output.bytes() < WRITE_SIZE) {
+            while (output.bytes() < WRITE_SIZE && splices.isEmpty()) {
                 Packet packet = (Packet) myQueue.dequeue();
                 if (packet == null) {
                     break;
                 }
                 PacketInfo info = packet.getPacketInfo();
-                ByteBuffer wb = output.getWritable(info.packetLength());
+                ByteBuffer wb = output.getWritable(packet.copiedBytes());
                 owner.writePacket(info);
-                info.encodePacket(packet, wb);
+                info.encodePacket(packet, wb, this);
+            }
+            if (!splices.isEmpty()) {
+                if (!writeGathered()) {
+                    break;
+                }
+                continue;
             }
             ByteBuffer rb = output.getChannelReadable();
             if (rb.remaining() == 0) {
                 break;
             }
-            channel.write(rb);
+            outputBytesWritten += channel.write(rb);
             if (rb.remaining() > 0) {
                 break;
             }
@@ -266,6 +295,7 @@ class Connection extends Target {
         synchronized (this) {
             writeWork = queue.size()
                 + myQueue.size()
+                + splices.size()
                 + ((output.bytes() > 0) ? 1 : 0);
             disableWrite = (writeWork == 0);
         }
@@ -277,11 +307,82 @@ class Connection extends Target {
         }
     }
 
+    /**
+     * Write the output buffer interleaved with the pending spliced
+     * byte arrays using a single gathering write.
+     *
+     * @return true if everything pending was written
+     **/
+    private boolean writeGathered() throws IOException {
+        ByteBuffer rb = output.getReadable();
+        int pos = rb.position();
+        int end = rb.limit();
+        long splicedBefore = 0;
+        int count = 0;
+        int included = 0;
+        for (Splice splice : splices) {
+            if (count + 2 > MAX_WRITE_SEGMENTS) {
+                break;
+            }
+            int before = (int)(splice.position - outputBytesWritten) - (pos - rb.position());
+            if (before > 0) {
+                writeSegments[count++] = segment(rb, pos, pos + before);
+                pos += before;
+            }
+            writeSegments[count++] = splice.data;
+            splicedBefore += splice.data.remaining();
+            included++;
+        }
+        if (pos < end && included == splices.size()) {
+            writeSegments[count++] = segment(rb, pos, end);
+        }
+        long written = channel.write(writeSegments, 0, count);
+        long splicedAfter = 0;
+        for (int i = 0; i < count; i++) {
+            writeSegments[i] = null;
+        }
+        for (Splice splice : splices) {
+            if (included-- == 0) {
+                break;
+            }
+            splicedAfter += splice.data.remaining();
+        }
+        int outputWritten = (int)(written - (splicedBefore - splicedAfter));
+        rb.position(rb.position() + outputWritten);
+        outputBytesWritten += outputWritten;
+        while (!splices.isEmpty()
+               && splices.peek().position <= outputBytesWritten
+               && !splices.peek().data.hasRemaining())
+        {
+            splices.poll();
+        }
+        return splices.isEmpty() && rb.remaining() == 0;
+    }
+
+    private static ByteBuffer segment(ByteBuffer buffer, int from, int to) {
+        ByteBuffer segment = buffer.duplicate();
+        segment.limit(to);
+        segment.position(from);
+        return segment;
+    }
+
+    /**
+     * Splice a range of a byte array into the output stream after the
+     * bytes currently in the output buffer. Invoked while encoding
+     * packets.
+     **/
+    public void splice(byte[] data, int offset, int length) {
+        splices.add(new Splice(outputBytesWritten + output.bytes(), data, offset, length));
+    }
+
     public void fini() {
         setState(CLOSED);
         if (selectionKey != null) {
             selectionKey.cancel();
         }
+        input.release();
+        output.release();
+        splices.clear();
     }
 
     public boolean isClosed() {
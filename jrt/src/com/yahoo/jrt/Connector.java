@@ -14,13 +14,13 @@ class Connector {
         }
     }
 
-    private Thread      thread = new Thread(new Run(), "<connector>");
-    private Transport   parent;
-    private ThreadQueue connectQueue = new ThreadQueue();
-    private boolean     done = false;
-    private boolean     exit = false;
+    private Thread          thread = new Thread(new Run(), "<connector>");
+    private TransportThread parent;
+    private ThreadQueue     connectQueue = new ThreadQueue();
+    private boolean         done = false;
+    private boolean         exit = false;
 
-    public Connector(Transport parent) {
+    public Connector(TransportThread parent) {
         this.parent = parent;
         thread.setDaemon(true);
         thread.start();
@@ -54,6 +54,28 @@ public class DataArray extends Value
             dst.put(value[i]);
         }
     }
+    void encode(ByteBuffer dst, Splicer splicer) {
+        if (splicer == null) {
+            encode(dst);
+            return;
+        }
+        dst.putInt(value.length);
+        for (int i = 0; i < value.length; i++) {
+            dst.putInt(value[i].length);
+            if (value[i].length < Splicer.MIN_SIZE) {
+                dst.put(value[i]);
+            } else {
+                splicer.splice(value[i], 0, value[i].length);
+            }
+        }
+    }
+    int copiedBytes() {
+        int bytes = 4;
+        for (int i = 0; i < value.length; i++) {
+            bytes += 4 + ((value[i].length < Splicer.MIN_SIZE) ? value[i].length : 0);
+        }
+        return bytes;
+    }
 
     public byte[][] asDataArray() { return value; }
 
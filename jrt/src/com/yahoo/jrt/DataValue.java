@@ -3,6 +3,7 @@ package com.yahoo.jrt;
 
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 
 /**
@@ -11,13 +12,36 @@ import java.nio.ByteBuffer;
 public class DataValue extends Value
 {
     private byte[] value;
+    private int    offset;
+    private int    length;
 
     /**
      * Create from a Java-type value
      *
      * @param value the value
      **/
-    public DataValue(byte[] value) { this.value = value; }
+    public DataValue(byte[] value) { this(value, 0, value.length); }
+
+    /**
+     * Create from a range of a byte array. The array is referenced,
+     * not copied, and is written to the network directly when this
+     * value is sent, so it must not be modified after this. This lets
+     * the owner of a larger buffer send a part of it without copying
+     * it into an array of the exact size first.
+     *
+     * @param value the array holding the value
+     * @param offset the start of the value in the array
+     * @param length the number of bytes in the value
+     **/
+    public DataValue(byte[] value, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > value.length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length) +
+                                                ") is outside data of length " + value.length);
+        }
+        this.value  = value;
+        this.offset = offset;
+        this.length = length;
+    }
 
     /**
      * Create by decoding the value from the given buffer
@@ -28,6 +52,8 @@ public class DataValue extends Value
         int size = src.getInt();
         value = new byte[size];
         src.get(value);
+        offset = 0;
+        length = size;
     }
 
     /**
@@ -36,13 +62,37 @@ public class DataValue extends Value
     public byte type() { return DATA; }
     public int count() { return 1; }
 
-    int bytes() { return 4 + value.length; }
+    int bytes() { return 4 + length; }
     void encode(ByteBuffer dst) {
-        dst.putInt(value.length);
-        dst.put(value);
+        dst.putInt(length);
+        dst.put(value, offset, length);
+    }
+    void encode(ByteBuffer dst, Splicer splicer) {
+        if (splicer == null || length < Splicer.MIN_SIZE) {
+            encode(dst);
+            return;
+        }
+        dst.putInt(length);
+        splicer.splice(value, offset, length);
+    }
+    int copiedBytes() {
+        return (length < Splicer.MIN_SIZE) ? bytes() : 4;
     }
 
-    public byte[] asData() { return value; }
+    /**
+     * Obtain the bytes of this value. If this value was created from
+     * a range of a larger array, the range is copied into an array
+     * of its own the first time this is called.
+     *
+     * @return the bytes of this value
+     **/
+    public byte[] asData() {
+        if (offset != 0 || length != value.length) {
+            value  = Arrays.copyOfRange(value, offset, offset + length);
+            offset = 0;
+        }
+        return value;
+    }
 
     @Override
     public String toString() {
@@ -2,7 +2,9 @@
 package com.yahoo.jrt;
 
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 
 class MandatoryMethods {
@@ -47,13 +49,14 @@ class MandatoryMethods {
     }
 
     public void getMethodList(Request req) {
-        int cnt = parent.methodMap().size();
+        List<Method> methods = new ArrayList<>(parent.methodMap().values()); // snapshot, as methods may be added concurrently
+        int cnt = methods.size();
         String[] ret0_names  = new String[cnt];
         String[] ret1_params = new String[cnt];
         String[] ret2_return = new String[cnt];
 
         int i = 0;
-        Iterator<Method> itr = parent.methodMap().values().iterator();
+        Iterator<Method> itr = methods.iterator();
         while (itr.hasNext()) {
             Method m = itr.next();
             ret0_names[i]  = m.name();
@@ -44,6 +44,14 @@ abstract class Packet
     public abstract int packetCode();
     public abstract void encode(ByteBuffer dst);
 
+    public void encode(ByteBuffer dst, Splicer splicer) {
+        encode(dst);
+    }
+
+    public int copiedBytes() {
+        return bytes();
+    }
+
     public PacketInfo getPacketInfo() {
         return new PacketInfo(bytes(), flags, packetCode(), requestId);
     }
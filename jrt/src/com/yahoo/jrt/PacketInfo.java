@@ -85,8 +85,12 @@ class PacketInfo
     }
 
     public void encodePacket(Packet packet, ByteBuffer dst) {
+        encodePacket(packet, dst, null);
+    }
+
+    public void encodePacket(Packet packet, ByteBuffer dst, Splicer splicer) {
         int pos = dst.position();
-        int end = pos + packetLength;
+        int end = pos + ((splicer == null) ? packetLength : packet.copiedBytes());
         int limit = dst.limit();
         try {
             dst.limit(end);
@@ -97,7 +101,7 @@ class PacketInfo
             if (reverseByteOrder()) {
                 dst.order(ByteOrder.LITTLE_ENDIAN);
             }
-            packet.encode(dst);
+            packet.encode(dst, splicer);
         } catch (RuntimeException e) {
             dst.position(pos);
             throw e;
@@ -36,6 +36,15 @@ class ReplyPacket extends Packet
         returnValues.encode(dst);
     }
 
+    public void encode(ByteBuffer dst, Splicer splicer) {
+        returnValues.encode(dst, splicer);
+    }
+
+    public int copiedBytes() {
+        return (headerLength +
+                returnValues.copiedBytes());
+    }
+
     public Values returnValues() {
         return returnValues;
     }
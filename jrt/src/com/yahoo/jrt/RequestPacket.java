@@ -42,6 +42,17 @@ class RequestPacket extends Packet
         parameters.encode(dst);
     }
 
+    public void encode(ByteBuffer dst, Splicer splicer) {
+        methodName.encode(dst);
+        parameters.encode(dst, splicer);
+    }
+
+    public int copiedBytes() {
+        return (headerLength +
+                methodName.bytes() +
+                parameters.copiedBytes());
+    }
+
     public String methodName() {
         return methodName.asString();
     }
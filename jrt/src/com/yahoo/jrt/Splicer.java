@@ -0,0 +1,26 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+
+/**
+ * Receives large byte arrays which are to be written to the network
+ * right after the bytes currently encoded into a buffer, rather than
+ * being copied into the buffer. This is used to let large data values
+ * be written with gathering writes.
+ **/
+interface Splicer {
+
+    /** The minimum size of byte arrays which are worth splicing **/
+    int MIN_SIZE = 16 * 1024;
+
+    /**
+     * Splice a range of the given array into the byte stream at the
+     * current position of the buffer being encoded into. The array
+     * must not be modified until it has been written.
+     *
+     * @param data the array holding the bytes to splice in
+     * @param offset the start of the bytes in the array
+     * @param length the number of bytes to splice in
+     **/
+    void splice(byte[] data, int offset, int length);
+}
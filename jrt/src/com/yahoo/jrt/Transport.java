@@ -2,10 +2,7 @@
 package com.yahoo.jrt;
 
 
-import java.io.IOException;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
-import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,176 +13,119 @@ import java.util.logging.Logger;
  * multiplexed network IO, handles scheduled tasks and keeps track of
  * some additional helper threads. A single Transport object can back
  * multiple {@link Supervisor} objects.
+ *
+ * A Transport may run several transport threads, each with its own
+ * selector. Connections are spread across the threads, such that
+ * reading, writing and decoding packets scale across cores. All
+ * activity on a single connection happens in the same thread, while
+ * tasks and commands performed by this Transport run in the first
+ * thread. Note that with several threads, methods and reply handlers
+ * are invoked concurrently for requests on different connections.
  **/
 public class Transport {
 
-    private static final int OPEN    = 1;
-    private static final int CLOSING = 2;
-    private static final int CLOSED  = 3;
-
-    private class Run implements Runnable {
-        public void run() {
-            try {
-                Transport.this.run();
-            } catch (Throwable problem) {
-                handleFailure(problem, Transport.this);
-            }
-        }
-    }
-
-    private class AddConnectionCmd implements Runnable {
-        private Connection conn;
-        AddConnectionCmd(Connection conn) { this.conn = conn; }
-        public void run() { handleAddConnection(conn); }
-    }
+    private static Logger log = Logger.getLogger(Transport.class.getName());
 
-    private class CloseConnectionCmd implements Runnable {
-        private Connection conn;
-        CloseConnectionCmd(Connection conn) { this.conn = conn; }
-        public void run() { handleCloseConnection(conn); }
-    }
+    private final FatalErrorHandler fatalHandler; // NB: this must be set first
+    private final TransportThread[] threads;
+    private final AtomicInteger     nextThread = new AtomicInteger(0);
+    private final BufferPool        bufferPool;
 
-    private class EnableWriteCmd implements Runnable {
-        private Connection conn;
-        EnableWriteCmd(Connection conn) { this.conn = conn; }
-        public void run() { handleEnableWrite(conn); }
-    }
+    private static final long MAX_POOLED_BYTES = 32 * 1024 * 1024;
 
-    private class SyncCmd implements Runnable {
-        boolean done = false;
-        public synchronized void waitDone() {
-            while (!done) {
-                try { wait(); } catch (InterruptedException e) {}
-            }
-        }
-        public synchronized void run() {
-            done = true;
-            notify();
+    /**
+     * Create a new Transport object with the given fatal error
+     * handler and number of transport threads, where connections use
+     * either direct or heap buffers. Direct buffers avoid copying
+     * between the connection buffers and the sockets, at the cost of
+     * memory outside the Java heap.
+     *
+     * @param fatalHandler fatal error handler
+     * @param numThreads the number of transport threads to use
+     * @param directBuffers whether connections should use direct buffers
+     **/
+    public Transport(FatalErrorHandler fatalHandler, int numThreads, boolean directBuffers) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("A transport must have at least one thread, not " + numThreads);
         }
-    }
-
-    private static Logger log = Logger.getLogger(Transport.class.getName());
-
-    private FatalErrorHandler fatalHandler; // NB: this must be set first
-    private Thread            thread;
-    private Queue             queue;
-    private Queue             myQueue;
-    private Connector         connector;
-    private Closer            closer;
-    private Scheduler         scheduler;
-    private int               state;
-    private Selector          selector;
-
-    private void handleAddConnection(Connection conn) {
-        if (conn.isClosed()) {
-            if (conn.hasSocket()) {
-                closer.closeLater(conn);
-            }
-            return;
+        synchronized (this) {
+            this.fatalHandler = fatalHandler; // NB: this must be set first
         }
-        if (!conn.init(selector)) {
-            handleCloseConnection(conn);
+        bufferPool = new BufferPool(directBuffers, MAX_POOLED_BYTES);
+        threads = new TransportThread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new TransportThread(this, numThreads == 1 ? "<transport>" : "<transport-" + i + ">");
         }
     }
 
-    private void handleCloseConnection(Connection conn) {
-        if (conn.isClosed()) {
-            return;
-        }
-        conn.fini();
-        if (conn.hasSocket()) {
-            closer.closeLater(conn);
-        }
+    /**
+     * Create a new Transport object with the given fatal error
+     * handler and number of transport threads.
+     *
+     * @param fatalHandler fatal error handler
+     * @param numThreads the number of transport threads to use
+     **/
+    public Transport(FatalErrorHandler fatalHandler, int numThreads) {
+        this(fatalHandler, numThreads, false);
     }
 
-    private void handleEnableWrite(Connection conn) {
-        if (conn.isClosed()) {
-            return;
-        }
-        conn.enableWrite();
+    /**
+     * Create a new Transport object with the given fatal error handler
+     * and a single transport thread.
+     *
+     * @param fatalHandler fatal error handler
+     **/
+    public Transport(FatalErrorHandler fatalHandler) {
+        this(fatalHandler, 1);
     }
 
-    private boolean postCommand(Runnable cmd) {
-        boolean wakeup;
-        synchronized (this) {
-            if (state == CLOSED) {
-                return false;
-            }
-            wakeup = queue.isEmpty();
-            queue.enqueue(cmd);
-        }
-        if (wakeup) {
-            selector.wakeup();
-        }
-        return true;
+    /**
+     * Create a Transport object with no fatal error handler and the
+     * given number of transport threads.
+     *
+     * @param numThreads the number of transport threads to use
+     **/
+    public Transport(int numThreads) {
+        this(null, numThreads);
     }
 
-    private void handleEvents() {
-        synchronized (this) {
-            queue.flush(myQueue);
-        }
-        while (!myQueue.isEmpty()) {
-            ((Runnable)myQueue.dequeue()).run();
-        }
+    /**
+     * Create a Transport object with no fatal error handler and a
+     * single transport thread. If a fatal error occurs when no fatal
+     * error handler is registered, the default action is to log the
+     * error and exit with exit code 1.
+     **/
+    public Transport() {
+        this(null, 1);
     }
 
-    private boolean handleIOEvents(Connection conn,
-                                   SelectionKey key) {
-        if (conn.isClosed()) {
-            return true;
-        }
-        if (key.isReadable()) {
-            try {
-                conn.read();
-            } catch (IOException e) {
-                conn.setLostReason(e);
-                return false;
-            }
-        }
-        if (key.isWritable()) {
-            try {
-                conn.write();
-            } catch (IOException e) {
-                conn.setLostReason(e);
-                return false;
-            }
-        }
-        return true;
+    /**
+     * Obtain the number of transport threads of this Transport.
+     *
+     * @return number of transport threads
+     **/
+    public int numThreads() {
+        return threads.length;
     }
 
     /**
-     * Create a new Transport object with the given fatal error handler.
+     * Obtain the pool the connections of this Transport allocate
+     * their buffers from.
      *
-     * @param fatalHandler fatal error handler
+     * @return the buffer pool
      **/
-    public Transport(FatalErrorHandler fatalHandler) {
-        synchronized (this) {
-            this.fatalHandler = fatalHandler; // NB: this must be set first
-        }
-        thread    = new Thread(new Run(), "<transport>");
-        queue     = new Queue();
-        myQueue   = new Queue();
-        connector = new Connector(this);
-        closer    = new Closer(this);
-        scheduler = new Scheduler(System.currentTimeMillis());
-        state     = OPEN;
-        try {
-            selector = Selector.open();
-        } catch (Exception e) {
-            throw new Error("Could not open transport selector", e);
-        }
-        thread.setDaemon(true);
-        thread.start();
+    BufferPool bufferPool() {
+        return bufferPool;
     }
 
     /**
-     * Create a Transport object with no fatal error handler. If a
-     * fatal error occurs when no fatal error handler is registered,
-     * the default action is to log the error and exit with exit code
-     * 1.
+     * Select the thread which should handle a new connection. Threads
+     * are selected round robin.
+     *
+     * @return the selected thread
      **/
-    public Transport() {
-        this(null);
+    TransportThread selectThread() {
+        return threads[Math.floorMod(nextThread.getAndIncrement(), threads.length)];
     }
 
     /**
@@ -231,170 +171,72 @@ public class Transport {
      *             if this flag is set
      */
     Connection connect(Supervisor owner, Spec spec, Object context, boolean sync) {
-        Connection conn = new Connection(this, owner, spec, context);
-        if (sync) {
-            addConnection(conn.connect());
-        } else {
-            connector.connectLater(conn);
-        }
+        TransportThread thread = selectThread();
+        Connection conn = new Connection(thread, owner, spec, context);
+        thread.connect(conn, sync);
         return conn;
     }
 
-    /**
-     * Add a connection to the set of connections handled by this
-     * Transport. Invoked by the {@link Connector} class.
-     *
-     * @param conn the connection to add
-     **/
-    void addConnection(Connection conn) {
-        if (!postCommand(new AddConnectionCmd(conn))) {
-            perform(new CloseConnectionCmd(conn));
-        }
-    }
-
-    /**
-     * Request an asynchronous close of a connection.
-     *
-     * @param conn the connection to close
-     **/
-    void closeConnection(Connection conn) {
-        postCommand(new CloseConnectionCmd(conn));
-    }
-
-    /**
-     * Request an asynchronous enabling of write events for a
-     * connection.
-     *
-     * @param conn the connection to enable write events for
-     **/
-    void enableWrite(Connection conn) {
-        if (Thread.currentThread() == thread) {
-            handleEnableWrite(conn);
-        } else {
-            postCommand(new EnableWriteCmd(conn));
-        }
-    }
-
     /**
      * Create a {@link Task} that can be scheduled for execution in
-     * the transport thread.
+     * the first transport thread.
      *
      * @return the newly created Task
      * @param cmd what to run when the task is executed
      **/
     public Task createTask(Runnable cmd) {
-        return new Task(scheduler, cmd);
+        return threads[0].createTask(cmd);
     }
 
     /**
      * Perform the given command in such a way that it does not run
-     * concurrently with the transport thread or other commands
-     * performed by invoking this method. This method will continue to
-     * work even after the transport thread has been shut down.
+     * concurrently with the first transport thread (where tasks
+     * created by this Transport run) or other commands performed by
+     * invoking this method. This method will continue to work even
+     * after the transport threads have been shut down.
      *
      * @param cmd the command to perform
      **/
     public void perform(Runnable cmd) {
-        if (Thread.currentThread() == thread) {
-            cmd.run();
-            return;
-        }
-        if (!postCommand(cmd)) {
-            join();
-            synchronized (thread) {
-                cmd.run();
-            }
-        }
+        threads[0].perform(cmd);
     }
 
     /**
-     * Synchronize with the transport thread. This method will block
+     * Synchronize with the transport threads. This method will block
      * until all commands issued before this method was invoked has
-     * completed. If the transport thread has been shut down (or is in
-     * the progress of being shut down) this method will instead wait
-     * for the transport thread to complete, since no more commands
+     * completed. If the transport threads have been shut down (or are
+     * in the progress of being shut down) this method will instead wait
+     * for the transport threads to complete, since no more commands
      * will be performed, and waiting would be forever. Invoking this
-     * method from the transport thread is not a good idea.
+     * method from a transport thread is not a good idea.
      *
      * @return this object, to enable chaining
      **/
     public Transport sync() {
-        SyncCmd cmd = new SyncCmd();
-        if (postCommand(cmd)) {
-            cmd.waitDone();
-        } else {
-            join();
+        for (TransportThread thread : threads) {
+            thread.sync();
         }
         return this;
     }
 
-    private void run() {
-        while (state == OPEN) {
-
-            // perform I/O selection
-            try {
-                selector.select(100);
-            } catch (IOException e) {
-                log.log(Level.WARNING, "error during select", e);
-            }
-
-            // handle internal events
-            handleEvents();
-
-            // handle I/O events
-            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
-            while (keys.hasNext()) {
-                SelectionKey key = keys.next();
-                Connection conn = (Connection) key.attachment();
-                keys.remove();
-                if (!handleIOEvents(conn, key)) {
-                    handleCloseConnection(conn);
-                }
-            }
-
-            // check scheduled tasks
-            scheduler.checkTasks(System.currentTimeMillis());
-        }
-        connector.shutdown().waitDone();
-        synchronized (this) {
-            state = CLOSED;
-        }
-        handleEvents();
-        Iterator<SelectionKey> keys = selector.keys().iterator();
-        while (keys.hasNext()) {
-            SelectionKey key = keys.next();
-            Connection conn = (Connection) key.attachment();
-            handleCloseConnection(conn);
-        }
-        try { selector.close(); } catch (Exception e) {}
-        closer.shutdown().join();
-        connector.exit().join();
-    }
-
     /**
-     * Initiate controlled shutdown of the transport thread.
+     * Initiate controlled shutdown of the transport threads.
      *
      * @return this object, to enable chaining with join
      **/
     public Transport shutdown() {
-        synchronized (this) {
-            if (state == OPEN) {
-                state = CLOSING;
-                selector.wakeup();
-            }
+        for (TransportThread thread : threads) {
+            thread.shutdown();
         }
         return this;
     }
 
     /**
-     * Wait for the transport thread to finish.
+     * Wait for the transport threads to finish.
      **/
     public void join() {
-        while (true) {
-            try {
-                thread.join();
-                return;
-            } catch (InterruptedException e) {}
+        for (TransportThread thread : threads) {
+            thread.join();
         }
     }
 }
@@ -100,6 +100,29 @@ public abstract class Value
      **/
     abstract void encode(ByteBuffer dst);
 
+    /**
+     * Encode this value into the given buffer, letting the given
+     * splicer take large byte arrays instead of copying them into the
+     * buffer. Only {@link #copiedBytes} bytes are then put into the
+     * buffer.
+     *
+     * @param dst where to encode this value
+     * @param splicer receiver of large byte arrays, or null to copy all
+     **/
+    void encode(ByteBuffer dst, Splicer splicer) {
+        encode(dst);
+    }
+
+    /**
+     * Determine the number of bytes put into the buffer when encoding
+     * this value with a splicer
+     *
+     * @return number of bytes copied when encoding this value with a splicer
+     **/
+    int copiedBytes() {
+        return bytes();
+    }
+
     /**
      * Decode a value from the given buffer. This method also acts as
      * a factory for value objects
@@ -99,17 +99,41 @@ public class Values
      * @param dst where to encode this value sequence
      **/
     void encode(ByteBuffer dst) {
-        byte[] types = new byte[values.size()];
-        for (int i = 0; i < types.length; i++) {
-            types[i] = get(i).type();
+        encode(dst, null);
+    }
+
+    /**
+     * Encode this value sequence into the given buffer, letting the
+     * given splicer take large byte arrays instead of copying them
+     *
+     * @param dst where to encode this value sequence
+     * @param splicer receiver of large byte arrays, or null to copy all
+     **/
+    void encode(ByteBuffer dst, Splicer splicer) {
+        int size = values.size();
+        dst.putInt(size);
+        for (int i = 0; i < size; i++) {
+            dst.put(get(i).type());
         }
-        dst.putInt(types.length);
-        dst.put(types);
-        for (int i = 0; i < types.length; i++) {
-            get(i).encode(dst);
+        for (int i = 0; i < size; i++) {
+            get(i).encode(dst, splicer);
         }
     }
 
+    /**
+     * Determine the number of bytes put into the buffer when encoding
+     * this value sequence with a splicer
+     *
+     * @return number of bytes copied when encoding this value sequence
+     **/
+    int copiedBytes() {
+        int bytes = 4 + values.size();
+        for (int i = 0; i < values.size(); i++) {
+            bytes += get(i).copiedBytes();
+        }
+        return bytes;
+    }
+
     /**
      * Decode a value sequence from the given buffer into this object
      *
@@ -0,0 +1,80 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BufferPoolTest {
+
+    @org.junit.Test
+    public void testSizeClasses() {
+        BufferPool pool = new BufferPool(false, 1 << 20);
+        assertEquals(1024, pool.capacityFor(1));
+        assertEquals(1024, pool.capacityFor(1024));
+        assertEquals(2048, pool.capacityFor(1025));
+        assertEquals(1 << 24, pool.capacityFor(1 << 24));
+        assertEquals((1 << 24) + 1, pool.capacityFor((1 << 24) + 1));
+        assertEquals(4096, pool.acquire(3000).capacity());
+    }
+
+    @org.junit.Test
+    public void testBuffersAreReused() {
+        BufferPool pool = new BufferPool(true, 1 << 20);
+        assertTrue(pool.isDirect());
+        ByteBuffer buffer = pool.acquire(5000);
+        assertTrue(buffer.isDirect());
+        buffer.putInt(7);
+        pool.release(buffer);
+        assertEquals(8192, pool.freeBytes());
+        ByteBuffer reused = pool.acquire(8000);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(8192, reused.remaining());
+        assertEquals(0, pool.freeBytes());
+    }
+
+    @org.junit.Test
+    public void testForeignAndSurplusBuffersAreNotPooled() {
+        BufferPool pool = new BufferPool(false, 4096);
+        pool.release(ByteBuffer.allocateDirect(1024));
+        pool.release(ByteBuffer.allocate(1000));
+        pool.release(ByteBuffer.allocate(512));
+        assertEquals(0, pool.freeBytes());
+        pool.release(pool.acquire(4096));
+        pool.release(pool.acquire(2048));
+        assertEquals(4096, pool.freeBytes());
+    }
+
+    @org.junit.Test
+    public void testPooledBuffer() {
+        BufferPool pool = new BufferPool(true, 1 << 20);
+        Buffer buf = new Buffer(1000, pool);
+        ByteBuffer b = buf.getWritable(10);
+        assertEquals(1024, b.capacity());
+        for (int i = 0; i < 1000; i++) {
+            buf.getWritable(4).putInt(i);
+        }
+        assertEquals(4000, buf.bytes());
+        assertEquals(1024 + 2048, pool.freeBytes());
+        assertFalse(buf.shrink(4096));
+        b = buf.getReadable();
+        for (int i = 0; i < 990; i++) {
+            assertEquals(i, b.getInt());
+        }
+        assertTrue(buf.shrink(100));
+        assertEquals(2048 + 4096, pool.freeBytes());
+        b = buf.getReadable();
+        assertEquals(1024, b.capacity());
+        for (int i = 990; i < 1000; i++) {
+            assertEquals(i, b.getInt());
+        }
+        buf.release();
+        assertEquals(1024 + 2048 + 4096, pool.freeBytes());
+        assertEquals(0, buf.bytes());
+    }
+
+}
@@ -0,0 +1,122 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests sending large data values, which are written with gathering
+ * writes rather than being copied into the connection buffers.
+ **/
+public class LargeDataTest {
+
+    Supervisor server;
+    Acceptor   acceptor;
+    Supervisor client;
+    Target     target;
+
+    @Before
+    public void setUp() throws ListenFailedException {
+        server   = new Supervisor(new Transport(null, 1, true));
+        client   = new Supervisor(new Transport(null, 2, true));
+        acceptor = server.listen(new Spec(Test.PORT));
+        target   = client.connect(new Spec("localhost", Test.PORT));
+        server.addMethod(new Method("echo", "*", "*", this, "rpc_echo"));
+    }
+
+    @After
+    public void tearDown() {
+        target.close();
+        acceptor.shutdown().join();
+        client.transport().shutdown().join();
+        server.transport().shutdown().join();
+    }
+
+    public void rpc_echo(Request req) {
+        Values p = req.parameters();
+        Values r = req.returnValues();
+        for (int i = 0; i < p.size(); i++) {
+            r.add(p.get(i));
+        }
+    }
+
+    private static byte[] data(int size, int seed) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte)(i * 31 + seed);
+        }
+        return data;
+    }
+
+    private static Values createValues(int seed) {
+        Values values = new Values();
+        values.add(new Int32Value(seed));
+        values.add(new DataValue(data(Splicer.MIN_SIZE + seed, seed)));
+        values.add(new StringValue("between"));
+        values.add(new DataArray(new byte[][] { data(100, seed),
+                                                data(300 * 1024, seed + 1),
+                                                data(Splicer.MIN_SIZE - 1, seed + 2),
+                                                data(Splicer.MIN_SIZE, seed + 3) }));
+        values.add(new DataValue(data(10, seed)));
+        return values;
+    }
+
+    @org.junit.Test
+    public void testEchoLargeData() {
+        Request req = new Request("echo");
+        Values ref = createValues(0);
+        for (int i = 0; i < ref.size(); i++) {
+            req.parameters().add(ref.get(i));
+        }
+        target.invokeSync(req, 60.0);
+        assertTrue(req.toString(), req.checkReturnTypes("ixsXx"));
+        assertTrue(Test.equals(req.returnValues(), ref));
+    }
+
+    @org.junit.Test
+    public void testEchoDataRanges() {
+        byte[] large = data(100 * 1024, 7);
+        byte[] small = data(100, 8);
+        Request req = new Request("echo");
+        req.parameters().add(new DataValue(large, 1000, Splicer.MIN_SIZE * 2));
+        req.parameters().add(new DataValue(small, 10, 20));
+        target.invokeSync(req, 60.0);
+        assertTrue(req.toString(), req.checkReturnTypes("xx"));
+        assertArrayEquals(Arrays.copyOfRange(large, 1000, 1000 + Splicer.MIN_SIZE * 2),
+                          req.returnValues().get(0).asData());
+        assertArrayEquals(Arrays.copyOfRange(small, 10, 30), req.returnValues().get(1).asData());
+    }
+
+    @org.junit.Test
+    public void testPipelinedLargeData() throws InterruptedException {
+        int numRequests = 50;
+        CountDownLatch done = new CountDownLatch(numRequests);
+        List<Request> requests = new ArrayList<>();
+        for (int i = 0; i < numRequests; i++) {
+            Request req = new Request("echo");
+            Values values = createValues(i);
+            for (int j = 0; j < values.size(); j++) {
+                req.parameters().add(values.get(j));
+            }
+            requests.add(req);
+            target.invokeAsync(req, 60.0, r -> done.countDown());
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        for (int i = 0; i < numRequests; i++) {
+            Request req = requests.get(i);
+            assertTrue(req.toString(), req.checkReturnTypes("ixsXx"));
+            assertTrue(Test.equals(req.returnValues(), createValues(i)));
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TransportThreadsTest {
+
+    Supervisor   server;
+    Acceptor     acceptor;
+    Supervisor   client;
+    List<Target> targets = new ArrayList<>();
+    Set<String>  serverThreads = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void setUp() throws ListenFailedException {
+        server   = new Supervisor(new Transport(4));
+        client   = new Supervisor(new Transport(3));
+        acceptor = server.listen(new Spec(Test.PORT));
+        server.addMethod(new Method("inc", "i", "i", this, "rpc_inc"));
+        for (int i = 0; i < 8; i++) {
+            targets.add(client.connect(new Spec("localhost", Test.PORT)));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (Target target : targets) {
+            target.close();
+        }
+        acceptor.shutdown().join();
+        client.transport().shutdown().join();
+        server.transport().shutdown().join();
+    }
+
+    public void rpc_inc(Request req) {
+        serverThreads.add(Thread.currentThread().getName());
+        req.returnValues().add(new Int32Value(req.parameters().get(0).asInt32() + 1));
+    }
+
+    @org.junit.Test
+    public void testThreads() {
+        assertEquals(4, server.transport().numThreads());
+        assertEquals(1, new Transport().shutdown().numThreads());
+        try {
+            new Transport(0);
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("A transport must have at least one thread, not 0", e.getMessage());
+        }
+    }
+
+    @org.junit.Test
+    public void testConnectionsAreSpreadAcrossThreads() throws InterruptedException {
+        int requestsPerTarget = 50;
+        CountDownLatch done = new CountDownLatch(targets.size() * requestsPerTarget);
+        List<Request> requests = new ArrayList<>();
+        for (Target target : targets) {
+            for (int i = 0; i < requestsPerTarget; i++) {
+                Request req = new Request("inc");
+                req.parameters().add(new Int32Value(i));
+                requests.add(req);
+                target.invokeAsync(req, 60.0, r -> done.countDown());
+            }
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        for (int i = 0; i < requests.size(); i++) {
+            Request req = requests.get(i);
+            assertTrue(req.toString(), req.checkReturnTypes("i"));
+            assertEquals(i % requestsPerTarget + 1, req.returnValues().get(0).asInt32());
+        }
+        assertEquals(4, serverThreads.size());
+        assertTrue(serverThreads.contains("<transport-0>"));
+    }
+
+    @org.junit.Test
+    public void testTasksAndCommandsRunInTheFirstThread() throws InterruptedException {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(1);
+        server.transport().perform(() -> threads.add(Thread.currentThread().getName()));
+        server.transport().createTask(() -> { threads.add(Thread.currentThread().getName()); done.countDown(); })
+                          .scheduleNow();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        server.transport().sync();
+        assertEquals(1, threads.size());
+        assertTrue(threads.contains("<transport-0>"));
+    }
+
+}
@@ -39,6 +39,17 @@ public class CallStack {
         return frame.handler;
     }
 
+    /**
+     * Returns the handler at the bottom of this stack, which is the first one pushed, and so the one a reply is
+     * eventually returned to, such as the session which sent the message.
+     *
+     * @return The bottom handler, or null if the stack is empty.
+     */
+    public ReplyHandler bottom() {
+        StackFrame frame = stack.peekLast();
+        return frame == null ? null : frame.handler;
+    }
+
     /**
      * Swap the content of this and the argument stack.
      *
@@ -4,34 +4,61 @@ package com.yahoo.messagebus;
 import com.yahoo.concurrent.SystemTimer;
 import com.yahoo.concurrent.Timer;
 import com.yahoo.log.LogLevel;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 /**
  * This is an implementatin of the {@link ThrottlePolicy} that offers dynamic limits to the number of pending messages a
  * {@link SourceSession} is allowed to have.
  *
+ * By default the window size is adjusted by throughput: it grows while throughput grows with it, and backs off once
+ * it does not. Optionally, the window may instead be adjusted by latency, in the manner of TCP Vegas: the policy
+ * estimates the latency of the messages sent in each resize period, and compares it to the lowest latency seen
+ * recently. It grows the window while latency stays near this base latency, holds it while messages start queueing,
+ * and backs off once latency exceeds the base latency by a given ratio. This backs off as soon as the receivers start
+ * queueing, rather than after messages time out. To detect changes in the base latency, the window is halved for one
+ * period whenever the base latency has not been observed for a while.
+ *
  * <b>NOTE:</b> By context, "pending" is refering to the number of sent messages that have not been replied to yet.
  *
+ * This class is lock-free and multithread safe. The window is resized by a single thread at a time, while other
+ * threads keep sending using the current window.
+ *
  * @author <a href="mailto:simon@yahoo-inc.com">Simon Thoresen</a>
  */
 public class DynamicThrottlePolicy extends StaticThrottlePolicy {
 
     private static final long IDLE_TIME_MILLIS = 60000;
+    private static final long BASE_LATENCY_WINDOW_MILLIS = 30000;
     private final Timer timer;
-    private int numSent = 0;
-    private int numOk = 0;
-    private double resizeRate = 3;
+    private final AtomicInteger numSent = new AtomicInteger(0);
+    private final AtomicInteger numOk = new AtomicInteger(0);
+    private final AtomicInteger numReplies = new AtomicInteger(0);
+    private final AtomicInteger numPending = new AtomicInteger(0);
+    private final LongAdder pendingTime = new LongAdder(); // sum of reply times minus sum of send times
+    private final AtomicBoolean resizing = new AtomicBoolean(false);
+    private volatile double resizeRate = 3;
     private long resizeTime = 0;
-    private long timeOfLastMessage;
-    private double efficiencyThreshold = 1.0;
-    private double windowSizeIncrement = 20;
-    private double windowSize = windowSizeIncrement;
-    private double minWindowSize = windowSizeIncrement;
-    private double maxWindowSize = Integer.MAX_VALUE;
-    private double windowSizeBackOff = 0.9;
-    private double weight = 1.0;
+    private volatile long timeOfLastMessage;
+    private volatile double efficiencyThreshold = 1.0;
+    private volatile double windowSizeIncrement = 20;
+    private volatile double windowSize = windowSizeIncrement;
+    private volatile double minWindowSize = windowSizeIncrement;
+    private volatile double maxWindowSize = Integer.MAX_VALUE;
+    private volatile double windowSizeBackOff = 0.9;
+    private volatile double weight = 1.0;
     private double localMaxThroughput = 0;
-    private double maxThroughput = 0;
+    private volatile double maxThroughput = 0;
+    private volatile boolean latencyAware = false;
+    private volatile double maxLatencyRatio = 1.5;
+    private double lastPendingArea = 0;
+    private double latency = 0;
+    private double baseLatency = 0;
+    private long baseLatencyTime = 0;
+    private double probedWindowSize = 0; // the window to restore after probing the base latency, or 0
     private static final Logger log = Logger.getLogger(DynamicThrottlePolicy.class.getName());
 
     /**
@@ -80,57 +107,155 @@ public class DynamicThrottlePolicy extends StaticThrottlePolicy {
     @Override
     public void processMessage(Message msg) {
         super.processMessage(msg);
-        if (++numSent < windowSize * resizeRate) {
+        long time = timer.milliTime();
+        pendingTime.add(-time);
+        numPending.incrementAndGet();
+        if (numSent.incrementAndGet() < windowSize * resizeRate) {
             return;
         }
+        if (!resizing.compareAndSet(false, true)) {
+            return; // another thread is resizing
+        }
+        try {
+            resize(time);
+        } finally {
+            resizing.set(false);
+        }
+    }
 
-        long time = timer.milliTime();
+    private void resize(long time) {
         double elapsed = time - resizeTime;
         resizeTime = time;
 
-        double throughput = numOk / elapsed;
-        numSent = 0;
-        numOk = 0;
+        numSent.set(0);
+        double throughput = numOk.getAndSet(0) / elapsed;
+        int replies = numReplies.getAndSet(0);
+
+        // By Little's law, the time spent pending by all messages during this period, divided by the number of
+        // replies, estimates the latency of the messages.
+        double pendingArea = pendingTime.sum() + (double)numPending.get() * time;
+        if (replies > 0) {
+            latency = (pendingArea - lastPendingArea) / replies;
+        }
+        lastPendingArea = pendingArea;
 
         if (log.isLoggable(LogLevel.DEBUG)) {
-            log.log(LogLevel.DEBUG, "windowSize " + windowSize + " throughput " + throughput);
+            log.log(LogLevel.DEBUG, "windowSize " + windowSize + " throughput " + throughput + " latency " + latency);
         }
 
+        double size = windowSize;
+        if (latencyAware && replies > 0 && latency > 0) {
+            size = resizeByLatency(size, time);
+        } else {
+            size = resizeByThroughput(size, throughput);
+        }
+        size = Math.max(minWindowSize, size);
+        size = Math.min(maxWindowSize, size);
+        windowSize = size;
+    }
+
+    private double resizeByThroughput(double size, double throughput) {
         if (maxThroughput > 0 && throughput > maxThroughput * 0.95) {
             // No need to increase window when we're this close to max.
         } else if (throughput > localMaxThroughput * 1.01) {
             localMaxThroughput = throughput;
-            windowSize += weight*windowSizeIncrement;
+            size += weight*windowSizeIncrement;
         } else {
             // scale up/down throughput for comparing to window size
             double period = 1;
-            while(throughput * period/windowSize < 2) {
+            while(throughput * period/size < 2) {
                 period *= 10;
             }
-            while(throughput * period/windowSize > 2) {
+            while(throughput * period/size > 2) {
                 period *= 0.1;
             }
-            double efficiency = throughput*period/windowSize;
+            double efficiency = throughput*period/size;
             if (efficiency < efficiencyThreshold) {
-                double newSize = Math.min(windowSize,throughput * period);
-                windowSize = Math.min(windowSize * windowSizeBackOff, windowSize - 2* windowSizeIncrement);
+                size = Math.min(size * windowSizeBackOff, size - 2* windowSizeIncrement);
                 localMaxThroughput = 0;
             } else {
-                windowSize += weight*windowSizeIncrement;
+                size += weight*windowSizeIncrement;
             }
         }
-        windowSize = Math.max(minWindowSize, windowSize);
-        windowSize = Math.min(maxWindowSize, windowSize);
+        return size;
+    }
+
+    private double resizeByLatency(double size, long time) {
+        if (probedWindowSize > 0) {
+            // The window was halved during the last period to drain the queues, so this latency is the new base.
+            baseLatency = latency;
+            baseLatencyTime = time;
+            size = probedWindowSize;
+            probedWindowSize = 0;
+            return size;
+        }
+        if (baseLatency == 0 || latency < baseLatency) {
+            baseLatency = latency;
+            baseLatencyTime = time;
+        } else if (latency < baseLatency * 1.05) {
+            baseLatencyTime = time; // still at the base latency
+        }
+        double queued = size * (1 - baseLatency / latency); // messages waiting in queues at the receivers
+        if (latency > baseLatency * maxLatencyRatio && size > minWindowSize) {
+            size *= windowSizeBackOff;
+        } else if (time - baseLatencyTime > BASE_LATENCY_WINDOW_MILLIS) {
+            // The base latency may have changed, but cannot be observed while messages are queueing. Halve the
+            // window for a period to measure it again.
+            probedWindowSize = size;
+            size /= 2;
+        } else if (queued < weight*windowSizeIncrement) {
+            size += weight*windowSizeIncrement;
+        }
+        return size;
     }
 
     @Override
     public void processReply(Reply reply) {
         super.processReply(reply);
+        pendingTime.add(timer.milliTime());
+        numPending.decrementAndGet();
+        numReplies.incrementAndGet();
         if (!reply.hasErrors()) {
-            ++numOk;
+            numOk.incrementAndGet();
         }
     }
 
+    /**
+     * Sets whether the window size should be adjusted by the latency of messages rather than by throughput.
+     *
+     * @param latencyAware True to adjust the window by latency.
+     * @return This, to allow chaining.
+     * @see #setMaxLatencyRatio(double)
+     */
+    public DynamicThrottlePolicy setLatencyAware(boolean latencyAware) {
+        this.latencyAware = latencyAware;
+        return this;
+    }
+
+    /**
+     * Returns whether the window size is adjusted by the latency of messages rather than by throughput.
+     *
+     * @return True if the window is adjusted by latency.
+     */
+    public boolean isLatencyAware() {
+        return latencyAware;
+    }
+
+    /**
+     * Sets the ratio between the current and the base latency at which a latency aware policy backs off. The base
+     * latency is the lowest latency observed recently.
+     *
+     * @param maxLatencyRatio The ratio to set, which must be larger than 1.
+     * @return This, to allow chaining.
+     */
+    public DynamicThrottlePolicy setMaxLatencyRatio(double maxLatencyRatio) {
+        if (maxLatencyRatio <= 1) {
+            throw new IllegalArgumentException("Max latency ratio must be larger than 1, got " + maxLatencyRatio);
+        }
+        this.maxLatencyRatio = maxLatencyRatio;
+        return this;
+    }
+
     /**
      * Sets the lower efficiency threshold at which the algorithm should perform window size back off. Efficiency is
      * the correlation between throughput and window size. The algorithm will increase the window size until efficiency
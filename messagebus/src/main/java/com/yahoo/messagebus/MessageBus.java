@@ -139,7 +139,7 @@ public class MessageBus implements ConfigHandler, NetworkOwner, MessageHandler,
             throw new IllegalStateException("Network failed to become ready in time.");
 
         // Start messenger.
-        msn = new Messenger();
+        msn = new Messenger(params.getNumMessengerThreads());
 
         RetryPolicy retryPolicy = params.getRetryPolicy();
         if (retryPolicy != null) {
@@ -382,7 +382,7 @@ public class MessageBus implements ConfigHandler, NetworkOwner, MessageHandler,
             return;
         }
         SendProxy proxy = new SendProxy(this, net, resender);
-        msn.deliverMessage(msg, proxy);
+        msn.deliverMessage(msg, proxy, msg.hasSequenceId() ? msg.getSequenceId() : proxy);
     }
 
     @Override
@@ -433,6 +433,15 @@ public class MessageBus implements ConfigHandler, NetworkOwner, MessageHandler,
         return getProtocol((Utf8Array)name);
     }
 
+    /**
+     * <p>Returns the number of threads the messenger of this uses to deliver messages and replies.</p>
+     *
+     * @return The number of threads.
+     */
+    public int getNumMessengerThreads() {
+        return msn.getNumThreads();
+    }
+
     @Override
     public void deliverReply(Reply reply, ReplyHandler handler) {
         msn.deliverReply(reply, handler);
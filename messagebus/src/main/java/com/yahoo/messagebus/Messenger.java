@@ -12,9 +12,18 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 /**
- * <p>This class implements a single thread that is able to process arbitrary
- * tasks. Tasks are enqueued using the synchronized {@link #enqueue(Task)}
- * method, and are run in the order they were enqueued.</p>
+ * <p>This class implements a set of threads that are able to process arbitrary
+ * tasks. Tasks are enqueued using the {@link #enqueue(Task)} method, and are
+ * run in the order they were enqueued.</p>
+ *
+ * <p>A messenger may run several worker threads. Each task is then assigned
+ * to a worker by a key, such that tasks with the same key run in the order
+ * they were enqueued, while tasks with different keys may run concurrently.
+ * Messages are keyed by the handler they are delivered to, and replies by the
+ * handler at the bottom of their call stack, which is the reply handler of the
+ * session that sent the message, such that each session sees its callbacks in
+ * order, while independent sessions do not wait for each other. Tasks enqueued
+ * without a key, as well as all recurrent tasks, run in the first worker.</p>
  *
  * @author <a href="mailto:simon@yahoo-inc.com">Simon Thoresen</a>
  */
@@ -23,18 +32,44 @@ public class Messenger implements Runnable {
     private static final Logger log = Logger.getLogger(Messenger.class.getName());
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final List<Task> children = new ArrayList<>();
-    private final Queue<Task> queue = new ArrayDeque<>();
-    private final Thread thread = new Thread(this, "Messenger");
+    private final Worker[] workers;
 
+    /**
+     * <p>Constructs a messenger with a single worker thread.</p>
+     */
     public Messenger() {
-        thread.setDaemon(true);
+        this(1);
+    }
+
+    /**
+     * <p>Constructs a messenger with the given number of worker threads.</p>
+     *
+     * @param numThreads The number of worker threads to run tasks in.
+     */
+    public Messenger(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("A messenger must have at least one thread, not " + numThreads);
+        }
+        workers = new Worker[numThreads];
+        for (int i = 0; i < numThreads; ++i) {
+            workers[i] = new Worker(numThreads == 1 ? "Messenger" : "Messenger-" + i, i == 0);
+        }
+    }
+
+    /**
+     * <p>Returns the number of worker threads of this messenger.</p>
+     *
+     * @return The number of threads.
+     */
+    public int getNumThreads() {
+        return workers.length;
     }
 
     /**
      * <p>Adds a recurrent task to this that is to be run for every iteration of
-     * the main loop. This task must be very light-weight as to not block the
-     * messenger. Note that this method is NOT thread-safe, so it should NOT be
-     * used after calling {@link #start()}.</p>
+     * the main loop of the first worker. This task must be very light-weight as
+     * to not block the messenger. Note that this method is NOT thread-safe, so
+     * it should NOT be used after calling {@link #start()}.</p>
      *
      * @param task The task to add.
      */
@@ -43,70 +78,129 @@ public class Messenger implements Runnable {
     }
 
     /**
-     * <p>Starts the internal thread. This must be done AFTER all recurrent
+     * <p>Starts the internal threads. This must be done AFTER all recurrent
      * tasks have been added.</p>
      *
      * @see #addRecurrentTask(Task)
      */
     public void start() {
-        thread.start();
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
     }
 
     /**
      * <p>Convenience method to post a {@link Task} that delivers a {@link
      * Message} to a {@link MessageHandler} to the queue of tasks to be
-     * executed.</p>
+     * executed. Messages delivered to the same handler are run in order.</p>
      *
      * @param msg     The message to send.
      * @param handler The handler to send to.
      */
     public void deliverMessage(final Message msg, final MessageHandler handler) {
-        enqueue(new MessageTask(msg, handler));
+        deliverMessage(msg, handler, handler);
+    }
+
+    /**
+     * <p>Convenience method to post a {@link Task} that delivers a {@link
+     * Message} to a {@link MessageHandler} to the queue of tasks to be
+     * executed. Messages delivered with equal keys are run in order.</p>
+     *
+     * @param msg     The message to send.
+     * @param handler The handler to send to.
+     * @param key     The key deciding which worker to run the task in.
+     */
+    public void deliverMessage(final Message msg, final MessageHandler handler, final Object key) {
+        enqueue(new MessageTask(msg, handler), key);
     }
 
     /**
      * <p>Convenience method to post a {@link Task} that delivers a {@link
      * Reply} to a {@link ReplyHandler} to the queue of tasks to be
-     * executed.</p>
+     * executed. Replies are run in order per owner, which is the handler at the
+     * bottom of the call stack of the reply, or the given handler if the stack
+     * is empty, whether the given handler is the owner or one in between, such
+     * as a sequencer.</p>
      *
      * @param reply   The reply to return.
      * @param handler The handler to return to.
      */
     public void deliverReply(final Reply reply, final ReplyHandler handler) {
-        enqueue(new ReplyTask(reply, handler));
+        final ReplyHandler owner = reply.getCallStack().bottom();
+        enqueue(new ReplyTask(reply, handler), owner != null ? owner : handler);
     }
 
     /**
-     * <p>Enqueues the given task in the list of tasks that this worker is to
-     * process. If this thread has been destroyed previously, this method
+     * <p>Enqueues the given task in the list of tasks that the first worker is
+     * to process. If this messenger has been destroyed previously, this method
      * invokes {@link Messenger.Task#destroy()}.</p>
      *
      * @param task The task to enqueue.
      */
     public void enqueue(final Task task) {
+        enqueue(task, workers[0]);
+    }
+
+    /**
+     * <p>Enqueues the given task in the list of tasks that the worker selected
+     * by the given key is to process. Tasks enqueued with equal keys are run in
+     * the order they were enqueued. If this messenger has been destroyed
+     * previously, this method invokes {@link Messenger.Task#destroy()}.</p>
+     *
+     * @param task The task to enqueue.
+     * @param key  The key deciding which worker to run the task in.
+     */
+    public void enqueue(final Task task, final Object key) {
         if (destroyed.get()) {
             task.destroy();
             return;
         }
-        synchronized (this) {
-            queue.offer(task);
-            if (queue.size() == 1) {
-                notify();
-            }
+        selectWorker(key).enqueue(task);
+    }
+
+    private Worker selectWorker(final Object key) {
+        if (workers.length == 1) {
+            return workers[0];
         }
+        if (key instanceof Worker) {
+            return (Worker)key;
+        }
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return workers[Math.floorMod(hash, workers.length)];
     }
 
     /**
-     * <p>Handshakes with the internal thread. If this method is called using
-     * the messenger thread, this will deadlock.</p>
+     * <p>Runs the task loop of the first worker in the calling thread, until
+     * this messenger is destroyed. This is the loop the thread of the first
+     * worker runs after {@link #start()}, so it should not be called
+     * directly.</p>
+     */
+    @Override
+    public void run() {
+        workers[0].run();
+    }
+
+    /**
+     * <p>Handshakes with the internal threads. If this method is called using a
+     * messenger thread, it returns immediately, since waiting for the other
+     * workers could deadlock.</p>
      */
     public void sync() {
-        if (Thread.currentThread() == thread) {
-            return; // no need to wait for self
+        final Thread current = Thread.currentThread();
+        for (Worker worker : workers) {
+            if (current == worker.thread) {
+                return; // no need to wait for self
+            }
+        }
+        final SyncTask[] tasks = new SyncTask[workers.length];
+        for (int i = 0; i < workers.length; ++i) {
+            tasks[i] = new SyncTask();
+            enqueue(tasks[i], workers[i]);
+        }
+        for (SyncTask task : tasks) {
+            task.await();
         }
-        final SyncTask task = new SyncTask();
-        enqueue(task);
-        task.await();
     }
 
     /**
@@ -119,8 +213,42 @@ public class Messenger implements Runnable {
      */
     public boolean destroy() {
         boolean done = false;
-        enqueue(Terminate.INSTANCE);
+        for (Worker worker : workers) {
+            enqueue(Terminate.INSTANCE, worker);
+        }
         if (!destroyed.getAndSet(true)) {
+            for (Worker worker : workers) {
+                worker.awaitTermination();
+            }
+            done = true;
+        }
+        return done;
+    }
+
+    /**
+     * <p>A single worker thread, running the tasks of its own queue in
+     * order.</p>
+     */
+    private class Worker implements Runnable {
+
+        final Queue<Task> queue = new ArrayDeque<>();
+        final Thread thread;
+        final boolean runChildren;
+
+        Worker(final String name, final boolean runChildren) {
+            this.thread = new Thread(this, name);
+            this.runChildren = runChildren;
+            thread.setDaemon(true);
+        }
+
+        synchronized void enqueue(final Task task) {
+            queue.offer(task);
+            if (queue.size() == 1) {
+                notify();
+            }
+        }
+
+        void awaitTermination() {
             try {
                 synchronized (this) {
                     while (!queue.isEmpty()) {
@@ -131,57 +259,59 @@ public class Messenger implements Runnable {
             } catch (final InterruptedException e) {
                 // ignore
             }
-            done = true;
         }
-        return done;
-    }
 
-    @Override
-    public void run() {
-        while (true) {
-            Task task = null;
-            synchronized (this) {
-                if (queue.isEmpty()) {
+        @Override
+        public void run() {
+            while (true) {
+                Task task = null;
+                synchronized (this) {
+                    if (queue.isEmpty()) {
+                        try {
+                            wait(100);
+                        } catch (final InterruptedException e) {
+                            continue;
+                        }
+                    }
+                    if (queue.size() > 0) {
+                        task = queue.poll();
+                    }
+                }
+                if (task == Terminate.INSTANCE) {
+                    break;
+                }
+                if (task != null) {
                     try {
-                        wait(100);
-                    } catch (final InterruptedException e) {
-                        continue;
+                        task.run();
+                    } catch (final Exception e) {
+                        log.log(LogLevel.ERROR, "An exception was thrown while running " + task.getClass().getName(), e);
+                    }
+                    try {
+                        task.destroy();
+                    } catch (final Exception e) {
+                        log.warning("An exception was thrown while destroying " + task.getClass().getName() + ": " +
+                                    e.toString());
+                        log.warning("Someone, somewhere might have to wait indefinetly for something.");
                     }
                 }
-                if (queue.size() > 0) {
-                    task = queue.poll();
+                if (runChildren) {
+                    for (final Task child : children) {
+                        child.run();
+                    }
                 }
             }
-            if (task == Terminate.INSTANCE) {
-                break;
-            }
-            if (task != null) {
-                try {
-                    task.run();
-                } catch (final Exception e) {
-                    log.log(LogLevel.ERROR, "An exception was thrown while running " + task.getClass().getName(), e);
+            if (runChildren) {
+                for (final Task child : children) {
+                    child.destroy();
                 }
-                try {
+            }
+            synchronized (this) {
+                while (!queue.isEmpty()) {
+                    final Task task = queue.poll();
                     task.destroy();
-                } catch (final Exception e) {
-                    log.warning("An exception was thrown while destroying " + task.getClass().getName() + ": " +
-                                e.toString());
-                    log.warning("Someone, somewhere might have to wait indefinetly for something.");
                 }
+                notify();
             }
-            for (final Task child : children) {
-                child.run();
-            }
-        }
-        for (final Task child : children) {
-            child.destroy();
-        }
-        synchronized (this) {
-            while (!queue.isEmpty()) {
-                final Task task = queue.poll();
-                task.destroy();
-            }
-            notify();
         }
     }
 
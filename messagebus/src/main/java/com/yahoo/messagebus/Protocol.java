@@ -2,6 +2,7 @@
 package com.yahoo.messagebus;
 
 import com.yahoo.component.Version;
+import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.messagebus.metrics.MetricSet;
 import com.yahoo.messagebus.routing.RoutingPolicy;
 
@@ -29,6 +30,25 @@ public interface Protocol {
      */
     public byte[] encode(Version version, Routable routable);
 
+    /**
+     * Encodes the protocol specific data of a routable into the given buffer, starting at its current position.
+     * This lets the network layer serialize into a buffer it reuses, rather than into a new array per routable.
+     * The default implementation copies the array returned by {@link #encode(Version, Routable)}.
+     *
+     * @param version  The version to encode for.
+     * @param routable The routable to encode.
+     * @param buffer   The buffer to encode into, which is left positioned after the encoded data.
+     * @return Whether the routable was encoded.
+     */
+    default boolean encode(Version version, Routable routable, GrowableByteBuffer buffer) {
+        byte[] data = encode(version, routable);
+        if (data == null || data.length == 0) {
+            return false;
+        }
+        buffer.put(data);
+        return true;
+    }
+
     /**
      * Decodes the protocol specific data into a routable of the correct type.
      *
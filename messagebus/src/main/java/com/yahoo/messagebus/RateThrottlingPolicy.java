@@ -35,7 +35,7 @@ public class RateThrottlingPolicy extends StaticThrottlePolicy {
         currentPeriod = timer.milliTime() / PERIOD;
     }
 
-    public boolean canSend(Message msg, int pendingCount) {
+    public synchronized boolean canSend(Message msg, int pendingCount) {
         if (!super.canSend(msg, pendingCount)) {
             return false;
         }
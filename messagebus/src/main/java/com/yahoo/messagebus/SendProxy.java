@@ -87,7 +87,11 @@ public class SendProxy implements MessageHandler, ReplyHandler {
             }
 
             ReplyHandler handler = reply.popHandler();
-            handler.handleReply(reply);
+            if (mbus.getNumMessengerThreads() == 1) {
+                handler.handleReply(reply); // this is already the messenger thread
+            } else {
+                mbus.deliverReply(reply, handler); // in the worker of the session owning the reply, to keep its order
+            }
         }
     }
 }
@@ -7,14 +7,21 @@ import com.yahoo.messagebus.routing.RoutingTable;
 import com.yahoo.text.Utf8String;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
  * <p>A session supporting sending new messages.</p>
  *
+ * <p>Sending a message and receiving a reply do not take any lock shared by
+ * other messages, except when messages are blocked waiting for the throttle
+ * policy. The throttle policy may therefore be consulted concurrently, and
+ * must be multithread safe.</p>
+ *
  * @author <a href="mailto:simon@yahoo-inc.com">Simon Thoresen</a>
  */
 public final class SourceSession implements ReplyHandler, MessageBus.SendBlockedMessages {
@@ -28,9 +35,9 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
     private final ReplyHandler replyHandler;
     private final ThrottlePolicy throttlePolicy;
     private volatile double timeout;
-    private volatile int pendingCount = 0;
+    private final AtomicInteger pendingCount = new AtomicInteger(0);
     private volatile boolean closed = false;
-    private final Queue<BlockedMessage> blockedQ = new LinkedList<>();
+    private final Queue<BlockedMessage> blockedQ = new ConcurrentLinkedQueue<>();
 
     /**
      * <p>The default constructor requires values for all final member variables
@@ -82,7 +89,7 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
         synchronized (lock) {
             closed = true;
         }
-        if (pendingCount == 0) {
+        if (pendingCount.get() == 0) {
             done.countDown();
         }
         try {
@@ -129,31 +136,39 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
         return msg;
     }
     private Result sendInternal(Message msg) {
-        synchronized (lock) {
-            if (closed) {
-                return new Result(ErrorCode.SEND_QUEUE_CLOSED,
-                                  "Source session is closed.");
-            }
-            if (throttlePolicy != null && !throttlePolicy.canSend(msg, pendingCount)) {
-                return new Result(ErrorCode.SEND_QUEUE_FULL,
-                                  "Too much pending data (" + pendingCount + " messages).");
-            }
-            msg.pushHandler(replyHandler);
-            if (throttlePolicy != null) {
-                throttlePolicy.processMessage(msg);
-            }
-            ++pendingCount;
+        // The message is counted as pending before checking whether this is closed, so that close() either sees
+        // it as pending, or this sees the session as closed.
+        int pending = pendingCount.getAndIncrement();
+        if (closed) {
+            releasePending();
+            return new Result(ErrorCode.SEND_QUEUE_CLOSED,
+                              "Source session is closed.");
+        }
+        if (throttlePolicy != null && !throttlePolicy.canSend(msg, pending)) {
+            releasePending();
+            return new Result(ErrorCode.SEND_QUEUE_FULL,
+                              "Too much pending data (" + pending + " messages).");
+        }
+        msg.pushHandler(replyHandler);
+        if (throttlePolicy != null) {
+            throttlePolicy.processMessage(msg);
         }
         if (msg.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
             msg.getTrace().trace(TraceLevel.COMPONENT,
                                  "Source session accepted a " + msg.getApproxSize() + " byte message. " +
-                                 pendingCount + " message(s) now pending.");
+                                 (pending + 1) + " message(s) now pending.");
         }
         msg.pushHandler(this);
         sequencer.handleMessage(msg);
         return Result.ACCEPTED;
     }
 
+    private void releasePending() {
+        if (pendingCount.decrementAndGet() == 0 && closed) {
+            done.countDown();
+        }
+    }
+
     @Override
     public boolean trySend() {
         if (destroyed.get()) return false;
@@ -257,6 +272,9 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
     }
 
     private void sendBlockedMessages() {
+        if (blockedQ.isEmpty()) {
+            return;
+        }
         synchronized (lock) {
             for (boolean success = true; success && !blockedQ.isEmpty(); ) {
                 success = blockedQ.element().sendOrExpire();
@@ -273,18 +291,15 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
             reply.discard();
             return;
         }
-        boolean done;
-        synchronized (lock) {
-            --pendingCount;
-            if (throttlePolicy != null) {
-                throttlePolicy.processReply(reply);
-            }
-            done = (closed && pendingCount == 0);
-            sendBlockedMessages();
+        if (throttlePolicy != null) {
+            throttlePolicy.processReply(reply);
         }
+        int pending = pendingCount.decrementAndGet();
+        boolean done = (closed && pending == 0);
+        sendBlockedMessages();
         if (reply.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
             reply.getTrace().trace(TraceLevel.COMPONENT,
-                                   "Source session received reply. " + pendingCount + " message(s) now pending.");
+                                   "Source session received reply. " + pending + " message(s) now pending.");
         }
         ReplyHandler handler = reply.popHandler();
         handler.handleReply(reply);
@@ -371,7 +386,7 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
      * @return The pending count.
      */
     public int getPendingCount() {
-        return pendingCount;
+        return pendingCount.get();
     }
 
     /**
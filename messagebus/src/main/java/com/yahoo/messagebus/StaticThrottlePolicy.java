@@ -1,6 +1,8 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.messagebus;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * This is an implementatin of the {@link ThrottlePolicy} that offers static limits to the amount of pending data a
  * {@link SourceSession} is allowed to have. You may choose to set a limit to the total number of pending messages (by
@@ -9,19 +11,21 @@ package com.yahoo.messagebus;
  *
  * <b>NOTE:</b> By context, "pending" is refering to the number of sent messages that have not been replied to yet.
  *
+ * This class is lock-free and multithread safe.
+ *
  * @author <a href="mailto:simon@yahoo-inc.com">Simon Thoresen</a>
  */
 public class StaticThrottlePolicy implements ThrottlePolicy {
 
-    private int maxPendingCount = 0;
-    private long maxPendingSize = 0;
-    private long pendingSize = 0;
+    private volatile int maxPendingCount = 0;
+    private volatile long maxPendingSize = 0;
+    private final AtomicLong pendingSize = new AtomicLong(0);
 
     public boolean canSend(Message msg, int pendingCount) {
         if (maxPendingCount > 0 && pendingCount >= maxPendingCount) {
             return false;
         }
-        if (maxPendingSize > 0 && pendingSize >= maxPendingSize) {
+        if (maxPendingSize > 0 && pendingSize.get() >= maxPendingSize) {
             return false;
         }
         return true;
@@ -30,12 +34,12 @@ public class StaticThrottlePolicy implements ThrottlePolicy {
     public void processMessage(Message msg) {
         int size = msg.getApproxSize();
         msg.setContext(size);
-        pendingSize += size;
+        pendingSize.addAndGet(size);
     }
 
     public void processReply(Reply reply) {
         int size = (Integer)reply.getContext();
-        pendingSize -= size;
+        pendingSize.addAndGet(-size);
     }
 
     /**
@@ -85,7 +89,7 @@ public class StaticThrottlePolicy implements ThrottlePolicy {
      * @return The size.
      */
     public long getPendingSize() {
-        return pendingSize;
+        return pendingSize.get();
     }
 
 }
@@ -4,6 +4,7 @@ package com.yahoo.messagebus.network.rpc;
 import com.yahoo.component.Version;
 import com.yahoo.component.Vtag;
 import com.yahoo.concurrent.ThreadFactoryFactory;
+import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.jrt.Acceptor;
 import com.yahoo.jrt.ListenFailedException;
 import com.yahoo.jrt.Method;
@@ -71,6 +72,11 @@ public class RPCNetwork implements Network, MethodHandler {
                                    0L, TimeUnit.SECONDS,
                                    new SynchronousQueue<>(false),
                                    ThreadFactoryFactory.getDaemonThreadFactory("mbus.net"), new ThreadPoolExecutor.CallerRunsPolicy());
+    /** Buffers which messages are encoded into, reused by each thread sending messages, to avoid allocating per message */
+    private final ThreadLocal<GrowableByteBuffer> payloadBuffers =
+            ThreadLocal.withInitial(() -> new GrowableByteBuffer(INITIAL_PAYLOAD_BUFFER_SIZE));
+    private static final int INITIAL_PAYLOAD_BUFFER_SIZE = 8192;
+    private static final int MAX_PAYLOAD_BUFFER_SIZE = 1024 * 1024; // larger buffers are not kept for reuse
 
     /**
      * Create an RPCNetwork. The servicePrefix is combined with session names to create service names. If the service
@@ -83,7 +89,7 @@ public class RPCNetwork implements Network, MethodHandler {
     public RPCNetwork(RPCNetworkParams params, SlobrokConfigSubscriber slobrokConfig) {
         this.slobroksConfig = slobrokConfig;
         identity = params.getIdentity();
-        orb = new Supervisor(new Transport());
+        orb = new Supervisor(new Transport(params.getNumNetworkThreads()));
         orb.setMaxInputBufferSize(params.getMaxInputBufferSize());
         orb.setMaxOutputBufferSize(params.getMaxOutputBufferSize());
         targetPool = new RPCTargetPool(params.getConnectionExpireSecs());
@@ -128,10 +134,13 @@ public class RPCNetwork implements Network, MethodHandler {
     }
 
     final Route getRoute(String routeString) {
-        Route route = lruRouteMap.get(routeString);
-        if (route == null) {
-            route = Route.parse(routeString);
-            lruRouteMap.put(routeString, route);
+        Route route;
+        synchronized (lruRouteMap) {
+            route = lruRouteMap.get(routeString);
+            if (route == null) {
+                route = Route.parse(routeString);
+                lruRouteMap.put(routeString, route);
+            }
         }
         return new Route(route);
     }
@@ -405,16 +414,28 @@ public class RPCNetwork implements Network, MethodHandler {
                 replyError(ctx, ErrorCode.TIMEOUT, "Aborting transmission because zero time remains.");
                 return;
             }
-            byte[] payload;
+            GrowableByteBuffer payload = payloadBuffers.get();
+            try {
+                send(payload, timeRemaining);
+            } finally {
+                if (payload.capacity() > MAX_PAYLOAD_BUFFER_SIZE) {
+                    payloadBuffers.remove();
+                }
+            }
+        }
+
+        private void send(GrowableByteBuffer payload, long timeRemaining) {
+            payload.clear();
+            boolean encoded;
             try {
-                payload = protocol.encode(ctx.version, ctx.msg);
+                encoded = protocol.encode(ctx.version, ctx.msg, payload);
             } catch (Exception e) {
                 StringWriter out = new StringWriter();
                 e.printStackTrace(new PrintWriter(out));
                 replyError(ctx, ErrorCode.ENCODE_ERROR, out.toString());
                 return;
             }
-            if (payload == null || payload.length == 0) {
+            if ( ! encoded || payload.position() == 0) {
                 replyError(ctx, ErrorCode.ENCODE_ERROR,
                            "Protocol '" + ctx.msg.getProtocol() + "' failed to encode message.");
                 return;
@@ -426,7 +447,8 @@ public class RPCNetwork implements Network, MethodHandler {
                 return;
             }
             for (RoutingNode recipient : ctx.recipients) {
-                adapter.send(recipient, ctx.version, payload, timeRemaining);
+                adapter.send(recipient, ctx.version, payload.array(), payload.arrayOffset(), payload.position(),
+                             timeRemaining);
             }
         }
     }
@@ -37,7 +37,8 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
     protected abstract Method buildMethod();
     protected abstract String getReturnSpec();
     protected abstract Request encodeRequest(Version version, Route route, RPCServiceAddress address, Message msg,
-                                             long timeRemaining, byte[] payload, int traceLevel);
+                                             long timeRemaining, byte[] payload, int offset, int length,
+                                             int traceLevel);
     protected abstract Reply createReply(Values ret, String serviceName, Trace trace);
     protected abstract Params toParams(Values req);
     protected abstract void createResponse(Values ret, Reply reply, Version version, byte [] payload);
@@ -53,14 +54,16 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
     }
 
     @Override
-    public final void send(RoutingNode recipient, Version version, byte[] payload, long timeRemaining) {
+    public final void send(RoutingNode recipient, Version version, byte[] payload, int offset, int length,
+                           long timeRemaining) {
         SendContext ctx = new SendContext(recipient, timeRemaining);
         RPCServiceAddress address = (RPCServiceAddress)recipient.getServiceAddress();
         Message msg = recipient.getMessage();
         Route route = new Route(recipient.getRoute());
         Hop hop = route.removeHop(0);
 
-        Request req = encodeRequest(version, route, address,msg, timeRemaining, payload, ctx.trace.getLevel());
+        Request req = encodeRequest(version, route, address, msg, timeRemaining, payload, offset, length,
+                                    ctx.trace.getLevel());
 
         if (ctx.trace.shouldTrace(TraceLevel.SEND_RECEIVE)) {
             ctx.trace.trace(TraceLevel.SEND_RECEIVE,
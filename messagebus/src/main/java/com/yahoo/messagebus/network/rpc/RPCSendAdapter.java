@@ -27,5 +27,21 @@ public interface RPCSendAdapter {
      * @param payload       The already serialized payload of the message to send.
      * @param timeRemaining The time remaining until the message expires.
      */
-    public void send(RoutingNode recipient, Version version, byte[] payload, long timeRemaining);
+    public default void send(RoutingNode recipient, Version version, byte[] payload, long timeRemaining) {
+        send(recipient, version, payload, 0, payload.length, timeRemaining);
+    }
+
+    /**
+     * Performs the actual sending to the given recipient, of a payload held in a range of the given array. The array
+     * may be a buffer which is reused once this returns, so the payload must be copied if it is needed later.
+     *
+     * @param recipient     The recipient to send to.
+     * @param version       The version for which the payload is serialized.
+     * @param payload       The array holding the already serialized payload of the message to send.
+     * @param offset        The start of the payload in the array.
+     * @param length        The length of the payload.
+     * @param timeRemaining The time remaining until the message expires.
+     */
+    public void send(RoutingNode recipient, Version version, byte[] payload, int offset, int length,
+                     long timeRemaining);
 }
@@ -22,6 +22,8 @@ import com.yahoo.messagebus.TraceNode;
 import com.yahoo.messagebus.routing.Route;
 import com.yahoo.text.Utf8Array;
 
+import java.util.Arrays;
+
 /**
  * Implements the request adapter for method "mbus.send1".
  *
@@ -61,7 +63,7 @@ public class RPCSendV1 extends RPCSend {
     }
     @Override
     protected Request encodeRequest(Version version, Route route, RPCServiceAddress address, Message msg,
-                                    long timeRemaining, byte[] payload, int traceLevel) {
+                                    long timeRemaining, byte[] payload, int offset, int length, int traceLevel) {
         Request req = new Request(METHOD_NAME);
         Values v = req.parameters();
         v.add(new StringValue(version.toString()));
@@ -71,7 +73,7 @@ public class RPCSendV1 extends RPCSend {
         v.add(new Int32Value(msg.getRetry()));
         v.add(new Int64Value(timeRemaining));
         v.add(new StringValue(msg.getProtocol()));
-        v.add(new DataValue(payload));
+        v.add(new DataValue(Arrays.copyOfRange(payload, offset, offset + length)));
         v.add(new Int32Value(traceLevel));
         return req;
     }
@@ -18,6 +18,7 @@ import com.yahoo.messagebus.Trace;
 import com.yahoo.messagebus.TraceNode;
 import com.yahoo.messagebus.routing.Route;
 import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.BinaryWriter;
 import com.yahoo.slime.Cursor;
 import com.yahoo.slime.Inspector;
 import com.yahoo.slime.Slime;
@@ -34,6 +35,7 @@ public class RPCSendV2 extends RPCSend {
     private final static String METHOD_NAME = "mbus.slime";
     private final static String METHOD_PARAMS = "bixbix";
     private final static String METHOD_RETURN = "bixbix";
+    private final static int ENVELOPE_SIZE = 256; // typical size of the request fields except route and payload
     private final Compressor compressor = new Compressor(CompressionType.LZ4, 3, 0.90, 1024);
 
     @Override
@@ -75,7 +77,7 @@ public class RPCSendV2 extends RPCSend {
 
     @Override
     protected Request encodeRequest(Version version, Route route, RPCServiceAddress address, Message msg,
-                                    long timeRemaining, byte[] payload, int traceLevel)
+                                    long timeRemaining, byte[] payload, int offset, int length, int traceLevel)
     {
 
         Request req = new Request(METHOD_NAME);
@@ -96,14 +98,20 @@ public class RPCSendV2 extends RPCSend {
         root.setLong(RETRY_F, msg.getRetry());
         root.setLong(TIMEREMAINING_F, msg.getTimeRemaining());
         root.setLong(TRACELEVEL_F, traceLevel);
-        root.setData(BLOB_F, payload);
+        root.setData(BLOB_F, payload, offset, length);
 
-        byte[] serializedSlime = BinaryFormat.encode(slime);
-        Compressor.Compression compressionResult = compressor.compress(serializedSlime);
+        // The payload is copied once, into a buffer which is handed over to jrt with the request
+        BinaryWriter writer = new BinaryWriter(new byte[length + route.toString().length() + ENVELOPE_SIZE]);
+        int serializedSize = writer.write(slime);
+        Compressor.Compression compressionResult = compressor.compress(writer.buffer(), serializedSize);
 
         v.add(new Int8Value(compressionResult.type().getCode()));
         v.add(new Int32Value(compressionResult.uncompressedSize()));
-        v.add(new DataValue(compressionResult.data()));
+        if (compressionResult.data() == writer.buffer()) {
+            v.add(new DataValue(writer.buffer(), 0, serializedSize));
+        } else {
+            v.add(new DataValue(compressionResult.data()));
+        }
 
         return req;
     }
@@ -4,6 +4,7 @@ package com.yahoo.messagebus;
 import com.yahoo.jrt.ListenFailedException;
 import com.yahoo.jrt.Spec;
 import com.yahoo.jrt.slobrok.server.Slobrok;
+import com.yahoo.messagebus.network.Identity;
 import com.yahoo.messagebus.network.rpc.RPCNetwork;
 import com.yahoo.messagebus.network.rpc.RPCNetworkParams;
 import com.yahoo.messagebus.network.rpc.test.TestServer;
@@ -19,6 +20,11 @@ import org.junit.Test;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
@@ -50,6 +56,68 @@ public class MessageBusTestCase {
         slobrok.stop();
     }
 
+    @Test
+    public void requireThatRepliesToASessionAreDeliveredOneAtATimeWithSeveralMessengerThreads()
+            throws ListenFailedException, InterruptedException {
+        Slobrok slobrok = new Slobrok();
+        TestServer server = new TestServer(new MessageBusParams()
+                                                   .addProtocol(new SimpleProtocol())
+                                                   .setNumMessengerThreads(4),
+                                           new RPCNetworkParams()
+                                                   .setIdentity(new Identity("srv"))
+                                                   .setSlobrokConfigId(TestServer.getSlobrokConfig(slobrok)));
+        AtomicReference<DestinationSession> dst = new AtomicReference<>();
+        dst.set(server.mb.createDestinationSession(new DestinationSessionParams().setName("session").setMessageHandler(msg -> {
+            Reply reply = new EmptyReply();
+            reply.swapState(msg);
+            dst.get().reply(reply);
+        })));
+
+        int count = 200;
+        CountDownLatch replied = new CountDownLatch(count);
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean concurrent = new AtomicBoolean(false);
+        SourceSession src = server.mb.createSourceSession(new SourceSessionParams()
+                .setTimeout(600.0)
+                .setThrottlePolicy(null)
+                .setReplyHandler(reply -> {
+                    if (running.incrementAndGet() > 1)
+                        concurrent.set(true);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                    running.decrementAndGet();
+                    replied.countDown();
+                }));
+        assertTrue(server.waitSlobrok("srv/session", 1));
+
+        // Replies to sequenced messages pass through the sequencer of the session, the others do not
+        for (int i = 0; i < count; i++) {
+            boolean sequenced = i % 2 == 0;
+            long sequenceId = i % 8;
+            assertTrue(src.send(new SimpleMessage("msg" + i) {
+                @Override
+                public boolean hasSequenceId() {
+                    return sequenced;
+                }
+
+                @Override
+                public long getSequenceId() {
+                    return sequenceId;
+                }
+            }, Route.parse("srv/session")).isAccepted());
+        }
+        assertTrue(replied.await(60, TimeUnit.SECONDS));
+        assertFalse(concurrent.get());
+
+        src.destroy();
+        dst.get().destroy();
+        server.destroy();
+        slobrok.stop();
+    }
+
     @Test
     public void testConnectionSpec() throws ListenFailedException, UnknownHostException {
         // Setup servers and sessions.
@@ -3,10 +3,16 @@ package com.yahoo.messagebus;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author <a href="mailto:simon@yahoo-inc.com">Simon Thoresen</a>
@@ -95,6 +101,121 @@ public class MessengerTestCase {
         assertTrue(tryMessenger(msn));
     }
 
+    @Test
+    public void requireThatTasksWithSameKeyAreRunInOrder() throws InterruptedException {
+        Messenger msn = new Messenger(4);
+        assertEquals(4, msn.getNumThreads());
+        msn.start();
+        int numKeys = 16;
+        int numTasks = 1000;
+        List<List<Integer>> runs = new ArrayList<>();
+        for (int key = 0; key < numKeys; ++key) {
+            runs.add(new ArrayList<>());
+        }
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(numKeys * numTasks);
+        for (int i = 0; i < numTasks; ++i) {
+            for (int key = 0; key < numKeys; ++key) {
+                List<Integer> run = runs.get(key);
+                int value = i;
+                msn.enqueue(new Messenger.Task() {
+                    @Override
+                    public void run() {
+                        run.add(value);
+                        threads.add(Thread.currentThread().getName());
+                    }
+
+                    @Override
+                    public void destroy() {
+                        done.countDown();
+                    }
+                }, key);
+            }
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        msn.sync();
+        for (List<Integer> run : runs) {
+            assertEquals(numTasks, run.size());
+            for (int i = 0; i < numTasks; ++i) {
+                assertEquals(i, run.get(i).intValue());
+            }
+        }
+        assertTrue(threads.size() > 1);
+        assertTrue(msn.destroy());
+    }
+
+    @Test
+    public void requireThatBlockedKeyDoesNotBlockOtherKeys() throws InterruptedException {
+        Messenger msn = new Messenger(2);
+        msn.start();
+        CountDownLatch blocker = new CountDownLatch(1);
+        Object blockedKey = null;
+        Object freeKey = null;
+        for (int key = 0; freeKey == null; ++key) {
+            if (blockedKey == null) {
+                blockedKey = key;
+            } else if (!sameWorker(msn, blockedKey, key)) {
+                freeKey = key;
+            }
+        }
+        msn.enqueue(new Messenger.Task() {
+            @Override
+            public void run() {
+                try {
+                    blocker.await(60, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    fail();
+                }
+            }
+
+            @Override
+            public void destroy() {
+
+            }
+        }, blockedKey);
+        MyTask task = new MyTask();
+        msn.enqueue(task, freeKey);
+        assertTrue(task.destroyLatch.await(60, TimeUnit.SECONDS));
+        blocker.countDown();
+        assertTrue(msn.destroy());
+    }
+
+    @Test
+    public void requireThatMessengerMustHaveThreads() {
+        try {
+            new Messenger(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("A messenger must have at least one thread, not 0", e.getMessage());
+        }
+    }
+
+    private static boolean sameWorker(Messenger msn, Object a, Object b) {
+        String[] names = new String[2];
+        CountDownLatch done = new CountDownLatch(2);
+        Object[] keys = { a, b };
+        for (int i = 0; i < 2; ++i) {
+            int idx = i;
+            msn.enqueue(new Messenger.Task() {
+                @Override
+                public void run() {
+                    names[idx] = Thread.currentThread().getName();
+                }
+
+                @Override
+                public void destroy() {
+                    done.countDown();
+                }
+            }, keys[i]);
+        }
+        try {
+            assertTrue(done.await(60, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            fail();
+        }
+        return names[0].equals(names[1]);
+    }
+
     private static boolean tryMessenger(Messenger msn) {
         MyTask task = new MyTask();
         msn.enqueue(task);
@@ -4,10 +4,22 @@ package com.yahoo.messagebus;
 import com.yahoo.messagebus.test.SimpleMessage;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -147,6 +159,54 @@ public class SequencerTestCase {
         }
     }
 
+    @Test
+    public void testConcurrentSequencing() throws InterruptedException {
+        int numThreads = 4;
+        int numIdsPerThread = 8;
+        int numMessagesPerThread = 2000;
+        Map<Long, List<Message>> created = new ConcurrentHashMap<>();
+        Map<Long, List<Message>> sent = new ConcurrentHashMap<>();
+        Map<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        AtomicBoolean overlap = new AtomicBoolean(false);
+        CountDownLatch replied = new CountDownLatch(numThreads * numMessagesPerThread);
+        ExecutorService replier = Executors.newFixedThreadPool(4);
+        Sequencer[] seq = new Sequencer[1];
+        seq[0] = new Sequencer(msg -> {
+            long id = msg.getSequenceId();
+            if (inFlight.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet() != 1) {
+                overlap.set(true);
+            }
+            sent.computeIfAbsent(id, k -> Collections.synchronizedList(new ArrayList<>())).add(msg);
+            replier.execute(() -> {
+                inFlight.get(id).decrementAndGet();
+                Reply reply = new EmptyReply();
+                reply.swapState(msg);
+                reply.popHandler().handleReply(reply);
+            });
+        });
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numThreads; ++t) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < numMessagesPerThread; ++i) {
+                    long id = thread * numIdsPerThread + i % numIdsPerThread;
+                    Message msg = new MyMessage(true, id);
+                    created.computeIfAbsent(id, k -> Collections.synchronizedList(new ArrayList<>())).add(msg);
+                    msg.pushHandler(reply -> replied.countDown());
+                    seq[0].handleMessage(msg);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        assertTrue(replied.await(60, TimeUnit.SECONDS));
+        replier.shutdown();
+        assertFalse(overlap.get());
+        assertEquals(created.keySet(), sent.keySet());
+        for (Long id : created.keySet()) {
+            assertEquals(created.get(id), sent.get(id));
+        }
+    }
+
     private static class QueueSender implements MessageHandler {
 
         Queue<Routable> queue;
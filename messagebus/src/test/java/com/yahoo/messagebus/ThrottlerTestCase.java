@@ -14,12 +14,15 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Simon Thoresen
@@ -204,6 +207,83 @@ public class ThrottlerTestCase {
         assertTrue(windowSize >= 40 && windowSize <= 50);
     }
 
+    @Test
+    public void testLatencyAwareWindowSize() {
+        CustomTimer timer = new CustomTimer();
+        DynamicThrottlePolicy policy = new DynamicThrottlePolicy(timer).setLatencyAware(true);
+        assertTrue(policy.isLatencyAware());
+
+        policy.setWindowSizeIncrement(5);
+        policy.setResizeRate(1);
+
+        double windowSize = getWindowSize(policy, timer, 100);
+        assertTrue(windowSize >= 90 && windowSize <= 110);
+
+        windowSize = getWindowSize(policy, timer, 50);
+        assertTrue(windowSize >= 40 && windowSize <= 55);
+
+        windowSize = getWindowSize(policy, timer, 200);
+        assertTrue(windowSize >= 180 && windowSize <= 210);
+    }
+
+    @Test
+    public void testLatencyAwareBackOffBeforeThroughputDrops() {
+        CustomTimer timer = new CustomTimer();
+        DynamicThrottlePolicy policy = new DynamicThrottlePolicy(timer).setLatencyAware(true).setMaxLatencyRatio(1.2);
+        policy.setWindowSizeIncrement(5);
+        policy.setResizeRate(1);
+
+        // Latency grows slowly beyond 100 pending, while throughput keeps growing with the window.
+        Message msg = new SimpleMessage("foo");
+        Reply reply = new SimpleReply("bar");
+        reply.setContext(1);
+        for (int i = 0; i < 500; ++i) {
+            int numPending = 0;
+            while (policy.canSend(msg, numPending)) {
+                policy.processMessage(msg);
+                ++numPending;
+            }
+            timer.millis += (numPending < 100) ? 1000 : 1000 + (numPending - 100) * 5;
+            while (--numPending >= 0) {
+                policy.processReply(reply);
+            }
+        }
+        int windowSize = policy.getMaxPendingCount();
+        assertTrue("windowSize " + windowSize, windowSize >= 90 && windowSize <= 150);
+    }
+
+    @Test
+    public void testMaxLatencyRatioMustBeLargerThanOne() {
+        try {
+            new DynamicThrottlePolicy().setMaxLatencyRatio(1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Max latency ratio must be larger than 1, got 1.0", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testConcurrentPendingSize() throws InterruptedException {
+        StaticThrottlePolicy policy = new StaticThrottlePolicy();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; ++t) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10000; ++i) {
+                    Message msg = new SimpleMessage("foo");
+                    policy.processMessage(msg);
+                    Reply reply = new SimpleReply("bar");
+                    reply.setContext(msg.getContext());
+                    policy.processReply(reply);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, policy.getPendingSize());
+    }
+
     private int getWindowSize(DynamicThrottlePolicy policy, CustomTimer timer, int maxPending) {
         Message msg = new SimpleMessage("foo");
         Reply reply = new SimpleReply("bar");
@@ -17,8 +17,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -105,6 +108,39 @@ public class SendAdapterTestCase {
         }
     }
 
+    @Test
+    public void requireThatMessagesOfAllSizesCanBeSentBackToBackAcrossAllSupportedVersions() {
+        Random random = new Random(42);
+        for (Version version : Arrays.asList(new Version(5, 0), new Version(9, 999))) {
+            srcServer.net.setVersion(version);
+            dstServer.net.setVersion(version);
+            List<String> values = new ArrayList<>();
+            for (int size : new int[] { 10, 3000, 40 * 1024, 2 * 1024 * 1024, 100 }) {
+                values.add(randomValue(random, size));
+                values.add(repeatedValue(size));
+            }
+            for (String value : values) {
+                assertTrue(srcSession.send(new SimpleMessage(value), Route.parse("dst/session")).isAccepted());
+            }
+            Receptor receptor = (Receptor)dstSession.getMessageHandler();
+            List<String> received = new ArrayList<>();
+            for (int i = 0; i < values.size(); i++) {
+                Message msg = receptor.getMessage(300);
+                assertNotNull(msg);
+                received.add(((SimpleMessage)msg).getValue());
+                Reply reply = new SimpleReply("bar");
+                reply.swapState(msg);
+                dstSession.reply(reply);
+            }
+            Collections.sort(values);
+            Collections.sort(received);
+            assertEquals(values, received);
+            for (int i = 0; i < values.size(); i++) {
+                assertNotNull(((Receptor)srcSession.getReplyHandler()).getReply(300));
+            }
+        }
+    }
+
     ////////////////////////////////////////////////////////////////////////////////
     //
     // Utilities
@@ -154,6 +190,22 @@ public class SendAdapterTestCase {
         assertEquals(minVersion, srcProtocol.lastVersion);
     }
 
+    private static String randomValue(Random random, int size) {
+        StringBuilder value = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            value.append((char)('a' + random.nextInt(26)));
+        }
+        return value.toString();
+    }
+
+    private static String repeatedValue(int size) {
+        StringBuilder value = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            value.append((char)('a' + i % 3));
+        }
+        return value.toString();
+    }
+
     private static class TestProtocol extends SimpleProtocol {
 
         Version lastVersion;
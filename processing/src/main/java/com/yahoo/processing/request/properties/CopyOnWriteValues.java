@@ -0,0 +1,102 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.processing.request.properties;
+
+import com.yahoo.processing.request.CloneHelper;
+import com.yahoo.processing.request.CompoundName;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The values set in a property map, which are shared between an instance and its clones until one of them
+ * is written to, such that cloning is constant time in the common case.
+ * <p>
+ * Cloning is logically deep: Values which are cloneable are deep cloned when this is cloned, so sharing is
+ * only done while no such values has been set. Other values are shared, as they would be shallow copied anyway.
+ * <p>
+ * This class is not multithread safe, but instances sharing values may be used by different threads.
+ */
+public class CopyOnWriteValues implements Cloneable {
+
+    private final CloneHelper cloneHelper;
+
+    /** The values of this, or null if none has been set */
+    private Map<CompoundName, Object> values = null;
+
+    /** Whether the values map may be referenced by another instance, such that it must be copied before writing */
+    private boolean shared = false;
+
+    /** Whether any value set in this is cloneable, such that this must be deep cloned when it is cloned */
+    private boolean hasCloneableValues = false;
+
+    /** Creates an empty instance which uses the given helper to deep clone cloneable values */
+    public CopyOnWriteValues(CloneHelper cloneHelper) {
+        this.cloneHelper = cloneHelper;
+    }
+
+    public Object get(CompoundName name) {
+        return values == null ? null : values.get(name);
+    }
+
+    public boolean containsKey(CompoundName name) {
+        return values != null && values.containsKey(name);
+    }
+
+    public boolean isEmpty() {
+        return values == null || values.isEmpty();
+    }
+
+    public void put(CompoundName name, Object value) {
+        if (value instanceof Cloneable)
+            hasCloneableValues = true;
+        ownMap().put(name, value);
+    }
+
+    /** Returns a read only view of the values of this */
+    public Map<CompoundName, Object> asMap() {
+        return values == null ? Collections.emptyMap() : Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Returns a direct reference to the modifiable map of values of this.
+     * This makes a private copy of the values if they are shared with a clone, so it should only be used for writing.
+     */
+    public Map<CompoundName, Object> writableMap() {
+        hasCloneableValues = true; // we cannot know what the caller will put
+        return ownMap();
+    }
+
+    private Map<CompoundName, Object> ownMap() {
+        if (values == null) {
+            values = new LinkedHashMap<>();
+        }
+        else if (shared) {
+            values = new LinkedHashMap<>(values);
+            shared = false;
+        }
+        return values;
+    }
+
+    @Override
+    public CopyOnWriteValues clone() {
+        try {
+            CopyOnWriteValues clone = (CopyOnWriteValues) super.clone();
+            if (values == null) return clone;
+
+            if (hasCloneableValues) {
+                clone.values = cloneHelper.cloneMap(values);
+                clone.shared = false;
+            }
+            else {
+                shared = true;
+                clone.shared = true;
+            }
+            return clone;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new RuntimeException("Will never happen");
+        }
+    }
+
+}
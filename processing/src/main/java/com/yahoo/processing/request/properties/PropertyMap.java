@@ -1,17 +1,18 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.processing.request.properties;
 
+import com.yahoo.processing.request.CloneHelper;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.processing.request.Properties;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * A HashMap backing of Properties.
  * <p>
  * When this is cloned it will deep copy not only the model object map, but also each
- * clonable member inside the map.
+ * clonable member inside the map. The map is shared with the clone until either is written to
+ * when it contains no clonable members.
  * <p>
  * Subclassing is supported, a hook can be implemented to provide conditional inclusion in the map.
  * By default - all properties are accepted, so set is never propagated.
@@ -22,10 +23,12 @@ import java.util.Map;
  */
 public class PropertyMap extends Properties {
 
+    private static final CloneHelper cloneHelper = new CloneHelper();
+
     /**
      * The properties of this
      */
-    private Map<CompoundName, Object> properties = new HashMap<>();
+    private CopyOnWriteValues properties = new CopyOnWriteValues(cloneHelper);
 
     public void set(CompoundName name, Object value, Map<String, String> context) {
         if (shouldSet(name, value))
@@ -54,7 +57,7 @@ public class PropertyMap extends Properties {
     @Override
     PropertyMap clone() {
         PropertyMap clone = (PropertyMap) super.clone();
-        clone.properties = cloneMap(this.properties);
+        clone.properties = this.properties.clone();
         return clone;
     }
 
@@ -62,7 +65,7 @@ public class PropertyMap extends Properties {
     public Map<String, Object> listProperties(CompoundName path, Map<String, String> context, Properties substitution) {
         Map<String, Object> map = super.listProperties(path, context, substitution);
 
-        for (Map.Entry<CompoundName, Object> entry : properties.entrySet()) {
+        for (Map.Entry<CompoundName, Object> entry : properties.asMap().entrySet()) {
             if ( ! entry.getKey().hasPrefix(path)) continue;
             CompoundName propertyName = entry.getKey().rest(path.size());
             if (propertyName.isEmpty()) continue;
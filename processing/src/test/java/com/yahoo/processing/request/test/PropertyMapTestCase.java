@@ -10,7 +10,9 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -55,6 +57,34 @@ public class PropertyMapTestCase {
         assertTrue("Array was cloned", mapClone.get("byteArray") != byteArray);
     }
 
+    @Test
+    public void testCloneIsIndependentWhenValuesAreShared() {
+        PropertyMap map = new PropertyMap();
+        map.set("a", "a1");
+        map.set("b", 1);
+
+        PropertyMap mapClone = map.clone();
+        PropertyMap secondClone = map.clone();
+        mapClone.set("a", "a2");
+        map.set("b", 2);
+        map.set("c", "c1");
+
+        assertEquals("a1", map.get("a"));
+        assertEquals(2, map.get("b"));
+        assertEquals("c1", map.get("c"));
+        assertEquals("a2", mapClone.get("a"));
+        assertEquals(1, mapClone.get("b"));
+        assertNull(mapClone.get("c"));
+        assertEquals("a1", secondClone.get("a"));
+        assertEquals(1, secondClone.get("b"));
+        assertNull(secondClone.get("c"));
+
+        mapClone.set("clonable", new ClonableObject());
+        PropertyMap cloneOfClone = mapClone.clone();
+        assertTrue(mapClone.get("clonable") != cloneOfClone.get("clonable"));
+        assertEquals("a2", cloneOfClone.get("a"));
+    }
+
     private Object first(Object object) {
         if (object instanceof Object[])
             return ((Object[])object)[0];
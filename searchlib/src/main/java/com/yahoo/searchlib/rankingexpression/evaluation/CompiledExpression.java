@@ -0,0 +1,122 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A ranking expression compiled by an {@link ExpressionCompiler} to a function over an array of feature values.
+ * The features of the expression are assigned indexes in the array in the order they are first referenced.
+ *
+ * Usage:
+ * <code>
+ * // Set up once
+ * CompiledExpression compiled = new ExpressionCompiler().compile(new RankingExpression(myExpressionString));
+ * int feature1 = compiled.getIndex("featureName1");
+ *
+ * // Execute repeatedly
+ * double[] features = new double[compiled.size()];
+ * features[feature1] = value1;
+ * ...
+ * double result = compiled.evaluate(features);
+ * </code>
+ *
+ * Expressions can also be evaluated for many hits in one pass, by setting the feature values of all the hits
+ * column-wise in a {@link FeatureBatch}:
+ * <code>
+ * FeatureBatch batch = compiled.createBatch(hitCount);
+ * batch.setSize(hitCount);
+ * batch.set(feature1, hit, value1);
+ * ...
+ * compiled.evaluate(batch, results);
+ * </code>
+ *
+ * This class is multithread safe, provided each thread uses its own feature array or batch.
+ */
+public final class CompiledExpression {
+
+    private final String name;
+    private final ToDoubleFunction<double[]> root;
+    private final BatchFunction batchRoot;
+    private final ImmutableMap<String, Integer> nameToIndex;
+
+    CompiledExpression(String name, ToDoubleFunction<double[]> root, BatchFunction batchRoot,
+                       Map<String, Integer> nameToIndex) {
+        this.name = name;
+        this.root = root;
+        this.batchRoot = batchRoot;
+        this.nameToIndex = ImmutableMap.copyOf(nameToIndex);
+    }
+
+    /**
+     * Evaluates this
+     *
+     * @param features the feature values of this, at the indexes given by {@link #getIndex}.
+     *                 The array must be at least of length {@link #size()}
+     * @return the value of the expression for the given feature values
+     */
+    public double evaluate(double[] features) {
+        return root.applyAsDouble(features);
+    }
+
+    /**
+     * Evaluates this for all the hits of a batch
+     *
+     * @param batch the feature values of the hits, where the features are at the indexes given by {@link #getIndex}
+     * @param results the array to write the value of the expression for each hit to,
+     *                which must be at least of length batch.size()
+     * @throws IllegalArgumentException if the batch has fewer features than this
+     */
+    public void evaluate(FeatureBatch batch, double[] results) {
+        if (batch.featureCount() < size())
+            throw new IllegalArgumentException("Cannot evaluate " + this + " with a batch of " +
+                                               batch.featureCount() + " features");
+        if (batch.size() == 0) return;
+        System.arraycopy(batchRoot.evaluate(batch, 0), 0, results, 0, batch.size());
+    }
+
+    /** Returns a new feature batch for evaluating this for up to the given number of hits */
+    public FeatureBatch createBatch(int capacity) {
+        return new FeatureBatch(size(), capacity);
+    }
+
+    /**
+     * Returns the index of the given feature in the feature array of this
+     *
+     * @throws IllegalArgumentException if this feature is not referenced by this expression
+     */
+    public int getIndex(String name) {
+        Integer index = nameToIndex.get(name);
+        if (index == null)
+            throw new IllegalArgumentException("Feature '" + name + "' is not known to " + this);
+        return index;
+    }
+
+    /** Returns the names of the features of this, in the order of their indexes */
+    public Set<String> names() { return nameToIndex.keySet(); }
+
+    /** Returns the number of features of this, which is the size of the feature array it must be evaluated with */
+    public int size() { return nameToIndex.size(); }
+
+    @Override
+    public String toString() {
+        return "compiled ranking expression '" + name + "' [" + nameToIndex.size() + " features]";
+    }
+
+    /** A compiled expression node evaluated for all the hits of a batch */
+    @FunctionalInterface
+    interface BatchFunction {
+
+        /**
+         * Returns the values of this node by hit. The returned array is either a column of the batch,
+         * or the buffer of the batch at the given depth. Buffers at larger depths may be used for intermediate
+         * results, while buffers at smaller depths must be left untouched.
+         */
+        double[] evaluate(FeatureBatch batch, int depth);
+
+    }
+
+}
@@ -0,0 +1,438 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.google.common.collect.ImmutableMap;
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.CompiledExpression.BatchFunction;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticOperator;
+import com.yahoo.searchlib.rankingexpression.rule.ComparisonNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.SetMembershipNode;
+import com.yahoo.searchlib.rankingexpression.rule.TruthOperator;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Compiles ranking expressions over double values into {@link CompiledExpression}s: Trees of functions over
+ * an array of feature values, where features are resolved to array indexes, operators and scalar functions are
+ * resolved to specialized functions and calls to the functions given to this compiler are inlined.
+ * Evaluating a compiled expression does not look up values by name, create value objects or interpret operators,
+ * and the functions it consists of are compiled to native code by the JIT compiler like any other code.
+ * Each node is also compiled to a loop over the feature columns of a {@link FeatureBatch}, such that
+ * an expression can be evaluated for many hits in one pass of simple loops over arrays.
+ *
+ * The result of evaluating a compiled expression is the same as evaluating the expression with a context
+ * returning the same feature values, except that string constants are represented by their hash as in
+ * {@link StringValue#asDouble}, as string features must be when given in an array of doubles.
+ *
+ * Expressions containing tensor functions, or optimized GBDT nodes, cannot be compiled:
+ * Compile the expression before optimizing it.
+ *
+ * This class is multithread safe.
+ */
+public class ExpressionCompiler {
+
+    private final ImmutableMap<String, ExpressionFunction> functions;
+
+    /** Creates a compiler which will not inline any functions */
+    public ExpressionCompiler() {
+        this(Collections.emptyList());
+    }
+
+    /** Creates a compiler which will inline calls to the given functions */
+    public ExpressionCompiler(Collection<ExpressionFunction> functions) {
+        ImmutableMap.Builder<String, ExpressionFunction> builder = new ImmutableMap.Builder<>();
+        for (ExpressionFunction function : functions)
+            builder.put(function.getName(), function);
+        this.functions = builder.build();
+    }
+
+    /**
+     * Compiles an expression
+     *
+     * @throws IllegalArgumentException if the expression contains nodes which cannot be compiled
+     */
+    public CompiledExpression compile(RankingExpression expression) {
+        Compilation compilation = new Compilation();
+        Compiled root = compilation.compile(expression.getRoot(), Collections.emptyMap());
+        return new CompiledExpression(expression.getName(), root.scalar, root.batch, compilation.nameToIndex);
+    }
+
+    /** The state of compiling a single expression */
+    private class Compilation {
+
+        /** The features referenced by the expression, in the order they are first referenced */
+        private final Map<String, Integer> nameToIndex = new LinkedHashMap<>();
+
+        /** The functions being inlined at the current position */
+        private final Deque<String> functionPath = new ArrayDeque<>();
+
+        /**
+         * Compiles a node
+         *
+         * @param arguments the compiled values of the arguments of the function this node is part of, by name
+         */
+        Compiled compile(ExpressionNode node, Map<String, Compiled> arguments) {
+            if (node instanceof ConstantNode)
+                return compileConstant((ConstantNode)node);
+            if (node instanceof ReferenceNode)
+                return compileReference((ReferenceNode)node, arguments);
+            if (node instanceof ArithmeticNode)
+                return compileArithmetic((ArithmeticNode)node, arguments);
+            if (node instanceof ComparisonNode)
+                return compileComparison((ComparisonNode)node, arguments);
+            if (node instanceof IfNode)
+                return compileIf((IfNode)node, arguments);
+            if (node instanceof FunctionNode)
+                return compileFunction((FunctionNode)node, arguments);
+            if (node instanceof SetMembershipNode)
+                return compileSetMembership((SetMembershipNode)node, arguments);
+            if (node instanceof EmbracedNode)
+                return compile(((EmbracedNode)node).getValue(), arguments);
+            if (node instanceof NegativeNode) {
+                Compiled value = compile(((NegativeNode)node).getValue(), arguments);
+                ToDoubleFunction<double[]> x = value.scalar;
+                return unary(features -> - x.applyAsDouble(features), value,
+                             (a, out, size) -> { for (int i = 0; i < size; i++) out[i] = - a[i]; });
+            }
+            if (node instanceof NotNode) {
+                Compiled value = compile(((NotNode)node).getValue(), arguments);
+                ToDoubleFunction<double[]> x = value.scalar;
+                return unary(features -> x.applyAsDouble(features) == 0.0 ? 1 : 0, value,
+                             (a, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] == 0.0 ? 1 : 0; });
+            }
+            throw new IllegalArgumentException("Cannot compile '" + node + "': Only expressions over doubles " +
+                                               "can be compiled");
+        }
+
+        private Compiled compileConstant(ConstantNode node) {
+            return constant(constantValue(node));
+        }
+
+        private double constantValue(ConstantNode node) {
+            if (node.getValue() instanceof TensorValue)
+                throw new IllegalArgumentException("Cannot compile '" + node + "': Only expressions over doubles " +
+                                                   "can be compiled");
+            return node.getValue().asDouble();
+        }
+
+        private Compiled compileReference(ReferenceNode node, Map<String, Compiled> arguments) {
+            List<ExpressionNode> argumentNodes = node.getArguments().expressions();
+            if (argumentNodes.isEmpty() && node.getOutput() == null && arguments.containsKey(node.getName()))
+                return arguments.get(node.getName());
+
+            ExpressionFunction function = functions.get(node.getName());
+            if (function != null && node.getOutput() == null && function.arguments().size() == argumentNodes.size())
+                return compileFunctionCall(function, argumentNodes, arguments);
+
+            int index = nameToIndex.computeIfAbsent(node.toString(), name -> nameToIndex.size());
+            return new Compiled(features -> features[index], (batch, depth) -> batch.column(index));
+        }
+
+        /** Inlines the body of the function, with the arguments bound to the compiled argument values */
+        private Compiled compileFunctionCall(ExpressionFunction function,
+                                             List<ExpressionNode> argumentNodes,
+                                             Map<String, Compiled> arguments) {
+            if (functionPath.contains(function.getName()))
+                throw new IllegalArgumentException("Cannot compile a call to '" + function.getName() + "': " +
+                                                   "Invocation loop: " + functionPath + " -> " + function.getName());
+
+            Map<String, Compiled> boundArguments = new HashMap<>();
+            for (int i = 0; i < argumentNodes.size(); i++)
+                boundArguments.put(function.arguments().get(i), compile(argumentNodes.get(i), arguments));
+
+            functionPath.push(function.getName());
+            try {
+                return compile(function.getBody().getRoot(), boundArguments);
+            }
+            finally {
+                functionPath.pop();
+            }
+        }
+
+        /** Applies the operators in precedence order in the same way as ArithmeticNode.evaluate */
+        private Compiled compileArithmetic(ArithmeticNode node, Map<String, Compiled> arguments) {
+            if (node.children().size() > 2 && node.operators().stream().allMatch(op -> op == ArithmeticOperator.PLUS))
+                return compileSum(node.children(), arguments);
+
+            Iterator<ExpressionNode> child = node.children().iterator();
+            Deque<Item> stack = new ArrayDeque<>();
+            stack.push(new Item(ArithmeticOperator.OR, compile(child.next(), arguments)));
+            for (Iterator<ArithmeticOperator> it = node.operators().iterator(); it.hasNext() && child.hasNext();) {
+                ArithmeticOperator op = it.next();
+                while (stack.peek().op.hasPrecedenceOver(op))
+                    popStack(stack);
+                stack.push(new Item(op, compile(child.next(), arguments)));
+            }
+            while (stack.size() > 1)
+                popStack(stack);
+            return stack.getFirst().value;
+        }
+
+        private void popStack(Deque<Item> stack) {
+            Item rhs = stack.pop();
+            Item lhs = stack.peek();
+            lhs.value = combine(rhs.op, lhs.value, rhs.value);
+        }
+
+        private Compiled combine(ArithmeticOperator op, Compiled left, Compiled right) {
+            ToDoubleFunction<double[]> x = left.scalar;
+            ToDoubleFunction<double[]> y = right.scalar;
+            switch (op) {
+                case OR: return binary(features -> x.applyAsDouble(features) != 0.0 || y.applyAsDouble(features) != 0.0 ? 1 : 0, left, right,
+                                       (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] != 0.0 || b[i] != 0.0 ? 1 : 0; });
+                case AND: return binary(features -> x.applyAsDouble(features) != 0.0 && y.applyAsDouble(features) != 0.0 ? 1 : 0, left, right,
+                                        (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] != 0.0 && b[i] != 0.0 ? 1 : 0; });
+                case PLUS: return binary(features -> x.applyAsDouble(features) + y.applyAsDouble(features), left, right,
+                                         (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] + b[i]; });
+                case MINUS: return binary(features -> x.applyAsDouble(features) - y.applyAsDouble(features), left, right,
+                                          (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] - b[i]; });
+                case MULTIPLY: return binary(features -> x.applyAsDouble(features) * y.applyAsDouble(features), left, right,
+                                             (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] * b[i]; });
+                case DIVIDE: return binary(features -> x.applyAsDouble(features) / y.applyAsDouble(features), left, right,
+                                           (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] / b[i]; });
+                case MODULO: return binary(features -> x.applyAsDouble(features) % y.applyAsDouble(features), left, right,
+                                           (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] % b[i]; });
+                case POWER: return binary(features -> Math.pow(x.applyAsDouble(features), y.applyAsDouble(features)), left, right,
+                                          (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = Math.pow(a[i], b[i]); });
+                default: throw new IllegalArgumentException("Cannot compile operator " + op);
+            }
+        }
+
+        /**
+         * Compiles a sum of many terms, such as the trees of a GBDT model, to a loop rather than a deep tree.
+         * The terms are added last to first, as when evaluating the arithmetic node.
+         */
+        private Compiled compileSum(List<ExpressionNode> terms, Map<String, Compiled> arguments) {
+            Compiled[] compiledTerms = new Compiled[terms.size()];
+            for (int i = 0; i < terms.size(); i++)
+                compiledTerms[i] = compile(terms.get(i), arguments);
+            return new Compiled(features -> {
+                                    double sum = compiledTerms[compiledTerms.length - 1].scalar.applyAsDouble(features);
+                                    for (int i = compiledTerms.length - 2; i >= 0; i--)
+                                        sum = compiledTerms[i].scalar.applyAsDouble(features) + sum;
+                                    return sum;
+                                },
+                                (batch, depth) -> {
+                                    double[] sum = batch.buffer(depth);
+                                    double[] last = compiledTerms[compiledTerms.length - 1].batch.evaluate(batch, depth);
+                                    if (last != sum)
+                                        System.arraycopy(last, 0, sum, 0, batch.size());
+                                    for (int term = compiledTerms.length - 2; term >= 0; term--) {
+                                        double[] a = compiledTerms[term].batch.evaluate(batch, depth + 1);
+                                        for (int i = 0; i < batch.size(); i++)
+                                            sum[i] = a[i] + sum[i];
+                                    }
+                                    return sum;
+                                });
+        }
+
+        private Compiled compileComparison(ComparisonNode node, Map<String, Compiled> arguments) {
+            Compiled left = compile(node.getLeftCondition(), arguments);
+            Compiled right = compile(node.getRightCondition(), arguments);
+            ToDoubleFunction<double[]> x = left.scalar;
+            ToDoubleFunction<double[]> y = right.scalar;
+            switch (node.getOperator()) {
+                case SMALLER: return binary(features -> x.applyAsDouble(features) < y.applyAsDouble(features) ? 1 : 0, left, right,
+                                            (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] < b[i] ? 1 : 0; });
+                case SMALLEREQUAL: return binary(features -> x.applyAsDouble(features) <= y.applyAsDouble(features) ? 1 : 0, left, right,
+                                                 (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] <= b[i] ? 1 : 0; });
+                case EQUAL: return binary(features -> x.applyAsDouble(features) == y.applyAsDouble(features) ? 1 : 0, left, right,
+                                          (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] == b[i] ? 1 : 0; });
+                case LARGER: return binary(features -> x.applyAsDouble(features) > y.applyAsDouble(features) ? 1 : 0, left, right,
+                                           (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] > b[i] ? 1 : 0; });
+                case LARGEREQUAL: return binary(features -> x.applyAsDouble(features) >= y.applyAsDouble(features) ? 1 : 0, left, right,
+                                                (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] >= b[i] ? 1 : 0; });
+                case NOTEQUAL: return binary(features -> x.applyAsDouble(features) != y.applyAsDouble(features) ? 1 : 0, left, right,
+                                             (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = a[i] != b[i] ? 1 : 0; });
+                default:
+                    TruthOperator operator = node.getOperator();
+                    return binary(features -> operator.evaluate(x.applyAsDouble(features), y.applyAsDouble(features)) ? 1 : 0, left, right,
+                                  (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = operator.evaluate(a[i], b[i]) ? 1 : 0; });
+            }
+        }
+
+        /** In batches, both alternatives are evaluated for all hits and the results selected by the condition */
+        private Compiled compileIf(IfNode node, Map<String, Compiled> arguments) {
+            Compiled condition = compile(node.getCondition(), arguments);
+            Compiled trueValue = compile(node.getTrueExpression(), arguments);
+            Compiled falseValue = compile(node.getFalseExpression(), arguments);
+            return new Compiled(features -> condition.scalar.applyAsDouble(features) != 0.0
+                                            ? trueValue.scalar.applyAsDouble(features)
+                                            : falseValue.scalar.applyAsDouble(features),
+                                (batch, depth) -> {
+                                    double[] c = condition.batch.evaluate(batch, depth);
+                                    double[] t = trueValue.batch.evaluate(batch, depth + 1);
+                                    double[] f = falseValue.batch.evaluate(batch, depth + 2);
+                                    double[] out = batch.buffer(depth);
+                                    for (int i = 0; i < batch.size(); i++)
+                                        out[i] = c[i] != 0.0 ? t[i] : f[i];
+                                    return out;
+                                });
+        }
+
+        private Compiled compileFunction(FunctionNode node, Map<String, Compiled> arguments) {
+            Function function = node.getFunction();
+            List<ExpressionNode> argumentNodes = node.children();
+            if (argumentNodes.size() == 0)
+                return constant(function.evaluate(0, 0));
+
+            Compiled first = compile(argumentNodes.get(0), arguments);
+            ToDoubleFunction<double[]> x = first.scalar;
+            if (argumentNodes.size() == 1) {
+                switch (function) {
+                    case exp: return unary(features -> Math.exp(x.applyAsDouble(features)), first,
+                                           (a, out, size) -> { for (int i = 0; i < size; i++) out[i] = Math.exp(a[i]); });
+                    case log: return unary(features -> Math.log(x.applyAsDouble(features)), first,
+                                           (a, out, size) -> { for (int i = 0; i < size; i++) out[i] = Math.log(a[i]); });
+                    case sqrt: return unary(features -> Math.sqrt(x.applyAsDouble(features)), first,
+                                            (a, out, size) -> { for (int i = 0; i < size; i++) out[i] = Math.sqrt(a[i]); });
+                    case abs: return unary(features -> Math.abs(x.applyAsDouble(features)), first,
+                                           (a, out, size) -> { for (int i = 0; i < size; i++) out[i] = Math.abs(a[i]); });
+                    default: return unary(features -> function.evaluate(x.applyAsDouble(features), 0), first,
+                                          (a, out, size) -> { for (int i = 0; i < size; i++) out[i] = function.evaluate(a[i], 0); });
+                }
+            }
+
+            Compiled second = compile(argumentNodes.get(1), arguments);
+            ToDoubleFunction<double[]> y = second.scalar;
+            switch (function) {
+                case max: return binary(features -> Math.max(x.applyAsDouble(features), y.applyAsDouble(features)), first, second,
+                                        (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = Math.max(a[i], b[i]); });
+                case min: return binary(features -> Math.min(x.applyAsDouble(features), y.applyAsDouble(features)), first, second,
+                                        (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = Math.min(a[i], b[i]); });
+                case pow: return binary(features -> Math.pow(x.applyAsDouble(features), y.applyAsDouble(features)), first, second,
+                                        (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = Math.pow(a[i], b[i]); });
+                default: return binary(features -> function.evaluate(x.applyAsDouble(features), y.applyAsDouble(features)), first, second,
+                                       (a, b, out, size) -> { for (int i = 0; i < size; i++) out[i] = function.evaluate(a[i], b[i]); });
+            }
+        }
+
+        private Compiled compileSetMembership(SetMembershipNode node, Map<String, Compiled> arguments) {
+            Compiled testValue = compile(node.getTestValue(), arguments);
+            if (node.getSetValues().stream().allMatch(value -> value instanceof ConstantNode)) {
+                double[] setValues = new double[node.getSetValues().size()];
+                for (int i = 0; i < setValues.length; i++)
+                    setValues[i] = constantValue((ConstantNode)node.getSetValues().get(i));
+                return unary(features -> isIn(testValue.scalar.applyAsDouble(features), setValues) ? 1 : 0, testValue,
+                             (a, out, size) -> { for (int i = 0; i < size; i++) out[i] = isIn(a[i], setValues) ? 1 : 0; });
+            }
+
+            Compiled[] setValues = new Compiled[node.getSetValues().size()];
+            for (int i = 0; i < setValues.length; i++)
+                setValues[i] = compile(node.getSetValues().get(i), arguments);
+            return new Compiled(features -> {
+                                    double value = testValue.scalar.applyAsDouble(features);
+                                    for (Compiled setValue : setValues)
+                                        if (value == setValue.scalar.applyAsDouble(features)) return 1;
+                                    return 0;
+                                },
+                                (batch, depth) -> {
+                                    double[] a = testValue.batch.evaluate(batch, depth + 1);
+                                    double[] out = batch.buffer(depth);
+                                    Arrays.fill(out, 0, batch.size(), 0);
+                                    for (Compiled setValue : setValues) {
+                                        double[] b = setValue.batch.evaluate(batch, depth + 2);
+                                        for (int i = 0; i < batch.size(); i++)
+                                            if (a[i] == b[i]) out[i] = 1;
+                                    }
+                                    return out;
+                                });
+        }
+
+    }
+
+    private static boolean isIn(double value, double[] setValues) {
+        for (double setValue : setValues)
+            if (value == setValue) return true;
+        return false;
+    }
+
+    private static Compiled constant(double value) {
+        return new Compiled(features -> value,
+                            (batch, depth) -> {
+                                double[] out = batch.buffer(depth);
+                                Arrays.fill(out, 0, batch.size(), value);
+                                return out;
+                            });
+    }
+
+    private static Compiled unary(ToDoubleFunction<double[]> scalar, Compiled argument, UnaryLoop loop) {
+        return new Compiled(scalar,
+                            (batch, depth) -> {
+                                double[] a = argument.batch.evaluate(batch, depth);
+                                double[] out = batch.buffer(depth);
+                                loop.apply(a, out, batch.size());
+                                return out;
+                            });
+    }
+
+    private static Compiled binary(ToDoubleFunction<double[]> scalar, Compiled left, Compiled right, BinaryLoop loop) {
+        return new Compiled(scalar,
+                            (batch, depth) -> {
+                                double[] a = left.batch.evaluate(batch, depth);
+                                double[] b = right.batch.evaluate(batch, depth + 1);
+                                double[] out = batch.buffer(depth);
+                                loop.apply(a, b, out, batch.size());
+                                return out;
+                            });
+    }
+
+    /** A loop computing a column of values from one column. The output array may be the same as the input */
+    @FunctionalInterface
+    private interface UnaryLoop {
+        void apply(double[] a, double[] out, int size);
+    }
+
+    /** A loop computing a column of values from two columns. The output array may be the same as the first input */
+    @FunctionalInterface
+    private interface BinaryLoop {
+        void apply(double[] a, double[] b, double[] out, int size);
+    }
+
+    /** A compiled node, as a function over a single feature array and over a batch */
+    private static final class Compiled {
+
+        final ToDoubleFunction<double[]> scalar;
+        final BatchFunction batch;
+
+        Compiled(ToDoubleFunction<double[]> scalar, BatchFunction batch) {
+            this.scalar = scalar;
+            this.batch = batch;
+        }
+
+    }
+
+    private static class Item {
+
+        final ArithmeticOperator op;
+        Compiled value;
+
+        Item(ArithmeticOperator op, Compiled value) {
+            this.op = op;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,85 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+/**
+ * The feature values of a batch of hits, stored column-wise: One array per feature, holding the value
+ * of that feature for each hit in the batch. Used to evaluate a {@link CompiledExpression} for all the hits
+ * in one pass.
+ *
+ * A batch also holds the intermediate buffers used during evaluation, so it should be reused for
+ * consecutive batches to avoid allocation.
+ *
+ * This is not multithread safe.
+ */
+public final class FeatureBatch {
+
+    private final double[][] columns;
+    private final int capacity;
+    private int size = 0;
+
+    /** Intermediate results of evaluation, by depth in the expression */
+    private double[][] buffers = new double[0][];
+
+    /**
+     * Creates a feature batch
+     *
+     * @param featureCount the number of features, which must be at least the size of the compiled expression
+     *                     this will be evaluated with
+     * @param capacity the max number of hits in this batch
+     */
+    public FeatureBatch(int featureCount, int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be negative, but was " + capacity);
+        this.columns = new double[featureCount][capacity];
+        this.capacity = capacity;
+    }
+
+    /** Returns the max number of hits in this */
+    public int capacity() { return capacity; }
+
+    /** Returns the number of hits in this */
+    public int size() { return size; }
+
+    /** Returns the number of features in this */
+    public int featureCount() { return columns.length; }
+
+    /**
+     * Sets the number of hits in this
+     *
+     * @throws IllegalArgumentException if the size is larger than the capacity
+     */
+    public void setSize(int size) {
+        if (size < 0 || size > capacity)
+            throw new IllegalArgumentException("Size must be between 0 and " + capacity + ", but was " + size);
+        this.size = size;
+    }
+
+    /** Sets the value of a feature for a hit */
+    public void set(int featureIndex, int hit, double value) {
+        columns[featureIndex][hit] = value;
+    }
+
+    /** Returns the value of a feature for a hit */
+    public double get(int featureIndex, int hit) {
+        return columns[featureIndex][hit];
+    }
+
+    /**
+     * Returns the values of a feature, by hit. This is the internal array of this,
+     * which may be written to directly.
+     */
+    public double[] column(int featureIndex) { return columns[featureIndex]; }
+
+    /** Returns the buffer of intermediate results to use at the given depth in the expression */
+    double[] buffer(int depth) {
+        if (depth >= buffers.length) {
+            double[][] newBuffers = new double[depth + 1][];
+            System.arraycopy(buffers, 0, newBuffers, 0, buffers.length);
+            for (int i = buffers.length; i < newBuffers.length; i++)
+                newBuffers[i] = new double[capacity];
+            buffers = newBuffers;
+        }
+        return buffers[depth];
+    }
+
+}
@@ -0,0 +1,178 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests compiling ranking expressions, by comparing with regular evaluation
+ */
+public class ExpressionCompilerTestCase {
+
+    @Test
+    public void testArithmetic() {
+        assertCompiled("1 + 2 * 3 - 4 / 2 + 10 % 4", "");
+        assertCompiled("2 ^ 3 * 2 + a - b * c", "a:3, b:4, c:0.5");
+        assertCompiled("a - b - c + a * b / c", "a:1, b:2, c:3");
+        assertCompiled("a + b + c + a + b + c", "a:0.1, b:0.2, c:0.3");
+        assertCompiled("-a + (b - c) * -(a + c)", "a:1, b:2, c:3");
+        assertCompiled("a && b || !c", "a:1, b:0, c:0");
+    }
+
+    @Test
+    public void testConditionsAndFunctions() {
+        assertCompiled("if (a < b, a, b) + if (a >= b, 1, 2)", "a:1, b:2");
+        assertCompiled("if (a == b, 10, if (a != b, 20, 30))", "a:1, b:2");
+        assertCompiled("if (a ~= b, 1, 0)", "a:1, b:1.00000001");
+        assertCompiled("if (a in [1, 2, 3], 1, 0) + if (b in [a, 7], 1, 0)", "a:2, b:2");
+        assertCompiled("max(a, b) + min(a, b) + pow(a, 2) + exp(a) + log(b) + sqrt(b) + abs(-a)", "a:1.5, b:2.5");
+        assertCompiled("tanh(a) + sigmoid(a) + floor(b) + ceil(b) + fmod(b, a) + atan2(a, b)", "a:1.5, b:2.5");
+        assertCompiled("attribute(foo) * query(bar) + fieldMatch(title).completeness", "");
+    }
+
+    @Test
+    public void testGbdtForest() {
+        String gbdt =
+                "if (LW_NEWS_SEARCHES_RATIO < 1.72971, 0.0697159, if (LW_USERS < 0.10496, if (SEARCHES < 0.0329127, 0.151257, 0.117501), if (SUGG_OVERLAP < 18.5, 0.0897622, 0.0756903))) + \n" +
+                "if (LW_NEWS_SEARCHES_RATIO < 1.73156, if (NEWS_USERS < 0.0737993, -0.00481646, 0.00110018), if (LW_USERS < 0.0844616, 0.0488919, if (SUGG_OVERLAP < 32.5, 0.0136917, 9.85328E-4))) + \n" +
+                "if (LW_NEWS_SEARCHES_RATIO < 1.74451, -0.00298257, if (LW_USERS < 0.116207, if (SEARCHES < 0.0329127, 0.0676105, 0.0340198), if (NUM_WORDS < 1.5, -8.55514E-5, 0.0112406))) + \n" +
+                "if (LW_NEWS_SEARCHES_RATIO < 1.72995, if (NEWS_USERS < 0.0737993, -0.00407515, 0.00139088), if (LW_USERS == 0.0509035, 0.0439466, if (LW_USERS < 0.325818, 0.0187156, 0.00236949)))";
+        assertCompiled(gbdt, "LW_NEWS_SEARCHES_RATIO:1, SUGG_OVERLAP:17");
+        assertCompiled(gbdt, "LW_NEWS_SEARCHES_RATIO:2, SUGG_OVERLAP:20");
+        assertCompiled(gbdt, "LW_NEWS_SEARCHES_RATIO:2, SUGG_OVERLAP:40, LW_USERS:0.0509035");
+    }
+
+    @Test
+    public void testBatchEvaluation() throws ParseException {
+        RankingExpression expression =
+                new RankingExpression("if (a < 0.5, if (b in [0.1, 0.2], 1, a * b), sqrt(b) - c) + " +
+                                      "if (c >= b, max(a, c), 2 ^ a) + " +
+                                      "if (a + b < c, -1.5, if (!(a > b) && c < 0.3, a % 0.3, 0))");
+        CompiledExpression compiled = new ExpressionCompiler().compile(expression);
+        int a = compiled.getIndex("a");
+        int b = compiled.getIndex("b");
+        int c = compiled.getIndex("c");
+
+        Random random = new Random(17);
+        FeatureBatch batch = compiled.createBatch(100);
+        double[] results = new double[100];
+        for (int size : new int[] { 100, 37, 0, 1 }) { // reuse the batch for batches of various sizes
+            batch.setSize(size);
+            for (int hit = 0; hit < size; hit++) {
+                batch.set(a, hit, random.nextDouble());
+                batch.set(b, hit, hit % 10 == 0 ? 0.2 : random.nextDouble());
+                batch.set(c, hit, random.nextDouble());
+            }
+            compiled.evaluate(batch, results);
+            for (int hit = 0; hit < size; hit++) {
+                double[] features = new double[compiled.size()];
+                features[a] = batch.get(a, hit);
+                features[b] = batch.get(b, hit);
+                features[c] = batch.get(c, hit);
+                assertEquals(compiled.evaluate(features), results[hit], 0);
+            }
+        }
+    }
+
+    @Test
+    public void testFunctionInlining() throws ParseException {
+        List<ExpressionFunction> functions =
+                Arrays.asList(new ExpressionFunction("square", Collections.singletonList("x"),
+                                                     new RankingExpression("x * x")),
+                              new ExpressionFunction("scaled", Arrays.asList("x", "y"),
+                                                     new RankingExpression("square(x) * y + foo")));
+        CompiledExpression compiled = new ExpressionCompiler(functions).compile(new RankingExpression("scaled(a, 2) + square(b)"));
+        assertEquals("[a, foo, b]", compiled.names().toString());
+        double[] features = new double[compiled.size()];
+        features[compiled.getIndex("a")] = 3;
+        features[compiled.getIndex("b")] = 3;
+        features[compiled.getIndex("foo")] = 0.5;
+        assertEquals(3 * 3 * 2 + 0.5 + 3 * 3, compiled.evaluate(features), 0.000001);
+    }
+
+    @Test
+    public void testInvocationLoopIsRejected() throws ParseException {
+        List<ExpressionFunction> functions =
+                Arrays.asList(new ExpressionFunction("foo", Collections.emptyList(), new RankingExpression("bar + 1")),
+                              new ExpressionFunction("bar", Collections.emptyList(), new RankingExpression("foo * 2")));
+        try {
+            new ExpressionCompiler(functions).compile(new RankingExpression("foo"));
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException expected) {
+            assertEquals("Cannot compile a call to 'foo': Invocation loop: [bar, foo] -> foo", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testTensorExpressionsAreRejected() throws ParseException {
+        try {
+            new ExpressionCompiler().compile(new RankingExpression("reduce(attribute(foo) * query(bar), sum)"));
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException expected) {
+            assertEquals("Cannot compile 'reduce(attribute(foo) * query(bar), sum)': " +
+                         "Only expressions over doubles can be compiled",
+                         expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testUnknownFeature() throws ParseException {
+        CompiledExpression compiled = new ExpressionCompiler().compile(new RankingExpression("a + b"));
+        try {
+            compiled.getIndex("c");
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException expected) {
+            assertEquals("Feature 'c' is not known to compiled ranking expression '' [2 features]",
+                         expected.getMessage());
+        }
+    }
+
+    /** Asserts that the compiled expression evaluates to the same as the expression, with unlisted features 0 */
+    private void assertCompiled(String expressionString, String featureValues) {
+        try {
+            RankingExpression expression = new RankingExpression(expressionString);
+            CompiledExpression compiled = new ExpressionCompiler().compile(expression);
+
+            MapContext context = new MapContext();
+            double[] features = new double[compiled.size()];
+            for (String name : compiled.names())
+                context.put(name, 0.0);
+            for (String featureValue : featureValues.split(",")) {
+                if (featureValue.trim().isEmpty()) continue;
+                String[] nameAndValue = featureValue.trim().split(":");
+                double value = Double.parseDouble(nameAndValue[1]);
+                context.put(nameAndValue[0], value);
+                features[compiled.getIndex(nameAndValue[0])] = value;
+            }
+            double expected = expression.evaluate(context).asDouble();
+            assertEquals(expressionString, expected, compiled.evaluate(features), 0);
+
+            // Evaluate in a batch where the second hit has all features 0
+            FeatureBatch batch = compiled.createBatch(2);
+            batch.setSize(2);
+            for (int i = 0; i < features.length; i++)
+                batch.set(i, 0, features[i]);
+            double[] results = new double[2];
+            compiled.evaluate(batch, results);
+            assertEquals(expressionString, expected, results[0], 0);
+            assertEquals(expressionString, compiled.evaluate(new double[compiled.size()]), results[1], 0);
+        }
+        catch (ParseException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+}
@@ -118,7 +118,6 @@ public class VespaRecordWriter extends RecordWriter {
         FeedParams.Builder feedParamsBuilder = new FeedParams.Builder();
         feedParamsBuilder.setDataFormat(configuration.dataFormat());
         feedParamsBuilder.setRoute(configuration.route());
-        feedParamsBuilder.setMaxSleepTimeMs(configuration.maxSleepTimeMs());
         feedParamsBuilder.setMaxInFlightRequests(configuration.maxInFlightRequests());
         feedParamsBuilder.setLocalQueueTimeOut(3600*1000); //1 hour queue timeout
         return feedParamsBuilder;
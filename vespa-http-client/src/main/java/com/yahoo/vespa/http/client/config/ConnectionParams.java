@@ -47,6 +47,7 @@ public final class ConnectionParams {
         private long minTimeBetweenRetriesMs = 700;
         private boolean dryRun = false;
         private boolean enableV3Protocol = true;
+        private boolean useHttp2 = false;
         private int traceLevel = 0;
         private int traceEveryXOperation = 0;
         private boolean printTraceToStdErr = true;
@@ -181,6 +182,20 @@ public final class ConnectionParams {
             return this;
         }
 
+        /**
+         * Multiplexes the persistent connections to each endpoint as concurrent streams over a single, cleartext
+         * HTTP/2 connection, which jdisc connectors only accept when http2Enabled is turned on in their config.
+         * Endpoints using SSL, or connections through a proxy, still use a HTTP/1.1 connection per persistent connection.
+         *
+         * @param useHttp2 true if enabled.
+         * @return pointer to builder.
+         */
+        @Beta
+        public Builder setUseHttp2(boolean useHttp2) {
+            this.useHttp2 = useHttp2;
+            return this;
+        }
+
         /**
          * Set the min time between retries when temporarily failing against a gateway.
          *
@@ -246,6 +261,7 @@ public final class ConnectionParams {
                     minTimeBetweenRetriesMs,
                     dryRun,
                     enableV3Protocol,
+                    useHttp2,
                     traceLevel,
                     traceEveryXOperation,
                     printTraceToStdErr);
@@ -302,6 +318,7 @@ public final class ConnectionParams {
     private final long minTimeBetweenRetriesMs;
     private final boolean dryRun;
     private final boolean enableV3Protocol;
+    private final boolean useHttp2;
     private final int traceLevel;
     private final int traceEveryXOperation;
     private final boolean printTraceToStdErr;
@@ -320,6 +337,7 @@ public final class ConnectionParams {
             long minTimeBetweenRetriesMs,
             boolean dryRun,
             boolean enableV3Protocol,
+            boolean useHttp2,
             int traceLevel,
             int traceEveryXOperation,
             boolean printTraceToStdErr) {
@@ -336,6 +354,7 @@ public final class ConnectionParams {
         this.minTimeBetweenRetriesMs = minTimeBetweenRetriesMs;
         this.dryRun = dryRun;
         this.enableV3Protocol = enableV3Protocol;
+        this.useHttp2 = useHttp2;
         this.traceLevel = traceLevel;
         this.traceEveryXOperation = traceEveryXOperation;
         this.printTraceToStdErr = printTraceToStdErr;
@@ -389,6 +408,8 @@ public final class ConnectionParams {
 
     public boolean isEnableV3Protocol() { return enableV3Protocol; }
 
+    public boolean isUseHttp2() { return useHttp2; }
+
     public int getTraceLevel() {
         return traceLevel;
     }
@@ -20,6 +20,8 @@ public final class FeedParams {
         return denyIfBusyV3;
     }
 
+    /** @deprecated not used anymore, see {@link Builder#setMaxSleepTimeMs} */
+    @Deprecated
     public long getMaxSleepTimeMs() {
         return maxSleepTimeMs;
     }
@@ -68,11 +70,13 @@ public final class FeedParams {
         }
 
         /**
-         * When throttling the load due to transient errors on gateway, what is the most time to wait between
-         * requests per thread. Only active for V3 protocol.
+         * Not used anymore: The client no longer sleeps between requests on transient errors from the gateway,
+         * but reduces the number of operations in flight to it instead.
          * @param ms max with time
          * @return this, for chaining
+         * @deprecated this has no effect
          */
+        @Deprecated
         public Builder setMaxSleepTimeMs(long ms) {
             this.maxSleepTimeMs = ms;
             return this;
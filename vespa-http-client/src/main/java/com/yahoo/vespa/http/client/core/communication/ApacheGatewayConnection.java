@@ -65,6 +65,7 @@ class ApacheGatewayConnection implements GatewayConnection {
     private final String clientId;
     private int negotiatedVersion = -1;
     private final HttpClientFactory httpClientFactory;
+    private final Http2Client http2Client;
     private final String shardingKey = UUID.randomUUID().toString().substring(0, 5);
 
     ApacheGatewayConnection(
@@ -74,11 +75,27 @@ class ApacheGatewayConnection implements GatewayConnection {
             ConnectionParams connectionParams,
             HttpClientFactory httpClientFactory,
             String clientId) {
+        this(endpoint, feedParams, clusterSpecificRoute, connectionParams, httpClientFactory, null, clientId);
+    }
+
+    /**
+     * Creates a connection which sends its requests with the given HTTP/2 client, shared with other connections
+     * to the same endpoint, instead of with a client of its own, if that is not null
+     */
+    ApacheGatewayConnection(
+            Endpoint endpoint,
+            FeedParams feedParams,
+            String clusterSpecificRoute,
+            ConnectionParams connectionParams,
+            HttpClientFactory httpClientFactory,
+            Http2Client http2Client,
+            String clientId) {
         SUPPORTED_VERSIONS.add(2);
         this.endpoint = endpoint;
         this.feedParams = feedParams;
         this.clusterSpecificRoute = clusterSpecificRoute;
         this.httpClientFactory = httpClientFactory;
+        this.http2Client = http2Client;
         this.connectionParams = connectionParams;
         this.httpClient = null;
         boolean isJson = feedParams.getDataFormat() == FeedParams.DataFormat.JSON_UTF8;
@@ -111,6 +128,9 @@ class ApacheGatewayConnection implements GatewayConnection {
     @Override
     public boolean connect() {
         log.fine("Attempting to connect to " + endpoint);
+        if (http2Client != null) {
+            return true;
+        }
         if (httpClient != null) {
             log.log(Level.WARNING, "Previous httpClient still exists.");
         }
@@ -241,10 +261,13 @@ class ApacheGatewayConnection implements GatewayConnection {
     private InputStream executePost(HttpPost httpPost) throws ServerResponseException, IOException {
         HttpResponse response;
         try {
-            if (httpClient == null) {
+            if (http2Client != null) {
+                response = http2Client.execute(httpPost);
+            } else if (httpClient == null) {
                 throw new IOException("Trying to executePost while not having a connection/http client");
+            } else {
+                response = httpClient.execute(httpPost);
             }
-            response = httpClient.execute(httpPost);
         } catch (IOException e) {
             httpPost.abort();
             throw e;
@@ -16,7 +16,9 @@ import com.yahoo.vespa.http.client.core.operationProcessor.OperationProcessor;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -27,6 +29,8 @@ public class ClusterConnection implements AutoCloseable {
 
     private final OperationProcessor operationProcessor;
     private final List<IOThread> ioThreads = new ArrayList<>();
+    private final List<Http2Client> http2Clients = new ArrayList<>();
+    private final Map<Endpoint, GatewayThrottler> throttlers = new LinkedHashMap<>();
     private final int clusterId;
     private final SessionParams.ErrorReporter errorReporter;
     private static JsonFactory jsonFactory = new JsonFactory();
@@ -53,17 +57,27 @@ public class ClusterConnection implements AutoCloseable {
             return;
         }
         // Lower than 1 does not make any sense.
-        final int maxInFlightPerSession = Math.max(
-                1, feedParams.getMaxInFlightRequests() / totalNumberOfEndpointsInThisCluster);
+        final int maxInFlightPerEndpoint = Math.max(
+                1, feedParams.getMaxInFlightRequests() / cluster.getEndpoints().size());
         DocumentQueue documentQueue = null;
         for (Endpoint endpoint : cluster.getEndpoints()) {
+            final GatewayThrottler throttler = new GatewayThrottler(1, maxInFlightPerEndpoint);
+            throttlers.put(endpoint, throttler);
             final EndpointResultQueue endpointResultQueue = new EndpointResultQueue(
                     operationProcessor,
                     endpoint,
                     clusterId,
                     timeoutExecutor,
                     feedParams.getServerTimeout(TimeUnit.MILLISECONDS)
-                            + feedParams.getClientTimeout(TimeUnit.MILLISECONDS));
+                            + feedParams.getClientTimeout(TimeUnit.MILLISECONDS),
+                    throttler);
+            Http2Client http2Client = null;
+            if (Http2Client.supports(connectionParams, endpoint) && ! connectionParams.isDryRun()) {
+                http2Client = new Http2Client(endpoint,
+                                              feedParams.getServerTimeout(TimeUnit.MILLISECONDS)
+                                                      + feedParams.getClientTimeout(TimeUnit.MILLISECONDS));
+                http2Clients.add(http2Client);
+            }
             for (int i = 0; i < connectionParams.getNumPersistentConnectionsPerEndpoint(); i++) {
                 GatewayConnection gatewayConnection;
                 if (connectionParams.isDryRun()) {
@@ -74,8 +88,8 @@ public class ClusterConnection implements AutoCloseable {
                             feedParams,
                             cluster.getRoute(),
                             connectionParams,
-                            new ApacheGatewayConnection.HttpClientFactory(
-                                    connectionParams, endpoint.isUseSsl()),
+                            new ApacheGatewayConnection.HttpClientFactory(connectionParams, endpoint.isUseSsl()),
+                            http2Client,
                             operationProcessor.getClientId()
                     );
                 }
@@ -91,10 +105,9 @@ public class ClusterConnection implements AutoCloseable {
                         gatewayConnection,
                         clusterId,
                         feedParams.getMaxChunkSizeBytes(),
-                        maxInFlightPerSession,
+                        throttler,
                         feedParams.getLocalQueueTimeOut(),
-                        documentQueue,
-                        connectionParams.isEnableV3Protocol() ? feedParams.getMaxSleepTimeMs() : 0);
+                        documentQueue);
                 ioThreads.add(ioThread);
             }
         }
@@ -128,6 +141,9 @@ public class ClusterConnection implements AutoCloseable {
                 exceptions.add(e);
             }
         }
+        for (Http2Client http2Client : http2Clients) {
+            http2Client.close();
+        }
         if (exceptions.isEmpty()) {
             return;
         }
@@ -167,6 +183,16 @@ public class ClusterConnection implements AutoCloseable {
             jsonGenerator.writeEndObject();
         }
         jsonGenerator.writeEndArray();
+        jsonGenerator.writeArrayFieldStart("endpoints");
+        for (Map.Entry<Endpoint, GatewayThrottler> throttler : throttlers.entrySet()) {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeStringField("host", throttler.getKey().getHostname());
+            jsonGenerator.writeNumberField("port", throttler.getKey().getPort());
+            jsonGenerator.writeFieldName("concurrency");
+            objectMapper.writeValue(jsonGenerator, throttler.getValue().getStats());
+            jsonGenerator.writeEndObject();
+        }
+        jsonGenerator.writeEndArray();
         jsonGenerator.writeEndObject();
         jsonGenerator.close();
         return stringWriter.toString();
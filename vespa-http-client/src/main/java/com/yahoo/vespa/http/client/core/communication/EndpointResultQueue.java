@@ -2,6 +2,7 @@
 package com.yahoo.vespa.http.client.core.communication;
 
 import com.yahoo.vespa.http.client.FeedEndpointException;
+import com.yahoo.vespa.http.client.Result;
 import com.yahoo.vespa.http.client.config.Endpoint;
 import com.yahoo.vespa.http.client.core.operationProcessor.EndPointResultFactory;
 import com.yahoo.vespa.http.client.core.EndpointResult;
@@ -26,24 +27,27 @@ class EndpointResultQueue {
     private final int clusterId;
     private final ScheduledThreadPoolExecutor timer;
     private final long totalTimeoutMs;
+    private final GatewayThrottler throttler;
 
     EndpointResultQueue(
             OperationProcessor operationProcessor,
             Endpoint endpoint,
             int clusterId,
             ScheduledThreadPoolExecutor timer,
-            long totalTimeoutMs) {
+            long totalTimeoutMs,
+            GatewayThrottler throttler) {
         this.operationProcessor = operationProcessor;
         this.endpoint = endpoint;
         this.clusterId = clusterId;
         this.timer = timer;
         this.totalTimeoutMs = totalTimeoutMs;
+        this.throttler = throttler;
     }
 
     public synchronized void operationSent(String operationId) {
         DocumentTimerTask task = new DocumentTimerTask(operationId);
         ScheduledFuture<?> future = timer.schedule(task, totalTimeoutMs, TimeUnit.MILLISECONDS);
-        futureByOperation.put(operationId, new TimerFuture(future));
+        futureByOperation.put(operationId, new TimerFuture(future, futureByOperation.size() + 1));
     }
 
     public synchronized void failOperation(EndpointResult result, int clusterId) {
@@ -73,6 +77,12 @@ class EndpointResultQueue {
             return;
         }
         timerFuture.getFuture().cancel(false);
+
+        Result.ResultType resultType = result.getDetail().getResultType();
+        if (resultType == Result.ResultType.TRANSITIVE_ERROR)
+            throttler.overloaded();
+        else if (resultType != Result.ResultType.FATAL_ERROR)
+            throttler.replied(System.nanoTime() - timerFuture.getSentNanos(), timerFuture.getInFlight());
     }
 
     //Called only from ScheduledThreadPoolExecutor thread in DocumentTimerTask.run(), see below
@@ -85,6 +95,7 @@ class EndpointResultQueue {
                     + "task could not be cancelled.");
             return;
         }
+        throttler.overloaded();
         EndpointResult endpointResult = EndPointResultFactory.createTransientError(
                 endpoint, operationId, new RuntimeException("Timed out waiting for reply from server."));
         operationProcessor.resultReceived(endpointResult, clusterId);
@@ -122,13 +133,22 @@ class EndpointResultQueue {
 
     private class TimerFuture {
         private final ScheduledFuture<?> future;
+        private final long sentNanos = System.nanoTime();
+        private final int inFlight;
 
-        public TimerFuture(ScheduledFuture<?> future) {
+        public TimerFuture(ScheduledFuture<?> future, int inFlight) {
             this.future = future;
+            this.inFlight = inFlight;
         }
         private ScheduledFuture<?> getFuture() {
             return future;
         }
+        private long getSentNanos() {
+            return sentNanos;
+        }
+        private int getInFlight() {
+            return inFlight;
+        }
     }
 
 }
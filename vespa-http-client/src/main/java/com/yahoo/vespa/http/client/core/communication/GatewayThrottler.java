@@ -5,37 +5,143 @@ import java.util.Random;
 
 /**
  * When the gateways says it can not handle more load, we should send less load. That is the responsibility
- * of this component
+ * of this component, which picks the number of operations to keep in flight to a gateway endpoint from
+ * the latencies of, and the transient errors from, the operations sent to it.
+ *
+ * The limit starts low and doubles each round trip while latency stays close to the lowest latency seen,
+ * and is then adjusted by the ratio between those latencies (the gradient), plus some headroom to probe for
+ * more capacity, such that it settles where latency starts to grow with more operations in flight.
+ * A transient error from the gateway, which is how it rejects operations when overloaded, halves the limit,
+ * at most once per round trip.
+ *
+ * This is multithread safe.
  *
  * @author dybis
  */
 public class GatewayThrottler {
 
-    private long backOffTimeMs = 0;
-    private final long maxSleepTimeMs;
+    static final int INITIAL_LIMIT = 100;
+
+    /** The latency which is tolerated without reducing the limit, relative to the lowest latency seen */
+    private static final double LATENCY_TOLERANCE = 1.5;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.5;
+    private static final int BASELINE_WINDOWS = 100;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
     private static Random random = new Random();
 
-    public GatewayThrottler(long maxSleepTimeMs) {
-        this.maxSleepTimeMs = maxSleepTimeMs;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double limit;
+    private boolean slowStart = true;
+    private double baselineLatencyNanos = 0;
+    private double latencyNanos = 0;
+    private long windowLatencyNanos = 0;
+    private int windowSamples = 0;
+    private int windowMaxInFlight = 0;
+    private long samplesSinceBackoff = Integer.MAX_VALUE;
+    private long increases = 0;
+    private long decreases = 0;
+    private long overloads = 0;
+
+    /**
+     * Creates a throttler.
+     *
+     * @param minLimit the limit is never set below this
+     * @param maxLimit the limit is never set above this
+     */
+    public GatewayThrottler(int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit)
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max, but got min " + minLimit +
+                                               " and max " + maxLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(INITIAL_LIMIT, maxLimit));
+    }
+
+    /** Returns the number of operations which should be in flight to the gateway now */
+    public synchronized int limit() {
+        return (int) limit;
     }
 
-    public void handleCall(int transientErrors) {
-        if (transientErrors > 0) {
-            backOffTimeMs = Math.min(maxSleepTimeMs, backOffTimeMs + distribute(100));
-        } else {
-            backOffTimeMs = Math.max(0, backOffTimeMs - distribute(10));
+    /**
+     * Registers that the gateway replied to an operation.
+     *
+     * @param replyNanos the time between sending the operation and getting its reply
+     * @param inFlight the number of operations in flight when the operation was sent
+     */
+    public synchronized void replied(long replyNanos, int inFlight) {
+        samplesSinceBackoff++;
+        windowLatencyNanos += replyNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        if (++windowSamples < Math.max(MIN_WINDOW_SAMPLES, (int) limit)) return;
+
+        latencyNanos = (double) windowLatencyNanos / windowSamples;
+        boolean limited = windowMaxInFlight >= limit / 2; // otherwise, the latency says nothing about the limit
+        windowLatencyNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+
+        if (baselineLatencyNanos == 0 || latencyNanos < baselineLatencyNanos)
+            baselineLatencyNanos = latencyNanos;
+        else // drift towards current latency, to recover if the gateway becomes permanently slower
+            baselineLatencyNanos += (latencyNanos - baselineLatencyNanos) / BASELINE_WINDOWS;
+        if ( ! limited) return;
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1, LATENCY_TOLERANCE * baselineLatencyNanos / latencyNanos));
+        if (slowStart && gradient == 1) {
+            setLimit(2 * limit);
+            return;
         }
-        sleepMs(backOffTimeMs);
+        slowStart = false;
+        double target = limit * gradient + Math.sqrt(limit);
+        setLimit(limit * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    /** Registers that the gateway failed an operation with a transient error, or did not reply in time */
+    public synchronized void overloaded() {
+        overloads++;
+        slowStart = false;
+        if (samplesSinceBackoff < limit) return; // this is probably the same overload as the last
+        samplesSinceBackoff = 0;
+        setLimit(BACKOFF * limit);
+    }
+
+    private void setLimit(double newLimit) {
+        newLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        if ((int) newLimit > (int) limit) increases++;
+        if ((int) newLimit < (int) limit) decreases++;
+        limit = newLimit;
     }
 
-    protected void sleepMs(long sleepTime) {
-        try {
-            if (backOffTimeMs > 0L) {
-                Thread.sleep(backOffTimeMs);
-            }
-        } catch (InterruptedException e) {
-            // Do nothing
+    /** Returns a snapshot of the decisions of this */
+    public synchronized ThrottlerStats getStats() {
+        return new ThrottlerStats((int) limit, latencyNanos / 1e6, baselineLatencyNanos / 1e6,
+                                  increases, decreases, overloads);
+    }
+
+    public static class ThrottlerStats {
+
+        public final int limit;
+        public final double latencyMillis;
+        public final double baselineLatencyMillis;
+        public final long limitIncreases;
+        public final long limitDecreases;
+        public final long overloads;
+
+        ThrottlerStats(int limit, double latencyMillis, double baselineLatencyMillis,
+                       long limitIncreases, long limitDecreases, long overloads) {
+            this.limit = limit;
+            this.latencyMillis = latencyMillis;
+            this.baselineLatencyMillis = baselineLatencyMillis;
+            this.limitIncreases = limitIncreases;
+            this.limitDecreases = limitDecreases;
+            this.overloads = overloads;
         }
+
     }
 
     public int distribute(int expected) {
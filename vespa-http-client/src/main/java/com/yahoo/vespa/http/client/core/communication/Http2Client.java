@@ -0,0 +1,116 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.http.client.core.communication;
+
+import com.yahoo.component.Vtag;
+import com.yahoo.vespa.http.client.config.ConnectionParams;
+import com.yahoo.vespa.http.client.config.Endpoint;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.util.InputStreamContentProvider;
+import org.eclipse.jetty.client.util.InputStreamResponseListener;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.http.HttpClientTransportOverHTTP2;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends the requests of all gateway connections to an endpoint as concurrent streams over a single,
+ * cleartext HTTP/2 connection, instead of over a connection each. The connection is made with prior knowledge,
+ * which jdisc connectors only accept when http2Enabled is turned on in their config.
+ */
+class Http2Client implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(Http2Client.class.getName());
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+    private final HttpClient client;
+    private final long timeoutMillis;
+
+    /**
+     * Creates and starts a client of an endpoint
+     *
+     * @param timeoutMillis the time to wait for the response to a request before it is aborted
+     */
+    Http2Client(Endpoint endpoint, long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        client = new HttpClient(new HttpClientTransportOverHTTP2(new HTTP2Client()), null);
+        client.setUserAgentField(new HttpField(HttpHeader.USER_AGENT,
+                                               String.format("vespa-http-client (%s)", Vtag.currentVersion)));
+        client.setMaxConnectionsPerDestination(1);
+        client.getContentDecoderFactories().clear(); // as for HTTP/1.1, which does not ask for compressed responses
+        try {
+            client.start();
+        } catch (Exception e) {
+            throw new RuntimeException("Could not start a HTTP/2 client of " + endpoint, e);
+        }
+    }
+
+    /** Returns whether the given endpoint can be fed to over a cleartext HTTP/2 connection with these parameters */
+    static boolean supports(ConnectionParams connectionParams, Endpoint endpoint) {
+        return connectionParams.isUseHttp2() && ! endpoint.isUseSsl() && connectionParams.getProxyHost() == null;
+    }
+
+    /** Sends the given post, and returns the response when its headers are received, with the content still streaming */
+    HttpResponse execute(HttpPost post) throws IOException {
+        Request request = client.newRequest(post.getURI()).method(post.getMethod());
+        for (Header header : post.getAllHeaders())
+            request.header(header.getName(), header.getValue());
+        HttpEntity entity = post.getEntity();
+        if (entity != null)
+            request.content(new InputStreamContentProvider(entity.getContent()));
+
+        InputStreamResponseListener listener = new InputStreamResponseListener();
+        request.send(listener);
+        try {
+            return toHttpResponse(listener.get(timeoutMillis, TimeUnit.MILLISECONDS), listener);
+        } catch (TimeoutException e) {
+            request.abort(e);
+            throw new IOException("No response from " + post.getURI() + " within " + timeoutMillis + " ms", e);
+        } catch (InterruptedException e) {
+            request.abort(e);
+            throw new InterruptedIOException("Interrupted while waiting for a response from " + post.getURI());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Failed sending a request to " + post.getURI(), e.getCause());
+        }
+    }
+
+    private static HttpResponse toHttpResponse(Response response, InputStreamResponseListener listener) {
+        BasicHttpResponse httpResponse = new BasicHttpResponse(
+                new BasicStatusLine(HTTP_2, response.getStatus(), response.getReason() == null ? "" : response.getReason()));
+        for (HttpField field : response.getHeaders())
+            httpResponse.addHeader(field.getName(), field.getValue());
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(listener.getInputStream());
+        httpResponse.setEntity(entity);
+        return httpResponse;
+    }
+
+    @Override
+    public void close() {
+        try {
+            client.stop();
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Failed stopping the HTTP/2 client", e);
+        }
+    }
+
+}
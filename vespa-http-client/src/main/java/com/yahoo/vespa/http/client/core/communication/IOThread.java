@@ -3,7 +3,6 @@ package com.yahoo.vespa.http.client.core.communication;
 
 import com.yahoo.vespa.http.client.FeedConnectException;
 import com.yahoo.vespa.http.client.FeedProtocolException;
-import com.yahoo.vespa.http.client.Result;
 import com.yahoo.vespa.http.client.config.Endpoint;
 import com.yahoo.vespa.http.client.core.Document;
 import com.yahoo.vespa.http.client.core.Exceptions;
@@ -40,7 +39,6 @@ class IOThread implements Runnable, AutoCloseable {
     private final CountDownLatch running = new CountDownLatch(1);
     private final CountDownLatch stopSignal = new CountDownLatch(1);
     private final int maxChunkSizeBytes;
-    private final int maxInFlightRequests;
     private final long localQueueTimeOut;
     private final GatewayThrottler gatewayThrottler;
 
@@ -60,18 +58,16 @@ class IOThread implements Runnable, AutoCloseable {
             GatewayConnection client,
             int clusterId,
             int maxChunkSizeBytes,
-            int maxInFlightRequests,
+            GatewayThrottler gatewayThrottler,
             long localQueueTimeOut,
-            DocumentQueue documentQueue,
-            long maxSleepTimeMs) {
+            DocumentQueue documentQueue) {
         this.documentQueue = documentQueue;
         this.endpoint = client.getEndpoint();
         this.client = client;
         this.resultQueue = endpointResultQueue;
         this.clusterId = clusterId;
         this.maxChunkSizeBytes = maxChunkSizeBytes;
-        this.maxInFlightRequests = maxInFlightRequests;
-        this.gatewayThrottler = new GatewayThrottler(maxSleepTimeMs);
+        this.gatewayThrottler = gatewayThrottler;
         thread = new Thread(this, "IOThread " + endpoint);
         thread.setDaemon(true);
         this.localQueueTimeOut = localQueueTimeOut;
@@ -189,6 +185,7 @@ class IOThread implements Runnable, AutoCloseable {
             return docsForSendChunk;
         }
         int pendingSize = 1 + resultQueue.getPendingSize();
+        int maxInFlightRequests = gatewayThrottler.limit();
         // see if we can get more documents without blocking
         while (chunkSizeBytes < maxChunkSizeBytes && pendingSize < maxInFlightRequests) {
             drainFirstDocumentsInQueueIfOld();
@@ -234,67 +231,43 @@ class IOThread implements Runnable, AutoCloseable {
         }
     }
 
-    private static class ProcessResponse {
-        private final int transitiveErrorCount;
-        private final int processResultsCount;
-        ProcessResponse(int transitiveErrorCount, int processResultsCount) {
-            this.transitiveErrorCount = transitiveErrorCount;
-            this.processResultsCount = processResultsCount;
-        }
-    }
-
-    private ProcessResponse processResponse(InputStream serverResponse) throws IOException {
+    private void processResponse(InputStream serverResponse) throws IOException {
         final Collection<EndpointResult> endpointResults =
                 EndPointResultFactory.createResult(endpoint, serverResponse);
         statusReceivedCounter.addAndGet(endpointResults.size());
-        int transientErrors = 0;
         for (EndpointResult endpointResult : endpointResults) {
-            if (endpointResult.getDetail().getResultType() == Result.ResultType.TRANSITIVE_ERROR) {
-                transientErrors++;
-            }
             resultQueue.resultReceived(endpointResult, clusterId);
         }
-        return new ProcessResponse(transientErrors, endpointResults.size());
     }
 
-    private ProcessResponse feedDocumentAndProcessResults(List<Document> docs)
+    private void feedDocumentAndProcessResults(List<Document> docs)
             throws ServerResponseException, IOException {
         addDocumentsToResultQueue(docs);
         long startTime = System.currentTimeMillis();
         InputStream serverResponse = sendAndReceive(docs);
 
-        ProcessResponse processResponse = processResponse(serverResponse);
+        processResponse(serverResponse);
         lastGatewayProcessTimeMillis.set((int) (System.currentTimeMillis() - startTime));
-        return processResponse;
     }
 
-    private ProcessResponse pullAndProcessData(int maxWaitTimeMilliSecs)
+    private void pullAndProcessData(int maxWaitTimeMilliSecs)
             throws ServerResponseException, IOException {
         final int pendingResultQueueSize = resultQueue.getPendingSize();
         pendingDocumentStatusCount.set(pendingResultQueueSize);
 
-        List<Document> nextDocsForFeeding = (pendingResultQueueSize > maxInFlightRequests)
-              ? new ArrayList<>()       // The queue is full, will not send more documents.
+        // When the queue is full we send no more documents, but just wait for results, which the gateway
+        // streams back as they are ready, so there is no need to sleep between asking
+        List<Document> nextDocsForFeeding = (pendingResultQueueSize >= gatewayThrottler.limit())
+              ? new ArrayList<>()
               : getNextDocsForFeeding(maxWaitTimeMilliSecs, TimeUnit.MILLISECONDS);
 
-
         if (nextDocsForFeeding.isEmpty() && pendingResultQueueSize == 0) {
             //we have no unfinished business with the server now.
             log.finest("No document awaiting feeding, not waiting for results.");
-            return new ProcessResponse(0, 0);
+            return;
         }
         log.finest("Awaiting " + pendingResultQueueSize + " results.");
-        ProcessResponse processResponse = feedDocumentAndProcessResults(nextDocsForFeeding);
-        if (pendingResultQueueSize > maxInFlightRequests && processResponse.processResultsCount == 0) {
-            try {
-                // Max outstanding document operations, no more results on server side, wait a bit
-                // before asking again.
-                Thread.sleep(300);
-            } catch (InterruptedException e) {
-                // Ignore
-            }
-        }
-        return processResponse;
+        feedDocumentAndProcessResults(nextDocsForFeeding);
     }
 
     private ThreadState cycle(final ThreadState threadState) {
@@ -334,8 +307,7 @@ class IOThread implements Runnable, AutoCloseable {
                 return ThreadState.SESSION_SYNCED;
             case SESSION_SYNCED:
                 try {
-                    ProcessResponse processResponse = pullAndProcessData(100);
-                    gatewayThrottler.handleCall(processResponse.transitiveErrorCount);
+                    pullAndProcessData(100);
                 }
                 catch (ServerResponseException ser) {
                     log.info("Problems while handing data over to gateway " + endpoint + ": " + Exceptions.toMessageString(ser));
@@ -133,6 +133,10 @@ public class CommandLineArguments {
             description = "Use compression over network.")
     private boolean useCompressionArg = false;
 
+    @Option(name = {"--useHttp2"},
+            description = "Multiplex the connections to each endpoint over a single cleartext HTTP/2 connection.")
+    private boolean useHttp2Arg = false;
+
     @Option(name = {"--useDynamicThrottling"},
             description = "Try to maximize throughput by using dynamic throttling.")
     private boolean useDynamicThrottlingArg = false;
@@ -236,6 +240,7 @@ public class CommandLineArguments {
                                 .setNumPersistentConnectionsPerEndpoint(16)
                                 .setEnableV3Protocol(! enableV2Protocol)
                                 .setUseCompression(useCompressionArg)
+                                .setUseHttp2(useHttp2Arg)
                                 .setMaxRetries(noRetryArg ? 0 : 100)
                                 .setMinTimeBetweenRetries(retrydelayArg, TimeUnit.SECONDS)
                                 .setDryRun(validateArg)
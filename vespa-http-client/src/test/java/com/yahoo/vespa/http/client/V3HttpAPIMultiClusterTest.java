@@ -71,7 +71,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                      .setTraceLevel(123)
                                      .build())
                              .setFeedParams(new FeedParams.Builder()
-                                     .setMaxSleepTimeMs(0)
                                      .setPriority("HIGHEST")
                                      .build())
                              .build())) {
@@ -195,7 +194,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .setLocalQueueTimeOut(1000)
                                              .build())
@@ -252,7 +250,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .setLocalQueueTimeOut(1000)
                                              .build())
@@ -308,7 +305,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(10000)
                                              .setServerTimeout(2, TimeUnit.SECONDS)
                                              .setClientTimeout(2, TimeUnit.SECONDS)
@@ -366,7 +362,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1000)
                                              .setServerTimeout(2, TimeUnit.SECONDS)
                                              .setClientTimeout(2, TimeUnit.SECONDS)
@@ -424,7 +419,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .setServerTimeout(2, TimeUnit.SECONDS)
                                              .setClientTimeout(2, TimeUnit.SECONDS)
@@ -480,7 +474,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .setLocalQueueTimeOut(2000)
                                              .build())
@@ -531,7 +524,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .setLocalQueueTimeOut(2000)
                                              .build())
@@ -586,7 +578,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .setLocalQueueTimeOut(2000)
                                              .build())
@@ -641,7 +632,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .setLocalQueueTimeOut(2000)
                                              .build())
@@ -686,7 +676,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .setLocalQueueTimeOut(2000)
                                              .build())
@@ -737,7 +726,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .setLocalQueueTimeOut(2000)
                                              .build())
@@ -782,7 +770,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .build())
                              .setConnectionParams(
@@ -835,7 +822,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .build())
                              .setConnectionParams(
@@ -889,7 +875,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .build())
                              .setConnectionParams(
@@ -951,7 +936,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .build()
                              )
@@ -1005,7 +989,6 @@ public class V3HttpAPIMultiClusterTest extends TestOnCiBuildingSystemOnly {
                                              .build())
                              .setFeedParams(
                                      new FeedParams.Builder()
-                                             .setMaxSleepTimeMs(0)
                                              .setMaxChunkSizeBytes(1)
                                              .setLocalQueueTimeOut(1000)
                                              .build())
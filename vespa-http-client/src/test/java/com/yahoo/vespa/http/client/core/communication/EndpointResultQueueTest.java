@@ -38,7 +38,8 @@ public class EndpointResultQueueTest {
         }).when(mockAggregator).resultReceived(anyObject(), eq(0));
 
         EndpointResultQueue q = new EndpointResultQueue(
-                mockAggregator, endpoint, 0, new ScheduledThreadPoolExecutor(1), 100L * 1000L);
+                mockAggregator, endpoint, 0, new ScheduledThreadPoolExecutor(1), 100L * 1000L,
+                new GatewayThrottler(1, 100));
 
         q.operationSent("op1");
         assertThat(q.getPendingSize(), is(1));
@@ -81,7 +82,8 @@ public class EndpointResultQueueTest {
             return null;
         }).when(mockAggregator).resultReceived(anyObject(), eq(0));
         EndpointResultQueue q = new EndpointResultQueue(
-                mockAggregator, endpoint, 0, new ScheduledThreadPoolExecutor(1), 100L);
+                mockAggregator, endpoint, 0, new ScheduledThreadPoolExecutor(1), 100L,
+                new GatewayThrottler(1, 100));
         q.operationSent("1234");
         assert(latch.await(120, TimeUnit.SECONDS));
     }
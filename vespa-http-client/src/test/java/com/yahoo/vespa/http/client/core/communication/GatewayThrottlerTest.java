@@ -1,56 +1,88 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.http.client.core.communication;
 
-import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
 
 
 public class GatewayThrottlerTest {
 
-    GatewayThrottler gatewayThrottler;
-    long lastSleepValue = 0;
-
-    @Before
-    public void before() {
-        gatewayThrottler = new GatewayThrottler(900) {
-            @Override
-            protected void sleepMs(long sleepTime) {
-                lastSleepValue = sleepTime;
-            }
-        };
+    private final GatewayThrottler gatewayThrottler = new GatewayThrottler(1, 1000);
+
+    @Test
+    public void limitDoublesPerRoundTripWhileLatencyIsStable() {
+        assertThat(gatewayThrottler.limit(), is(GatewayThrottler.INITIAL_LIMIT));
+        replyToWindow(1, gatewayThrottler.limit());
+        assertThat(gatewayThrottler.limit(), is(200));
+        replyToWindow(1, gatewayThrottler.limit());
+        assertThat(gatewayThrottler.limit(), is(400));
+        replyToWindow(1, gatewayThrottler.limit());
+        replyToWindow(1, gatewayThrottler.limit());
+        assertThat("Limit is capped by the maximum", gatewayThrottler.limit(), is(1000));
     }
 
     @Test
-    public void noSleepOnNormalCase() {
-        gatewayThrottler.handleCall(0);
-        gatewayThrottler.handleCall(0);
-        assertThat(lastSleepValue, is(0L));
+    public void limitShrinksWhenLatencyGrows() {
+        replyToWindow(1, gatewayThrottler.limit());
+        assertThat(gatewayThrottler.limit(), is(200));
+        replyToWindow(3, gatewayThrottler.limit());
+        assertThat(gatewayThrottler.limit(), is(183)); // 0.8 * 200 + 0.2 * (200 * 1.5 * 1.02 / 3 + sqrt(200))
+        for (int i = 0; i < 20; i++)
+            replyToWindow(3, gatewayThrottler.limit());
+        assertTrue("Limit shrinks until the latency is tolerated", gatewayThrottler.limit() < 60);
     }
 
     @Test
-    public void increastingSleepTime() {
-        gatewayThrottler.handleCall(1);
-        long sleepTime1 = lastSleepValue;
-        gatewayThrottler.handleCall(1);
-        long sleepTime2 = lastSleepValue;
-        assertTrue(sleepTime1 > 0);
-        assertTrue(sleepTime2 > sleepTime1);
-        int x;
-        // Check for max value of sleep time.
-        for (x = 0 ; x < 10000; x++) {
-            long prevSleepTime = lastSleepValue;
-            gatewayThrottler.handleCall(1);
-            if (prevSleepTime == lastSleepValue) break;
-        }
-        assertTrue(x < 5000);
-        // Check that it goes down back to zero when no errors.
-        for (x = 0 ; x < 10000; x++) {
-            gatewayThrottler.handleCall(0);
-            if (lastSleepValue == 0) break;
+    public void limitDoesNotGrowWhenItIsNotUsed() {
+        for (int i = 0; i < 10; i++)
+            replyToWindow(1, 10);
+        assertThat(gatewayThrottler.limit(), is(GatewayThrottler.INITIAL_LIMIT));
+    }
+
+    @Test
+    public void overloadHalvesTheLimitOncePerRoundTrip() {
+        gatewayThrottler.overloaded();
+        assertThat(gatewayThrottler.limit(), is(50));
+        gatewayThrottler.overloaded();
+        assertThat("Overloads within the same round trip are ignored", gatewayThrottler.limit(), is(50));
+        for (int i = 0; i < 50; i++)
+            gatewayThrottler.replied(TimeUnit.MILLISECONDS.toNanos(1), 1);
+        gatewayThrottler.overloaded();
+        assertThat(gatewayThrottler.limit(), is(25));
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 50; j++)
+                gatewayThrottler.replied(TimeUnit.MILLISECONDS.toNanos(1), 1);
+            gatewayThrottler.overloaded();
         }
-        assertTrue(x < 5000);
+        assertThat("Limit is capped by the minimum", gatewayThrottler.limit(), is(1));
     }
+
+    @Test
+    public void statsReflectDecisions() {
+        replyToWindow(2, gatewayThrottler.limit());
+        gatewayThrottler.overloaded();
+        gatewayThrottler.overloaded();
+        GatewayThrottler.ThrottlerStats stats = gatewayThrottler.getStats();
+        assertThat(stats.limit, is(100));
+        assertEquals(2.0, stats.latencyMillis, 1e-9);
+        assertEquals(2.0, stats.baselineLatencyMillis, 1e-9);
+        assertThat(stats.limitIncreases, is(1L));
+        assertThat(stats.limitDecreases, is(1L));
+        assertThat(stats.overloads, is(2L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requireThatMinimumIsAtMostMaximum() {
+        new GatewayThrottler(10, 5);
+    }
+
+    private void replyToWindow(long latencyMillis, int inFlight) {
+        for (int i = gatewayThrottler.limit(); i > 0; i--)
+            gatewayThrottler.replied(TimeUnit.MILLISECONDS.toNanos(latencyMillis), inFlight);
+    }
+
 }
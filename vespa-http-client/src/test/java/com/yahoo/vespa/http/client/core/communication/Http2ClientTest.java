@@ -0,0 +1,91 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.http.client.core.communication;
+
+import com.yahoo.vespa.http.client.config.ConnectionParams;
+import com.yahoo.vespa.http.client.config.Endpoint;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.IO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Http2ClientTest {
+
+    private Server server;
+    private Endpoint endpoint;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new Server();
+        ServerConnector connector = new ServerConnector(server, new HTTP2CServerConnectionFactory(new HttpConfiguration()));
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+                    throws IOException {
+                response.setHeader("X-Protocol", request.getProtocol());
+                response.setHeader("X-Session", request.getHeader("X-Session"));
+                IO.copy(request.getInputStream(), response.getOutputStream());
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+        endpoint = Endpoint.create("localhost", connector.getLocalPort(), false);
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void requireThatPostsAreSentOverHttp2() throws IOException {
+        try (Http2Client client = new Http2Client(endpoint, 10000)) {
+            for (int i = 0; i < 3; i++) {
+                HttpPost post = new HttpPost("http://localhost:" + endpoint.getPort() + "/feed?id=" + i);
+                post.setHeader("X-Session", "session" + i);
+                InputStreamEntity entity = new InputStreamEntity(
+                        new ByteArrayInputStream(("document " + i).getBytes(StandardCharsets.UTF_8)), -1);
+                entity.setChunked(true);
+                post.setEntity(entity);
+
+                HttpResponse response = client.execute(post);
+                assertEquals(200, response.getStatusLine().getStatusCode());
+                assertEquals(2, response.getStatusLine().getProtocolVersion().getMajor());
+                assertEquals("HTTP/2.0", response.getFirstHeader("X-Protocol").getValue());
+                assertEquals("session" + i, response.getFirstHeader("X-Session").getValue());
+                assertEquals("document " + i, EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void requireThatHttp2IsOnlyUsedForCleartextEndpointsWithoutProxy() {
+        ConnectionParams http2 = new ConnectionParams.Builder().setUseHttp2(true).build();
+        assertTrue(Http2Client.supports(http2, Endpoint.create("localhost", 4080, false)));
+        assertFalse(Http2Client.supports(http2, Endpoint.create("localhost", 4080, true)));
+        assertFalse(Http2Client.supports(new ConnectionParams.Builder().setUseHttp2(true).setProxyHost("proxy").build(),
+                                         Endpoint.create("localhost", 4080, false)));
+        assertFalse(Http2Client.supports(new ConnectionParams.Builder().build(), Endpoint.create("localhost", 4080, false)));
+    }
+
+}
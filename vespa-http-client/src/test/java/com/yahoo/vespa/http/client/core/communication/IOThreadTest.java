@@ -90,7 +90,7 @@ public class IOThreadTest {
         when(apacheGatewayConnection.writeOperations(anyObject())).thenReturn(serverResponse);
         setupEndpointResultQueueMock( "nope", docId1, true, exceptionMessage);
         try (IOThread ioThread = new IOThread(
-                endpointResultQueue, apacheGatewayConnection, 0, 0, 10000, 10000L, documentQueue, 0)) {
+                endpointResultQueue, apacheGatewayConnection, 0, 0, new GatewayThrottler(1, 10000), 10000L, documentQueue)) {
             ioThread.post(doc1);
             assert (latch.await(120, TimeUnit.SECONDS));
         }
@@ -102,7 +102,7 @@ public class IOThreadTest {
         when(apacheGatewayConnection.writeOperations(anyObject())).thenThrow(new IOException(exceptionMessage));
         setupEndpointResultQueueMock(doc1.getOperationId(), "nope", true, exceptionMessage);
         try (IOThread ioThread = new IOThread(
-                endpointResultQueue, apacheGatewayConnection, 0, 0, 10000, 10000L, documentQueue, 0)) {
+                endpointResultQueue, apacheGatewayConnection, 0, 0, new GatewayThrottler(1, 10000), 10000L, documentQueue)) {
             ioThread.post(doc1);
             assert (latch.await(120, TimeUnit.SECONDS));
         }
@@ -120,7 +120,7 @@ public class IOThreadTest {
         setupEndpointResultQueueMock(doc1.getOperationId(), doc2.getDocumentId(), true, exceptionMessage);
 
         try (IOThread ioThread = new IOThread(
-                endpointResultQueue, apacheGatewayConnection, 0, 0, 10000, 10000L, documentQueue, 0)) {
+                endpointResultQueue, apacheGatewayConnection, 0, 0, new GatewayThrottler(1, 10000), 10000L, documentQueue)) {
             ioThread.post(doc1);
             ioThread.post(doc2);
             assert (latch.await(120, TimeUnit.SECONDS));
@@ -137,7 +137,7 @@ public class IOThreadTest {
         setupEndpointResultQueueMock(doc1.getOperationId(), "nope", true,
                 "java.lang.Exception: Not sending document operation, timed out in queue after");
         try (IOThread ioThread = new IOThread(
-                endpointResultQueue, apacheGatewayConnection, 0, 0, 10, 10L, documentQueue, 0)) {
+                endpointResultQueue, apacheGatewayConnection, 0, 0, new GatewayThrottler(1, 10), 10L, documentQueue)) {
             ioThread.post(doc1);
             assert (latch.await(120, TimeUnit.SECONDS));
         }
@@ -153,7 +153,7 @@ public class IOThreadTest {
         Future<FeedEndpointException> futureException = endpointErrorCapturer(endpointResultQueue);
 
         try (IOThread ioThread = new IOThread(
-                endpointResultQueue, apacheGatewayConnection, 0, 0, 10, 10L, documentQueue, 0)) {
+                endpointResultQueue, apacheGatewayConnection, 0, 0, new GatewayThrottler(1, 10), 10L, documentQueue)) {
             ioThread.post(doc1);
             FeedEndpointException reportedException = futureException.get(120, TimeUnit.SECONDS);
             assertThat(reportedException, instanceOf(FeedProtocolException.class));
@@ -175,7 +175,7 @@ public class IOThreadTest {
         Future<FeedEndpointException> futureException = endpointErrorCapturer(endpointResultQueue);
 
         try (IOThread ioThread = new IOThread(
-                endpointResultQueue, apacheGatewayConnection, 0, 0, 10, 10L, documentQueue, 0)) {
+                endpointResultQueue, apacheGatewayConnection, 0, 0, new GatewayThrottler(1, 10), 10L, documentQueue)) {
             ioThread.post(doc1);
             FeedEndpointException reportedException = futureException.get(120, TimeUnit.SECONDS);
             assertThat(reportedException, instanceOf(FeedConnectException.class));
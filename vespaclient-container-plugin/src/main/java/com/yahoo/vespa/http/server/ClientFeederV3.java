@@ -26,9 +26,15 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
@@ -62,6 +68,15 @@ class ClientFeederV3 {
     private String hostName;
     private AtomicInteger threadsAvailableForFeeding;
 
+    /** The max time a response waits for replies to the operations of its request */
+    static final Duration maxReplyWait = Duration.ofMillis(500);
+    /** The scheduler of response timeouts, or null to close responses with the replies available when rendered */
+    private final ScheduledExecutorService timer;
+    /** Responses streaming replies, oldest first. Replies are written to the oldest response. */
+    private final Deque<FeedResponseV3> openResponses = new ArrayDeque<>(); // guarded by monitor
+    /** The number of operations of this client which are sent, but which replies are not written to a response */
+    private final AtomicInteger pendingReplies = new AtomicInteger(0);
+
     ClientFeederV3(
             ReferencedResource<SharedSourceSession> sourceSession,
             FeedReaderFactory feedReaderFactory,
@@ -70,6 +85,20 @@ class ClientFeederV3 {
             Metric metric,
             ReplyHandler feedReplyHandler,
             AtomicInteger threadsAvailableForFeeding) {
+        this(sourceSession, feedReaderFactory, docTypeManager, clientId, metric, feedReplyHandler,
+             threadsAvailableForFeeding, null);
+    }
+
+    ClientFeederV3(
+            ReferencedResource<SharedSourceSession> sourceSession,
+            FeedReaderFactory feedReaderFactory,
+            DocumentTypeManager docTypeManager,
+            String clientId,
+            Metric metric,
+            ReplyHandler feedReplyHandler,
+            AtomicInteger threadsAvailableForFeeding,
+            ScheduledExecutorService timer) {
+        this.timer = timer;
         this.sourceSession = sourceSession;
         this.clientId = clientId;
         this.feedReplyHandler = feedReplyHandler;
@@ -94,15 +123,52 @@ class ClientFeederV3 {
                 break;
             }
         }
+        synchronized (monitor) {
+            for (FeedResponseV3 response : openResponses)
+                response.close();
+            openResponses.clear();
+        }
         sourceSession.getReference().close();
     }
 
-    private void transferPreviousRepliesToResponse(BlockingQueue<OperationStatus> operations) throws InterruptedException {
-        OperationStatus status = feedReplies.poll();
-        while (status != null) {
-            outstandingOperations.decrementAndGet();
-            operations.put(status);
-            status = feedReplies.poll();
+    /**
+     * Streams replies to the given response, which has written the replies of its request, until it has
+     * written the replies it expects, this client has no pending replies, or the max reply wait is over.
+     */
+    void streamReplies(FeedResponseV3 response) {
+        synchronized (monitor) {
+            openResponses.addLast(response);
+            writeReplies();
+            if (response.isClosed()) return;
+
+            if (timer != null)
+                timer.schedule(() -> close(response), maxReplyWait.toMillis(), TimeUnit.MILLISECONDS);
+            else
+                close(response);
+        }
+    }
+
+    /** Writes the replies which have arrived to the open responses, and closes those which expect no more */
+    private void writeReplies() {
+        synchronized (monitor) {
+            while ( ! openResponses.isEmpty()) {
+                FeedResponseV3 response = openResponses.peekFirst();
+                List<OperationStatus> replies = new ArrayList<>();
+                feedReplies.drainTo(replies);
+                outstandingOperations.addAndGet(-replies.size());
+                pendingReplies.addAndGet(-replies.size());
+                if (response.write(replies) && pendingReplies.get() > 0) return;
+
+                openResponses.removeFirst();
+                response.close();
+            }
+        }
+    }
+
+    private void close(FeedResponseV3 response) {
+        synchronized (monitor) {
+            openResponses.remove(response);
+            response.close();
         }
     }
 
@@ -135,24 +201,21 @@ class ClientFeederV3 {
 
             InputStream inputStream = StreamReaderV3.unzipStreamIfNeeded(request);
             BlockingQueue<OperationStatus> replies = new LinkedBlockingQueue<>();
+            int sentOperations = 0;
             try {
-                feed(feederSettings, inputStream, replies, threadsAvailableForFeeding);
-                synchronized (monitor) {
-                    // Handshake requests do not have DATA_FORMAT, we do not want to give responses to
-                    // handshakes as it won't be processed by the client.
-                    if (request.getJDiscRequest().headers().get(Headers.DATA_FORMAT) != null) {
-                        transferPreviousRepliesToResponse(replies);
-                    }
-                }
+                sentOperations = feed(feederSettings, inputStream, replies, threadsAvailableForFeeding);
             } catch (InterruptedException e) {
                 // NOP, just terminate
             } catch (Throwable e) {
                 log.log(LogLevel.WARNING, "Unhandled exception while feeding: "
                         + Exceptions.toMessageString(e), e);
-            } finally {
-                replies.add(createOperationStatus("-", "-", ErrorCode.END_OF_FEED, false, null));
             }
-            return new FeedResponse(200, replies, 3 /* protocol version */, clientId, outstandingOperations.get(), hostName);
+            // Handshake requests do not have DATA_FORMAT, we do not want to give responses to
+            // handshakes as it won't be processed by the client.
+            boolean streamReplies = request.getJDiscRequest().headers().get(Headers.DATA_FORMAT) != null;
+            // A request without operations waits for the next reply, if any, rather than having the client poll
+            return new FeedResponseV3(200, this, new ArrayList<>(replies), Math.max(sentOperations, 1), streamReplies,
+                                      clientId, outstandingOperations.get(), hostName);
         } finally {
             ongoingRequests.decrementAndGet();
             threadsAvailableForFeeding.incrementAndGet();
@@ -216,44 +279,51 @@ class ClientFeederV3 {
             if (result.isAccepted()) {
                 return result;
             }
-            Thread.sleep(100);
+            // A blocking send only fails with a full queue when its wait for capacity expired, so retry right away
         }
         return result;
     }
 
-    private void feed(
+    /** Sends the operations of the given request, and returns the number of operations sent */
+    private int feed(
             FeederSettings settings,
             InputStream requestInputStream,
             BlockingQueue<OperationStatus> repliesFromOldMessages,
             AtomicInteger threadsAvailableForFeeding) throws InterruptedException {
+        int sentOperations = 0;
         while (true) {
 
             Optional<DocumentOperationMessageV3> msg = pullMessageFromRequest(settings, requestInputStream, repliesFromOldMessages);
 
             if (! msg.isPresent()) {
-                break;
+                return sentOperations;
             }
             setMessageParameters(msg.get(), settings);
 
             Result result;
+            pendingReplies.incrementAndGet(); // before sending, as the reply may arrive before send returns
             try {
                 result = sendMessage(settings, msg.get(), threadsAvailableForFeeding);
 
             } catch  (RuntimeException e) {
+                pendingReplies.decrementAndGet();
                 repliesFromOldMessages.add(createOperationStatus(msg.get().getOperationId(), Exceptions.toMessageString(e),
                         ErrorCode.ERROR, false, msg.get().getMessage()));
                 continue;
             }
 
             if (result.isAccepted()) {
+                sentOperations++;
                 outstandingOperations.incrementAndGet();
                 updateOpsPerSec();
                 log(LogLevel.DEBUG, "Sent message successfully, document id: ", msg.get().getOperationId());
             } else if (!result.getError().isFatal()) {
+                pendingReplies.decrementAndGet();
                 repliesFromOldMessages.add(createOperationStatus(msg.get().getOperationId(), result.getError().getMessage(),
                         ErrorCode.TRANSIENT_ERROR, false, msg.get().getMessage()));
                 continue;
             } else {
+                pendingReplies.decrementAndGet();
                 // should probably not happen, but everybody knows stuff that
                 // shouldn't happen, happens all the time
                 boolean isConditionNotMet = result.getError().getCode() == DocumentProtocol.ERROR_TEST_AND_SET_CONDITION_FAILED;
@@ -297,7 +367,8 @@ class ClientFeederV3 {
     }
 
     private void setMessageParameters(DocumentOperationMessageV3 msg, FeederSettings settings) {
-        msg.getMessage().setContext(new ReplyContext(msg.getOperationId(), feedReplies, DocumentOperationType.fromMessage(msg.getMessage())));
+        msg.getMessage().setContext(new ReplyContext(msg.getOperationId(), feedReplies, DocumentOperationType.fromMessage(msg.getMessage()),
+                                                     this::writeReplies));
         if (settings.traceLevel != null) {
             msg.getMessage().getTrace().setLevel(settings.traceLevel);
         }
@@ -92,7 +92,8 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
                                 clientId,
                                 metric,
                                 feedReplyHandler,
-                                threadsAvailableForFeeding));
+                                threadsAvailableForFeeding,
+                                cron));
             }
             clientFeederV3 = clientFeederByClientId.get(clientId);
         }
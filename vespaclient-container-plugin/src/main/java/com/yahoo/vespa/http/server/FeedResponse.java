@@ -33,22 +33,6 @@ public class FeedResponse extends HttpResponse {
         headers().add(Headers.VERSION, Integer.toString(protocolVersion));
     }
 
-    // This is used by the V3 protocol.
-    public FeedResponse(
-            int status,
-            BlockingQueue<OperationStatus> operations,
-            int protocolVersion,
-            String sessionId,
-            int outstandingClientOperations,
-            String hostName) {
-        super(status);
-        this.operations = operations;
-        headers().add(Headers.SESSION_ID, sessionId);
-        headers().add(Headers.VERSION, Integer.toString(protocolVersion));
-        headers().add(Headers.OUTSTANDING_REQUESTS, Integer.toString(outstandingClientOperations));
-        headers().add(Headers.HOSTNAME, hostName);
-    }
-
     @Override
     public void render(OutputStream output) throws IOException {
         int i = 0;
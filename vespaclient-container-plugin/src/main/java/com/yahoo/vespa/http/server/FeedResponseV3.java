@@ -0,0 +1,103 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.http.server;
+
+import com.yahoo.container.jdisc.AsyncHttpResponse;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.vespa.http.client.core.Headers;
+import com.yahoo.vespa.http.client.core.OperationStatus;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A response to a V3 feed request, which writes replies to the network channel as they arrive.
+ * It first writes the replies produced while reading the request, and is then streamed the replies
+ * to the operations of its client by the {@link ClientFeederV3}, until that closes it.
+ * No thread is held while the response waits for replies.
+ */
+class FeedResponseV3 extends AsyncHttpResponse {
+
+    private final ClientFeederV3 feeder;
+    private final List<OperationStatus> requestReplies;
+    private final int expectedReplies;
+    private final boolean streamReplies;
+
+    private ContentChannel channel;
+    private CompletionHandler completionHandler;
+    private int writtenReplies = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a response
+     *
+     * @param requestReplies the replies produced while reading the request
+     * @param expectedReplies the number of replies to operations this should wait for
+     * @param streamReplies whether to stream replies to operations, or only write the request replies
+     */
+    FeedResponseV3(int status, ClientFeederV3 feeder, List<OperationStatus> requestReplies, int expectedReplies,
+                   boolean streamReplies, String clientId, int outstandingClientOperations, String hostName) {
+        super(status);
+        this.feeder = feeder;
+        this.requestReplies = requestReplies;
+        this.expectedReplies = expectedReplies;
+        this.streamReplies = streamReplies;
+        headers().add(Headers.SESSION_ID, clientId);
+        headers().add(Headers.VERSION, "3");
+        headers().add(Headers.OUTSTANDING_REQUESTS, Integer.toString(outstandingClientOperations));
+        headers().add(Headers.HOSTNAME, hostName);
+    }
+
+    @Override
+    public void render(OutputStream output, ContentChannel networkChannel, CompletionHandler handler) {
+        synchronized (this) {
+            this.channel = networkChannel;
+            this.completionHandler = handler;
+            // Dispatches the response headers, as the handler must respond before the request is done
+            channel.write(ByteBuffer.allocate(0), null);
+            writeReplies(requestReplies);
+        }
+        if (streamReplies)
+            feeder.streamReplies(this);
+        else
+            close();
+    }
+
+    /** Writes the given replies to operations to the network, and returns whether this expects more replies */
+    synchronized boolean write(List<OperationStatus> replies) {
+        if (closed) throw new IllegalStateException("Writing replies to a closed response");
+        writeReplies(replies);
+        writtenReplies += replies.size();
+        return writtenReplies < expectedReplies;
+    }
+
+    /** Closes the network channel of this, if it is not closed already */
+    synchronized void close() {
+        if (closed) return;
+        closed = true;
+        channel.close(completionHandler);
+    }
+
+    synchronized boolean isClosed() { return closed; }
+
+    private void writeReplies(List<OperationStatus> replies) {
+        if (replies.isEmpty()) return;
+        StringBuilder rendered = new StringBuilder();
+        for (OperationStatus reply : replies)
+            rendered.append(reply.render()); // renderSingleStatus ensures ASCII only
+        channel.write(ByteBuffer.wrap(rendered.toString().getBytes(StandardCharsets.US_ASCII)), null);
+    }
+
+    @Override
+    public String getContentType() {
+        return "text/plain";
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return StandardCharsets.US_ASCII.name();
+    }
+
+}
@@ -2,6 +2,7 @@
 package com.yahoo.feedhandler.v3;
 
 import com.google.common.base.Splitter;
+import com.yahoo.container.jdisc.AsyncHttpResponse;
 import com.yahoo.container.jdisc.HttpResponse;
 import com.yahoo.container.jdisc.messagebus.SessionCache;
 import com.yahoo.container.logging.AccessLog;
@@ -13,6 +14,8 @@ import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
 import com.yahoo.documentapi.metrics.DocumentApiMetrics;
 import com.yahoo.feedhandler.NullFeedMetric;
 import com.yahoo.jdisc.ReferencedResource;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
 import com.yahoo.messagebus.SourceSessionParams;
 import com.yahoo.messagebus.shared.SharedSourceSession;
 import com.yahoo.metrics.simple.MetricReceiver;
@@ -29,8 +32,11 @@ import com.yahoo.container.jdisc.HttpRequest;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -47,10 +53,8 @@ public class FeedTesterV3 {
     public void feedOneDocument() throws Exception {
         final FeedHandlerV3 feedHandlerV3 = setupFeederHandler();
         HttpResponse httpResponse = feedHandlerV3.handle(createRequest(1));
-        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-        httpResponse.render(outStream);
         assertThat(httpResponse.getContentType(), is("text/plain"));
-        assertThat(Utf8.toString(outStream.toByteArray()), is("1230 OK message trace\n"));
+        assertThat(render(httpResponse), is("1230 OK message trace\n"));
 
     }
 
@@ -58,13 +62,30 @@ public class FeedTesterV3 {
     public void feedManyDocument() throws Exception {
         final FeedHandlerV3 feedHandlerV3 = setupFeederHandler();
         HttpResponse httpResponse = feedHandlerV3.handle(createRequest(100));
-        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-        httpResponse.render(outStream);
         assertThat(httpResponse.getContentType(), is("text/plain"));
-        String result = Utf8.toString(outStream.toByteArray());
+        String result = render(httpResponse);
         assertThat(Splitter.on("\n").splitToList(result).size(), is(101));
     }
 
+    /** Renders the given response, and returns its content when it is closed */
+    private static String render(HttpResponse httpResponse) throws Exception {
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        CompletableFuture<String> content = new CompletableFuture<>();
+        ((AsyncHttpResponse) httpResponse).render(outStream, new ContentChannel() {
+            @Override
+            public void write(ByteBuffer buffer, CompletionHandler handler) {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                outStream.write(bytes, 0, bytes.length);
+            }
+            @Override
+            public void close(CompletionHandler handler) {
+                content.complete(Utf8.toString(outStream.toByteArray()));
+            }
+        }, null);
+        return content.get(60, TimeUnit.SECONDS);
+    }
+
     DocumentTypeManager createDoctypeManager() {
         DocumentTypeManager docTypeManager = new DocumentTypeManager();
         DocumentType documentType = new DocumentType("testdocument");
@@ -0,0 +1,174 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.http.server;
+
+import com.yahoo.container.jdisc.AsyncHttpResponse;
+import com.yahoo.container.jdisc.HttpRequest;
+import com.yahoo.document.DocumentId;
+import com.yahoo.documentapi.metrics.DocumentApiMetrics;
+import com.yahoo.jdisc.ReferencedResource;
+import com.yahoo.jdisc.References;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.messagebus.Message;
+import com.yahoo.messagebus.MessageBus;
+import com.yahoo.messagebus.MessageBusParams;
+import com.yahoo.messagebus.ReplyHandler;
+import com.yahoo.messagebus.Result;
+import com.yahoo.messagebus.SourceSessionParams;
+import com.yahoo.messagebus.shared.SharedMessageBus;
+import com.yahoo.messagebus.shared.SharedSourceSession;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.text.Utf8;
+import com.yahoo.vespa.http.client.config.FeedParams;
+import com.yahoo.vespa.http.client.core.Headers;
+import com.yahoo.vespaxmlparser.MockFeedReaderFactory;
+import com.yahoo.vespaxmlparser.VespaXMLFeedReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that replies are streamed to open V3 responses as they arrive.
+ */
+public class V3StreamingRepliesTestCase {
+
+    private final List<Message> sent = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService timer;
+    private ClientFeederV3 feeder;
+
+    @Before
+    public void setup() {
+        timer = Executors.newSingleThreadScheduledExecutor();
+        SharedSourceSession session = new SharedSourceSession(new SharedMessageBus(new MessageBus(new MockNetwork(),
+                                                                                                  new MessageBusParams())),
+                                                              new SourceSessionParams()) {
+            @Override
+            public Result sendMessageBlocking(Message msg) { return sendMessage(msg); }
+
+            @Override
+            public Result sendMessage(Message msg) {
+                sent.add(msg);
+                return Result.ACCEPTED;
+            }
+        };
+        feeder = new ClientFeederV3(new ReferencedResource<>(session, References.fromResource(session)),
+                                    new MockFeedReaderFactory(),
+                                    null /*DocTypeManager*/,
+                                    "clientId",
+                                    new DummyMetric(),
+                                    new FeedReplyReader(new DummyMetric(), new DocumentApiMetrics(MetricReceiver.nullImplementation, "tester")),
+                                    new AtomicInteger(10),
+                                    timer) {
+            @Override
+            protected DocumentOperationMessageV3 getNextMessage(String operationId, InputStream requestInputStream,
+                                                                FeederSettings settings) throws Exception {
+                while (true) {
+                    int data = requestInputStream.read();
+                    if (data == -1 || data == (char)'\n') break;
+                }
+                VespaXMLFeedReader.Operation operation = new VespaXMLFeedReader.Operation();
+                operation.setRemove(new DocumentId("id:ns:type::" + operationId));
+                return DocumentOperationMessageV3.newRemoveMessage(operation, operationId);
+            }
+        };
+    }
+
+    @After
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    public void requireThatRepliesAreStreamedToTheResponseUntilAllOperationsHaveReplies() throws Exception {
+        RenderedResponse response = render(feeder.handleRequest(request("op1 x\nop2 x\n")));
+        assertEquals(2, sent.size());
+        assertEquals("", response.content());
+        assertFalse(response.closed);
+
+        reply(sent.get(1));
+        assertEquals("op2 OK Document{20}processed. \n", response.content());
+        assertFalse(response.closed);
+
+        reply(sent.get(0));
+        assertEquals("op2 OK Document{20}processed. \nop1 OK Document{20}processed. \n", response.content());
+        assertTrue(response.closed);
+    }
+
+    @Test
+    public void requireThatRequestsWithoutOperationsWaitForTheNextReply() throws Exception {
+        RenderedResponse first = render(feeder.handleRequest(request("op1 x\n")));
+        first.awaitClose(); // as the max reply wait expires
+
+        RenderedResponse poll = render(feeder.handleRequest(request("")));
+        assertFalse(poll.closed);
+        reply(sent.get(0));
+        assertEquals("op1 OK Document{20}processed. \n", poll.content());
+        assertTrue(poll.closed);
+
+        RenderedResponse empty = render(feeder.handleRequest(request("")));
+        assertTrue("No replies are pending", empty.closed);
+        assertEquals("", empty.content());
+    }
+
+    private static void reply(Message message) {
+        ReplyHandler handler = message.popHandler();
+        handler.handleReply(new MockReply(message.getContext()));
+    }
+
+    private static HttpRequest request(String operations) {
+        HttpRequest request = HttpRequest.createTestRequest("http://foo.bar:19020/reserved-for-internal-use/feedapi",
+                                                            com.yahoo.jdisc.http.HttpRequest.Method.POST,
+                                                            new ByteArrayInputStream(Utf8.toBytes(operations)));
+        request.getJDiscRequest().headers().add(Headers.VERSION, "3");
+        request.getJDiscRequest().headers().add(Headers.CLIENT_ID, "clientId");
+        request.getJDiscRequest().headers().add(Headers.DATA_FORMAT, FeedParams.DataFormat.JSON_UTF8.name());
+        return request;
+    }
+
+    private static RenderedResponse render(com.yahoo.container.jdisc.HttpResponse response) throws Exception {
+        RenderedResponse rendered = new RenderedResponse();
+        ((AsyncHttpResponse) response).render(rendered.out, rendered, null);
+        return rendered;
+    }
+
+    private static class RenderedResponse implements ContentChannel {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        volatile boolean closed = false;
+
+        @Override
+        public synchronized void write(ByteBuffer buffer, CompletionHandler handler) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public synchronized void close(CompletionHandler handler) {
+            closed = true;
+            notifyAll();
+        }
+
+        synchronized String content() { return Utf8.toString(out.toByteArray()); }
+
+        synchronized void awaitClose() throws InterruptedException {
+            while ( ! closed) wait();
+        }
+
+    }
+
+}
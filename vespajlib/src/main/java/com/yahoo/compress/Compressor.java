@@ -124,6 +124,34 @@ public class Compressor {
                 throw new IllegalArgumentException(compression + " is not supported");
         }
     }
+    /**
+     * Decompresses some data into a buffer supplied by the caller, such that buffers may be reused
+     *
+     * @param compression the compression type used
+     * @param compressedData the compressed data. This array is only read by this method.
+     * @param compressedDataOffset the offset in the compressed data at which to start decompression
+     * @param expectedUncompressedSize the uncompressed size in bytes of this data
+     * @param destination the buffer to write the uncompressed data to, starting at offset 0.
+     *                    This must have room for at least expectedUncompressedSize bytes.
+     * @return the number of bytes of compressed data which was read
+     * @throws IllegalArgumentException if the compression type is not supported or the destination is too small
+     */
+    public int decompress(CompressionType compression, byte[] compressedData, int compressedDataOffset,
+                          int expectedUncompressedSize, byte[] destination) {
+        if (destination.length < expectedUncompressedSize)
+            throw new IllegalArgumentException("Destination buffer of size " + destination.length +
+                                               " cannot hold " + expectedUncompressedSize + " bytes");
+        switch (compression) {
+            case NONE: case INCOMPRESSIBLE:
+                System.arraycopy(compressedData, compressedDataOffset, destination, 0, expectedUncompressedSize);
+                return expectedUncompressedSize;
+            case LZ4:
+                return factory.fastDecompressor().decompress(compressedData, compressedDataOffset,
+                                                             destination, 0, expectedUncompressedSize);
+            default:
+                throw new IllegalArgumentException(compression + " is not supported");
+        }
+    }
     /** Decompresses some data */
     public byte[] decompress(byte[] compressedData, CompressionType compressionType, int uncompressedSize) {
         return decompress(compressionType, compressedData, 0, uncompressedSize, Optional.empty());
@@ -16,11 +16,25 @@ ArrayTraverser, ObjectSymbolTraverser
         out = new BufferedOutput();
     }
 
+    public BinaryEncoder(BufferedOutput out) {
+        this.out = out;
+    }
+
     public byte[] encode(Slime slime) {
+        return encode(slime, slime.get());
+    }
+
+    public byte[] encode(Slime slime, Inspector root) {
+        encodeInPlace(slime, root);
+        return out.toArray();
+    }
+
+    /** Encodes into the output of this, and returns the number of bytes written */
+    public int encodeInPlace(Slime slime, Inspector root) {
         out.reset();
         encodeSymbolTable(slime);
-        encodeValue(slime.get());
-        return out.toArray();
+        encodeValue(root);
+        return out.position();
     }
 
     void encode_cmpr_long(long value) {
@@ -92,8 +106,20 @@ ArrayTraverser, ObjectSymbolTraverser
     }
 
     void encodeDATA(byte[] value) {
-        write_type_and_size(Type.DATA.ID, value.length);
-        out.put(value);
+        encodeDATA(value, 0, value.length);
+    }
+
+    void encodeDATA(byte[] value, int offset, int length) {
+        write_type_and_size(Type.DATA.ID, length);
+        out.put(value, offset, length);
+    }
+
+    void encodeDATA(Inspector inspector) {
+        if (inspector instanceof DataValue) {
+            ((DataValue)inspector).encode(this);
+        } else {
+            encodeDATA(inspector.asData());
+        }
     }
 
     void encodeARRAY(Inspector inspector) {
@@ -115,7 +141,7 @@ ArrayTraverser, ObjectSymbolTraverser
         case LONG:   encodeLONG(inspector.asLong());     return;
         case DOUBLE: encodeDOUBLE(inspector.asDouble()); return;
         case STRING: encodeSTRING(inspector.asUtf8());   return;
-        case DATA:   encodeDATA(inspector.asData());     return;
+        case DATA:   encodeDATA(inspector);              return;
         case ARRAY:  encodeARRAY(inspector);             return;
         case OBJECT: encodeOBJECT(inspector);            return;
         }
@@ -44,6 +44,18 @@ public class BinaryFormat {
         return encoder.encode(slime);
     }
 
+    /**
+     * Take a value inside a Slime object and serialize it into binary format
+     * as the root value of a new Slime object.
+     * @param slime the object containing the value.
+     * @param value the value which is to be serialized. This must belong to the given slime object.
+     * @return a new byte array with just the encoded value.
+     **/
+    public static byte[] encode(Slime slime, Inspector value) {
+        BinaryEncoder encoder = new BinaryEncoder();
+        return encoder.encode(slime, value);
+    }
+
     /**
      * Take binary data and deserialize it into a Slime object.
      * The data is assumed to be the binary representation
@@ -0,0 +1,343 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.yahoo.slime.BinaryFormat.decode_double;
+import static com.yahoo.slime.BinaryFormat.decode_meta;
+import static com.yahoo.slime.BinaryFormat.decode_type;
+import static com.yahoo.slime.BinaryFormat.decode_zigzag;
+
+/**
+ * A streaming reader of Slime binary data, which reads the values one at a time straight out of the
+ * binary data without building a Slime object. Values are read by calling {@link #next} repeatedly,
+ * and inspecting the current value using the accessors of this, until it returns {@link Token#END}:
+ *
+ * <pre>
+ * BinaryReader reader = new BinaryReader(bytes);
+ * for (BinaryReader.Token token = reader.next(); token != BinaryReader.Token.END; token = reader.next()) {
+ *     if (token == BinaryReader.Token.LONG &amp;&amp; "count".equals(reader.fieldName()))
+ *         count = reader.asLong();
+ * }
+ * </pre>
+ *
+ * Reading values does not allocate, except for the accessors returning strings or arrays.
+ * Field names are decoded once per symbol. A reader may be reused for new data by calling {@link #reset}.
+ *
+ * This is not multithread safe.
+ */
+public final class BinaryReader {
+
+    /** The kinds of items the binary data is read as */
+    public enum Token { NIX, BOOL, LONG, DOUBLE, STRING, DATA, START_ARRAY, END_ARRAY, START_OBJECT, END_OBJECT, END }
+
+    private static final Token[] valueTokens = { Token.NIX, Token.BOOL, Token.LONG, Token.DOUBLE,
+                                                 Token.STRING, Token.DATA, Token.START_ARRAY, Token.START_OBJECT };
+
+    private byte[] data;
+    private int position;
+    private int end;
+
+    private int symbolCount;
+    private int[] symbolOffsets = new int[16];
+    private int[] symbolLengths = new int[16];
+    private String[] symbolNames = new String[16];
+
+    /** The number of unread children of each open array or object */
+    private int[] remaining = new int[16];
+    private boolean[] isObject = new boolean[16];
+    private int depth;
+    private boolean rootRead;
+
+    private Token token;
+    private int tokenOffset;
+    private int children;
+    private int symbol;
+    private long longValue;
+    private int valueOffset;
+    private int valueLength;
+
+    /** Creates a reader which must be {@link #reset} before use */
+    public BinaryReader() {}
+
+    public BinaryReader(byte[] data) {
+        reset(data, 0, data.length);
+    }
+
+    public BinaryReader(byte[] data, int offset, int length) {
+        reset(data, offset, length);
+    }
+
+    /**
+     * Creates a reader of the remaining bytes of the given buffer. Data in buffers which are not backed by
+     * an accessible array is copied.
+     */
+    public BinaryReader(ByteBuffer buffer) {
+        reset(buffer);
+    }
+
+    /**
+     * Resets this to read the given binary data from the start
+     *
+     * @throws IllegalArgumentException if the symbol table of the data cannot be read
+     */
+    public void reset(byte[] data, int offset, int length) {
+        this.data = data;
+        this.position = offset;
+        this.end = offset + length;
+        this.depth = 0;
+        this.rootRead = false;
+        this.token = null;
+        this.symbol = -1;
+        readSymbolTable();
+    }
+
+    /** Resets this to read the remaining bytes of the given buffer from the start */
+    public void reset(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            reset(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        else {
+            byte[] copy = new byte[buffer.remaining()];
+            buffer.duplicate().get(copy);
+            reset(copy, 0, copy.length);
+        }
+    }
+
+    /**
+     * Advances to the next item in the data
+     *
+     * @return the token of the item read, which is END when there is no more data
+     * @throws IllegalArgumentException if the data is not valid Slime binary data
+     */
+    public Token next() {
+        symbol = -1;
+        if (depth > 0 && remaining[depth - 1] == 0) {
+            depth--;
+            return token = isObject[depth] ? Token.END_OBJECT : Token.END_ARRAY;
+        }
+        if (depth == 0) {
+            if (rootRead) return token = Token.END;
+            rootRead = true;
+        }
+        else {
+            remaining[depth - 1]--;
+            if (isObject[depth - 1])
+                symbol = checkSymbol(readCompressedLong());
+        }
+
+        tokenOffset = position;
+        byte typeAndMeta = readByte();
+        int meta = decode_meta(typeAndMeta);
+        token = valueTokens[decode_type(typeAndMeta).ID];
+        switch (token) {
+            case BOOL: longValue = meta; break;
+            case LONG: longValue = decode_zigzag(readBytesLittleEndian(meta)); break;
+            case DOUBLE: longValue = readBytesBigEndian(meta); break;
+            case STRING: case DATA:
+                valueLength = checkedSize(readSize(meta));
+                valueOffset = position;
+                skip(valueLength);
+                break;
+            case START_ARRAY: push(children = checkedSize(readSize(meta)), false); break;
+            case START_OBJECT: push(children = checkedSize(readSize(meta)), true); break;
+        }
+        return token;
+    }
+
+    /**
+     * Skips past the rest of the current array or object without returning the values in it,
+     * if the current token is START_ARRAY or START_OBJECT. Otherwise this does nothing.
+     *
+     * @return the current token after skipping, which is END_ARRAY or END_OBJECT if anything was skipped
+     */
+    public Token skipChildren() {
+        if (token != Token.START_ARRAY && token != Token.START_OBJECT) return token;
+        int startDepth = depth;
+        while (depth >= startDepth)
+            next();
+        return token;
+    }
+
+    /** Returns the current token, or null if {@link #next} has not been called since this was reset */
+    public Token token() { return token; }
+
+    /**
+     * Returns the offset in {@link #data} where the encoding of the current value starts, after its field name symbol.
+     * This is not defined when the current token is END_ARRAY, END_OBJECT or END.
+     */
+    public int tokenOffset() { return tokenOffset; }
+
+    /**
+     * Returns the offset in {@link #data} of the next byte to read. This is where the encoding of the current value
+     * ends, except when the current token is START_ARRAY or START_OBJECT.
+     */
+    public int position() { return position; }
+
+    /** Returns the number of values in the current array or object, if the current token is START_ARRAY or START_OBJECT */
+    public int children() { return children; }
+
+    /** Returns the number of arrays and objects the current position is inside */
+    public int depth() { return depth; }
+
+    /** Returns the symbol of the field name of the current value, or -1 if the current value is not in an object */
+    public int fieldSymbol() { return symbol; }
+
+    /** Returns the field name of the current value, or null if the current value is not in an object */
+    public String fieldName() {
+        return symbol < 0 ? null : symbolName(symbol);
+    }
+
+    /** Returns the number of symbols (field names) in the data read */
+    public int symbols() { return symbolCount; }
+
+    /** Returns the name of the given symbol */
+    public String symbolName(int symbol) {
+        if (symbol < 0 || symbol >= symbolCount)
+            throw new IllegalArgumentException("Symbol " + symbol + " is not in the symbol table");
+        if (symbolNames[symbol] == null)
+            symbolNames[symbol] = Utf8Codec.decode(data, symbolOffsets[symbol], symbolLengths[symbol]);
+        return symbolNames[symbol];
+    }
+
+    /** Returns the current value as a boolean */
+    public boolean asBool() {
+        return token == Token.BOOL && longValue != 0;
+    }
+
+    /** Returns the current value as a long, or 0 if it is not a number */
+    public long asLong() {
+        if (token == Token.LONG) return longValue;
+        if (token == Token.DOUBLE) return (long)decode_double(longValue);
+        return 0;
+    }
+
+    /** Returns the current value as a double, or 0 if it is not a number */
+    public double asDouble() {
+        if (token == Token.DOUBLE) return decode_double(longValue);
+        if (token == Token.LONG) return longValue;
+        return 0;
+    }
+
+    /** Returns the current string value, or the empty string if it is not a string */
+    public String asString() {
+        return token == Token.STRING ? Utf8Codec.decode(data, valueOffset, valueLength) : "";
+    }
+
+    /** Returns a copy of the current string (as utf-8) or data value, or an empty array if it is neither */
+    public byte[] asData() {
+        if (token != Token.STRING && token != Token.DATA) return new byte[0];
+        byte[] value = new byte[valueLength];
+        System.arraycopy(data, valueOffset, value, 0, valueLength);
+        return value;
+    }
+
+    /** Returns the array this is reading from, which contains the current string or data value */
+    public byte[] data() { return data; }
+
+    /** Returns the offset of the current string or data value in the array returned by {@link #data} */
+    public int valueOffset() { return valueOffset; }
+
+    /** Returns the length in bytes of the current string or data value */
+    public int valueLength() {
+        return token == Token.STRING || token == Token.DATA ? valueLength : 0;
+    }
+
+    private void readSymbolTable() {
+        int count = checkedSize(readCompressedLong());
+        if (count > symbolOffsets.length) {
+            symbolOffsets = new int[count];
+            symbolLengths = new int[count];
+            symbolNames = new String[count];
+        }
+        else {
+            Arrays.fill(symbolNames, 0, symbolCount, null);
+        }
+        for (int i = 0; i < count; i++) {
+            symbolLengths[i] = checkedSize(readCompressedLong());
+            symbolOffsets[i] = position;
+            skip(symbolLengths[i]);
+        }
+        symbolCount = count;
+    }
+
+    private void push(int size, boolean object) {
+        if (depth == remaining.length) {
+            int[] newRemaining = new int[depth * 2];
+            boolean[] newIsObject = new boolean[depth * 2];
+            System.arraycopy(remaining, 0, newRemaining, 0, depth);
+            System.arraycopy(isObject, 0, newIsObject, 0, depth);
+            remaining = newRemaining;
+            isObject = newIsObject;
+        }
+        remaining[depth] = size;
+        isObject[depth] = object;
+        depth++;
+    }
+
+    private int checkSymbol(long symbol) {
+        if (symbol >= symbolCount)
+            throw new IllegalArgumentException("Symbol " + symbol + " at position " + position +
+                                               " is not in the symbol table");
+        return (int)symbol;
+    }
+
+    private int checkedSize(long size) {
+        if (size > end - position)
+            throw new IllegalArgumentException("Size " + size + " at position " + position +
+                                               " exceeds the remaining data");
+        return (int)size;
+    }
+
+    private byte readByte() {
+        if (position >= end)
+            throw new IllegalArgumentException("Unexpected end of data at position " + position);
+        return data[position++];
+    }
+
+    private void skip(int bytes) {
+        if (position + bytes > end)
+            throw new IllegalArgumentException("Unexpected end of data at position " + position);
+        position += bytes;
+    }
+
+    private long readCompressedLong() {
+        long next = readByte();
+        long value = (next & 0x7f);
+        int shift = 7;
+        while ((next & 0x80) != 0) {
+            next = readByte();
+            value |= ((next & 0x7f) << shift);
+            shift += 7;
+        }
+        return value;
+    }
+
+    private long readSize(int meta) {
+        return (meta == 0) ? readCompressedLong() : (meta - 1);
+    }
+
+    private long readBytesLittleEndian(int bytes) {
+        long value = 0;
+        int shift = 0;
+        for (int i = 0; i < bytes; ++i) {
+            long b = readByte();
+            value |= (b & 0xff) << shift;
+            shift += 8;
+        }
+        return value;
+    }
+
+    private long readBytesBigEndian(int bytes) {
+        long value = 0;
+        int shift = 56;
+        for (int i = 0; i < bytes; ++i) {
+            long b = readByte();
+            value |= (b & 0xff) << shift;
+            shift -= 8;
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,350 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only view of Slime binary data, which is inspected in place instead of being decoded into
+ * a Slime object. The data is read once, by a {@link BinaryReader}, into an index of primitive arrays
+ * holding the type and position of each value, such that no object is created per value until it is inspected.
+ * String and data values are decoded from the binary data when they are accessed.
+ * <p>
+ * The binary data must not be modified while it is inspected. Inspectors of a view are multithread safe.
+ */
+public final class BinaryView {
+
+    private final byte[] data;
+
+    /** The offset in data where the symbol table starts */
+    private final int symbolTableOffset;
+
+    private final String[] symbolNames;
+    private final Map<String, Integer> symbols;
+
+    /** The type of each value, in the order they are encoded */
+    private final byte[] types;
+
+    /**
+     * The content of each value: The value of a bool or long, the bits of a double, the offset (high bits)
+     * and length (low bits) of a string or data value, and the offset in children (high bits) and number of children
+     * (low bits) of an array or object
+     */
+    private final long[] contents;
+
+    /** The symbol of the field name of each value, or -1 if it is not a field */
+    private final int[] fieldSymbols;
+
+    /** The offsets in data where the encoding of each value starts and ends */
+    private final int[] starts;
+    private final int[] ends;
+
+    /** The indexes of the children of each array or object, where the children of each are consecutive */
+    private final int[] children;
+
+    private BinaryView(byte[] data, int offset, int length) {
+        this.data = data;
+        this.symbolTableOffset = offset;
+        BinaryReader reader = new BinaryReader(data, offset, length);
+
+        symbolNames = new String[reader.symbols()];
+        symbols = new HashMap<>();
+        for (int i = 0; i < symbolNames.length; i++) {
+            symbolNames[i] = reader.symbolName(i);
+            symbols.put(symbolNames[i], i);
+        }
+
+        Index index = new Index(Math.max(16, length / 8));
+        int[] containers = new int[16]; // the index of the array or object open at each depth
+        int[] nextChild = new int[16]; // the position in children of the next child of each open array or object
+        for (BinaryReader.Token token = reader.next(); token != BinaryReader.Token.END; token = reader.next()) {
+            if (token == BinaryReader.Token.END_ARRAY || token == BinaryReader.Token.END_OBJECT) {
+                index.ends[containers[reader.depth()]] = reader.position();
+                continue;
+            }
+
+            boolean isContainer = token == BinaryReader.Token.START_ARRAY || token == BinaryReader.Token.START_OBJECT;
+            int parentDepth = reader.depth() - (isContainer ? 2 : 1);
+            int value = index.add(reader);
+            if (parentDepth >= 0)
+                index.children[nextChild[parentDepth]++] = value;
+            if (isContainer) {
+                int depth = reader.depth() - 1;
+                if (depth == containers.length) {
+                    containers = Arrays.copyOf(containers, depth * 2);
+                    nextChild = Arrays.copyOf(nextChild, depth * 2);
+                }
+                containers[depth] = value;
+                nextChild[depth] = index.addChildren(value, reader.children());
+            }
+        }
+
+        types = index.types;
+        contents = index.contents;
+        fieldSymbols = index.fieldSymbols;
+        starts = index.starts;
+        ends = index.ends;
+        children = index.children;
+    }
+
+    /**
+     * Returns an inspector of the root value of the given Slime binary data
+     *
+     * @throws IllegalArgumentException if the data is not valid Slime binary data
+     */
+    public static Inspector inspect(byte[] data) {
+        return inspect(data, 0, data.length);
+    }
+
+    /**
+     * Returns an inspector of the root value of the Slime binary data in the given range of an array
+     *
+     * @throws IllegalArgumentException if the data is not valid Slime binary data
+     */
+    public static Inspector inspect(byte[] data, int offset, int length) {
+        return new BinaryView(data, offset, length).inspect(0);
+    }
+
+    /**
+     * Returns the given value, which must be inspected by a binary view, in binary format as the root value
+     * of new Slime binary data. This copies the binary data of the value instead of encoding it again.
+     *
+     * @throws IllegalArgumentException if the value is not inspected by a binary view
+     */
+    public static byte[] encode(Inspector value) {
+        if ( ! (value instanceof View))
+            throw new IllegalArgumentException("Expected a value inspected by a binary view, got " + value);
+        View view = (View)value;
+        BinaryView owner = view.owner();
+        int symbolTableLength = owner.starts[0] - owner.symbolTableOffset;
+        int valueLength = owner.ends[view.index] - owner.starts[view.index];
+        byte[] encoded = new byte[symbolTableLength + valueLength];
+        System.arraycopy(owner.data, owner.symbolTableOffset, encoded, 0, symbolTableLength);
+        System.arraycopy(owner.data, owner.starts[view.index], encoded, symbolTableLength, valueLength);
+        return encoded;
+    }
+
+    private Inspector inspect(int index) { return new View(index); }
+
+    private Type type(int index) { return Type.asType(types[index]); }
+
+    private int childCount(int index) {
+        Type type = type(index);
+        return type == Type.ARRAY || type == Type.OBJECT ? (int)contents[index] : 0;
+    }
+
+    private int firstChild(int index) { return (int)(contents[index] >>> 32); }
+
+    private int offset(int index) { return (int)(contents[index] >>> 32); }
+
+    private int length(int index) { return (int)contents[index]; }
+
+    private byte[] copy(int index) {
+        byte[] copy = new byte[length(index)];
+        System.arraycopy(data, offset(index), copy, 0, copy.length);
+        return copy;
+    }
+
+    /** An inspector of a value of this view */
+    private final class View implements Inspector {
+
+        private final int index;
+
+        View(int index) {
+            this.index = index;
+        }
+
+        BinaryView owner() { return BinaryView.this; }
+
+        @Override
+        public boolean valid() { return true; }
+
+        @Override
+        public Type type() { return BinaryView.this.type(index); }
+
+        @Override
+        public int children() { return childCount(index); }
+
+        @Override
+        public int entries() { return type() == Type.ARRAY ? childCount(index) : 0; }
+
+        @Override
+        public int fields() { return type() == Type.OBJECT ? childCount(index) : 0; }
+
+        @Override
+        public boolean asBool() { return type() == Type.BOOL && contents[index] != 0; }
+
+        @Override
+        public long asLong() {
+            switch (type()) {
+                case LONG: return contents[index];
+                case DOUBLE: return (long)Double.longBitsToDouble(contents[index]);
+                default: return 0;
+            }
+        }
+
+        @Override
+        public double asDouble() {
+            switch (type()) {
+                case LONG: return contents[index];
+                case DOUBLE: return Double.longBitsToDouble(contents[index]);
+                default: return 0;
+            }
+        }
+
+        @Override
+        public String asString() {
+            return type() == Type.STRING ? Utf8Codec.decode(data, offset(index), length(index)) : "";
+        }
+
+        @Override
+        public byte[] asUtf8() { return type() == Type.STRING ? copy(index) : new byte[0]; }
+
+        @Override
+        public byte[] asData() { return type() == Type.DATA ? copy(index) : new byte[0]; }
+
+        @Override
+        public void accept(Visitor v) {
+            switch (type()) {
+                case NIX: v.visitNix(); break;
+                case BOOL: v.visitBool(asBool()); break;
+                case LONG: v.visitLong(asLong()); break;
+                case DOUBLE: v.visitDouble(asDouble()); break;
+                case STRING: v.visitString(asUtf8()); break;
+                case DATA: v.visitData(asData()); break;
+                case ARRAY: v.visitArray(this); break;
+                case OBJECT: v.visitObject(this); break;
+            }
+        }
+
+        @Override
+        public void traverse(ArrayTraverser at) {
+            if (type() != Type.ARRAY) return;
+            for (int i = 0; i < childCount(index); i++)
+                at.entry(i, inspect(children[firstChild(index) + i]));
+        }
+
+        @Override
+        public void traverse(ObjectSymbolTraverser ot) {
+            if (type() != Type.OBJECT) return;
+            for (int i = 0; i < childCount(index); i++) {
+                int child = children[firstChild(index) + i];
+                ot.field(fieldSymbols[child], inspect(child));
+            }
+        }
+
+        @Override
+        public void traverse(ObjectTraverser ot) {
+            if (type() != Type.OBJECT) return;
+            for (int i = 0; i < childCount(index); i++) {
+                int child = children[firstChild(index) + i];
+                ot.field(symbolNames[fieldSymbols[child]], inspect(child));
+            }
+        }
+
+        @Override
+        public Inspector entry(int idx) {
+            if (type() != Type.ARRAY || idx < 0 || idx >= childCount(index)) return NixValue.invalid();
+            return inspect(children[firstChild(index) + idx]);
+        }
+
+        @Override
+        public Inspector field(int sym) {
+            if (type() != Type.OBJECT) return NixValue.invalid();
+            for (int i = 0; i < childCount(index); i++) {
+                int child = children[firstChild(index) + i];
+                if (fieldSymbols[child] == sym) return inspect(child);
+            }
+            return NixValue.invalid();
+        }
+
+        @Override
+        public Inspector field(String name) {
+            Integer symbol = symbols.get(name);
+            return symbol == null ? NixValue.invalid() : field(symbol);
+        }
+
+        @Override
+        public String toString() {
+            try {
+                ByteArrayOutputStream json = new ByteArrayOutputStream();
+                new JsonFormat(true).encode(json, this);
+                byte[] utf8 = json.toByteArray();
+                return Utf8Codec.decode(utf8, 0, utf8.length);
+            } catch (Exception e) {
+                return "null";
+            }
+        }
+
+    }
+
+    /** The index of the values of a view, while it is built */
+    private static final class Index {
+
+        byte[] types;
+        long[] contents;
+        int[] fieldSymbols;
+        int[] starts;
+        int[] ends;
+        int size = 0;
+
+        int[] children = new int[16];
+        int childrenSize = 0;
+
+        Index(int capacity) {
+            types = new byte[capacity];
+            contents = new long[capacity];
+            fieldSymbols = new int[capacity];
+            starts = new int[capacity];
+            ends = new int[capacity];
+        }
+
+        /** Adds the current value of the given reader, and returns its index */
+        int add(BinaryReader reader) {
+            if (size == types.length) grow();
+            switch (reader.token()) {
+                case NIX: types[size] = Type.NIX.ID; break;
+                case BOOL: types[size] = Type.BOOL.ID; contents[size] = reader.asBool() ? 1 : 0; break;
+                case LONG: types[size] = Type.LONG.ID; contents[size] = reader.asLong(); break;
+                case DOUBLE:
+                    types[size] = Type.DOUBLE.ID;
+                    contents[size] = Double.doubleToRawLongBits(reader.asDouble());
+                    break;
+                case STRING: case DATA:
+                    types[size] = reader.token() == BinaryReader.Token.STRING ? Type.STRING.ID : Type.DATA.ID;
+                    contents[size] = ((long)reader.valueOffset() << 32) | reader.valueLength();
+                    break;
+                case START_ARRAY: types[size] = Type.ARRAY.ID; break; // contents are set by addChildren
+                case START_OBJECT: types[size] = Type.OBJECT.ID; break;
+                default: throw new IllegalStateException("Unexpected token " + reader.token());
+            }
+            fieldSymbols[size] = reader.fieldSymbol();
+            starts[size] = reader.tokenOffset();
+            ends[size] = reader.position();
+            return size++;
+        }
+
+        /** Reserves room for the given number of children of the given value, and returns the position of the first */
+        int addChildren(int value, int count) {
+            if (childrenSize + count > children.length)
+                children = Arrays.copyOf(children, Math.max(children.length * 2, childrenSize + count));
+            int first = childrenSize;
+            contents[value] = ((long)first << 32) | count;
+            childrenSize += count;
+            return first;
+        }
+
+        private void grow() {
+            int capacity = types.length * 2;
+            types = Arrays.copyOf(types, capacity);
+            contents = Arrays.copyOf(contents, capacity);
+            fieldSymbols = Arrays.copyOf(fieldSymbols, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+
+    }
+
+}
@@ -0,0 +1,63 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A reusable writer of Slime objects to binary format, which writes into the same buffer each time,
+ * such that encoding many objects does not allocate new buffers. The buffer may be supplied by the caller,
+ * and is replaced by a larger buffer if it is too small. The data written last is available in
+ * the range [0, length()) of {@link #buffer()} until the next write.
+ *
+ * This is not multithread safe.
+ */
+public final class BinaryWriter {
+
+    private final BufferedOutput output;
+    private final BinaryEncoder encoder;
+    private int length = 0;
+
+    /** Creates a writer with a buffer which initially holds 4096 bytes */
+    public BinaryWriter() {
+        this(new byte[4096]);
+    }
+
+    /** Creates a writer which will write into the given buffer as long as it is large enough */
+    public BinaryWriter(byte[] buffer) {
+        this.output = new BufferedOutput(buffer);
+        this.encoder = new BinaryEncoder(output);
+    }
+
+    /** Writes a Slime object, and returns the number of bytes written */
+    public int write(Slime slime) {
+        return write(slime, slime.get());
+    }
+
+    /**
+     * Writes a value inside a Slime object as the root value of a new Slime object,
+     * and returns the number of bytes written
+     */
+    public int write(Slime slime, Inspector value) {
+        length = encoder.encodeInPlace(slime, value);
+        return length;
+    }
+
+    /** Returns the buffer of this, which holds the data written last in the range [0, length()) */
+    public byte[] buffer() { return output.buffer(); }
+
+    /** Returns the number of bytes written last */
+    public int length() { return length; }
+
+    /** Returns a copy of the data written last */
+    public byte[] toArray() { return output.toArray(); }
+
+    /**
+     * Copies the data written last into the given buffer at its position, and advances its position
+     *
+     * @throws java.nio.BufferOverflowException if there is insufficient space in the buffer
+     */
+    public void writeTo(ByteBuffer target) {
+        target.put(output.buffer(), 0, length);
+    }
+
+}
@@ -75,9 +75,8 @@ final class BufferedInput {
             return new byte[0];
         }
         byte[] ret = new byte[size];
-        for (int i = 0; i < size; i++) {
-            ret[i] = source[position++];
-        }
+        System.arraycopy(source, position, ret, 0, size);
+        position += size;
         return ret;
     }
 }
@@ -16,6 +16,12 @@ final class BufferedOutput {
         this(4096);
     }
 
+    /** Creates an output writing to the given buffer until it is full, and to a larger copy after that */
+    public BufferedOutput(byte[] buffer) {
+        buf = buffer;
+        capacity = buffer.length;
+    }
+
     public void reset() {
         pos = 0;
     }
@@ -23,7 +29,7 @@ final class BufferedOutput {
     private void reserve(int bytes) {
         if (pos + bytes > capacity) {
             while (pos + bytes > capacity) {
-                capacity = capacity * 2;
+                capacity = Math.max(64, capacity * 2);
             }
             byte[] tmp = new byte[capacity];
             System.arraycopy(buf, 0, tmp, 0, pos);
@@ -43,12 +49,18 @@ final class BufferedOutput {
     }
 
     final void put(byte[] bytes) {
-        reserve(bytes.length);
-        for (byte b : bytes) {
-            buf[pos++] = b;
-        }
+        put(bytes, 0, bytes.length);
     }
 
+    final void put(byte[] bytes, int offset, int length) {
+        reserve(length);
+        System.arraycopy(bytes, offset, buf, pos, length);
+        pos += length;
+    }
+
+    /** Returns the buffer this is currently writing to, which holds the output in the range [0, position()) */
+    final byte[] buffer() { return buf; }
+
     public byte[] toArray() {
         byte[] ret = new byte[pos];
         System.arraycopy(buf, 0, ret, 0, pos);
@@ -262,6 +262,20 @@ public interface Cursor extends Inspector {
      **/
     public Cursor setData(String name, byte[] data);
 
+    /**
+     * Set a field (identified with a symbol name) to contain a new
+     * value of DATA type, holding a range of the given array. The
+     * array is referenced, not copied, so it must not be changed
+     * while this value is in use. Binary encoding writes the range
+     * directly, while asData returns a copy of it.
+     * @param name symbol name for the field to be set
+     * @param data the array holding the data to be put into the new field
+     * @param offset the start of the data in the array
+     * @param length the number of bytes of data
+     * @return new Cursor for the new field value
+     **/
+    public Cursor setData(String name, byte[] data, int offset, int length);
+
     /**
      * Set a field (identified with a symbol name) to contain a new
      * value of ARRAY type.  Returns a valid Cursor (thay may again be
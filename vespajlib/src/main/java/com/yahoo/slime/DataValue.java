@@ -1,17 +1,42 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.slime;
 
+import java.util.Arrays;
+
 final class DataValue extends Value {
     private final byte[] value;
-    private DataValue(byte[] value) { this.value = value; }
+    private final int offset;
+    private final int length;
+    private DataValue(byte[] value, int offset, int length) {
+        this.value = value;
+        this.offset = offset;
+        this.length = length;
+    }
     public static Value create(byte[] value) {
         if (value == null) {
             return NixValue.instance();
         } else {
-            return new DataValue(value);
+            return new DataValue(value, 0, value.length);
+        }
+    }
+    public static Value create(byte[] value, int offset, int length) {
+        if (value == null) {
+            return NixValue.instance();
+        } else {
+            if (offset < 0 || length < 0 || offset + length > value.length) {
+                throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length) +
+                                                    ") is outside data of length " + value.length);
+            }
+            return new DataValue(value, offset, length);
         }
     }
     public final Type type() { return Type.DATA; }
-    public final byte[] asData() { return this.value; }
-    public final void accept(Visitor v) { v.visitData(value); }
+    public final byte[] asData() {
+        if (offset == 0 && length == value.length) return value;
+        return Arrays.copyOfRange(value, offset, offset + length);
+    }
+    public final void accept(Visitor v) { v.visitData(asData()); }
+
+    /** Writes the data of this without copying it into an array of its own first */
+    final void encode(BinaryEncoder encoder) { encoder.encodeDATA(value, offset, length); }
 }
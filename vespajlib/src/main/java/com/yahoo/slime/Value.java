@@ -70,6 +70,9 @@ abstract class Value implements Cursor {
     public final Cursor setString(String name, String str) { return setLeaf(name, StringValue.create(str)); }
     public final Cursor setString(String name, byte[] utf8) { return setLeaf(name, Utf8Value.create(utf8)); }
     public final Cursor setData(String name, byte[] data) { return setLeaf(name, DataValue.create(data)); }
+    public final Cursor setData(String name, byte[] data, int offset, int length) {
+        return setLeaf(name, DataValue.create(data, offset, length));
+    }
 
     public final String toString() {
         try {
@@ -16,6 +16,7 @@ import java.util.Set;
 
 /**
  * An indexed (dense) tensor backed by a double array.
+ * Tensors of types with float values are instances of a subclass storing floats.
  *
  * @author bratseth
  */
@@ -27,9 +28,10 @@ public class IndexedTensor implements Tensor {
     /** The sizes of the dimensions of this in the order of the dimensions of the type */
     private final DimensionSizes dimensionSizes;
 
+    /** The cell values, or null if they are stored by a subclass */
     private final double[] values;
 
-    private IndexedTensor(TensorType type, DimensionSizes dimensionSizes, double[] values) {
+    IndexedTensor(TensorType type, DimensionSizes dimensionSizes, double[] values) {
         this.type = type;
         this.dimensionSizes = dimensionSizes;
         this.values = values;
@@ -101,7 +103,7 @@ public class IndexedTensor implements Tensor {
      * @throws IndexOutOfBoundsException if any of the indexes are out of bound or a wrong number of indexes are given
      */
     public double get(long ... indexes) {
-        return values[(int)toValueIndex(indexes, dimensionSizes)];
+        return get(toValueIndex(indexes, dimensionSizes));
     }
 
     /** Returns the value at this address, or NaN if there is no value at this address */
@@ -109,16 +111,23 @@ public class IndexedTensor implements Tensor {
     public double get(TensorAddress address) {
         // optimize for fast lookup within bounds:
         try {
-            return values[(int)toValueIndex(address, dimensionSizes)];
+            return get(toValueIndex(address, dimensionSizes));
         }
         catch (IndexOutOfBoundsException e) {
             return Double.NaN;
         }
     }
 
-    private double get(long valueIndex) { return values[(int)valueIndex]; }
+    /**
+     * Returns the value at the given index in the internal layout of the cells of this, where the last dimension
+     * varies fastest. This requires knowledge of the internal layout of cells in this implementation, but allows
+     * dense computations to access all the cells of a tensor without creating addresses or boxing values.
+     *
+     * @throws IndexOutOfBoundsException if the index is not smaller than the size of this
+     */
+    public double get(long valueIndex) { return values[(int)valueIndex]; }
 
-    private static long toValueIndex(long[] indexes, DimensionSizes sizes) {
+    static long toValueIndex(long[] indexes, DimensionSizes sizes) {
         if (indexes.length == 1) return indexes[0]; // for speed
         if (indexes.length == 0) return 0; // for speed
 
@@ -145,7 +154,7 @@ public class IndexedTensor implements Tensor {
         return valueIndex;
     }
 
-    private static long productOfDimensionsAfter(int afterIndex, DimensionSizes sizes) {
+    static long productOfDimensionsAfter(int afterIndex, DimensionSizes sizes) {
         long product = 1;
         for (int i = afterIndex + 1; i < sizes.dimensions(); i++)
             product *= sizes.size(i);
@@ -162,13 +171,13 @@ public class IndexedTensor implements Tensor {
     @Override
     public Map<TensorAddress, Double> cells() {
         if (dimensionSizes.dimensions() == 0)
-            return Collections.singletonMap(TensorAddress.of(), values[0]);
+            return Collections.singletonMap(TensorAddress.of(), get(0));
 
         ImmutableMap.Builder<TensorAddress, Double> builder = new ImmutableMap.Builder<>();
-        Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, values.length);
-        for (long i = 0; i < values.length; i++) {
+        Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, size());
+        for (long i = 0; i < size(); i++) {
             indexes.next();
-            builder.put(indexes.toAddress(), values[(int)i]);
+            builder.put(indexes.toAddress(), get(i));
         }
         return builder.build();
     }
@@ -195,7 +204,7 @@ public class IndexedTensor implements Tensor {
 
         public static Builder of(TensorType type) {
             if (type.dimensions().stream().allMatch(d -> d instanceof TensorType.IndexedBoundDimension))
-                return new BoundBuilder(type);
+                return of(type, BoundBuilder.dimensionSizesOf(type));
             else
                 return new UnboundBuilder(type);
         }
@@ -218,7 +227,10 @@ public class IndexedTensor implements Tensor {
                                                        " but cannot be larger than " + size.get() + " in " + type);
             }
 
-            return new BoundBuilder(type, sizes);
+            switch (type.valueType()) {
+                case FLOAT: return new IndexedFloatTensor.BoundFloatBuilder(type, sizes);
+                default: return new BoundBuilder(type, sizes);
+            }
         }
 
         public abstract Builder cell(double value, long ... indexes);
@@ -231,16 +243,12 @@ public class IndexedTensor implements Tensor {
 
     }
 
-    /** A bound builder can create the double array directly */
+    /** A bound builder can create the array of values directly */
     public static class BoundBuilder extends Builder {
 
         private DimensionSizes sizes;
         private double[] values;
 
-        private BoundBuilder(TensorType type) {
-            this(type, dimensionSizesOf(type));
-        }
-
         static DimensionSizes dimensionSizesOf(TensorType type) {
             DimensionSizes.Builder b = new DimensionSizes.Builder(type.dimensions().size());
             for (int i = 0; i < type.dimensions().size(); i++)
@@ -249,16 +257,28 @@ public class IndexedTensor implements Tensor {
         }
 
         private BoundBuilder(TensorType type, DimensionSizes sizes) {
+            this(type, sizes, new double[(int)sizes.totalSize()]);
+        }
+
+        /** Creates a builder which stores values in the given array, or in a subclass if it is null */
+        BoundBuilder(TensorType type, DimensionSizes sizes, double[] values) {
             super(type);
             if ( sizes.dimensions() != type.dimensions().size())
                 throw new IllegalArgumentException("Must have a dimension size entry for each dimension in " + type);
             this.sizes = sizes;
-            values = new double[(int)sizes.totalSize()];
+            this.values = values;
+        }
+
+        /** Returns the sizes of the tensor built by this, and prevents further modification of this */
+        DimensionSizes releaseSizes() {
+            DimensionSizes sizes = this.sizes;
+            this.sizes = null;
+            return sizes;
         }
 
         @Override
         public BoundBuilder cell(double value, long ... indexes) {
-            values[(int)toValueIndex(indexes, sizes)] = value;
+            cellByDirectIndex(toValueIndex(indexes, sizes), value);
             return this;
         }
 
@@ -269,24 +289,15 @@ public class IndexedTensor implements Tensor {
 
         @Override
         public Builder cell(TensorAddress address, double value) {
-            values[(int)toValueIndex(address, sizes)] = value;
+            cellByDirectIndex(toValueIndex(address, sizes), value);
             return this;
         }
 
-        @Override
-        public IndexedTensor build() {
-            IndexedTensor tensor = new IndexedTensor(type, sizes, values);
-            // prevent further modification
-            sizes = null;
-            values = null;
-            return tensor;
-        }
-
         @Override
         public Builder cell(Cell cell, double value) {
             long directIndex = cell.getDirectIndex();
             if (directIndex >= 0) // optimization
-                values[(int)directIndex] = value;
+                cellByDirectIndex(directIndex, value);
             else
                 super.cell(cell, value);
             return this;
@@ -301,6 +312,14 @@ public class IndexedTensor implements Tensor {
             values[(int)index] = value;
         }
 
+        @Override
+        public IndexedTensor build() {
+            IndexedTensor tensor = new IndexedTensor(type, releaseSizes(), values);
+            // prevent further modification
+            values = null;
+            return tensor;
+        }
+
     }
 
     /**
@@ -321,12 +340,19 @@ public class IndexedTensor implements Tensor {
             if (firstDimension == null) throw new IllegalArgumentException("Tensor of type " + type() + " has no values");
 
             if (type.dimensions().isEmpty()) // single number
-                return new IndexedTensor(type, new DimensionSizes.Builder(type.dimensions().size()).build(), new double[] {(Double) firstDimension.get(0) });
+                return create(new DimensionSizes.Builder(type.dimensions().size()).build(), new double[] {(Double) firstDimension.get(0) });
 
             DimensionSizes dimensionSizes = findDimensionSizes(firstDimension);
             double[] values = new double[(int)dimensionSizes.totalSize()];
             fillValues(0, 0, firstDimension, dimensionSizes, values);
-            return new IndexedTensor(type, dimensionSizes, values);
+            return create(dimensionSizes, values);
+        }
+
+        private IndexedTensor create(DimensionSizes dimensionSizes, double[] values) {
+            switch (type.valueType()) {
+                case FLOAT: return new IndexedFloatTensor(type, dimensionSizes, IndexedFloatTensor.toFloats(values));
+                default: return new IndexedTensor(type, dimensionSizes, values);
+            }
         }
 
         private DimensionSizes findDimensionSizes(List<Object> firstDimension) {
@@ -433,7 +459,7 @@ public class IndexedTensor implements Tensor {
     private final class CellIterator implements Iterator<Cell> {
 
         private long count = 0;
-        private final Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, values.length);
+        private final Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, size());
         private final LazyCell reusedCell = new LazyCell(indexes, Double.NaN);
 
         @Override
@@ -458,13 +484,13 @@ public class IndexedTensor implements Tensor {
 
         @Override
         public boolean hasNext() {
-            return count < values.length;
+            return count < size();
         }
 
         @Override
         public Double next() {
             try {
-                return values[(int)count++];
+                return get(count++);
             }
             catch (IndexOutOfBoundsException e) {
                 throw new NoSuchElementException("No element at position " + count);
@@ -272,7 +272,7 @@ public class MixedTensor implements Tensor {
         }
 
         public TensorType createBoundType() {
-            TensorType.Builder typeBuilder = new TensorType.Builder();
+            TensorType.Builder typeBuilder = new TensorType.Builder(type.valueType());
             for (int i = 0; i < type.dimensions().size(); ++i) {
                 TensorType.Dimension dimension = type.dimensions().get(i);
                 if (!dimension.isIndexed()) {
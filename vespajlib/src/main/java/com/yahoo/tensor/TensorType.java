@@ -15,22 +15,70 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
- * A tensor type with its dimensions. This is immutable.
+ * A tensor type with its dimensions and the type of its cell values. This is immutable.
  * <p>
  * A dimension can be indexed (bound or unbound) or mapped.
+ * <p>
+ * Cell values are doubles unless another value type is specified. Tensors of other value types
+ * are computed as doubles but store and serialize their cells in the more compact type.
  *
  * @author geirst
  * @author bratseth
  */
 public class TensorType {
 
+    /** The value type of the cells of a tensor */
+    public enum Value {
+
+        // Note: Id's are written to serialized data and must not change
+        DOUBLE("double", 0), FLOAT("float", 1);
+
+        private final String name;
+        private final int id;
+
+        Value(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+
+        /** Returns the id of this value type, used to identify it in serialized data */
+        public int id() { return id; }
+
+        /** Returns the value type which is able to represent the values of both the given types */
+        public static Value largestOf(Value a, Value b) {
+            return a == DOUBLE || b == DOUBLE ? DOUBLE : FLOAT;
+        }
+
+        /** Returns the value type having this id */
+        public static Value fromId(int id) {
+            for (Value value : values())
+                if (value.id == id) return value;
+            throw new IllegalArgumentException("Tensor value type id " + id + " is unknown");
+        }
+
+        /** Returns the value type having this name */
+        public static Value fromName(String name) {
+            for (Value value : values())
+                if (value.name.equals(name)) return value;
+            throw new IllegalArgumentException("Unknown tensor value type '" + name + "'");
+        }
+
+        @Override
+        public String toString() { return name; }
+
+    }
+
     /** The empty tensor type - which is the same as a double */
-    public static final TensorType empty = new TensorType(Collections.emptyList());
+    public static final TensorType empty = new TensorType(Value.DOUBLE, Collections.emptyList());
+
+    /** The type of the cell values of this */
+    private final Value valueType;
 
     /** Sorted list of the dimensions of this */
     private final ImmutableList<Dimension> dimensions;
 
-    private TensorType(Collection<Dimension> dimensions) {
+    private TensorType(Value valueType, Collection<Dimension> dimensions) {
+        this.valueType = valueType;
         List<Dimension> dimensionList = new ArrayList<>(dimensions);
         Collections.sort(dimensionList);
         this.dimensions = ImmutableList.copyOf(dimensionList);
@@ -38,19 +86,23 @@ public class TensorType {
 
     /**
      * Returns a tensor type instance from a string on the format
-     * <code>tensor(dimension1, dimension2, ...)</code>
-     * where each dimension is either
+     * <code>tensor(dimension1, dimension2, ...)</code> or <code>tensor&lt;value-type&gt;(dimension1, ...)</code>,
+     * where value-type is <code>double</code> (the default) or <code>float</code>,
+     * and each dimension is either
      * <ul>
      *     <li><code>dimension-name[]</code> - an unbound indexed dimension
      *     <li><code>dimension-name[int]</code> - an bound indexed dimension
      *     <li><code>dimension-name{}</code> - a mapped dimension
      * </ul>
-     * Example: <code>tensor(x[10],y[20])</code> (a matrix)
+     * Example: <code>tensor(x[10],y[20])</code> (a matrix), <code>tensor&lt;float&gt;(x[256])</code> (a float vector)
      */
     public static TensorType fromSpec(String specString) {
         return TensorTypeParser.fromSpec(specString);
     }
 
+    /** Returns the type of the cell values of this */
+    public Value valueType() { return valueType; }
+
     /** Returns the number of dimensions of this: dimensions().size() */
     public int rank() { return dimensions.size(); }
 
@@ -85,6 +137,7 @@ public class TensorType {
     /**
      * Returns whether this type can be assigned to the given type,
      * i.e if the given type is a generalization of this type.
+     * The value types are not considered, as cell values are converted to the value type assigned to.
      */
     public boolean isAssignableTo(TensorType generalization) {
         return isConvertibleOrAssignableTo(generalization, false);
@@ -123,17 +176,18 @@ public class TensorType {
 
     @Override
     public String toString() {
-        return "tensor(" + dimensions.stream().map(Dimension::toString).collect(Collectors.joining(",")) + ")";
+        return "tensor" + (valueType == Value.DOUBLE ? "" : "<" + valueType + ">") +
+               "(" + dimensions.stream().map(Dimension::toString).collect(Collectors.joining(",")) + ")";
     }
 
     @Override
     public boolean equals(Object other) {
         if (this == other) return true;
         if (other == null || getClass() != other.getClass()) return false;
-        return dimensions.equals(((TensorType)other).dimensions);
+        return valueType == ((TensorType)other).valueType && dimensions.equals(((TensorType)other).dimensions);
     }
 
-    /** Returns whether the given type has the same dimension names as this */
+    /** Returns whether the given type has the same dimension names as this. Value types are not considered. */
     public boolean mathematicallyEquals(TensorType other) {
         if (dimensions().size() != other.dimensions().size()) return false;
         for (int i = 0; i < dimensions().size(); i++)
@@ -151,7 +205,7 @@ public class TensorType {
         if (this.equals(other)) return Optional.of(this); // shortcut
         if (this.dimensions.size() != other.dimensions.size()) return Optional.empty();
 
-        Builder b = new Builder();
+        Builder b = new Builder(Value.largestOf(this.valueType, other.valueType));
         for (int i = 0; i < dimensions.size(); i++) {
             Dimension thisDim = this.dimensions().get(i);
             Dimension otherDim = other.dimensions().get(i);
@@ -184,7 +238,7 @@ public class TensorType {
 
     @Override
     public int hashCode() {
-        return dimensions.hashCode();
+        return 31 * dimensions.hashCode() + valueType.hashCode();
     }
 
     /**
@@ -364,8 +418,16 @@ public class TensorType {
 
         private final Map<String, Dimension> dimensions = new LinkedHashMap<>();
 
-        /** Creates an empty builder */
+        private Value valueType;
+
+        /** Creates an empty builder of a type having double values */
         public Builder() {
+            this(Value.DOUBLE);
+        }
+
+        /** Creates an empty builder of a type having the given value type */
+        public Builder(Value valueType) {
+            this.valueType = valueType;
         }
 
         /**
@@ -374,16 +436,28 @@ public class TensorType {
          * If the same dimension is indexed with different size restrictions the largest size will be used.
          * If it is size restricted in one argument but not the other it will not be size restricted.
          * If it is indexed in one and mapped in the other it will become mapped.
+         * The value type will be the largest of the value types of the given types.
          */
         public Builder(TensorType ... types) {
-            for (TensorType type : types)
+            this.valueType = types.length == 0 ? Value.DOUBLE : types[0].valueType();
+            for (TensorType type : types) {
+                valueType = Value.largestOf(valueType, type.valueType());
                 addDimensionsOf(type);
+            }
         }
 
         /**
-         * Creates a builder from the given dimensions.
+         * Creates a builder of a type having double values from the given dimensions.
          */
         public Builder(Iterable<Dimension> dimensions) {
+            this(Value.DOUBLE, dimensions);
+        }
+
+        /**
+         * Creates a builder of a type having the given value type from the given dimensions.
+         */
+        public Builder(Value valueType, Iterable<Dimension> dimensions) {
+            this.valueType = valueType;
             for (TensorType.Dimension dimension : dimensions) {
                 dimension(dimension);
             }
@@ -481,8 +555,17 @@ public class TensorType {
             return this;
         }
 
+        /** Sets the value type of the type built by this */
+        public Builder valueType(Value valueType) {
+            this.valueType = valueType;
+            return this;
+        }
+
+        /** Returns the value type of the type built by this */
+        public Value valueType() { return valueType; }
+
         public TensorType build() {
-            return new TensorType(dimensions.values());
+            return new TensorType(valueType, dimensions.values());
         }
 
     }
@@ -17,19 +17,31 @@ public class TensorTypeParser {
     private final static String START_STRING = "tensor(";
     private final static String END_STRING = ")";
 
+    private static final Pattern valueTypePattern = Pattern.compile("tensor<(\\w+)>\\(.*");
     private static final Pattern indexedPattern = Pattern.compile("(\\w+)\\[(\\d*)\\]");
     private static final Pattern mappedPattern = Pattern.compile("(\\w+)\\{\\}");
 
     public static TensorType fromSpec(String specString) {
-        return new TensorType.Builder(dimensionsFromSpec(specString)).build();
+        return new TensorType.Builder(valueTypeFromSpec(specString), dimensionsFromSpec(specString)).build();
+    }
+
+    /** Returns the value type given in a spec on the form tensor&lt;value-type&gt;(...), or double if none is given */
+    public static TensorType.Value valueTypeFromSpec(String specString) {
+        Matcher matcher = valueTypePattern.matcher(specString);
+        if ( ! matcher.matches()) return TensorType.Value.DOUBLE;
+        return TensorType.Value.fromName(matcher.group(1));
     }
 
     public static List<TensorType.Dimension> dimensionsFromSpec(String specString) {
-        if ( ! specString.startsWith(START_STRING) || !specString.endsWith(END_STRING)) {
+        String startString = START_STRING;
+        Matcher valueTypeMatcher = valueTypePattern.matcher(specString);
+        if (valueTypeMatcher.matches())
+            startString = "tensor<" + valueTypeMatcher.group(1) + ">(";
+        if ( ! specString.startsWith(startString) || !specString.endsWith(END_STRING)) {
             throw new IllegalArgumentException("Tensor type spec must start with '" + START_STRING + "'" +
                                                " and end with '" + END_STRING + "', but was '" + specString + "'");
         }
-        String dimensionsSpec = specString.substring(START_STRING.length(), specString.length() - END_STRING.length());
+        String dimensionsSpec = specString.substring(startString.length(), specString.length() - END_STRING.length());
         if (dimensionsSpec.isEmpty()) return Collections.emptyList();
 
         List<TensorType.Dimension> dimensions = new ArrayList<>();
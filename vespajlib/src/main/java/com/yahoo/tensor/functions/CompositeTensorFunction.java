@@ -20,9 +20,12 @@ public abstract class CompositeTensorFunction extends TensorFunction {
         return toPrimitive().type(context);
     }
 
-    /** Evaluates this by first converting it to a primitive function */
+    /**
+     * Evaluates this by first converting it to a primitive function.
+     * Subclasses may override this to evaluate special cases faster, but must produce the same result.
+     */
     @Override
-    public final <NAMETYPE extends TypeContext.Name> Tensor evaluate(EvaluationContext<NAMETYPE> context) {
+    public <NAMETYPE extends TypeContext.Name> Tensor evaluate(EvaluationContext<NAMETYPE> context) {
         return toPrimitive().evaluate(context);
     }
 
@@ -87,7 +87,11 @@ public class Join extends PrimitiveTensorFunction {
         if (hasSingleIndexedDimension(a) && hasSingleIndexedDimension(b) && a.type().dimensions().get(0).name().equals(b.type().dimensions().get(0).name()))
             return indexedVectorJoin((IndexedTensor)a, (IndexedTensor)b, joinedType);
         else if (joinedType.dimensions().size() == a.type().dimensions().size() && joinedType.dimensions().size() == b.type().dimensions().size())
-            return singleSpaceJoin(a, b, joinedType);
+            if (a instanceof IndexedTensor && b instanceof IndexedTensor &&
+                ((IndexedTensor)a).dimensionSizes().equals(((IndexedTensor)b).dimensionSizes()))
+                return indexedSingleSpaceJoin((IndexedTensor)a, (IndexedTensor)b, joinedType);
+            else
+                return singleSpaceJoin(a, b, joinedType);
         else if (a.type().dimensions().containsAll(b.type().dimensions()))
             return subspaceJoin(b, a, joinedType, true);
         else if (b.type().dimensions().containsAll(a.type().dimensions()))
@@ -102,11 +106,19 @@ public class Join extends PrimitiveTensorFunction {
 
     private Tensor indexedVectorJoin(IndexedTensor a, IndexedTensor b, TensorType type) {
         long joinedRank = Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
-        Iterator<Double> aIterator = a.valueIterator();
-        Iterator<Double> bIterator = b.valueIterator();
-        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type, new DimensionSizes.Builder(1).set(0, joinedRank).build());
+        IndexedTensor.BoundBuilder builder =
+                (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(type, new DimensionSizes.Builder(1).set(0, joinedRank).build());
         for (int i = 0; i < joinedRank; i++)
-            builder.cell(combinator.applyAsDouble(aIterator.next(), bIterator.next()), i);
+            builder.cellByDirectIndex(i, combinator.applyAsDouble(a.get(i), b.get(i)));
+        return builder.build();
+    }
+
+    /** When both tensors are indexed with the same dimensions and sizes, the cells can be joined in storage order */
+    private Tensor indexedSingleSpaceJoin(IndexedTensor a, IndexedTensor b, TensorType joinedType) {
+        IndexedTensor.BoundBuilder builder =
+                (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(joinedType, a.dimensionSizes());
+        for (long i = 0; i < a.size(); i++)
+            builder.cellByDirectIndex(i, combinator.applyAsDouble(a.get(i), b.get(i)));
         return builder.build();
     }
 
@@ -136,6 +148,9 @@ public class Join extends PrimitiveTensorFunction {
 
         DimensionSizes joinedSizes = joinedSize(joinedType, subspace, superspace);
 
+        if (isInnermostSubspace(subspace, superspace) && joinedSizes.equals(superspace.dimensionSizes()))
+            return indexedInnermostSubspaceJoin(subspace, superspace, joinedType, reversedArgumentOrder);
+
         IndexedTensor.Builder builder = (IndexedTensor.Builder)Tensor.Builder.of(joinedType, joinedSizes);
 
         // Find dimensions which are only in the supertype
@@ -152,6 +167,40 @@ public class Join extends PrimitiveTensorFunction {
         return builder.build();
     }
 
+    /**
+     * Returns whether the dimensions of the subspace are the innermost dimensions of the superspace, with the same sizes,
+     * such that each subspace of the superspace is a contiguous range of cells in the same order as the subspace
+     */
+    private boolean isInnermostSubspace(IndexedTensor subspace, IndexedTensor superspace) {
+        int subDimensions = subspace.type().dimensions().size();
+        int superDimensions = superspace.type().dimensions().size();
+        for (int i = 0; i < subDimensions; i++) {
+            int superIndex = superDimensions - subDimensions + i;
+            if ( ! subspace.type().dimensions().get(i).name().equals(superspace.type().dimensions().get(superIndex).name()))
+                return false;
+            if (subspace.dimensionSizes().size(i) != superspace.dimensionSizes().size(superIndex))
+                return false;
+        }
+        return true;
+    }
+
+    /** Joins a subspace which is the innermost dimensions of the superspace, e.g a vector into the rows of a matrix */
+    private Tensor indexedInnermostSubspaceJoin(IndexedTensor subspace, IndexedTensor superspace, TensorType joinedType,
+                                                boolean reversedArgumentOrder) {
+        IndexedTensor.BoundBuilder builder =
+                (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(joinedType, superspace.dimensionSizes());
+        long subspaceSize = subspace.size();
+        for (long superIndex = 0; superIndex < superspace.size(); ) {
+            for (long subIndex = 0; subIndex < subspaceSize; subIndex++, superIndex++) {
+                double joinedValue = reversedArgumentOrder
+                                     ? combinator.applyAsDouble(superspace.get(superIndex), subspace.get(subIndex))
+                                     : combinator.applyAsDouble(subspace.get(subIndex), superspace.get(superIndex));
+                builder.cellByDirectIndex(superIndex, joinedValue);
+            }
+        }
+        return builder.build();
+    }
+
     private void joinSubspaces(Iterator<Double> subspace, long subspaceSize,
                                Iterator<Tensor.Cell> superspace, long superspaceSize,
                                boolean reversedArgumentOrder, IndexedTensor.Builder builder) {
@@ -2,7 +2,12 @@
 package com.yahoo.tensor.functions;
 
 import com.google.common.collect.ImmutableList;
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.TypeContext;
 
 import java.util.List;
 
@@ -21,7 +26,7 @@ public class Matmul extends CompositeTensorFunction {
     }
 
     public static TensorType outputType(TensorType a, TensorType b, String dimension) {
-        return Join.outputType(a, b);
+        return Reduce.outputType(Join.outputType(a, b), ImmutableList.of(dimension));
     }
 
     @Override
@@ -43,6 +48,78 @@ public class Matmul extends CompositeTensorFunction {
                           dimension);
     }
 
+    /**
+     * Evaluates the dot product of two dense vectors and the product of a dense matrix and vector directly,
+     * without creating the intermediate joined tensor. Other cases are evaluated as reduce(join(...)).
+     */
+    @Override
+    public <NAMETYPE extends TypeContext.Name> Tensor evaluate(EvaluationContext<NAMETYPE> context) {
+        Tensor a = argument1.evaluate(context);
+        Tensor b = argument2.evaluate(context);
+        if (a instanceof IndexedTensor && b instanceof IndexedTensor) {
+            IndexedTensor indexedA = (IndexedTensor)a;
+            IndexedTensor indexedB = (IndexedTensor)b;
+            if (isVectorOver(indexedA) && isVectorOver(indexedB) && indexedA.size() == indexedB.size())
+                return dotProduct(indexedA, indexedB);
+            if (isVectorOver(indexedB) && isMatrixWith(indexedA, indexedB.size()))
+                return matrixVectorProduct(indexedA, indexedB);
+            if (isVectorOver(indexedA) && isMatrixWith(indexedB, indexedA.size()))
+                return matrixVectorProduct(indexedB, indexedA);
+        }
+        return new Reduce(new Join(new ConstantTensor(a), new ConstantTensor(b), ScalarFunctions.multiply()),
+                          Reduce.Aggregator.sum,
+                          dimension).evaluate(context);
+    }
+
+    private boolean isVectorOver(IndexedTensor tensor) {
+        return tensor.type().dimensions().size() == 1 && tensor.type().dimensions().get(0).name().equals(dimension);
+    }
+
+    /** Returns whether this is a matrix having the dimension of this with the given size */
+    private boolean isMatrixWith(IndexedTensor tensor, long dimensionSize) {
+        if (tensor.type().dimensions().size() != 2) return false;
+        int index = tensor.type().indexOfDimension(dimension).orElse(-1);
+        return index >= 0 && tensor.dimensionSizes().size(index) == dimensionSize;
+    }
+
+    private Tensor dotProduct(IndexedTensor a, IndexedTensor b) {
+        double sum = 0;
+        for (long i = 0; i < a.size(); i++)
+            sum += a.get(i) * b.get(i);
+        return Tensor.Builder.of(TensorType.empty).cell(sum).build();
+    }
+
+    private Tensor matrixVectorProduct(IndexedTensor matrix, IndexedTensor vector) {
+        int summedIndex = matrix.type().indexOfDimension(dimension).get();
+        int resultIndex = 1 - summedIndex;
+        long rows = matrix.dimensionSizes().size(0);
+        long columns = matrix.dimensionSizes().size(1);
+
+        TensorType.Value valueType = TensorType.Value.largestOf(matrix.type().valueType(), vector.type().valueType());
+        TensorType resultType = new TensorType.Builder(valueType).dimension(matrix.type().dimensions().get(resultIndex)).build();
+        DimensionSizes resultSizes = new DimensionSizes.Builder(1).set(0, matrix.dimensionSizes().size(resultIndex)).build();
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(resultType, resultSizes);
+        if (summedIndex == 1) { // sum along each row
+            for (long row = 0; row < rows; row++) {
+                double sum = 0;
+                for (long column = 0; column < columns; column++)
+                    sum += matrix.get(row * columns + column) * vector.get(column);
+                builder.cellByDirectIndex(row, sum);
+            }
+        }
+        else { // sum along each column, accumulating row by row to read the matrix in storage order
+            double[] sums = new double[(int)columns];
+            for (long row = 0; row < rows; row++) {
+                double vectorValue = vector.get(row);
+                for (int column = 0; column < columns; column++)
+                    sums[column] += matrix.get(row * columns + column) * vectorValue;
+            }
+            for (int column = 0; column < columns; column++)
+                builder.cellByDirectIndex(column, sums[column]);
+        }
+        return builder.build();
+    }
+
     @Override
     public String toString(ToStringContext context) {
         return "matmul(" + argument1.toString(context) + ", " + argument2.toString(context) + ", " + dimension + ")";
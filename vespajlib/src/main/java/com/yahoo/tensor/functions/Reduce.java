@@ -2,6 +2,7 @@
 package com.yahoo.tensor.functions;
 
 import com.google.common.collect.ImmutableList;
+import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
@@ -60,13 +61,19 @@ public class Reduce extends PrimitiveTensorFunction {
         this.dimensions = ImmutableList.copyOf(dimensions);
     }
 
+    /**
+     * Returns the type resulting from reducing the given dimensions of the input type.
+     * Non-scalar results keep the value type of the input, while scalars are always doubles,
+     * as that is what reducing all dimensions produces.
+     */
     public static TensorType outputType(TensorType inputType, List<String> reduceDimensions) {
-        TensorType.Builder b = new TensorType.Builder();
+        TensorType.Builder b = new TensorType.Builder(inputType.valueType());
         for (TensorType.Dimension dimension : inputType.dimensions()) {
             if ( ! reduceDimensions.contains(dimension.name()))
                 b.dimension(dimension);
         }
-        return b.build();
+        TensorType type = b.build();
+        return type.dimensions().isEmpty() ? TensorType.empty : type;
     }
 
     public TensorFunction argument() { return argument; }
@@ -105,11 +112,7 @@ public class Reduce extends PrimitiveTensorFunction {
 
     private TensorType type(TensorType argumentType) {
         if (dimensions.isEmpty()) return TensorType.empty; // means reduce all
-        TensorType.Builder builder = new TensorType.Builder();
-        for (TensorType.Dimension dimension : argumentType.dimensions())
-            if ( ! dimensions.contains(dimension.name())) // keep
-                builder.dimension(dimension);
-        return builder.build();
+        return outputType(argumentType, dimensions);
     }
 
     @Override
@@ -121,13 +124,17 @@ public class Reduce extends PrimitiveTensorFunction {
 
         // Special case: Reduce all
         if (dimensions.isEmpty() || dimensions.size() == argument.type().dimensions().size())
-            if (argument.type().dimensions().size() == 1 && argument instanceof IndexedTensor)
-                return reduceIndexedVector((IndexedTensor)argument);
+            if (argument instanceof IndexedTensor)
+                return reduceAllIndexed((IndexedTensor)argument);
             else
                 return reduceAllGeneral(argument);
 
         TensorType reducedType = type(argument.type());
 
+        // Special case: Reduce the innermost dimension of a dense tensor, where the cells to reduce are adjacent
+        if (argument instanceof IndexedTensor && dimensions.size() == 1 && isInnermostDimension(dimensions.get(0), argument.type()))
+            return reduceInnermostIndexed((IndexedTensor)argument, reducedType);
+
         // Reduce cells
         Map<TensorAddress, ValueAggregator> aggregatingCells = new HashMap<>();
         for (Iterator<Tensor.Cell> i = argument.cellIterator(); i.hasNext(); ) {
@@ -163,13 +170,39 @@ public class Reduce extends PrimitiveTensorFunction {
         return Tensor.Builder.of(TensorType.empty).cell((valueAggregator.aggregatedValue())).build();
     }
 
-    private Tensor reduceIndexedVector(IndexedTensor argument) {
+    private Tensor reduceAllIndexed(IndexedTensor argument) {
         ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
-        for (int i = 0; i < argument.dimensionSizes().size(0); i++)
+        for (long i = 0; i < argument.size(); i++)
             valueAggregator.aggregate(argument.get(i));
         return Tensor.Builder.of(TensorType.empty).cell((valueAggregator.aggregatedValue())).build();
     }
 
+    private boolean isInnermostDimension(String dimension, TensorType type) {
+        List<TensorType.Dimension> dimensions = type.dimensions();
+        return dimensions.get(dimensions.size() - 1).name().equals(dimension);
+    }
+
+    /** Reduces each run of adjacent cells along the innermost dimension to one cell, without creating addresses */
+    private Tensor reduceInnermostIndexed(IndexedTensor argument, TensorType reducedType) {
+        DimensionSizes argumentSizes = argument.dimensionSizes();
+        DimensionSizes.Builder reducedSizes = new DimensionSizes.Builder(argumentSizes.dimensions() - 1);
+        for (int i = 0; i < reducedSizes.dimensions(); i++)
+            reducedSizes.set(i, argumentSizes.size(i));
+        long innerSize = argumentSizes.size(argumentSizes.dimensions() - 1);
+
+        IndexedTensor.BoundBuilder builder =
+                (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType, reducedSizes.build());
+        long reducedSize = innerSize == 0 ? 0 : argument.size() / innerSize;
+        for (long reducedIndex = 0; reducedIndex < reducedSize; reducedIndex++) {
+            ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
+            long start = reducedIndex * innerSize;
+            for (long i = start; i < start + innerSize; i++)
+                valueAggregator.aggregate(argument.get(i));
+            builder.cellByDirectIndex(reducedIndex, valueAggregator.aggregatedValue());
+        }
+        return builder.build();
+    }
+
     private static abstract class ValueAggregator {
 
         private static ValueAggregator ofType(Aggregator aggregator) {
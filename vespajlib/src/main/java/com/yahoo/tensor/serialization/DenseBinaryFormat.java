@@ -7,27 +7,39 @@ import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
-import java.util.Iterator;
 import java.util.Optional;
 
 /**
  * Implementation of a dense binary format for a tensor on the form:
  *
  * Sorted dimensions = num_dimensions [dimension_str_len dimension_str_bytes dimension_size_int]*
- * Cell_values = [double, double, double, ...]*
+ * Cell_values = [value, value, value, ...]*
  * where values are encoded in order of increasing indexes in each dimension, increasing
  * indexes of later dimensions in the dimension type before earlier.
+ * Values are doubles, or floats if this is created with the float serialization value type.
  *
  * @author bratseth
  */
 public class DenseBinaryFormat implements BinaryFormat {
 
+    private final TensorType.Value serializationValueType;
+
+    /** Creates this format writing and reading cell values as doubles */
+    public DenseBinaryFormat() {
+        this(TensorType.Value.DOUBLE);
+    }
+
+    /** Creates this format writing and reading cell values of the given type */
+    public DenseBinaryFormat(TensorType.Value serializationValueType) {
+        this.serializationValueType = serializationValueType;
+    }
+
     @Override
     public void encode(GrowableByteBuffer buffer, Tensor tensor) {
         if ( ! ( tensor instanceof IndexedTensor))
             throw new RuntimeException("The dense format is only supported for indexed tensors");
         encodeDimensions(buffer, (IndexedTensor)tensor);
-        encodeCells(buffer, tensor);
+        encodeCells(buffer, (IndexedTensor)tensor);
     }
 
     private void encodeDimensions(GrowableByteBuffer buffer, IndexedTensor tensor) {
@@ -38,10 +50,9 @@ public class DenseBinaryFormat implements BinaryFormat {
         }
     }
 
-    private void encodeCells(GrowableByteBuffer buffer, Tensor tensor) {
-        Iterator<Double> i = tensor.valueIterator();
-        while (i.hasNext())
-            buffer.putDouble(i.next());
+    private void encodeCells(GrowableByteBuffer buffer, IndexedTensor tensor) {
+        for (long i = 0; i < tensor.size(); i++)
+            encodeValue(tensor.get(i), buffer);
     }
 
     @Override
@@ -67,7 +78,7 @@ public class DenseBinaryFormat implements BinaryFormat {
 
     private TensorType decodeType(GrowableByteBuffer buffer) {
         int dimensionCount = buffer.getInt1_4Bytes();
-        TensorType.Builder builder = new TensorType.Builder();
+        TensorType.Builder builder = new TensorType.Builder(serializationValueType);
         for (int i = 0; i < dimensionCount; i++)
             builder.indexed(buffer.getUtf8String(), buffer.getInt1_4Bytes()); // XXX: Size truncation
         return builder.build();
@@ -83,7 +94,21 @@ public class DenseBinaryFormat implements BinaryFormat {
 
     private void decodeCells(DimensionSizes sizes, GrowableByteBuffer buffer, IndexedTensor.BoundBuilder builder) {
         for (long i = 0; i < sizes.totalSize(); i++)
-            builder.cellByDirectIndex(i, buffer.getDouble());
+            builder.cellByDirectIndex(i, decodeValue(buffer));
+    }
+
+    private void encodeValue(double value, GrowableByteBuffer buffer) {
+        switch (serializationValueType) {
+            case FLOAT: buffer.putFloat((float)value); break;
+            default: buffer.putDouble(value);
+        }
+    }
+
+    private double decodeValue(GrowableByteBuffer buffer) {
+        switch (serializationValueType) {
+            case FLOAT: return buffer.getFloat();
+            default: return buffer.getDouble();
+        }
     }
 
 }
@@ -16,11 +16,23 @@ import java.util.stream.Collectors;
 /**
  * Implementation of a mixed binary format for a tensor.
  * See eval/src/vespa/eval/tensor/serialization/format.txt for format.
+ * Cell values are doubles, or floats if this is created with the float serialization value type.
  *
  * @author lesters
  */
 class MixedBinaryFormat implements BinaryFormat {
 
+    private final TensorType.Value serializationValueType;
+
+    MixedBinaryFormat() {
+        this(TensorType.Value.DOUBLE);
+    }
+
+    /** Creates this format writing and reading cell values of the given type */
+    MixedBinaryFormat(TensorType.Value serializationValueType) {
+        this.serializationValueType = serializationValueType;
+    }
+
     @Override
     public void encode(GrowableByteBuffer buffer, Tensor tensor) {
         if ( ! ( tensor instanceof MixedTensor))
@@ -63,9 +75,9 @@ class MixedBinaryFormat implements BinaryFormat {
                     new IllegalStateException("Dimension not found in address."));
                 buffer.putUtf8String(cell.getKey().label(index));
             }
-            buffer.putDouble(cell.getValue());
+            encodeValue(cell.getValue(), buffer);
             for (int i = 1; i < denseSubspaceSize; ++i ) {
-                buffer.putDouble(cellIterator.next().getValue());
+                encodeValue(cellIterator.next().getValue(), buffer);
             }
         }
     }
@@ -89,7 +101,7 @@ class MixedBinaryFormat implements BinaryFormat {
     }
 
     private TensorType decodeType(GrowableByteBuffer buffer) {
-        TensorType.Builder builder = new TensorType.Builder();
+        TensorType.Builder builder = new TensorType.Builder(serializationValueType);
         int numMappedDimensions = buffer.getInt1_4Bytes();
         for (int i = 0; i < numMappedDimensions; ++i) {
             builder.mapped(buffer.getUtf8String());
@@ -118,10 +130,24 @@ class MixedBinaryFormat implements BinaryFormat {
                 sparseAddress.add(sparseDimension.name(), buffer.getUtf8String());
             }
             for (long denseOffset = 0; denseOffset < denseSubspaceSize; denseOffset++) {
-                denseSubspace[(int)denseOffset] = buffer.getDouble();
+                denseSubspace[(int)denseOffset] = decodeValue(buffer);
             }
             builder.block(sparseAddress.build(), denseSubspace);
         }
     }
 
+    private void encodeValue(double value, GrowableByteBuffer buffer) {
+        switch (serializationValueType) {
+            case FLOAT: buffer.putFloat((float)value); break;
+            default: buffer.putDouble(value);
+        }
+    }
+
+    private double decodeValue(GrowableByteBuffer buffer) {
+        switch (serializationValueType) {
+            case FLOAT: return buffer.getFloat();
+            default: return buffer.getDouble();
+        }
+    }
+
 }
@@ -16,6 +16,10 @@ import java.util.Optional;
  * The actual binary format used is not a concern for the client and
  * is hidden in this class and in the binary data.
  *
+ * Tensors with double values are written in the formats without a cell type, which all readers understand.
+ * Tensors with other value types are written in the format variants followed by the id of the cell value type,
+ * with the cells written in that type.
+ *
  * @author geirst
  */
 public class TypedBinaryFormat {
@@ -23,20 +27,24 @@ public class TypedBinaryFormat {
     private static final int SPARSE_BINARY_FORMAT_TYPE = 1;
     private static final int DENSE_BINARY_FORMAT_TYPE = 2;
     private static final int MIXED_BINARY_FORMAT_TYPE = 3;
+    private static final int SPARSE_BINARY_FORMAT_WITH_CELLTYPE = 5;
+    private static final int DENSE_BINARY_FORMAT_WITH_CELLTYPE = 6;
+    private static final int MIXED_BINARY_FORMAT_WITH_CELLTYPE = 7;
 
     public static byte[] encode(Tensor tensor) {
         GrowableByteBuffer buffer = new GrowableByteBuffer();
+        TensorType.Value valueType = tensor.type().valueType();
         if (tensor instanceof MixedTensor) {
-            buffer.putInt1_4Bytes(MIXED_BINARY_FORMAT_TYPE);
-            new MixedBinaryFormat().encode(buffer, tensor);
+            encodeFormatType(MIXED_BINARY_FORMAT_TYPE, MIXED_BINARY_FORMAT_WITH_CELLTYPE, valueType, buffer);
+            new MixedBinaryFormat(valueType).encode(buffer, tensor);
         }
         else if (tensor instanceof IndexedTensor) {
-            buffer.putInt1_4Bytes(DENSE_BINARY_FORMAT_TYPE);
-            new DenseBinaryFormat().encode(buffer, tensor);
+            encodeFormatType(DENSE_BINARY_FORMAT_TYPE, DENSE_BINARY_FORMAT_WITH_CELLTYPE, valueType, buffer);
+            new DenseBinaryFormat(valueType).encode(buffer, tensor);
         }
         else {
-            buffer.putInt1_4Bytes(SPARSE_BINARY_FORMAT_TYPE);
-            new SparseBinaryFormat().encode(buffer, tensor);
+            encodeFormatType(SPARSE_BINARY_FORMAT_TYPE, SPARSE_BINARY_FORMAT_WITH_CELLTYPE, valueType, buffer);
+            new SparseBinaryFormat(valueType).encode(buffer, tensor);
         }
         buffer.flip();
         byte[] result = new byte[buffer.remaining()];
@@ -58,8 +66,26 @@ public class TypedBinaryFormat {
             case MIXED_BINARY_FORMAT_TYPE: return new MixedBinaryFormat().decode(type, buffer);
             case SPARSE_BINARY_FORMAT_TYPE: return new SparseBinaryFormat().decode(type, buffer);
             case DENSE_BINARY_FORMAT_TYPE: return new DenseBinaryFormat().decode(type, buffer);
+            case MIXED_BINARY_FORMAT_WITH_CELLTYPE: return new MixedBinaryFormat(decodeValueType(buffer)).decode(type, buffer);
+            case SPARSE_BINARY_FORMAT_WITH_CELLTYPE: return new SparseBinaryFormat(decodeValueType(buffer)).decode(type, buffer);
+            case DENSE_BINARY_FORMAT_WITH_CELLTYPE: return new DenseBinaryFormat(decodeValueType(buffer)).decode(type, buffer);
             default: throw new IllegalArgumentException("Binary format type " + formatType + " is unknown");
         }
     }
 
+    private static void encodeFormatType(int formatType, int formatWithCellType, TensorType.Value valueType,
+                                         GrowableByteBuffer buffer) {
+        if (valueType == TensorType.Value.DOUBLE) {
+            buffer.putInt1_4Bytes(formatType);
+        }
+        else {
+            buffer.putInt1_4Bytes(formatWithCellType);
+            buffer.putInt1_4Bytes(valueType.id());
+        }
+    }
+
+    private static TensorType.Value decodeValueType(GrowableByteBuffer buffer) {
+        return TensorType.Value.fromId(buffer.getInt1_4Bytes());
+    }
+
 }
@@ -22,4 +22,19 @@ public class LZ4CompressorTest {
         assertTrue(Arrays.equals(decompressed, Arrays.copyOf(toCompress, compressBytes)));
     }
 
+    @Test
+    public void can_decompress_into_reused_buffer() {
+        byte[] toCompress = "abcabcabcabcabcabcabcabcabcabcabcabcabc".getBytes();
+        Compressor compressor = new Compressor();
+        Compressor.Compression compressed = compressor.compress(CompressionType.LZ4, toCompress, Optional.empty());
+        assertEquals(CompressionType.LZ4, compressed.type());
+
+        byte[] buffer = new byte[100];
+        for (int i = 0; i < 2; i++) {
+            int compressedSize = compressor.decompress(compressed.type(), compressed.data(), 0, toCompress.length, buffer);
+            assertEquals(compressed.data().length, compressedSize);
+            assertTrue(Arrays.equals(toCompress, Arrays.copyOf(buffer, toCompress.length)));
+        }
+    }
+
 }
@@ -3,9 +3,13 @@ package com.yahoo.slime;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.hamcrest.CoreMatchers.*;
 
 import static com.yahoo.slime.BinaryFormat.*;
@@ -564,4 +568,71 @@ public class BinaryFormatTestCase {
         assertThat(c.field("f").asData(), is(expd));
         assertThat(c.entry(5).valid(), is(false)); // not ARRAY
     }
+
+    @Test
+    public void testEncodingNestedValueAsRoot() {
+        System.out.println("test encoding a nested value as the root of a new slime");
+        Slime slime = new Slime();
+        Cursor docsums = slime.setObject().setArray("docsums");
+        docsums.addObject().setLong("foo", 1);
+        Cursor docsum = docsums.addObject();
+        docsum.setLong("foo", 2);
+        docsum.setString("bar", "string");
+
+        Slime decoded = BinaryFormat.decode(BinaryFormat.encode(slime, docsum));
+        assertThat(decoded.get().type(), is(Type.OBJECT));
+        assertThat(decoded.get().children(), is(2));
+        assertThat(decoded.get().field("foo").asLong(), is(2L));
+        assertThat(decoded.get().field("bar").asString(), is("string"));
+    }
+
+    @Test
+    public void testWriterReusesBuffer() {
+        Slime small = new Slime();
+        small.setObject().setLong("foo", 1);
+        Slime large = new Slime();
+        Cursor array = large.setArray();
+        for (int i = 0; i < 100; i++)
+            array.addString("a string value");
+
+        byte[] buffer = new byte[64];
+        BinaryWriter writer = new BinaryWriter(buffer);
+        int length = writer.write(small);
+        assertThat(writer.buffer(), sameInstance(buffer));
+        assertThat(writer.length(), is(length));
+        assertThat(writer.toArray(), is(BinaryFormat.encode(small)));
+
+        writer.write(large);
+        assertThat(writer.toArray(), is(BinaryFormat.encode(large)));
+        byte[] grownBuffer = writer.buffer();
+        assertTrue(grownBuffer.length > 64);
+
+        writer.write(small);
+        assertThat(writer.buffer(), sameInstance(grownBuffer));
+        ByteBuffer target = ByteBuffer.allocate(100);
+        writer.writeTo(target);
+        assertThat(target.position(), is(length));
+        assertThat(Arrays.copyOf(target.array(), length), is(BinaryFormat.encode(small)));
+    }
+
+    @Test
+    public void testDataRange() {
+        byte[] array = new byte[] { 0, 1, 2, 3, 4, 5 };
+        Slime range = new Slime();
+        range.setObject().setData("data", array, 1, 4);
+        Slime copy = new Slime();
+        copy.setObject().setData("data", new byte[] { 1, 2, 3, 4 });
+
+        assertThat(BinaryFormat.encode(range), is(BinaryFormat.encode(copy)));
+        assertThat(range.get().field("data").asData(), is(new byte[] { 1, 2, 3, 4 }));
+        assertThat(BinaryFormat.decode(BinaryFormat.encode(range)).get().field("data").asData(),
+                   is(new byte[] { 1, 2, 3, 4 }));
+        try {
+            range.get().setData("other", array, 3, 4);
+            fail("Expected exception");
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals("Range [3, 7) is outside data of length 6", e.getMessage());
+        }
+    }
+
 }
@@ -0,0 +1,142 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import com.yahoo.text.Utf8;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.yahoo.slime.BinaryReader.Token;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryReaderTestCase {
+
+    private static Slime createSlime() {
+        Slime slime = new Slime();
+        Cursor root = slime.setObject();
+        root.setNix("nix");
+        root.setBool("bool", true);
+        root.setLong("long", -1234567890123L);
+        root.setDouble("double", 3.25);
+        root.setString("string", "blåbær");
+        root.setData("data", new byte[] { 1, 2, 3 });
+        Cursor array = root.setArray("array");
+        array.addLong(1);
+        array.addObject().setString("string", "nested");
+        array.addArray();
+        root.setLong("last", 7);
+        return slime;
+    }
+
+    @Test
+    public void testReadingAllValues() {
+        BinaryReader reader = new BinaryReader(BinaryFormat.encode(createSlime()));
+        assertNull(reader.token());
+        assertEquals(Token.START_OBJECT, reader.next());
+        assertNull(reader.fieldName());
+
+        assertEquals(Token.NIX, reader.next());
+        assertEquals("nix", reader.fieldName());
+        assertEquals(Token.BOOL, reader.next());
+        assertEquals("bool", reader.fieldName());
+        assertTrue(reader.asBool());
+        assertEquals(Token.LONG, reader.next());
+        assertEquals(-1234567890123L, reader.asLong());
+        assertEquals(Token.DOUBLE, reader.next());
+        assertEquals(3.25, reader.asDouble(), 0);
+        assertEquals(3, reader.asLong());
+        assertEquals(Token.STRING, reader.next());
+        assertEquals("blåbær", reader.asString());
+        assertEquals("blåbær", Utf8.toString(reader.data(), reader.valueOffset(), reader.valueLength()));
+        assertEquals(Token.DATA, reader.next());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, reader.asData());
+
+        assertEquals(Token.START_ARRAY, reader.next());
+        assertEquals("array", reader.fieldName());
+        assertEquals(2, reader.depth());
+        assertEquals(Token.LONG, reader.next());
+        assertNull(reader.fieldName());
+        assertEquals(1, reader.asLong());
+        assertEquals(Token.START_OBJECT, reader.next());
+        assertEquals(Token.STRING, reader.next());
+        assertEquals("string", reader.fieldName());
+        assertEquals("nested", reader.asString());
+        assertEquals(Token.END_OBJECT, reader.next());
+        assertEquals(Token.START_ARRAY, reader.next());
+        assertEquals(Token.END_ARRAY, reader.next());
+        assertEquals(Token.END_ARRAY, reader.next());
+
+        assertEquals(Token.LONG, reader.next());
+        assertEquals("last", reader.fieldName());
+        assertEquals(7, reader.asLong());
+        assertEquals(Token.END_OBJECT, reader.next());
+        assertEquals(0, reader.depth());
+        assertEquals(Token.END, reader.next());
+        assertEquals(Token.END, reader.next());
+    }
+
+    @Test
+    public void testSkipping() {
+        BinaryReader reader = new BinaryReader(BinaryFormat.encode(createSlime()));
+        reader.next();
+        while (reader.next() != Token.START_ARRAY) { }
+        assertEquals(Token.END_ARRAY, reader.skipChildren());
+        assertEquals(Token.LONG, reader.next());
+        assertEquals(7, reader.asLong());
+        assertEquals(Token.LONG, reader.skipChildren());
+    }
+
+    @Test
+    public void testReuseAndByteBuffers() {
+        byte[] data = BinaryFormat.encode(createSlime());
+        byte[] padded = new byte[data.length + 10];
+        System.arraycopy(data, 0, padded, 5, data.length);
+
+        BinaryReader reader = new BinaryReader();
+        reader.reset(padded, 5, data.length);
+        assertEquals(countTokens(new BinaryReader(data)), countTokens(reader));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data);
+        direct.flip();
+        reader.reset(direct);
+        assertEquals(countTokens(new BinaryReader(data)), countTokens(reader));
+        assertEquals(0, direct.position());
+
+        Slime other = new Slime();
+        other.setArray().addString("other");
+        reader.reset(ByteBuffer.wrap(BinaryFormat.encode(other)));
+        assertEquals(0, reader.symbols());
+        assertEquals(Token.START_ARRAY, reader.next());
+        assertEquals(Token.STRING, reader.next());
+        assertEquals("other", reader.asString());
+        assertFalse(reader.asBool());
+    }
+
+    @Test
+    public void testTruncatedData() {
+        byte[] data = BinaryFormat.encode(createSlime());
+        BinaryReader reader = new BinaryReader(Arrays.copyOf(data, data.length - 1));
+        try {
+            while (reader.next() != Token.END) { }
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException expected) {
+            assertEquals("Unexpected end of data at position " + (data.length - 1), expected.getMessage());
+        }
+    }
+
+    private int countTokens(BinaryReader reader) {
+        int count = 0;
+        while (reader.next() != Token.END)
+            count++;
+        return count;
+    }
+
+}
@@ -0,0 +1,103 @@
+// Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryViewTestCase {
+
+    private static Slime createSlime() {
+        Slime slime = new Slime();
+        Cursor root = slime.setObject();
+        root.setNix("nix");
+        root.setBool("bool", true);
+        root.setLong("long", -1234567890123L);
+        root.setDouble("double", 3.25);
+        root.setString("string", "blåbær");
+        root.setData("data", new byte[] { 1, 2, 3 });
+        Cursor array = root.setArray("array");
+        array.addLong(1);
+        Cursor nested = array.addObject();
+        nested.setString("string", "nested");
+        nested.setArray("empty");
+        array.addArray().addDouble(0.5);
+        root.setLong("last", 7);
+        return slime;
+    }
+
+    @Test
+    public void testInspectingAllValues() {
+        Inspector root = BinaryView.inspect(BinaryFormat.encode(createSlime()));
+        assertEquals(Type.OBJECT, root.type());
+        assertEquals(8, root.fields());
+        assertEquals(0, root.entries());
+
+        assertEquals(Type.NIX, root.field("nix").type());
+        assertTrue(root.field("nix").valid());
+        assertTrue(root.field("bool").asBool());
+        assertEquals(-1234567890123L, root.field("long").asLong());
+        assertEquals(3.25, root.field("double").asDouble(), 0);
+        assertEquals(3, root.field("double").asLong());
+        assertEquals("blåbær", root.field("string").asString());
+        assertArrayEquals(Utf8Codec.encode("blåbær"), root.field("string").asUtf8());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, root.field("data").asData());
+        assertEquals(7, root.field("last").asLong());
+
+        Inspector array = root.field("array");
+        assertEquals(3, array.entries());
+        assertEquals(1, array.entry(0).asLong());
+        assertEquals("nested", array.entry(1).field("string").asString());
+        assertEquals(0, array.entry(1).field("empty").entries());
+        assertEquals(0.5, array.entry(2).entry(0).asDouble(), 0);
+
+        assertFalse(root.field("nonexisting").valid());
+        assertFalse(array.entry(3).valid());
+        assertFalse(array.field("string").valid());
+        assertFalse(root.entry(0).valid());
+    }
+
+    @Test
+    public void testViewEqualsDecodedSlime() {
+        Slime slime = createSlime();
+        byte[] padded = new byte[BinaryFormat.encode(slime).length + 4];
+        System.arraycopy(BinaryFormat.encode(slime), 0, padded, 2, padded.length - 4);
+        Inspector root = BinaryView.inspect(padded, 2, padded.length - 4);
+        assertEquals(slime.get().toString(), root.toString());
+
+        List<String> names = new ArrayList<>();
+        root.traverse((ObjectTraverser) (name, value) -> names.add(name));
+        assertEquals(8, names.size());
+        assertEquals("nix", names.get(0));
+        assertEquals("last", names.get(7));
+        root.traverse((ObjectSymbolTraverser) (symbol, value) ->
+                assertEquals(slime.get().field(slime.inspect(symbol)).toString(), value.toString()));
+    }
+
+    @Test
+    public void testEncodingAValueCopiesItsBinaryData() {
+        Slime slime = createSlime();
+        Inspector root = BinaryView.inspect(BinaryFormat.encode(slime));
+
+        Inspector nested = root.field("array").entry(1);
+        byte[] encoded = BinaryView.encode(nested);
+        assertEquals(slime.get().field("array").entry(1).toString(), BinaryFormat.decode(encoded).get().toString());
+        assertEquals(nested.toString(), BinaryView.inspect(encoded).toString());
+
+        assertEquals(slime.get().toString(), BinaryFormat.decode(BinaryView.encode(root)).get().toString());
+        assertEquals("7", BinaryFormat.decode(BinaryView.encode(root.field("last"))).get().toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInspectingInvalidData() {
+        byte[] data = BinaryFormat.encode(createSlime());
+        BinaryView.inspect(data, 0, data.length - 1);
+    }
+
+}
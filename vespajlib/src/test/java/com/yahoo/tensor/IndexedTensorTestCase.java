@@ -42,6 +42,23 @@ public class IndexedTensorTestCase {
         assertEquals(singleValue, singleValueFromString);
     }
     
+    @Test
+    public void testFloatValues() {
+        Tensor bound = Tensor.from("tensor<float>(x[3]):{{x:0}:1.1,{x:1}:2.2,{x:2}:3.3}");
+        assertEquals(TensorType.Value.FLOAT, bound.type().valueType());
+        assertEquals((float)2.2, ((IndexedTensor)bound).get(1), 0.0);
+
+        Tensor unbound = Tensor.from("tensor<float>(x[]):{{x:0}:1.1,{x:1}:2.2,{x:2}:3.3}");
+        assertEquals((float)3.3, ((IndexedTensor)unbound).get(2), 0.0);
+
+        Tensor doubles = Tensor.from("tensor(x[3]):{{x:0}:1,{x:1}:2,{x:2}:3}");
+        assertEquals("Float and float gives float",
+                     TensorType.Value.FLOAT, bound.multiply(bound).type().valueType());
+        assertEquals("Float and double gives double",
+                     TensorType.Value.DOUBLE, bound.multiply(doubles).type().valueType());
+        assertEquals(Tensor.from("tensor(x[3]):{{x:0}:1.1,{x:1}:4.4,{x:2}:9.9}"), bound.multiply(doubles));
+    }
+
     @Test
     public void testBoundBuilding() {
         TensorType type = new TensorType.Builder().indexed("v", vSize)
@@ -106,6 +106,16 @@ public class TensorTestCase {
         assertEquals(Tensor.from("{ {x:1}:0, {x:3}:1, {x:9}:0 }"), Tensor.from("{ {x:1}:1, {x:3}:5, {x:9}:3 }").argmax("x"));
     }
 
+    @Test
+    public void testIndexedReduce() {
+        Tensor tensor = Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:1,{x:0,y:1}:2,{x:0,y:2}:3,{x:1,y:0}:4,{x:1,y:1}:5,{x:1,y:2}:6}");
+        assertEquals(Tensor.from("{21}"), tensor.sum());
+        assertEquals(Tensor.from("tensor(x[2]):{{x:0}:6,{x:1}:15}"), tensor.sum("y"));
+        assertEquals(Tensor.from("tensor(y[3]):{{y:0}:5,{y:1}:7,{y:2}:9}"), tensor.sum("x"));
+        assertEquals(Tensor.from("tensor(x[2]):{{x:0}:3,{x:1}:6}"), tensor.reduce(Reduce.Aggregator.max, "y"));
+        assertEquals(Tensor.from("tensor(x[2]):{{x:0}:2,{x:1}:5}"), tensor.reduce(Reduce.Aggregator.avg, "y"));
+    }
+
     /** Test the same computation made in various ways which are implemented with special-case optimizations */
     @Test
     public void testOptimizedComputation() {
@@ -45,6 +45,20 @@ public class TensorTypeTestCase {
         assertTensorType("tensor(baR_09{})");
     }
 
+    @Test
+    public void requireThatValueTypesCanBeSpecified() {
+        assertTensorType("tensor<float>(x[5])");
+        assertTensorType("tensor<float>(x{},y[])");
+        assertTensorType("tensor(x[5])", "tensor<double>(x[5])");
+        assertEquals(TensorType.Value.FLOAT, TensorType.fromSpec("tensor<float>(x[5])").valueType());
+        assertEquals(TensorType.Value.DOUBLE, TensorType.fromSpec("tensor(x[5])").valueType());
+        assertFalse(TensorType.fromSpec("tensor<float>(x[5])").equals(TensorType.fromSpec("tensor(x[5])")));
+        assertTrue(TensorType.fromSpec("tensor<float>(x[5])").isAssignableTo(TensorType.fromSpec("tensor(x[])")));
+        assertEquals(TensorType.fromSpec("tensor(x[5],y[3])"),
+                     new TensorType.Builder(TensorType.fromSpec("tensor<float>(x[5])"), TensorType.fromSpec("tensor(y[3])")).build());
+        assertIllegalTensorType("tensor<int4>(x[5])", "Unknown tensor value type 'int4'");
+    }
+
     @Test
     public void requireThatIndexedBoundDimensionMustHaveNonZeroSize() {
         assertIllegalTensorType("tensor(x[0])", "Size of bound dimension 'x' must be at least 1");
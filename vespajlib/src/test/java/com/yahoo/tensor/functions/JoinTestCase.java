@@ -35,6 +35,26 @@ public class JoinTestCase {
                      t2.divide(t1));
     }
 
+    /** Test the optimization for joining indexed tensors with the same dimensions and sizes */
+    @Test
+    public void testJoinIndexedSingleSpace() {
+        Tensor t1 = Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:1,{x:0,y:1}:2,{x:0,y:2}:3,{x:1,y:0}:4,{x:1,y:1}:5,{x:1,y:2}:6}");
+        Tensor t2 = Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:6,{x:0,y:1}:5,{x:0,y:2}:4,{x:1,y:0}:3,{x:1,y:1}:2,{x:1,y:2}:1}");
+        assertEquals(Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:-5,{x:0,y:1}:-3,{x:0,y:2}:-1,{x:1,y:0}:1,{x:1,y:1}:3,{x:1,y:2}:5}"),
+                     t1.subtract(t2));
+    }
+
+    /** Test the optimization for joining a subspace which is the innermost dimensions of the other tensor */
+    @Test
+    public void testJoinIndexedInnermostSubspace() {
+        Tensor matrix = Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:1,{x:0,y:1}:2,{x:0,y:2}:3,{x:1,y:0}:4,{x:1,y:1}:5,{x:1,y:2}:6}");
+        Tensor vector = Tensor.from("tensor(y[3]):{{y:0}:1,{y:1}:2,{y:2}:3}");
+        assertEquals(Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:0,{x:0,y:1}:0,{x:0,y:2}:0,{x:1,y:0}:3,{x:1,y:1}:3,{x:1,y:2}:3}"),
+                     matrix.subtract(vector));
+        assertEquals(Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:0,{x:0,y:1}:0,{x:0,y:2}:0,{x:1,y:0}:-3,{x:1,y:1}:-3,{x:1,y:2}:-3}"),
+                     vector.subtract(matrix));
+    }
+
     @Test
     public void testGeneralJoin() {
         assertEquals(Tensor.from("tensor(x[],y[]):{ {x:0,y:0}:1, {x:1,y:0}:2, {x:2,y:0}:3 }"),
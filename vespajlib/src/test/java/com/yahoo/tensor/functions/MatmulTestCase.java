@@ -95,4 +95,26 @@ public class MatmulTestCase {
         assertEquals(r, result);
     }
 
+    @Test
+    public void testDotProduct() {
+        Tensor a = Tensor.from("tensor(x[3]):{{x:0}:1,{x:1}:2,{x:2}:3}");
+        Tensor b = Tensor.from("tensor(x[3]):{{x:0}:4,{x:1}:5,{x:2}:6}");
+        assertEquals(Tensor.from("{32}"), a.matmul(b, "x"));
+    }
+
+    @Test
+    public void testMatrixVectorProduct() {
+        Tensor matrix = Tensor.from("tensor(x[2],y[3]):{{x:0,y:0}:1,{x:0,y:1}:2,{x:0,y:2}:3,{x:1,y:0}:4,{x:1,y:1}:5,{x:1,y:2}:6}");
+        Tensor yVector = Tensor.from("tensor(y[3]):{{y:0}:1,{y:1}:0,{y:2}:2}");
+        Tensor xVector = Tensor.from("tensor(x[2]):{{x:0}:1,{x:1}:3}");
+
+        Tensor summedOverY = Tensor.from("tensor(x[2]):{{x:0}:7,{x:1}:16}");
+        assertEquals(summedOverY, matrix.matmul(yVector, "y"));
+        assertEquals(summedOverY, yVector.matmul(matrix, "y"));
+
+        Tensor summedOverX = Tensor.from("tensor(y[3]):{{y:0}:13,{y:1}:17,{y:2}:21}");
+        assertEquals(summedOverX, matrix.matmul(xVector, "x"));
+        assertEquals(summedOverX, xVector.matmul(matrix, "x"));
+    }
+
 }
@@ -1,7 +1,9 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor.functions;
 
+import com.google.common.collect.ImmutableList;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 
@@ -22,6 +24,29 @@ public class TensorFunctionTestCase {
                          new Argmax(new ConstantTensor("{ {x:1}:1, {x:3}:5, {x:9}:3 }"), "x"));
     }
 
+    @Test
+    public void testTypeOfEvaluatedTensorIsTheResolvedType() {
+        TensorFunction floats = new ConstantTensor("tensor<float>(x[2],y[3]):{{x:0,y:0}:1,{x:0,y:1}:2,{x:0,y:2}:3,{x:1,y:0}:4,{x:1,y:1}:5,{x:1,y:2}:6}");
+        TensorFunction floatVector = new ConstantTensor("tensor<float>(y[3]):{{y:0}:1,{y:1}:2,{y:2}:3}");
+        TensorFunction doubleVector = new ConstantTensor("tensor(y[3]):{{y:0}:1,{y:1}:2,{y:2}:3}");
+        assertTypeOfEvaluated("tensor<float>(x[2])", new Reduce(floats, Reduce.Aggregator.sum, "y"));
+        assertTypeOfEvaluated("tensor<float>(y[3])", new Reduce(floats, Reduce.Aggregator.sum, "x"));
+        assertTypeOfEvaluated("tensor()", new Reduce(floats, Reduce.Aggregator.sum));
+        assertTypeOfEvaluated("tensor()", new Reduce(floats, Reduce.Aggregator.max, ImmutableList.of("x", "y")));
+        assertTypeOfEvaluated("tensor()", new Reduce(floatVector, Reduce.Aggregator.sum, "y"));
+        assertTypeOfEvaluated("tensor()", new Matmul(floatVector, floatVector, "y"));
+        assertTypeOfEvaluated("tensor<float>(x[2])", new Matmul(floats, floatVector, "y"));
+        assertTypeOfEvaluated("tensor(x[2])", new Matmul(floats, doubleVector, "y"));
+        assertEquals(TensorType.fromSpec("tensor()"),
+                     Matmul.outputType(TensorType.fromSpec("tensor<float>(y[3])"), TensorType.fromSpec("tensor<float>(y[3])"), "y"));
+    }
+
+    private void assertTypeOfEvaluated(String expectedType, TensorFunction function) {
+        MapEvaluationContext context = new MapEvaluationContext();
+        assertEquals(TensorType.fromSpec(expectedType), function.type(context));
+        assertEquals(TensorType.fromSpec(expectedType), function.evaluate(context).type());
+    }
+
     private void assertTranslated(String expectedTranslation, TensorFunction inputFunction) {
         assertEquals(expectedTranslation, inputFunction.toPrimitive().toString());
     }
@@ -28,6 +28,23 @@ public class DenseBinaryFormatTestCase {
         assertSerialization("tensor(x[1],y[2],z[3]):{{y:0,x:0,z:0}:2.0}");
     }
 
+    @Test
+    public void testFloatSerialization() {
+        assertSerialization("tensor<float>(x[],y[]):{{x:0,y:0}:2.5, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
+        assertSerialization(Tensor.from("tensor<float>(x[2]):{{x:0}:2.5,{x:1}:3.0}"), TensorType.fromSpec("tensor<float>(x[])"));
+        assertSerialization(Tensor.from("tensor<float>(x[2]):{{x:0}:2.5,{x:1}:3.0}"), TensorType.fromSpec("tensor(x[2])"));
+
+        byte[] encodedTensor = new byte[]{6, // binary format type with cell type
+                                          1, // float cell type
+                                          1, // dimension count
+                                          1, (byte) 'x', 2, // dimension x with size
+                                          64, 0, 0, 0, // value 1
+                                          64, 64, 0, 0  // value 2
+        };
+        assertEquals(Arrays.toString(encodedTensor),
+                     Arrays.toString(TypedBinaryFormat.encode(Tensor.from("tensor<float>(x[2]):{{x:0}:2.0,{x:1}:3.0}"))));
+    }
+
     @Test
     public void testSerializationToSeparateType() {
         assertSerialization(Tensor.from("tensor(x[1],y[1]):{{x:0,y:0}:2.0}"), TensorType.fromSpec("tensor(x[],y[])"));
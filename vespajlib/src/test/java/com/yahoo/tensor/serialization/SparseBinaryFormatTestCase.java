@@ -32,6 +32,11 @@ public class SparseBinaryFormatTestCase {
         assertSerialization("tensor(x{},y{},z{}):{{y:0,x:0,z:3}:2.0,{y:1,x:0,z:6}:3.0}");
     }
 
+    @Test
+    public void testFloatSerialization() {
+        assertSerialization("tensor<float>(x{},y{}):{{x:0,y:1}:2.5,{x:1,y:4}:3.0}");
+    }
+
     @Test
     public void testSerializationToSeparateType() {
         try {